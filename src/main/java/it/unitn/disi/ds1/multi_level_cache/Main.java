@@ -1,11 +1,14 @@
 package it.unitn.disi.ds1.multi_level_cache;
 
 import akka.actor.ActorRef;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
 import it.unitn.disi.ds1.multi_level_cache.environment.ActorEnvironment;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.CacheBehaviourConfig;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.Logger;
+import it.unitn.disi.ds1.multi_level_cache.utils.ZipfGenerator;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 
 public class Main {
@@ -22,12 +25,17 @@ public class Main {
      * number of clients
      */
     private static final Integer numberOfClients = 2;
+    /**
+     * optional features of all nodes, enable them by chaining the with-methods, e.g.
+     * .withHedgeConfig(HedgeConfig.percentile(0.95, 500, 0.1))
+     */
+    private static final NodeConfig nodeConfig = NodeConfig.defaults();
 
     public static void main(String[] args) throws InterruptedException {
         Logger.printHeader();
 
         ActorEnvironment actorEnvironment = new ActorEnvironment(
-                "Multi-Level-Cache", numberOfL1Caches, numberOfL2Caches, numberOfClients);
+                "Multi-Level-Cache", numberOfL1Caches, numberOfL2Caches, numberOfClients, nodeConfig);
 
         try {
             ActorRef firstClient = actorEnvironment.getClient(0).orElseThrow();
@@ -158,6 +166,179 @@ public class Main {
             Thread.sleep(2000);
             actorEnvironment.makeClientRead(secondClient, l212, 5);*/
 
+            /*
+            STALE READ FROM A L2 THAT HAS MISSED A REFILL, BECAUSE ITS L1 IS CRASHED
+             */
+            /*actorEnvironment.makeClientRead(firstClient, l211, 3);
+            Thread.sleep(2000);
+            actorEnvironment.makeCacheCrash(l11, 10000);
+            actorEnvironment.makeClientWrite(firstClient, l221, 3, 100);
+            Thread.sleep(2000);
+            actorEnvironment.makeClientStaleRead(firstClient, l211, 3);*/
+
+            /*
+            HEDGED READS WITH ONE DELAYED L2 (requires a HedgeConfig), compare the p99 of the client stats
+             */
+            /*for (int key = 0; key < 100; key++) {
+                MessageConfig messageConfig = key % 10 == 0
+                        ? MessageConfig.of(CacheBehaviourConfig.none(), CacheBehaviourConfig.delayMessage(3000))
+                        : MessageConfig.none();
+                actorEnvironment.makeClientRead(firstClient, l211, key, messageConfig);
+                Thread.sleep(100);
+            }
+            Thread.sleep(5000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            ZIPFIAN READS, compare the hit-ratio and the client latencies with and without a HotKeyConfig,
+            e.g. .withHotKeyConfig(HotKeyConfig.of(16, 3, 10000))
+             */
+            /*ZipfGenerator zipfGenerator = new ZipfGenerator(100, 1.1, 42);
+            List<ActorRef> l2Caches = actorEnvironment.getL2Caches();
+            for (int i = 0; i < 1000; i++) {
+                ActorRef l2Cache = l2Caches.get(i % l2Caches.size());
+                actorEnvironment.makeRandomClientRead(l2Cache, zipfGenerator.nextKey());
+                Thread.sleep(20);
+            }
+            Thread.sleep(5000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            SEQUENTIAL SCAN, compare the client latencies with and without a PrefetchConfig,
+            e.g. .withPrefetchConfig(PrefetchConfig.of(8, 2))
+             */
+            /*for (int key = 0; key < 100; key++) {
+                actorEnvironment.makeClientRead(firstClient, l211, key);
+                Thread.sleep(50);
+            }
+            Thread.sleep(5000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            SCAN A KEY RANGE, streamed in chunks of 10 keys with at most 2 unacknowledged chunks,
+            the caches on the way store the scanned keys
+             */
+            /*actorEnvironment.makeClientScan(firstClient, l211, 0, 100, 10, 2, true);
+            Thread.sleep(5000);
+            actorEnvironment.makeClientRead(secondClient, l211, 42);*/
+
+            /*
+            HIT RATIO OVER TIME AFTER AN L1 CRASH, compare the recent-hit-ratio of the L2 stats with and without
+            .withRecoveryConfig(RecoveryConfig.warm(1000, 50)) or .withRecoveryConfig(RecoveryConfig.epoch(1024)),
+            with epochs only the key written during the outage is fenced
+             */
+            /*List<ActorRef> l2CachesOfL11 = List.of(l211, l212, l213, l214);
+            for (int key = 0; key < 100; key++) {
+                actorEnvironment.makeRandomClientRead(l2CachesOfL11.get(key % 4), key);
+                Thread.sleep(10);
+            }
+            Thread.sleep(2000);
+            actorEnvironment.makeCacheCrash(l11, 3000);
+            actorEnvironment.makeClientWrite(secondClient, l221, 7, 700);
+            Thread.sleep(5000);
+            for (int second = 0; second < 10; second++) {
+                for (int i = 0; i < 20; i++) {
+                    int key = (second * 20 + i) % 100;
+                    actorEnvironment.makeRandomClientRead(l2CachesOfL11.get(key % 4), key);
+                    Thread.sleep(50);
+                }
+                actorEnvironment.requestStats();
+            }*/
+
+            /*
+            TIMERS UNDER LOAD, compare scheduler-tasks and timer-msgs of the stats with
+            .withTimerConfig(TimerConfig.scheduler()) and the default timing wheel
+             */
+            /*List<ActorRef> allL2Caches = actorEnvironment.getL2Caches();
+            for (int i = 0; i < 2000; i++) {
+                actorEnvironment.makeRandomClientRead(allL2Caches.get(i % allL2Caches.size()), i % 100);
+                Thread.sleep(5);
+            }
+            Thread.sleep(20000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            FAILOVER LATENCY, warm up the round-trip times, then crash an L1 and an L2. Compare the client
+            latencies and the rto of the stats with .withTimeoutConfig(TimeoutConfig.adaptive()) and without
+             */
+            /*for (int key = 0; key < 50; key++) {
+                actorEnvironment.makeClientRead(firstClient, l211, key);
+                Thread.sleep(20);
+            }
+            Thread.sleep(1000);
+            actorEnvironment.makeCacheCrash(l11, 20000);
+            actorEnvironment.makeClientRead(firstClient, l211, 77);
+            Thread.sleep(1000);
+            actorEnvironment.makeCacheCrash(l211, 20000);
+            actorEnvironment.makeClientRead(firstClient, l211, 78);
+            Thread.sleep(20000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            AVAILABILITY WITH A CRASHED L2, compare availability and p99 of the client stats with
+            .withRetryConfig(RetryConfig.of(3, 200, 2000, 0.2)) and without, a retried write is applied only once
+            (see duplicate-writes of the database stats)
+             */
+            /*actorEnvironment.makeCacheCrash(l211, 30000);
+            for (int i = 0; i < 40; i++) {
+                ActorRef l2Cache = i % 2 == 0 ? l211 : l212;
+                if (i % 4 == 0) {
+                    actorEnvironment.makeClientWrite(firstClient, l2Cache, i, i * 10);
+                } else {
+                    actorEnvironment.makeClientRead(secondClient, l2Cache, i);
+                }
+                Thread.sleep(500);
+            }
+            Thread.sleep(20000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            L2 RE-PARENTING, with .withReparentConfig(ReparentConfig.of(2000)) the L2s of the crashed L1 attach
+            to L1-2 after the first timeout, later reads and writes don't time-out anymore. After the recovery
+            they rejoin L1-1 (see main-l1, failovers and rejoins of the L2 stats)
+             */
+            /*actorEnvironment.makeCacheCrash(l11, 15000);
+            for (int i = 0; i < 10; i++) {
+                if (i % 2 == 0) {
+                    actorEnvironment.makeClientWrite(firstClient, l211, i, i * 10);
+                } else {
+                    actorEnvironment.makeClientRead(secondClient, l211, i);
+                }
+                Thread.sleep(1000);
+            }
+            Thread.sleep(15000);
+            actorEnvironment.makeClientRead(secondClient, l211, 42);
+            Thread.sleep(2000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            FAILURE DETECTOR, with .withFailureDetectorConfig(FailureDetectorConfig.of(200, 8)) the clients suspect
+            the crashed L2 within a few heartbeats and route the reads around it, compare the client latencies
+            and avg-detection, suspicions and false-suspicions of the stats
+             */
+            /*actorEnvironment.makeCacheCrash(l211, 20000);
+            Thread.sleep(2000);
+            for (int key = 0; key < 20; key++) {
+                actorEnvironment.makeClientRead(firstClient, l211, key);
+                Thread.sleep(200);
+            }
+            Thread.sleep(20000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            OVERLOADED DATABASE, a burst of misses from all L2s. With .withAdmissionConfig(AdmissionConfig.of(5, 20))
+            and .withCircuitBreakerConfig(CircuitBreakerConfig.of(5, 1000)) the database sheds the requests it can't
+            serve in time and the L1s stop forwarding while it catches up, compare the shed, circuit-opened, rejected
+            and the client availability and latencies
+             */
+            /*List<ActorRef> l2Caches = actorEnvironment.getL2Caches();
+            for (int i = 0; i < 5000; i++) {
+                ActorRef l2Cache = l2Caches.get(i % l2Caches.size());
+                actorEnvironment.makeRandomClientRead(l2Cache, i % 100);
+            }
+            Thread.sleep(20000);
+            actorEnvironment.requestStats();*/
+
             /*==============================
              WRITE
              ==============================*/
@@ -172,6 +353,104 @@ public class Main {
              */
             //actorEnvironment.makeClientWrite(firstClient, l211, 989898989, 100);
 
+            /*
+            DURABLE WRITES, with .withWriteAheadLogConfig(WriteAheadLogConfig.of(Path.of("data"), FsyncPolicy.everyMillis(10)))
+            the first read returns 123 once the program has been restarted, compare the fsyncs of the stats. Add
+            .withSnapshotConfig(SnapshotConfig.every(5000)) and only the commits after the latest snapshot are replayed
+             */
+            /*actorEnvironment.makeClientRead(firstClient, l211, 3);
+            Thread.sleep(1000);
+            actorEnvironment.makeClientWrite(firstClient, l211, 3, 123);
+            Thread.sleep(1000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            LSM STORAGE, with the log config of DURABLE WRITES and .withBackingStoreConfig(BackingStoreConfig.lsm(20, 3, 10))
+            the database flushes its writes into tables and keeps only a few keys in memory. Reads of other keys are loaded
+            from the tables without blocking the database, compare the lsm-tables, flushes, compactions and loads of the
+            stats. Other stores are BackingStoreConfig.mapped(Path.of("data"), 1024) and BackingStoreConfig.fileLog(
+            Path.of("data"), FsyncPolicy.everyMillis(10)), they keep their items without the write-ahead log.
+            With .withDatasetConfig(DatasetConfig.file(Path.of("dataset.csv"))) the empty store is bulk loaded from a CSV
+            or binary file of key, value and update count records instead of random items, see the DATASET log line
+             */
+            /*for (int key = 0; key < 100; key++) {
+                actorEnvironment.makeClientWrite(firstClient, l211, key, key * 2);
+                Thread.sleep(50);
+            }
+            Thread.sleep(2000);
+            for (int key = 0; key < 100; key = key + 7) {
+                actorEnvironment.makeClientRead(secondClient, l221, key);
+                Thread.sleep(50);
+            }
+            Thread.sleep(2000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            PARTITIONED DATABASE, with .withPartitionConfig(PartitionConfig.range(4, 100)) four database actors own a
+            quarter of the keys each. Writes of different partitions are served in parallel, the scan below visits only
+            the second partition, with PartitionConfig.hash(4) it visits all of them one after the other
+             */
+            /*for (int key = 0; key < 100; key = key + 3) {
+                actorEnvironment.makeClientWrite(firstClient, l211, key, key * 2);
+            }
+            Thread.sleep(2000);
+            actorEnvironment.makeClientScan(secondClient, l221, 30, 45, 5, 2, false);
+            Thread.sleep(2000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            READ REPLICAS, with .withReplicaConfig(ReplicaConfig.of(2)) the read misses of the L1 caches are served by
+            two replicas of the database. The critical read after the write is only served by a replica that has already
+            applied the write, compare served and forwarded of the replica stats with the reads of the database
+             */
+            /*for (int key = 0; key < 20; key++) {
+                actorEnvironment.makeClientRead(firstClient, l211, key);
+                Thread.sleep(50);
+            }
+            actorEnvironment.makeClientWrite(firstClient, l211, 3, 300);
+            Thread.sleep(1000);
+            actorEnvironment.makeClientCritRead(secondClient, l221, 3);
+            Thread.sleep(1000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            CACHE SNAPSHOTS, with .withCacheSnapshotConfig(CacheSnapshotConfig.of(Path.of("snapshots"), 1000, 10000, 512))
+            every L1 cache writes its items each second. Run it twice: on the second start the L1 caches restore their
+            items and validate them in bulk, compare suspect of the L1 stats and validated of the database stats
+             */
+            /*for (int key = 0; key < 20; key++) {
+                actorEnvironment.makeClientRead(firstClient, l211, key);
+                Thread.sleep(50);
+            }
+            Thread.sleep(2000);
+            actorEnvironment.requestStats();*/
+
+            /*
+            CHANGE STREAM, with .withChangeStreamConfig(ChangeStreamConfig.of(10000, 100)) the database retains its
+            latest changes. The stream prints every write in commit order, pass the seq of the last printed change to
+            resume it later
+             */
+            /*actorEnvironment.getChanges(0, ChangeRequestMessage.OLDEST)
+                    .runForeach(change -> System.out.printf("CDC | %s\n", change), actorEnvironment.getActorSystem());
+            for (int key = 0; key < 5; key++) {
+                actorEnvironment.makeClientWrite(firstClient, l211, key, key * 10);
+                Thread.sleep(100);
+            }
+            actorEnvironment.makeClientCritWrite(secondClient, l221, 3, 333);
+            Thread.sleep(1000);*/
+
+            /*
+            LOG COMPACTION, with .withLogCompactionConfig(LogCompactionConfig.of(1000, 4096, 1024 * 1024)) next to the
+            write-ahead log and snapshots, the log keeps only the latest record of the rewritten key, compare wal-bytes
+            and wal-dropped of the database stats
+             */
+            /*for (int i = 0; i < 500; i++) {
+                actorEnvironment.makeClientWrite(firstClient, l211, 3, i);
+                Thread.sleep(10);
+            }
+            Thread.sleep(2000);
+            actorEnvironment.requestStats();*/
+
             /*
             READ THEN WRITE AFTERWARDS TO DIFFERENT L1, THEN READ AGAIN FROM SAME L2
              */
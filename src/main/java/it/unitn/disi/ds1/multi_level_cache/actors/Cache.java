@@ -1,21 +1,36 @@
 package it.unitn.disi.ds1.multi_level_cache.actors;
 
 import akka.actor.ActorRef;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BloomFilter;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.ScanRelay;
 import it.unitn.disi.ds1.multi_level_cache.messages.*;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageType;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.Logger;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.LoggerOperationType;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public abstract class Cache extends OperationalNode {
 
     /**
-     * A direct reference to the database
+     * Direct references to all partitions of the database, by their index
      */
-    protected ActorRef database;
+    protected List<ActorRef> databases = List.of();
+    /**
+     * Read replicas of each partition of the database, empty if there are none
+     */
+    protected List<List<ActorRef>> replicas = List.of();
     /**
      * A reference to the main L1 cache if this is a L2 cache.
      * Otherwise, null.
@@ -23,12 +38,90 @@ public abstract class Cache extends OperationalNode {
     protected ActorRef mainL1Cache;
     /**
      * A collection if all underlying L2 caches.
-     * Null if this cache is a L2 cache.
+     * Empty if this cache is a L2 cache or the L2 caches have not joined yet.
+     */
+    protected List<ActorRef> l2Caches = List.of();
+    /**
+     * Bloom filters of all keys known by the database, one per partition.
+     * An entry is null if not received yet or lost by a flush.
+     */
+    private BloomFilter[] bloomFilters;
+    private long[] bloomFilterVersions;
+    /**
+     * Keys that have been served stale and are fetched in the background
+     */
+    private Set<Integer> revalidatingKeys = new HashSet<>();
+    /**
+     * Number of reads that have been served by this cache
+     */
+    private long hitCount = 0;
+    /**
+     * Number of reads that had to be forwarded
+     */
+    private long missCount = 0;
+    /**
+     * The actor each scan that passes this cache has to be streamed back to
+     */
+    private Map<UUID, ActorRef> scanRequesters = new HashMap<>();
+    /**
+     * Scans this L1 cache relays over the partitions of the database
      */
-    protected List<ActorRef> l2Caches;
+    private Map<UUID, ScanRelay> scanRelays = new HashMap<>();
+    /**
+     * Keys this cache has known before its crash, they are rehydrated on recovery
+     */
+    private List<Integer> keysBeforeCrash = List.of();
+    /**
+     * Bulk reads that rehydrate or revalidate this cache
+     */
+    private Set<UUID> rehydrations = new HashSet<>();
+    /**
+     * Bulk validations of restored keys, that have not been answered yet
+     */
+    private Set<UUID> validations = new HashSet<>();
+    /**
+     * Keys that may be stale, they are not served until confirmed by the parent
+     */
+    private Set<Integer> suspectKeys = new HashSet<>();
+    private long rehydratedCount = 0;
+    /**
+     * Hits and misses at the previous stats, to compute the recent hit ratio
+     */
+    private long lastHitCount = 0;
+    private long lastMissCount = 0;
 
     public Cache(String id) {
         super(id);
+        this.resetBloomFilters();
+    }
+
+    public Cache(String id, NodeConfig config) {
+        super(id, config);
+        this.resetBloomFilters();
+    }
+
+    private void resetBloomFilters() {
+        int numOfPartitions = this.config.getPartitionConfig().getNumOfPartitions();
+        this.bloomFilters = new BloomFilter[numOfPartitions];
+        this.bloomFilterVersions = new long[numOfPartitions];
+    }
+
+    protected int getPartition(int key) {
+        return this.config.getPartitionConfig().getPartition(key);
+    }
+
+    /**
+     * Returns the partition of the database that owns the key.
+     */
+    protected ActorRef getDatabase(int key) {
+        return this.databases.get(this.getPartition(key));
+    }
+
+    /**
+     * Returns true if the actor is a partition of the database or one of its read replicas.
+     */
+    protected boolean isDatabase(ActorRef actor) {
+        return this.databases.contains(actor) || this.replicas.stream().anyMatch(replicas -> replicas.contains(actor));
     }
 
     @Override
@@ -71,13 +164,35 @@ public abstract class Cache extends OperationalNode {
     protected void handleReadMessage(ReadMessage message) {
         int key = message.getKey();
 
+        if (this.isKeyKnownToBeMissing(key)) {
+            // the database does not know the key for sure, no need to go upstream
+            String errMsg = String.format("Can't read, because key %d is not in the bloom filter", key);
+            Logger.error(this.id, LoggerOperationType.SEND, MessageType.READ, key, false, errMsg);
+            ErrorMessage errorMessage = ErrorMessage.unknownKey(key, MessageType.READ, errMsg);
+            this.send(errorMessage, this.getSender());
+            return;
+        }
+
         int updateCount = message.getUpdateCount();
         int actorUpdateCount = this.getUpdateCountOrElse(key);
         // only forward if the message update count is older, or we don't know the value
         boolean isLocked = this.isKeyLocked(key);
         boolean isOlder = updateCount > actorUpdateCount;
-        boolean mustForward = isOlder || !this.isKeyAvailable(key);
-        boolean isUnconfirmed = this.isReadUnconfirmed(key);
+        boolean mustForward = isOlder || !this.isKeyAvailable(key) || this.suspectKeys.contains(key);
+        // a running revalidation will fill the key as well
+        boolean isUnconfirmed = this.isReadUnconfirmed(key) || this.isRevalidating(key);
+
+        if (mustForward && this.isKeyAvailable(key) && message.isStaleAllowed() && !this.isL1Cache()) {
+            this.hitCount = this.hitCount + 1;
+            this.replyStaleAndRevalidate(message, isUnconfirmed);
+            return;
+        }
+
+        if (mustForward) {
+            this.missCount = this.missCount + 1;
+        } else {
+            this.hitCount = this.hitCount + 1;
+        }
 
         // set read as unconfirmed
         this.addUnconfirmedRead(key, this.getSender());
@@ -123,6 +238,69 @@ public abstract class Cache extends OperationalNode {
         }
     }
 
+    /**
+     * Immediately replies the cached value, flagged as possibly-stale, and starts a
+     * revalidation in the background. Concurrent revalidations of the same key are
+     * collapsed into the first one, since its fill updates the key for all.
+     *
+     * @param message       The received ReadMessage, that allows a stale value
+     * @param isUnconfirmed True if the key is already requested upstream
+     */
+    private void replyStaleAndRevalidate(ReadMessage message, boolean isUnconfirmed) {
+        int key = message.getKey();
+        int value = this.getValueOrElse(key);
+        int updateCount = this.getUpdateCountOrElse(key);
+
+        ReadReplyMessage replyMessage = new ReadReplyMessage(key, value, updateCount, true);
+        Logger.readReply(this.id, LoggerOperationType.SEND, key, value, 0, updateCount, 0, true);
+        this.send(replyMessage, this.getSender());
+
+        if (!isUnconfirmed) {
+            this.revalidatingKeys.add(key);
+            Logger.read(this.id, LoggerOperationType.SEND, key, message.getUpdateCount(), updateCount,
+                    this.isKeyLocked(key), true, false);
+            this.forwardReadMessageToNext(message);
+        }
+    }
+
+    protected boolean isRevalidating(int key) {
+        return this.revalidatingKeys.contains(key);
+    }
+
+    protected void stopRevalidating(int key) {
+        this.revalidatingKeys.remove(key);
+    }
+
+    /**
+     * Determines if the given key does not exist at the database. It is only true
+     * if a Bloom filter is available and this cache does not know about the key.
+     *
+     * @param key The requested key
+     * @return True if the key does not exist for sure
+     */
+    private boolean isKeyKnownToBeMissing(int key) {
+        BloomFilter bloomFilter = this.bloomFilters[this.config.getPartitionConfig().getPartition(key)];
+        return bloomFilter != null && !this.isKeyAvailable(key) && !bloomFilter.mightContain(key);
+    }
+
+    /**
+     * Adds the key to the Bloom filter. Keys are created by writes, therefore every
+     * refill or commit that reaches this cache is added. The L1 caches pass on the
+     * refills of keys that are new to their filter, such that their L2 caches don't
+     * reject a key created through another L1 cache.
+     *
+     * @param key The written key
+     * @return True if the filter didn't contain the key before
+     */
+    private boolean addKeyToBloomFilter(int key) {
+        BloomFilter bloomFilter = this.bloomFilters[this.config.getPartitionConfig().getPartition(key)];
+        if (bloomFilter == null || bloomFilter.mightContain(key)) {
+            return false;
+        }
+        bloomFilter.add(key);
+        return true;
+    }
+
     private void makeSelfCrash(long recoverAfter) {
         CrashMessage crashMessage = new CrashMessage(recoverAfter);
         this.send(crashMessage, this.getSelf());
@@ -130,6 +308,15 @@ public abstract class Cache extends OperationalNode {
 
     protected abstract void handleFill(int key);
 
+    /**
+     * Handles the commit sequence number of a refill or commit. Every partition of the
+     * database numbers its commits on its own.
+     *
+     * @param key       The committed key
+     * @param commitSeq Sequence number of the commit at the partition of the key
+     */
+    protected abstract void handleCommitSeq(int key, long commitSeq);
+
     protected abstract void forwardMessageToNext(Serializable message, MessageType messageType, long millis);
 
     protected abstract void forwardMessageToNext(Serializable message, MessageType messageType);
@@ -150,6 +337,19 @@ public abstract class Cache extends OperationalNode {
 
     protected abstract void sendWriteConfirm(UUID uuid, int key, int value, int updateCount);
 
+    @Override
+    protected void flush() {
+        super.flush();
+        // writes may be missed from now on, therefore the filters can't be trusted anymore
+        this.resetBloomFilters();
+        this.revalidatingKeys = new HashSet<>();
+        this.scanRequesters = new HashMap<>();
+        this.scanRelays = new HashMap<>();
+        this.rehydrations = new HashSet<>();
+        this.validations = new HashSet<>();
+        this.suspectKeys = new HashSet<>();
+    }
+
     /**
      * Crashes this node
      */
@@ -166,6 +366,152 @@ public abstract class Cache extends OperationalNode {
      */
     protected void recover() {
         this.getContext().become(this.createReceive());
+        this.recoverFailureDetectors();
+
+        if (this.config.getRecoveryConfig().isWarm() && !this.keysBeforeCrash.isEmpty()) {
+            this.rehydrate(this.keysBeforeCrash, false);
+            this.keysBeforeCrash = List.of();
+        }
+    }
+
+    /**
+     * Re-reads the given keys from the parent in batches. Suspect keys are not
+     * served until their batch has been answered.
+     *
+     * @param keys      Keys to be read
+     * @param isSuspect True if the keys are still cached, but may be stale
+     */
+    protected void rehydrate(Collection<Integer> keys, boolean isSuspect) {
+        // a L1 cache reads every key from its partition
+        Map<ActorRef, List<Integer>> keysByUpstream = keys.stream().sorted()
+                .collect(Collectors.groupingBy(this::getUpstream, LinkedHashMap::new, Collectors.toList()));
+        int batchSize = Math.max(1, this.config.getRecoveryConfig().getBatchSize());
+        for (Map.Entry<ActorRef, List<Integer>> entry : keysByUpstream.entrySet()) {
+            List<Integer> sortedKeys = entry.getValue();
+            for (int i = 0; i < sortedKeys.size(); i += batchSize) {
+                List<Integer> batch = sortedKeys.subList(i, Math.min(i + batchSize, sortedKeys.size()));
+                PrefetchMessage prefetchMessage = new PrefetchMessage(batch);
+                Logger.prefetch(this.id, LoggerOperationType.SEND, MessageType.PREFETCH, prefetchMessage.getUuid(), batch);
+                this.send(prefetchMessage, entry.getKey());
+                this.rehydrations.add(prefetchMessage.getUuid());
+            }
+        }
+        if (isSuspect) {
+            this.suspectKeys.addAll(keys);
+        }
+    }
+
+    /**
+     * Marks all given keys, that are known by this cache, as suspect. They are
+     * lazily re-read on the next access.
+     *
+     * @param keys Keys that may have missed an update
+     * @return The number of marked keys
+     */
+    protected int markSuspect(Collection<Integer> keys) {
+        int count = 0;
+        for (int key : keys) {
+            if (this.isKeyAvailable(key) && this.suspectKeys.add(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    protected boolean isSuspect(int key) {
+        return this.suspectKeys.contains(key);
+    }
+
+    /**
+     * Stores the answer of a rehydration. A suspect key is confirmed if the
+     * parent doesn't know a newer value.
+     *
+     * @param message The received BatchFillMessage
+     * @return False if the message doesn't belong to a rehydration
+     */
+    protected boolean handleRehydrationFill(BatchFillMessage message) {
+        if (!this.rehydrations.remove(message.getUuid())) {
+            return false;
+        }
+
+        for (DataItem item : message.getItems()) {
+            int key = item.getKey();
+            boolean isStored = this.storeFetchedItem(item);
+            if (isStored) {
+                this.rehydratedCount = this.rehydratedCount + 1;
+            }
+            if (isStored || item.getUpdateCount() <= this.getUpdateCountOrElse(key)) {
+                this.suspectKeys.remove(key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Asks the database to confirm the update counts of the given keys in batches.
+     * Only changed values are sent back. The keys are marked suspect until their
+     * batch has been answered.
+     *
+     * @param keys      Keys that are cached, but may be stale
+     * @param batchSize Number of keys per message
+     */
+    protected void validate(Collection<Integer> keys, int batchSize) {
+        this.markSuspect(keys);
+        Map<ActorRef, List<Integer>> keysByDatabase = keys.stream().filter(this::isKeyAvailable).sorted()
+                .collect(Collectors.groupingBy(this::getDatabase, LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<ActorRef, List<Integer>> entry : keysByDatabase.entrySet()) {
+            List<Integer> sortedKeys = entry.getValue();
+            for (int i = 0; i < sortedKeys.size(); i += batchSize) {
+                List<Integer> batch = sortedKeys.subList(i, Math.min(i + batchSize, sortedKeys.size()));
+                List<Integer> updateCounts = batch.stream().map(this::getUpdateCountOrElse).toList();
+                ValidateMessage validateMessage = new ValidateMessage(batch, updateCounts);
+                Logger.prefetch(this.id, LoggerOperationType.SEND, MessageType.VALIDATE, validateMessage.getUuid(), batch);
+                this.send(validateMessage, entry.getKey());
+                this.validations.add(validateMessage.getUuid());
+            }
+        }
+    }
+
+    /**
+     * Confirms the keys whose update count is current and stores the changed ones.
+     * Keys the database has left out stay suspect, they are read on the next access.
+     *
+     * @param message The received ValidateReplyMessage
+     */
+    private void onValidateReplyMessage(ValidateReplyMessage message) {
+        if (!this.validations.remove(message.getUuid())) {
+            return;
+        }
+        Logger.prefetch(this.id, LoggerOperationType.RECEIVED, MessageType.VALIDATE_REPLY, message.getUuid(),
+                message.getChangedItems().stream().map(DataItem::getKey).toList());
+
+        for (DataItem item : message.getChangedItems()) {
+            if (this.storeFetchedItem(item)) {
+                this.rehydratedCount = this.rehydratedCount + 1;
+                this.suspectKeys.remove(item.getKey());
+            }
+        }
+        for (int key : message.getValidKeys()) {
+            this.suspectKeys.remove(key);
+        }
+    }
+
+    /**
+     * Called for a refill that has not been applied, since this cache doesn't know the
+     * key or already has the value.
+     *
+     * @param message            The received RefillMessage
+     * @param isNewToBloomFilter True if the key has just been added to the Bloom filter
+     */
+    protected void handleIgnoredRefill(RefillMessage message, boolean isNewToBloomFilter) {
+        // Do nothing by default
+    }
+
+    /**
+     * Called once the database has joined, before any request has been received.
+     */
+    protected void onDatabasesJoined() {
+        // Do nothing by default
     }
 
     protected void abortWrite(UUID uuid, int key) {
@@ -194,18 +540,38 @@ public abstract class Cache extends OperationalNode {
     }
 
     private void onJoinDatabase(JoinDatabaseMessage message) {
-        this.database = message.getDatabase();
-        Logger.join(this.id, "Database", 1);
+        this.databases = message.getDatabases();
+        this.replicas = message.getReplicas();
+        Logger.join(this.id, "Database", this.databases.size());
+        this.onDatabasesJoined();
     }
 
     private void onJoinMainL1Cache(JoinMainL1CacheMessage message) {
         this.mainL1Cache = message.getL1Cache();
         Logger.join(this.id, "L1 Cache", 1);
+        this.monitor(this.mainL1Cache);
     }
 
     private void onJoinL2Caches(JoinL2CachesMessage message) {
         this.l2Caches = List.copyOf(message.getL2Caches());
         Logger.join(this.id, "L2 Caches", this.l2Caches.size());
+        this.l2Caches.forEach(this::monitor);
+        this.relayBloomFilters();
+    }
+
+    /**
+     * Sends the Bloom filters received so far to all L2 caches, the database may have
+     * pushed them before the L2 caches have joined.
+     */
+    private void relayBloomFilters() {
+        for (int partition = 0; partition < this.bloomFilters.length; partition++) {
+            BloomFilter bloomFilter = this.bloomFilters[partition];
+            if (bloomFilter != null) {
+                BloomFilterMessage filterMessage = BloomFilterMessage.snapshot(partition, this.bloomFilterVersions[partition],
+                        bloomFilter.getNumOfBits(), bloomFilter.getNumOfHashes(), bloomFilter.toWords());
+                this.multicast(filterMessage, this.l2Caches);
+            }
+        }
     }
 
     private void onCritWriteRequestMessage(CritWriteRequestMessage message) {
@@ -229,6 +595,8 @@ public abstract class Cache extends OperationalNode {
         Logger.criticalWriteCommit(this.id, message.getUuid(), LoggerOperationType.RECEIVED, key, value, this.getValueOrElse(key), updateCount,
                 this.getUpdateCountOrElse(key));
 
+        this.addKeyToBloomFilter(key);
+        this.handleCommitSeq(key, message.getCommitSeq());
         // unlock and update
         this.unlockKey(key);
         try {
@@ -248,10 +616,14 @@ public abstract class Cache extends OperationalNode {
         boolean isUnconfirmed = this.isWriteUnconfirmed(key);
         int actorUpdateCount = this.getUpdateCountOrElse(key);
 
+        boolean isNewToBloomFilter = this.addKeyToBloomFilter(key);
+        this.handleCommitSeq(key, message.getCommitSeq());
+
         if (!this.isKeyAvailable(key) && !isUnconfirmed) {
             // this cache does not know about the key -> do nothing
             Logger.refill(this.id, message.getUuid(), LoggerOperationType.RECEIVED, key, value, this.getValueOrElse(key),
                     updateCount, actorUpdateCount, isLocked, false, false);
+            this.handleIgnoredRefill(message, isNewToBloomFilter);
             return;
         }
 
@@ -280,10 +652,13 @@ public abstract class Cache extends OperationalNode {
             // Update value
             try {
                 this.setValue(key, value, updateCount);
+                this.suspectKeys.remove(key);
                 this.handleRefillMessage(message);
             } catch (IllegalAccessException e) {
                 // Do nothing, if the data is locked then we don't update since critical write has priority
             }
+        } else {
+            this.handleIgnoredRefill(message, isNewToBloomFilter);
         }
     }
 
@@ -299,17 +674,149 @@ public abstract class Cache extends OperationalNode {
         Logger.fill(this.id, LoggerOperationType.RECEIVED, key, value, this.getValueOrElse(key), updateCount,
                 this.getUpdateCountOrElse(key));
 
+        this.fillKey(key, value, updateCount);
+    }
+
+    /**
+     * Updates the value of the given key and serves all unconfirmed reads.
+     *
+     * @param key         The filled key
+     * @param value       The new value
+     * @param updateCount The new update count
+     */
+    protected void fillKey(int key, int value, int updateCount) {
         // Update value
         try {
-            this.setValue(key, message.getValue(), message.getUpdateCount());
+            this.setValue(key, value, updateCount);
             this.handleFill(key);
             // reset
             this.removeUnconfirmedRead(key);
+            this.stopRevalidating(key);
+            this.suspectKeys.remove(key);
         } catch (IllegalAccessException e) {
             // Do nothing, critical write has higher priority, just timeout
         }
     }
 
+    /**
+     * Stores an item that has been fetched in bulk (by a prefetch or a scan), if it
+     * doesn't interfere with an ongoing operation and is newer than the known value.
+     *
+     * @param item The fetched item
+     * @return True if the item has been stored
+     */
+    protected boolean storeFetchedItem(DataItem item) {
+        int key = item.getKey();
+        boolean isBusy = this.isKeyLocked(key) || this.isWriteUnconfirmed(key) || this.isReadUnconfirmed(key);
+        boolean isNewer = !this.isKeyAvailable(key) || item.getUpdateCount() > this.getUpdateCountOrElse(key);
+        if (isBusy || !isNewer) {
+            return false;
+        }
+
+        try {
+            this.setValue(key, item.getValue(), item.getUpdateCount());
+            return true;
+        } catch (IllegalAccessException e) {
+            return false;
+        }
+    }
+
+    private ActorRef getUpstream(int key) {
+        return this.isL1Cache() ? this.getDatabase(key) : this.mainL1Cache;
+    }
+
+    /**
+     * Forwards a scan to the database. The chunks are later relayed back on the
+     * same path. A L1 cache asks the partitions owning the range one after the
+     * other.
+     *
+     * @param message The received ScanMessage
+     */
+    private void onScanMessage(ScanMessage message) {
+        Logger.scan(this.id, LoggerOperationType.SEND, message.getUuid(), message.getFromKey(), message.getToKey(),
+                message.getChunkSize(), message.getWindow());
+        this.scanRequesters.put(message.getUuid(), this.getSender());
+        if (!this.isL1Cache()) {
+            this.send(message, this.mainL1Cache);
+            return;
+        }
+
+        List<ActorRef> partitions = this.config.getPartitionConfig()
+                .getPartitionsInRange(message.getFromKey(), message.getToKey())
+                .stream()
+                .map(this.databases::get)
+                .toList();
+        ScanRelay relay = new ScanRelay(message, partitions);
+        this.scanRelays.put(message.getUuid(), relay);
+        this.send(message, relay.getCurrentPartition());
+    }
+
+    /**
+     * Relays a chunk to the requester of the scan. If the scan is absorbed, the
+     * scanned keys are stored on the way.
+     *
+     * @param message The received ScanChunkMessage
+     */
+    private void onScanChunkMessage(ScanChunkMessage message) {
+        ActorRef requester = this.scanRequesters.get(message.getUuid());
+        if (requester == null) {
+            // lost by a crash
+            return;
+        }
+
+        ScanRelay relay = this.scanRelays.get(message.getUuid());
+        if (relay != null) {
+            message = this.renumberChunk(relay, message);
+            if (message == null) {
+                return;
+            }
+        }
+
+        if (message.isAbsorbed()) {
+            message.getItems().forEach(this::storeFetchedItem);
+        }
+        this.send(message, requester);
+        if (message.isLast()) {
+            this.scanRequesters.remove(message.getUuid());
+        }
+    }
+
+    /**
+     * Numbers a chunk of a partition as chunk of the whole scan. Only the last
+     * chunk of the last partition ends the scan.
+     */
+    private ScanChunkMessage renumberChunk(ScanRelay relay, ScanChunkMessage message) {
+        ActorRef partition = this.getSender();
+        int seq = relay.relaySeq(partition, message.getSeq());
+        if (seq < 0) {
+            return null;
+        }
+        boolean isLast = message.isLast() && relay.onLastChunk(partition, seq);
+        return new ScanChunkMessage(message.getUuid(), seq, message.getItems(), isLast, message.isAbsorbed());
+    }
+
+    private void onScanAckMessage(ScanAckMessage message) {
+        if (!this.isL1Cache()) {
+            this.send(message, this.mainL1Cache);
+            return;
+        }
+
+        ScanRelay relay = this.scanRelays.get(message.getUuid());
+        if (relay == null) {
+            // lost by a crash
+            return;
+        }
+        Map.Entry<Integer, ActorRef> partition = relay.getPartitionOfSeq(message.getSeq());
+        this.send(new ScanAckMessage(message.getUuid(), message.getSeq() - partition.getKey()), partition.getValue());
+
+        ActorRef next = relay.onAck(message.getSeq());
+        if (next != null) {
+            this.send(relay.getMessage(), next);
+        } else if (relay.isComplete(message.getSeq())) {
+            this.scanRelays.remove(message.getUuid());
+        }
+    }
+
     /**
      * Listener that is triggered whenever a Node receives a
      * CrashMessage.
@@ -319,10 +826,26 @@ public abstract class Cache extends OperationalNode {
     private void onCrashMessage(CrashMessage message) {
         long recoverAfter = message.getRecoverAfter();
         Logger.crash(this.id, recoverAfter);
+        if (this.config.getRecoveryConfig().isWarm()) {
+            // only the key set survives the crash, the values are read again on recovery
+            this.keysBeforeCrash = this.getKeys()
+                    .stream().limit(this.config.getRecoveryConfig().getMaxKeys()).toList();
+        }
         this.recoverAfter(recoverAfter);
         this.flush();
     }
 
+    /**
+     * A recovered L1 cache asks this cache to revalidate all of its keys, since
+     * refills may have been missed in the meantime.
+     *
+     * @param message The received RevalidateMessage
+     */
+    private void onRevalidateMessage(RevalidateMessage message) {
+        Logger.flush(this.id, LoggerOperationType.RECEIVED);
+        this.rehydrate(this.getKeys(), true);
+    }
+
     /**
      * Listener that is triggered whenever this node receives
      * a RecoveryMessage. Then, this node recovers from a crash.
@@ -334,6 +857,62 @@ public abstract class Cache extends OperationalNode {
         this.recover();
     }
 
+    /**
+     * Listener that is triggered whenever this cache receives a new version of the
+     * Bloom filter. A L1 cache forwards it to all of its L2 caches. A delta is only
+     * applied if it directly follows the version of this cache.
+     *
+     * @param message The received BloomFilterMessage
+     */
+    private void onBloomFilterMessage(BloomFilterMessage message) {
+        int partition = message.getPartition();
+        if (partition < 0 || partition >= this.bloomFilters.length) {
+            return;
+        }
+        if (!message.isDelta()) {
+            this.bloomFilters[partition] = BloomFilter.fromSnapshot(message.getNumOfBits(), message.getNumOfHashes(),
+                    message.getWords());
+            this.bloomFilterVersions[partition] = message.getVersion();
+        } else if (this.bloomFilters[partition] != null && this.bloomFilterVersions[partition] + 1 == message.getVersion()) {
+            this.bloomFilters[partition].applyDelta(message.getChangedBits());
+            this.bloomFilterVersions[partition] = message.getVersion();
+        } else {
+            // missed a version, wait for the next snapshot
+            return;
+        }
+
+        Logger.bloomFilter(this.id, LoggerOperationType.RECEIVED, message.getVersion(), message.isDelta(),
+                message.getNumOfBits(), message.getNumOfHashes(), this.bloomFilters[partition].getSizeInBytes(),
+                message.getSizeInBytes());
+
+        if (this.isL1Cache()) {
+            this.multicast(message, this.l2Caches);
+        }
+    }
+
+    /**
+     * Returns the statistics of this cache as log info.
+     *
+     * @return The formatted statistics
+     */
+    protected String getStats() {
+        long readCount = this.hitCount + this.missCount;
+        double hitRatio = readCount > 0 ? (double) this.hitCount / readCount : 0;
+        // hit ratio since the previous stats
+        long recentHitCount = this.hitCount - this.lastHitCount;
+        long recentReadCount = readCount - this.lastHitCount - this.lastMissCount;
+        double recentHitRatio = recentReadCount > 0 ? (double) recentHitCount / recentReadCount : 0;
+        this.lastHitCount = this.hitCount;
+        this.lastMissCount = this.missCount;
+        return String.format("reads: %d, hits: %d, misses: %d, hit-ratio: %.3f, recent-hit-ratio: %.3f, rehydrated: %d, suspect: %d, %s, %s",
+                readCount, this.hitCount, this.missCount, hitRatio, recentHitRatio, this.rehydratedCount, this.suspectKeys.size(),
+                this.getTimerStats(), this.getFailureDetectorStats());
+    }
+
+    private void onStatsMessage(StatsMessage message) {
+        Logger.stats(this.id, this.getStats());
+    }
+
     private void onFlushMessage(FlushMessage message) {
         this.flush();
         Logger.flush(this.id, LoggerOperationType.RECEIVED);
@@ -358,7 +937,18 @@ public abstract class Cache extends OperationalNode {
                 .match(FillMessage.class, this::onFillMessage)
                 .match(CrashMessage.class, this::onCrashMessage)
                 .match(TimeoutMessage.class, this::onTimeoutMessage)
+                .match(TimerTickMessage.class, this::onTimerTickMessage)
                 .match(FlushMessage.class, this::onFlushMessage)
+                .match(BloomFilterMessage.class, this::onBloomFilterMessage)
+                .match(StatsMessage.class, this::onStatsMessage)
+                .match(ScanMessage.class, this::onScanMessage)
+                .match(ScanChunkMessage.class, this::onScanChunkMessage)
+                .match(ScanAckMessage.class, this::onScanAckMessage)
+                .match(RevalidateMessage.class, this::onRevalidateMessage)
+                .match(ValidateReplyMessage.class, this::onValidateReplyMessage)
+                .match(HeartbeatTickMessage.class, this::onHeartbeatTickMessage)
+                .match(HeartbeatMessage.class, this::onHeartbeatMessage)
+                .match(HeartbeatReplyMessage.class, this::onHeartbeatReplyMessage)
                 .match(ErrorMessage.class, this::onErrorMessage)
                 .build();
     }
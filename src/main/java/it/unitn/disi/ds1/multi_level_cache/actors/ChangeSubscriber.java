@@ -0,0 +1,155 @@
+package it.unitn.disi.ds1.multi_level_cache.actors;
+
+import akka.NotUsed;
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorRefFactory;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.stream.javadsl.Source;
+import it.unitn.disi.ds1.multi_level_cache.messages.ChangeBatchMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.ChangeRequestMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.ChangeEvent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+
+/**
+ * Feeds the change stream of a partition of the database into an Akka Streams source.
+ * The changes are pulled from the database in batches and handed to the stream one by
+ * one, each only after the previous one has been consumed. The next batch is requested
+ * once half of the current one is consumed, therefore a slow consumer just requests less
+ * often and the database never waits for it. If the consumer falls behind the changes the
+ * database retains, the stream fails.
+ */
+public class ChangeSubscriber extends AbstractActor {
+
+    private static final Object ACK = new Object();
+
+    /**
+     * Fails the stream with the given cause
+     */
+    private static class Failure {
+        private final Throwable cause;
+
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    private final ActorRef database;
+    private final ActorRef stream;
+    private final int batchSize;
+    private final Deque<ChangeEvent> buffer = new ArrayDeque<>();
+    /**
+     * Sequence number of the latest buffered change, the next batch starts after it
+     */
+    private long lastSeq;
+    private boolean isRequesting = false;
+    private boolean isWaitingForAck = false;
+
+    public ChangeSubscriber(ActorRef database, ActorRef stream, long afterSeq, int batchSize) {
+        this.database = database;
+        this.stream = stream;
+        this.lastSeq = afterSeq;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    static public Props props(ActorRef database, ActorRef stream, long afterSeq, int batchSize) {
+        return Props.create(ChangeSubscriber.class, () -> new ChangeSubscriber(database, stream, afterSeq, batchSize));
+    }
+
+    /**
+     * Creates a source of all durable changes of a partition of the database after the given
+     * sequence number, in commit order. To resume a stream, pass the sequence number of the
+     * last change that has been processed.
+     *
+     * @param factory   Creates the subscriber on materialization
+     * @param database  The partition of the database
+     * @param afterSeq  The last known sequence number, ChangeRequestMessage.OLDEST for all retained changes
+     * @param batchSize Number of changes requested at once
+     * @return The source of the changes
+     */
+    public static Source<ChangeEvent, NotUsed> source(ActorRefFactory factory, ActorRef database, long afterSeq, int batchSize) {
+        return Source.<ChangeEvent>actorRefWithBackpressure(ACK,
+                        message -> Optional.empty(),
+                        message -> message instanceof Failure failure ? Optional.of(failure.cause) : Optional.empty())
+                .mapMaterializedValue(stream -> {
+                    factory.actorOf(props(database, stream, afterSeq, batchSize));
+                    return NotUsed.getInstance();
+                });
+    }
+
+    @Override
+    public void preStart() {
+        // stop together with the stream, e.g. if it has been cancelled
+        this.getContext().watch(this.stream);
+        this.getContext().watch(this.database);
+        this.requestChanges();
+    }
+
+    private void requestChanges() {
+        if (this.isRequesting || this.buffer.size() > this.batchSize / 2) {
+            return;
+        }
+        this.isRequesting = true;
+        this.database.tell(new ChangeRequestMessage(this.lastSeq, this.batchSize), this.getSelf());
+    }
+
+    private void pushNext() {
+        if (this.isWaitingForAck || this.buffer.isEmpty()) {
+            return;
+        }
+        this.isWaitingForAck = true;
+        this.stream.tell(this.buffer.removeFirst(), this.getSelf());
+        this.requestChanges();
+    }
+
+    private void onChangeBatchMessage(ChangeBatchMessage message) {
+        this.isRequesting = false;
+        if (message.isTruncated()) {
+            String errMsg = String.format("Changes after seq %d are not retained anymore, the oldest one is %d",
+                    this.lastSeq, message.getFirstSeq());
+            this.stream.tell(new Failure(new IllegalStateException(errMsg)), this.getSelf());
+            this.getContext().stop(this.getSelf());
+            return;
+        }
+
+        for (ChangeEvent change : message.getChanges()) {
+            this.buffer.addLast(change);
+            this.lastSeq = change.getSeq();
+        }
+        this.pushNext();
+        this.requestChanges();
+    }
+
+    private void onAck() {
+        this.isWaitingForAck = false;
+        this.pushNext();
+    }
+
+    /**
+     * Stops together with the stream. If the database has stopped instead, no further
+     * changes arrive, therefore the stream fails.
+     *
+     * @param message The received Terminated
+     */
+    private void onTerminated(Terminated message) {
+        if (message.getActor().equals(this.database)) {
+            String errMsg = String.format("The database has stopped after seq %d", this.lastSeq);
+            this.stream.tell(new Failure(new IllegalStateException(errMsg)), this.getSelf());
+        }
+        this.getContext().stop(this.getSelf());
+    }
+
+    @Override
+    public Receive createReceive() {
+        return this.receiveBuilder()
+                .match(ChangeBatchMessage.class, this::onChangeBatchMessage)
+                .matchEquals(ACK, message -> this.onAck())
+                .match(Terminated.class, this::onTerminated)
+                .build();
+    }
+
+}
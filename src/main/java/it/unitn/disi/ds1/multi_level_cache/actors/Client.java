@@ -2,16 +2,27 @@ package it.unitn.disi.ds1.multi_level_cache.actors;
 
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.HedgeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.LatencyTracker;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.RetryConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.ScanProgress;
 import it.unitn.disi.ds1.multi_level_cache.messages.*;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.ErrorType;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageType;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.Logger;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.LoggerOperationType;
 
+import java.io.Serializable;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
 
 public class Client extends Node {
 
@@ -22,9 +33,9 @@ public class Client extends Node {
      */
     static final long TIMEOUT_MILLIS = 18000;
     /**
-     * Max. number to retry write or read operations
+     * Max. number of retries that can be sent in a burst
      */
-    static final int MAX_RETRY_COUNT = 3;
+    static final double MAX_RETRY_TOKENS = 10;
     /**
      * All unconfirmed read operations for the given key.
      * The value is the count of retries.
@@ -42,20 +53,94 @@ public class Client extends Node {
      * Is this Node waiting for a write-confirm message
      */
     private boolean isWaitingForWriteConfirm = false;
+    /**
+     * UUID of the write this client is waiting for
+     */
+    private UUID pendingWriteUuid;
+    /**
+     * The pending write, null if it is a critical write (those are never retried)
+     */
+    private WriteMessage pendingWriteMessage;
+    /**
+     * The L2 cache of the current write attempt, null while waiting for a retry
+     */
+    private ActorRef pendingWriteL2Cache;
+    private long writeStartMillis = 0;
+    /**
+     * Latencies of the latest confirmed writes, including their retries
+     */
+    private final LatencyTracker writeLatencies = new LatencyTracker(1000);
+    /**
+     * Every initiated operation adds the budget ratio, every retry costs one token
+     */
+    private double retryTokens = 0;
+    private long retryCount = 0;
+    private long failedCount = 0;
+    private final Random random = new Random();
+    /**
+     * Keys of the reads that wait for their retry
+     */
+    private final Set<Integer> pendingReadRetries = new HashSet<>();
+    private long routedAroundCount = 0;
+    /**
+     * Max. number of hedged reads that can be sent in a burst
+     */
+    static final double MAX_HEDGE_TOKENS = 10;
+    /**
+     * Latencies of the latest successful reads
+     */
+    private final LatencyTracker readLatencies = new LatencyTracker(1000);
+    /**
+     * Start time of all unconfirmed reads for the given key
+     */
+    private final Map<Integer, Long> readStartTimes = new HashMap<>();
+    /**
+     * The L2 cache a hedged read has been sent to, for the given key
+     */
+    private final Map<Integer, ActorRef> hedgedReads = new HashMap<>();
+    /**
+     * Every read adds the budget ratio, every hedged read costs one token
+     */
+    private double hedgeTokens = 0;
+    private long hedgeCount = 0;
+    private long hedgeWinCount = 0;
+    private long ignoredReplyCount = 0;
+    /**
+     * All running scans
+     */
+    private final Map<UUID, ScanProgress> scans = new HashMap<>();
 
     public Client(String id) {
         super(id);
     }
 
+    public Client(String id, NodeConfig config) {
+        super(id, config);
+    }
+
     static public Props props(String id) {
         return Props.create(Client.class, () -> new Client(id));
     }
 
+    static public Props props(String id, NodeConfig config) {
+        return Props.create(Client.class, () -> new Client(id, config));
+    }
+
     @Override
     protected long getTimeoutMillis() {
         return TIMEOUT_MILLIS;
     }
 
+    @Override
+    protected long getTimeoutFloorMillis() {
+        return this.config.getTimeoutConfig().getClientFloorMillis();
+    }
+
+    @Override
+    protected long getTimeoutCeilingMillis() {
+        return this.config.getTimeoutConfig().getClientCeilingMillis();
+    }
+
     /**
      * Returns a random actor from the given group.
      *
@@ -80,11 +165,18 @@ public class Client extends Node {
     private void sendWriteMessage(ActorRef l2Cache, int key, int value, MessageConfig messageConfig) {
         WriteMessage writeMessage = new WriteMessage(key, value, messageConfig);
         Logger.write(this.id, LoggerOperationType.SEND, key, value, false, writeMessage.getUuid());
+        this.sendWriteMessage(l2Cache, writeMessage);
+    }
+
+    private void sendWriteMessage(ActorRef l2Cache, WriteMessage writeMessage) {
         this.send(writeMessage, l2Cache);
         // set timeout
         this.setTimeout(writeMessage, l2Cache, MessageType.WRITE);
         // set config
         this.isWaitingForWriteConfirm = true;
+        this.pendingWriteUuid = writeMessage.getUuid();
+        this.pendingWriteMessage = writeMessage;
+        this.pendingWriteL2Cache = l2Cache;
     }
 
     /**
@@ -102,38 +194,131 @@ public class Client extends Node {
         this.setTimeout(critWriteMessage, l2Cache, MessageType.CRITICAL_WRITE);
         // set config
         this.isWaitingForWriteConfirm = true;
+        this.pendingWriteUuid = critWriteMessage.getUuid();
     }
 
     /**
-     * Resends a WriteMessage to a random actor that is not the given unreachable actor.
-     * Additionally, it increases the write-retry-count.
+     * Adds the budget ratio to the retry budget, called for every initiated operation.
+     */
+    private void refillRetryBudget() {
+        RetryConfig retryConfig = this.config.getRetryConfig();
+        if (retryConfig.isEnabled()) {
+            this.retryTokens = Math.min(MAX_RETRY_TOKENS, this.retryTokens + retryConfig.getBudgetRatio());
+        }
+    }
+
+    /**
+     * Returns true if an operation that has been retried the given number of times
+     * can be retried once more. Then, a token is taken from the budget.
      *
-     * @param unreachableActor The previously tried unreachable L2 cache
-     * @param key              Key that has to be written
-     * @param value            Value used to update the key
-     * @param isCritical       Determines if the message is of critical nature
+     * @param retryCountOfOperation Retries of the operation so far
+     * @return True if the operation is retried
      */
-    /*private void retryWriteMessage(ActorRef unreachableActor, int key, int value, boolean isCritical) {
-        if (this.writeRetryCount < MAX_RETRY_COUNT) {
-            // get random actor
-            List<ActorRef> workingL2Caches = this.l2Caches
-                    .stream().filter((actorRef -> actorRef != unreachableActor)).toList();
-            ActorRef randomActor = this.getRandomActor(workingL2Caches);
-            // increase count
-            this.writeRetryCount = this.writeRetryCount + 1;
-            // send message
-            if (isCritical) {
-                this.sendCritWriteMessage(randomActor, key, value, MessageConfig.none());
-                Logger.criticalWrite(this.id, LoggerOperationType.RETRY, key, value, false);
-            } else {
-                this.sendWriteMessage(randomActor, key, value, MessageConfig.none());
-                Logger.write(this.id, LoggerOperationType.RETRY, key, value, false);
-            }
+    private boolean acquireRetry(int retryCountOfOperation) {
+        RetryConfig retryConfig = this.config.getRetryConfig();
+        if (!retryConfig.isEnabled() || retryCountOfOperation >= retryConfig.getMaxRetries() || this.retryTokens < 1) {
+            return false;
+        }
+        this.retryTokens = this.retryTokens - 1;
+        this.retryCount = this.retryCount + 1;
+        return true;
+    }
+
+    /**
+     * Returns the backoff before the next retry. The n-th retry waits between half and the
+     * whole of base * 2^n (bounded by the max. backoff), the jitter keeps the clients of a
+     * crashed L2 from retrying all at once.
+     *
+     * @param retryCountOfOperation Retries of the operation so far
+     * @return Backoff in millis
+     */
+    private long getBackoffMillis(int retryCountOfOperation) {
+        RetryConfig retryConfig = this.config.getRetryConfig();
+        long backoff = Math.min(retryConfig.getMaxBackoffMillis(),
+                retryConfig.getBaseBackoffMillis() << Math.min(retryCountOfOperation, 20));
+        return backoff / 2 + (long) (this.random.nextDouble() * (backoff - backoff / 2));
+    }
+
+    /**
+     * Returns a random L2 cache other than the given one. If the client knows only a single
+     * L2 cache, it is returned anyway.
+     *
+     * @param unreachableActor The previously tried L2 cache
+     * @return Another L2 cache
+     */
+    private ActorRef getOtherL2Cache(ActorRef unreachableActor) {
+        List<ActorRef> otherL2Caches = this.l2Caches
+                .stream().filter((actorRef -> actorRef != unreachableActor)).toList();
+        List<ActorRef> workingL2Caches = otherL2Caches
+                .stream().filter(actorRef -> !this.isSuspected(actorRef)).toList();
+        if (!workingL2Caches.isEmpty()) {
+            return this.getRandomActor(workingL2Caches);
+        }
+        return otherL2Caches.isEmpty() ? unreachableActor : this.getRandomActor(otherL2Caches);
+    }
+
+    /**
+     * Returns the given L2 cache, or another random one if it is suspected to be crashed.
+     * If all of them are suspected, the given one is used anyway.
+     *
+     * @param l2Cache The requested L2 cache
+     * @return An L2 cache that is not suspected
+     */
+    private ActorRef routeAround(ActorRef l2Cache) {
+        if (!this.isSuspected(l2Cache)) {
+            return l2Cache;
+        }
+        List<ActorRef> workingL2Caches = this.l2Caches
+                .stream().filter(actorRef -> !this.isSuspected(actorRef)).toList();
+        if (workingL2Caches.isEmpty()) {
+            return l2Cache;
+        }
+        this.routedAroundCount = this.routedAroundCount + 1;
+        return this.getRandomActor(workingL2Caches);
+    }
+
+    @Override
+    protected void onPeerSuspected(ActorRef peer) {
+        // retry or give up right away, instead of waiting for the timeouts
+        this.expireTimeoutsOf(peer);
+    }
+
+    /**
+     * Schedules a retry of the pending write after the backoff, or gives up if the
+     * write can't be retried.
+     *
+     * @param unreachableActor The L2 cache that has not confirmed the write
+     */
+    private void retryOrAbortWrite(ActorRef unreachableActor) {
+        if (this.pendingWriteMessage != null && this.acquireRetry(this.writeRetryCount)) {
+            this.pendingWriteL2Cache = null;
+            this.setTimeout(this.pendingWriteMessage, unreachableActor, MessageType.RETRY,
+                    this.getBackoffMillis(this.writeRetryCount));
         } else {
-            // abort retry
+            this.failedCount = this.failedCount + 1;
             this.resetWriteConfig();
         }
-    }*/
+    }
+
+    /**
+     * Resends the given write to a random actor that is not the given unreachable actor.
+     * The retry keeps the UUID of the original write, hence it is applied at most once by
+     * the database. Additionally, it increases the write-retry-count.
+     *
+     * @param unreachableActor The previously tried unreachable L2 cache
+     * @param writeMessage     The original WriteMessage
+     */
+    private void retryWriteMessage(ActorRef unreachableActor, WriteMessage writeMessage) {
+        ActorRef otherL2Cache = this.getOtherL2Cache(unreachableActor);
+        // increase count
+        this.writeRetryCount = this.writeRetryCount + 1;
+        // the behaviour config is only meant for the initially chosen caches
+        WriteMessage retryMessage = new WriteMessage(writeMessage.getUuid(), writeMessage.getKey(),
+                writeMessage.getValue(), MessageConfig.none());
+        Logger.write(this.id, LoggerOperationType.RETRY, retryMessage.getKey(), retryMessage.getValue(), false,
+                retryMessage.getUuid());
+        this.sendWriteMessage(otherL2Cache, retryMessage);
+    }
 
     /**
      * Resets all important configs to enable another write operation.
@@ -141,22 +326,107 @@ public class Client extends Node {
     private void resetWriteConfig() {
         this.isWaitingForWriteConfirm = false;
         this.writeRetryCount = 0;
+        this.pendingWriteMessage = null;
+        this.pendingWriteL2Cache = null;
+        if (this.pendingWriteUuid != null) {
+            this.cancelTimeouts(this.pendingWriteUuid);
+            this.pendingWriteUuid = null;
+        }
     }
 
     /**
      * Sends a ReadMessage to the given L2 cache. Additionally, it increases the read count
      * and start a timeout for the read message.
      *
-     * @param l2Cache Target L2 cache
-     * @param key     Key to be read
+     * @param l2Cache        Target L2 cache
+     * @param key            Key to be read
+     * @param isStaleAllowed Accept a possibly-stale value from the L2 cache
      */
-    private void sendReadMessage(ActorRef l2Cache, int key, MessageConfig messageConfig) {
-        ReadMessage readMessage = new ReadMessage(key, this.getUpdateCountOrElse(key), messageConfig);
+    private void sendReadMessage(ActorRef l2Cache, int key, boolean isStaleAllowed, MessageConfig messageConfig) {
+        ReadMessage readMessage = new ReadMessage(key, this.getUpdateCountOrElse(key), messageConfig, isStaleAllowed);
         this.send(readMessage, l2Cache);
         // set config
         this.addUnconfirmedRead(key, l2Cache);
+        // a retry keeps the start time of the first try
+        this.readStartTimes.putIfAbsent(key, System.currentTimeMillis());
         // set timeout
         this.setTimeout(readMessage, l2Cache, MessageType.READ);
+        this.scheduleHedgedRead(readMessage, l2Cache);
+    }
+
+    /**
+     * Returns the delay after which a hedged read is sent. Either the fixed delay
+     * or the configured percentile of the observed read latencies.
+     *
+     * @return Delay in millis
+     */
+    private long getHedgeDelayMillis() {
+        HedgeConfig hedgeConfig = this.config.getHedgeConfig();
+        if (hedgeConfig.isFixed()) {
+            return hedgeConfig.getFixedDelayMillis();
+        }
+        // wait for some samples, otherwise the percentile is meaningless
+        if (this.readLatencies.getSize() < 20) {
+            return hedgeConfig.getFallbackDelayMillis();
+        }
+        return Math.max(1, this.readLatencies.getPercentile(hedgeConfig.getPercentile()));
+    }
+
+    /**
+     * Starts the hedge timer for the given read and refills the hedge budget.
+     *
+     * @param readMessage The sent ReadMessage
+     * @param l2Cache     The L2 cache the read has been sent to
+     */
+    private void scheduleHedgedRead(ReadMessage readMessage, ActorRef l2Cache) {
+        HedgeConfig hedgeConfig = this.config.getHedgeConfig();
+        if (!hedgeConfig.isEnabled() || this.l2Caches.size() < 2) {
+            return;
+        }
+        this.hedgeTokens = Math.min(MAX_HEDGE_TOKENS, this.hedgeTokens + hedgeConfig.getBudgetRatio());
+        this.setTimeout(readMessage, l2Cache, MessageType.HEDGED_READ, this.getHedgeDelayMillis());
+    }
+
+    /**
+     * Sends the same read to another L2 cache, if the read is still unconfirmed and
+     * the budget allows it. Whichever reply arrives first is used. The hedged read
+     * does not carry the behaviour config of the original one, since it is only
+     * meant for the initially chosen caches.
+     *
+     * @param slowL2Cache The L2 cache that has not answered yet
+     * @param readMessage The original ReadMessage
+     */
+    private void sendHedgedRead(ActorRef slowL2Cache, ReadMessage readMessage) {
+        int key = readMessage.getKey();
+        if (!this.isReadUnconfirmed(key) || this.hedgedReads.containsKey(key) || this.hedgeTokens < 1) {
+            return;
+        }
+
+        ActorRef hedgeL2Cache = this.getOtherL2Cache(slowL2Cache);
+
+        this.hedgeTokens = this.hedgeTokens - 1;
+        this.hedgeCount = this.hedgeCount + 1;
+        this.hedgedReads.put(key, hedgeL2Cache);
+
+        ReadMessage hedgedMessage = new ReadMessage(key, readMessage.getUpdateCount(), MessageConfig.none(),
+                readMessage.isStaleAllowed());
+        Logger.read(this.id, LoggerOperationType.HEDGE, key, readMessage.getUpdateCount(),
+                this.getUpdateCountOrElse(key), this.isKeyLocked(key), true, true);
+        this.send(hedgedMessage, hedgeL2Cache);
+        this.addUnconfirmedRead(key, hedgeL2Cache);
+    }
+
+    /**
+     * Resets all configs of a read operation for the given key.
+     *
+     * @param key Key of the read
+     */
+    private void completeRead(int key) {
+        this.removeUnconfirmedRead(key);
+        this.readStartTimes.remove(key);
+        this.hedgedReads.remove(key);
+        this.unconfirmedReads.remove(key);
+        this.pendingReadRetries.remove(key);
     }
 
     /**
@@ -175,49 +445,85 @@ public class Client extends Node {
         this.setTimeout(critReadMessage, l2Cache, MessageType.CRITICAL_READ);
     }
 
+    /**
+     * Schedules a retry of the given read after the backoff, or gives up if the read
+     * can't be retried. The read stays unconfirmed meanwhile, a late reply still completes it.
+     *
+     * @param unreachableActor The L2 cache that has not answered
+     * @param message          Either the ReadMessage or the CritReadMessage
+     * @param key              Key of the read
+     */
+    private void retryOrAbortRead(ActorRef unreachableActor, Serializable message, int key) {
+        if (this.pendingReadRetries.contains(key)) {
+            // e.g. the primary and the hedged read have both failed
+            return;
+        }
+        int retryCountForKey = this.getRetryCountForRead(key);
+        if (this.acquireRetry(retryCountForKey)) {
+            this.pendingReadRetries.add(key);
+            this.setTimeout(message, unreachableActor, MessageType.RETRY, this.getBackoffMillis(retryCountForKey));
+        } else {
+            this.failedCount = this.failedCount + 1;
+            this.completeRead(key);
+        }
+    }
+
     /**
      * Resends a ReadMessage to a random L2 cache that is not the given unreachable actor.
      * Additionally, it increases the retry count for the given key.
      *
      * @param unreachableActor The L2 cache that is unreachable
      * @param key              Key to be read
+     * @param isStaleAllowed   Accept a possibly-stale value from the L2 cache
      * @param isCritical       Determines if the message is of critical nature
      */
-    /*private void retryReadMessage(ActorRef unreachableActor, int key, boolean isCritical) {
-        int retryCountForKey = this.getRetryCountForRead(key);
-        if (retryCountForKey < MAX_RETRY_COUNT) {
-            // get another actor (hoping it will work)
-            List<ActorRef> workingL2Caches = this.l2Caches
-                    .stream().filter((actorRef -> actorRef != unreachableActor)).toList();
-            ActorRef randomActor = this.getRandomActor(workingL2Caches);
-
-
-            boolean isLocked = this.isKeyLocked(key);
-            boolean isUnconfirmed = this.isReadUnconfirmed(key);
-            // send message
-            if (isUnconfirmed) {
-                if (isCritical) {
-                    this.sendCritReadMessage(randomActor, key, MessageConfig.none());
-                    Logger.criticalRead(this.id, LoggerOperationType.RETRY, key,
-                            this.getUpdateCountOrElse(key),
-                            this.getUpdateCountOrElse(key),
-                            isLocked);
-                } else {
-                    this.sendReadMessage(randomActor, key, MessageConfig.none());
-                    Logger.read(this.id, LoggerOperationType.RETRY, key,
-                            this.getUpdateCountOrElse(key),
-                            this.getUpdateCountOrElse(key),
-                            isLocked,
-                            true,
-                            true);
-                }
-                this.increaseCountForUnconfirmedReadMessage(key);
-            }
+    private void retryReadMessage(ActorRef unreachableActor, int key, boolean isStaleAllowed, boolean isCritical) {
+        // get another actor (hoping it will work)
+        ActorRef otherL2Cache = this.getOtherL2Cache(unreachableActor);
+        boolean isLocked = this.isKeyLocked(key);
+        // send message
+        if (isCritical) {
+            Logger.criticalRead(this.id, LoggerOperationType.RETRY, key,
+                    this.getUpdateCountOrElse(key),
+                    this.getUpdateCountOrElse(key),
+                    isLocked);
+            this.sendCritReadMessage(otherL2Cache, key, MessageConfig.none());
         } else {
-            // abort retries
-            this.removeUnconfirmedRead(key);
+            Logger.read(this.id, LoggerOperationType.RETRY, key,
+                    this.getUpdateCountOrElse(key),
+                    this.getUpdateCountOrElse(key),
+                    isLocked,
+                    true,
+                    true);
+            this.sendReadMessage(otherL2Cache, key, isStaleAllowed, MessageConfig.none());
         }
-    }*/
+        this.increaseCountForUnconfirmedReadMessage(key);
+    }
+
+    /**
+     * Sends the retry of an operation, once its backoff is over. Nothing is sent if the
+     * operation has been completed meanwhile.
+     *
+     * @param message The TimeoutMessage of the retry
+     */
+    private void onRetryTimeout(TimeoutMessage message) {
+        ActorRef unreachableActor = message.getUnreachableActor();
+        if (message.getMessage() instanceof ReadMessage readMessage) {
+            this.pendingReadRetries.remove(readMessage.getKey());
+            if (this.isReadUnconfirmed(readMessage.getKey())) {
+                this.retryReadMessage(unreachableActor, readMessage.getKey(), readMessage.isStaleAllowed(), false);
+            }
+        } else if (message.getMessage() instanceof CritReadMessage critReadMessage) {
+            this.pendingReadRetries.remove(critReadMessage.getKey());
+            if (this.isReadUnconfirmed(critReadMessage.getKey())) {
+                this.retryReadMessage(unreachableActor, critReadMessage.getKey(), false, true);
+            }
+        } else if (message.getMessage() instanceof WriteMessage writeMessage) {
+            if (this.isWaitingForWriteConfirm && writeMessage.getUuid().equals(this.pendingWriteUuid)) {
+                this.retryWriteMessage(unreachableActor, writeMessage);
+            }
+        }
+    }
 
     /**
      * Returns the number of read retries for the given key.
@@ -252,6 +558,7 @@ public class Client extends Node {
     private void onJoinL2Caches(JoinL2CachesMessage message) {
         this.l2Caches = List.copyOf(message.getL2Caches());
         Logger.join(this.id, "L2 Caches", this.l2Caches.size());
+        this.l2Caches.forEach(this::monitor);
     }
 
     /**
@@ -276,8 +583,11 @@ public class Client extends Node {
             Logger.error(this.id, LoggerOperationType.ERROR, MessageType.INIT_WRITE, key, false, "L2 cache is unknown");
             return;
         }
+        l2Cache = this.routeAround(l2Cache);
 
         Logger.initWrite(this.id, key, value, isCritical);
+        this.refillRetryBudget();
+        this.writeStartMillis = System.currentTimeMillis();
 
         if (isCritical) {
             Logger.criticalWrite(this.id, message.getUuid(), LoggerOperationType.SEND, key, value, false);
@@ -302,6 +612,10 @@ public class Client extends Node {
         Logger.writeConfirm(this.id, message.getUuid(), LoggerOperationType.RECEIVED, key, value, this.getValueOrElse(key), updateCount,
                 this.getUpdateCountOrElse(key));
 
+        if (this.isWaitingForWriteConfirm && message.getUuid().equals(this.pendingWriteUuid)) {
+            this.writeLatencies.record(System.currentTimeMillis() - this.writeStartMillis);
+        }
+
         this.unlockKey(key);
         try {
             // update value
@@ -335,15 +649,82 @@ public class Client extends Node {
             Logger.error(this.id, LoggerOperationType.ERROR, MessageType.INIT_READ, key, false, "L2 is unknown");
             return;
         }
+        l2Cache = this.routeAround(l2Cache);
 
         Logger.initRead(this.id, key, isCritical);
+        this.refillRetryBudget();
+        this.unconfirmedReads.put(key, 0);
 
         if (isCritical) {
             Logger.criticalRead(this.id, LoggerOperationType.SEND, key, this.getUpdateCountOrElse(key), this.getUpdateCountOrElse(key), false);
             this.sendCritReadMessage(l2Cache, key, message.getMessageConfig());
         } else {
             Logger.read(this.id, LoggerOperationType.SEND, key, this.getUpdateCountOrElse(key), this.getUpdateCountOrElse(key), this.isKeyLocked(key), true, false);
-            this.sendReadMessage(l2Cache, key, message.getMessageConfig());
+            this.sendReadMessage(l2Cache, key, message.isStaleAllowed(), message.getMessageConfig());
+        }
+    }
+
+    /**
+     * Listener that is triggered whenever this actor receives an InstantiateScanMessage.
+     * Then, the actor starts a scan of the given key range at the given L2 cache.
+     *
+     * @param message The received InstantiateScanMessage
+     */
+    private void onInstantiateScanMessage(InstantiateScanMessage message) {
+        ActorRef l2Cache = message.getL2Cache();
+        if (!this.l2Caches.contains(l2Cache)) {
+            Logger.error(this.id, LoggerOperationType.ERROR, MessageType.INIT_SCAN, message.getFromKey(), false, "L2 is unknown");
+            return;
+        }
+        l2Cache = this.routeAround(l2Cache);
+
+        Logger.initScan(this.id, message.getFromKey(), message.getToKey());
+        ScanMessage scanMessage = new ScanMessage(message.getFromKey(), message.getToKey(), message.getChunkSize(),
+                message.getWindow(), message.isAbsorbed());
+        Logger.scan(this.id, LoggerOperationType.SEND, scanMessage.getUuid(), message.getFromKey(), message.getToKey(),
+                message.getChunkSize(), message.getWindow());
+        this.send(scanMessage, l2Cache);
+        this.scans.put(scanMessage.getUuid(), new ScanProgress(l2Cache, System.currentTimeMillis()));
+        this.setTimeout(scanMessage, l2Cache, MessageType.SCAN);
+    }
+
+    /**
+     * Stores the keys of a chunk and acknowledges it, which lets the database send
+     * the next chunk.
+     *
+     * @param message The received ScanChunkMessage
+     */
+    private void onScanChunkMessage(ScanChunkMessage message) {
+        UUID uuid = message.getUuid();
+        ScanProgress progress = this.scans.get(uuid);
+        Logger.scanChunk(this.id, LoggerOperationType.RECEIVED, uuid, message.getSeq(), message.getItems().size(), message.isLast());
+        if (progress == null) {
+            // already timed-out
+            return;
+        }
+
+        for (DataItem item : message.getItems()) {
+            if (item.getUpdateCount() >= this.getUpdateCountOrElse(item.getKey()) && !this.isKeyLocked(item.getKey())) {
+                try {
+                    this.setValue(item.getKey(), item.getValue(), item.getUpdateCount());
+                } catch (IllegalAccessException e) {
+                    // can't happen, the key is not locked
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        progress.addChunk(message.getSeq(), message.getItems().size(), message.isLast(), now);
+        ScanAckMessage ackMessage = new ScanAckMessage(uuid, message.getSeq());
+        this.send(ackMessage, progress.getL2Cache());
+
+        if (progress.isComplete()) {
+            this.scans.remove(uuid);
+            String info = String.format("scan: %s, keys: %d, chunks: %d, duration: %dms", uuid, progress.getNumOfKeys(),
+                    progress.getNumOfChunks(), now - progress.getStartMillis());
+            Logger.stats(this.id, info);
+        } else {
+            this.setTimeout(ackMessage, progress.getL2Cache(), MessageType.SCAN);
         }
     }
 
@@ -359,13 +740,30 @@ public class Client extends Node {
         int value = message.getValue();
         int updateCount = message.getUpdateCount();
         Logger.readReply(this.id, LoggerOperationType.RECEIVED, key, value, this.getValueOrElse(key), updateCount,
-                this.getUpdateCountOrElse(key));
+                this.getUpdateCountOrElse(key), message.isStale());
+
+        if (!this.isReadUnconfirmed(key)) {
+            // the loser of a hedged read, or a reply after the timeout
+            this.ignoredReplyCount = this.ignoredReplyCount + 1;
+            return;
+        }
+
+        this.readLatencies.record(System.currentTimeMillis() - this.readStartTimes.getOrDefault(key, System.currentTimeMillis()));
+        if (this.getSender().equals(this.hedgedReads.get(key))) {
+            this.hedgeWinCount = this.hedgeWinCount + 1;
+        }
+
+        if (message.isStale() && updateCount < this.getUpdateCountOrElse(key)) {
+            // accept the stale reply, but never go back to an older value
+            this.completeRead(key);
+            return;
+        }
 
         try {
             // update value
             this.setValue(key, value, updateCount);
             // reset config
-            this.removeUnconfirmedRead(key);
+            this.completeRead(key);
         } catch (IllegalAccessException e) {
             // nothing todo, timeout will handle it
         }
@@ -375,8 +773,12 @@ public class Client extends Node {
     protected void handleTimeoutMessage(TimeoutMessage message) {
         MessageType type = message.getType();
         if (type == MessageType.WRITE && this.isWaitingForWriteConfirm) {
-            Logger.timeout(this.id, type);
-            this.resetWriteConfig();
+            WriteMessage writeMessage = (WriteMessage) message.getMessage();
+            // ignore the timeout of an already retried write
+            if (writeMessage == this.pendingWriteMessage && message.getUnreachableActor().equals(this.pendingWriteL2Cache)) {
+                Logger.timeout(this.id, type);
+                this.retryOrAbortWrite(message.getUnreachableActor());
+            }
         } else if (type == MessageType.READ) {
             ReadMessage readMessage = (ReadMessage) message.getMessage();
             int key = readMessage.getKey();
@@ -384,19 +786,32 @@ public class Client extends Node {
             // if the key is in this map, then no ReadReply has been received for the key
             if (this.isReadUnconfirmed(key)) {
                 Logger.timeout(this.id, type);
-                this.removeUnconfirmedRead(key);
+                this.retryOrAbortRead(message.getUnreachableActor(), readMessage, key);
+            }
+        } else if (type == MessageType.RETRY) {
+            this.onRetryTimeout(message);
+        } else if (type == MessageType.SCAN) {
+            UUID uuid = ((UUIDMessage) message.getMessage()).getUuid();
+            ScanProgress progress = this.scans.get(uuid);
+            // only give up if no chunk has been received for a whole timeout
+            if (progress != null && System.currentTimeMillis() - progress.getLastChunkMillis() >= this.getTimeoutMillis()) {
+                Logger.timeout(this.id, type);
+                this.scans.remove(uuid);
             }
+        } else if (type == MessageType.HEDGED_READ) {
+            this.sendHedgedRead(message.getUnreachableActor(), (ReadMessage) message.getMessage());
         } else if (type == MessageType.CRITICAL_READ) {
             CritReadMessage critReadMessage = (CritReadMessage) message.getMessage();
             int key = critReadMessage.getKey();
 
             if (this.isReadUnconfirmed(key)) {
                 Logger.timeout(this.id, type);
-                this.removeUnconfirmedRead(key);
+                this.retryOrAbortRead(message.getUnreachableActor(), critReadMessage, key);
             }
         } else if (type == MessageType.CRITICAL_WRITE && this.isWaitingForWriteConfirm) {
-            CritWriteMessage critWriteMessage = (CritWriteMessage) message.getMessage();
+            // a critical write is not retried, the database might have aborted it on purpose
             Logger.timeout(this.id, type);
+            this.failedCount = this.failedCount + 1;
             this.resetWriteConfig();
         }
     }
@@ -406,13 +821,56 @@ public class Client extends Node {
         MessageType messageType = message.getMessageType();
         int key = message.getKey();
 
+        boolean isRetryable = message.getErrorType() != ErrorType.UNKNOWN_KEY;
+
         if (messageType == MessageType.READ || messageType == MessageType.CRITICAL_READ) {
-            this.removeUnconfirmedRead(key);
+            if (isRetryable && this.isReadUnconfirmed(key)) {
+                // the read is answered, its timeout must not schedule another retry
+                this.cancelTimeouts(key);
+                // the retry is a regular read, the error does not tell if stale values were allowed
+                Serializable readMessage = messageType == MessageType.READ
+                        ? new ReadMessage(key, this.getUpdateCountOrElse(key), MessageConfig.none(), false)
+                        : new CritReadMessage(key, this.getUpdateCountOrElse(key), MessageConfig.none());
+                this.retryOrAbortRead(this.getSender(), readMessage, key);
+            } else {
+                this.completeRead(key);
+            }
+        } else if (messageType == MessageType.WRITE && this.isWaitingForWriteConfirm && this.pendingWriteMessage != null) {
+            if (!this.getSender().equals(this.pendingWriteL2Cache)) {
+                // error of an attempt that has already been retried
+                return;
+            }
+            this.cancelTimeouts(this.pendingWriteUuid);
+            if (isRetryable) {
+                this.retryOrAbortWrite(this.getSender());
+            } else {
+                this.resetWriteConfig();
+            }
         } else if (messageType == MessageType.WRITE || messageType == MessageType.CRITICAL_WRITE) {
             this.resetWriteConfig();
         }
     }
 
+    /**
+     * Logs the read latencies and the hedging statistics.
+     *
+     * @param message The received StatsMessage
+     */
+    private void onStatsMessage(StatsMessage message) {
+        long completedCount = this.readLatencies.getTotalCount() + this.writeLatencies.getTotalCount();
+        double availability = completedCount + this.failedCount == 0
+                ? 1
+                : (double) completedCount / (completedCount + this.failedCount);
+        String info = String.format("reads: %d, p50: %dms, p95: %dms, p99: %dms, hedged: %d, hedge-wins: %d, ignored-replies: %d, " +
+                        "writes: %d, write-p99: %dms, retries: %d, failed: %d, availability: %.3f, routed-around: %d, %s, %s",
+                this.readLatencies.getTotalCount(), this.readLatencies.getPercentile(0.5),
+                this.readLatencies.getPercentile(0.95), this.readLatencies.getPercentile(0.99),
+                this.hedgeCount, this.hedgeWinCount, this.ignoredReplyCount, this.writeLatencies.getTotalCount(),
+                this.writeLatencies.getPercentile(0.99), this.retryCount, this.failedCount, availability,
+                this.routedAroundCount, this.getTimerStats(), this.getFailureDetectorStats());
+        Logger.stats(this.id, info);
+    }
+
     @Override
     public Receive createReceive() {
         return this
@@ -423,7 +881,13 @@ public class Client extends Node {
                 .match(InstantiateReadMessage.class, this::onInstantiateReadMessage)
                 .match(ReadReplyMessage.class, this::onReadReplyMessage)
                 .match(TimeoutMessage.class, this::onTimeoutMessage)
+                .match(TimerTickMessage.class, this::onTimerTickMessage)
                 .match(ErrorMessage.class, this::onErrorMessage)
+                .match(StatsMessage.class, this::onStatsMessage)
+                .match(InstantiateScanMessage.class, this::onInstantiateScanMessage)
+                .match(ScanChunkMessage.class, this::onScanChunkMessage)
+                .match(HeartbeatTickMessage.class, this::onHeartbeatTickMessage)
+                .match(HeartbeatReplyMessage.class, this::onHeartbeatReplyMessage)
                 .build();
     }
 
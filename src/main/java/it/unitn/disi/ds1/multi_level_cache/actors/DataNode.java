@@ -1,13 +1,32 @@
 package it.unitn.disi.ds1.multi_level_cache.actors;
 
 import akka.actor.AbstractActor;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BackingStore;
 import it.unitn.disi.ds1.multi_level_cache.actors.utils.DataStore;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
 
 public abstract class DataNode extends AbstractActor {
 
-    private DataStore data = new DataStore();
+    private BackingStore data = new DataStore();
+
+    /**
+     * Replaces the store of this node, e.g. by one that isn't held in memory entirely.
+     *
+     * @param data The new store
+     */
+    protected void setBackingStore(BackingStore data) {
+        this.data = data;
+    }
+
+    protected void closeBackingStore() throws IOException {
+        this.data.close();
+    }
 
     protected void lockKey(int key) {
         this.data.lockValueForKey(key);
@@ -45,10 +64,48 @@ public abstract class DataNode extends AbstractActor {
         return this.data.isLocked(key);
     }
 
+    protected boolean canStoreKey(int key) {
+        return this.data.canStore(key);
+    }
+
     protected boolean isKeyAvailable(int key) {
         return this.data.containsKey(key);
     }
 
+    protected Set<Integer> getKeys() {
+        return this.data.getKeys();
+    }
+
+    protected SortedSet<Integer> getKeysInRange(int fromKey, int toKey) {
+        return this.data.getKeysInRange(fromKey, toKey);
+    }
+
+    protected List<DataItem> getItemsInRange(int fromKey, int toKey, int limit) {
+        return this.data.getItemsInRange(fromKey, toKey, limit);
+    }
+
+    protected boolean isEmpty() {
+        return this.data.isEmpty();
+    }
+
+    protected int copyItems(int fromKey, int[] keys, int[] values, int[] updateCounts) {
+        return this.data.copyItems(fromKey, keys, values, updateCounts);
+    }
+
+    protected void loadSortedData(int[] keys, int[] values, int[] updateCounts, int size) {
+        this.data.loadSorted(keys, values, updateCounts, size);
+    }
+
+    /**
+     * Returns all given keys that are known and not locked, in the given order.
+     *
+     * @param keys The requested keys
+     * @return The items of all readable keys
+     */
+    protected List<DataItem> getItems(List<Integer> keys) {
+        return this.data.getItems(keys);
+    }
+
     protected void flushData() {
         this.data = new DataStore();
     }
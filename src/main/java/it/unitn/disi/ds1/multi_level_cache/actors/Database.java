@@ -2,37 +2,291 @@ package it.unitn.disi.ds1.multi_level_cache.actors;
 
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.pattern.Patterns;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.AdmissionConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BloomFilter;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BloomFilterConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.ChangeFeed;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.ChangeLog;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.ChangeStreamConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BackingStore;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BackingStoreConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.DatasetConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.LogFileStore;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.LogCompactionConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.LsmDataStore;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.MappedFileStore;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.PartitionConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.ScanCursor;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.SnapshotConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.WriteAheadLogConfig;
 import it.unitn.disi.ds1.multi_level_cache.messages.*;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.ChangeEvent;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageType;
+import it.unitn.disi.ds1.multi_level_cache.storage.AsyncSnapshotWriter;
+import it.unitn.disi.ds1.multi_level_cache.storage.DatasetLoader;
+import it.unitn.disi.ds1.multi_level_cache.storage.LogCompactor;
+import it.unitn.disi.ds1.multi_level_cache.storage.LogRecord;
+import it.unitn.disi.ds1.multi_level_cache.storage.LsmTree;
+import it.unitn.disi.ds1.multi_level_cache.storage.SnapshotFile;
+import it.unitn.disi.ds1.multi_level_cache.storage.WriteAheadLog;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.Logger;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.LoggerOperationType;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 public class Database extends OperationalNode implements Coordinator {
 
+    /**
+     * Number of applied writes that are remembered to detect retries
+     */
+    static final int MAX_APPLIED_WRITES = 10000;
+    /**
+     * Number of items copied per message while taking a snapshot
+     */
+    static final int SNAPSHOT_CHUNK_SIZE = 10000;
     private final ACCoordinator acCoordinator = new ACCoordinator(this);
+    /**
+     * Index of the partition of the key space this database owns
+     */
+    private final int partition;
+    /**
+     * Config of the log of this partition
+     */
+    private final WriteAheadLogConfig walConfig;
     private List<ActorRef> l1Caches;
     private List<ActorRef> l2Caches;
+    /**
+     * Read replicas of this partition, they get every commit like the L1 caches
+     */
+    private List<ActorRef> replicas = List.of();
+    /**
+     * Bloom filter of all known keys, null if disabled
+     */
+    private BloomFilter bloomFilter;
+    /**
+     * Version of the last pushed Bloom filter
+     */
+    private long bloomFilterVersion = 0;
+    /**
+     * All running scans
+     */
+    private final Map<UUID, ScanCursor> scanCursors = new HashMap<>();
+    /**
+     * Sequence number of the latest commit (write or critical write)
+     */
+    private long commitSeq = 0;
+    private final ChangeLog changeLog;
+    /**
+     * Latest durable changes for the change stream, null if disabled
+     */
+    private final ChangeFeed changeFeed;
+    /**
+     * Subscribers of the change stream that wait for the next change
+     */
+    private final Map<ActorRef, ChangeRequestMessage> waitingSubscribers = new LinkedHashMap<>();
+    private long changeBatchCount = 0;
+    /**
+     * Refills of the latest applied writes by their UUID, the eldest one is evicted first
+     */
+    private final Map<UUID, RefillMessage> appliedWrites = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, RefillMessage> eldest) {
+            return this.size() > MAX_APPLIED_WRITES;
+        }
+    };
+    private long duplicateWriteCount = 0;
+    /**
+     * Keys of restored L1 caches that have been confirmed, or replaced as they have changed
+     */
+    private long validatedCount = 0;
+    private long changedCount = 0;
+    /**
+     * Since when the queueing delay exceeds the target, 0 while it is below
+     */
+    private long aboveTargetSinceMillis = 0;
+    /**
+     * True while new requests are rejected
+     */
+    private boolean isShedding = false;
+    private long lastQueueDelayMillis = 0;
+    private long shedCount = 0;
+    /**
+     * Log of all committed writes, null if disabled
+     */
+    private WriteAheadLog writeAheadLog;
+    /**
+     * Refills and commits of writes that are not durable yet, in commit order
+     */
+    private final List<Serializable> unsyncedAcks = new ArrayList<>();
+    /**
+     * Writer of the running snapshot, null while none is running
+     */
+    private AsyncSnapshotWriter snapshotWriter;
+    private long snapshotStartMillis = 0;
+    /**
+     * Commit sequence number of the latest snapshot, -1 if there is none
+     */
+    private long snapshotSeq = -1;
+    private long snapshotCount = 0;
+    /**
+     * Compactor of the log, null if disabled
+     */
+    private LogCompactor logCompactor;
+    private boolean isCompactingLog = false;
+    /**
+     * Size of the log after the previous compaction
+     */
+    private long compactedLogBytes = 0;
+    private long logCompactionCount = 0;
+    private long droppedLogRecords = 0;
+    private double lastCompactionBytesPerSecond = 0;
+    /**
+     * Type of the store that has been opened
+     */
+    private BackingStoreConfig.Type storeType = BackingStoreConfig.Type.MEMORY;
+    /**
+     * Store on top of the LSM tree, null if another store is used
+     */
+    private LsmDataStore lsmStore;
+    /**
+     * Requests that wait for their key to be loaded from the LSM tree, by key
+     */
+    private final Map<Integer, List<PendingRequest>> pendingLoads = new HashMap<>();
+    private long loadCount = 0;
 
     public Database() {
-        super("Database");
+        this(NodeConfig.defaults());
+    }
 
-        try {
-            this.setDefaultData(100);
-        } catch (IllegalAccessException e) {
-            System.out.printf("%s - Wasn't able to set default data\n", this.id);
+    public Database(NodeConfig config) {
+        this(config, 0);
+    }
+
+    /**
+     * Creates a partition of the database. If the database is partitioned, every partition
+     * keeps its files in its own subdirectory.
+     *
+     * @param config    The config of all nodes
+     * @param partition Index of the partition
+     */
+    public Database(NodeConfig config, int partition) {
+        super(genId(config.getPartitionConfig(), partition), config);
+        this.partition = partition;
+        this.changeLog = new ChangeLog(config.getRecoveryConfig().getChangeLogSize());
+        ChangeStreamConfig changeStreamConfig = config.getChangeStreamConfig();
+        this.changeFeed = changeStreamConfig.isEnabled() ? new ChangeFeed(changeStreamConfig.getRetainedChanges()) : null;
+
+        boolean isPartitioned = config.getPartitionConfig().isPartitioned();
+        WriteAheadLogConfig walConfig = isPartitioned
+                ? config.getWriteAheadLogConfig().forPartition(partition) : config.getWriteAheadLogConfig();
+        BackingStoreConfig storeConfig = isPartitioned
+                ? config.getBackingStoreConfig().forPartition(partition) : config.getBackingStoreConfig();
+        this.walConfig = walConfig;
+        DatasetConfig datasetConfig = config.getDatasetConfig();
+        this.openBackingStore(storeConfig, walConfig);
+        if (walConfig.isEnabled() && this.storeType == BackingStoreConfig.Type.MEMORY) {
+            this.loadSnapshot(walConfig.getSnapshotPath());
+        }
+        if (datasetConfig.isFile() && this.isEmpty()) {
+            // the dataset is the base of the log, therefore it is loaded before the log is replayed
+            this.loadDataset(datasetConfig);
+        }
+        if (walConfig.isEnabled()) {
+            this.restoreFromDisk(walConfig);
+        }
+        if (!datasetConfig.isFile() && this.isEmpty()) {
+            // first start, nothing has been replayed
+            try {
+                this.setDefaultData(datasetConfig.getNumOfRandomItems());
+            } catch (IllegalAccessException e) {
+                System.out.printf("%s - Wasn't able to set default data\n", this.id);
+            }
         }
 
+        if (config.getBloomFilterConfig().isEnabled()) {
+            this.initBloomFilter();
+        }
     }
 
     static public Props props() {
         return Props.create(Database.class, () -> new Database());
     }
 
+    static public Props props(NodeConfig config) {
+        return Props.create(Database.class, () -> new Database(config));
+    }
+
+    static public Props props(NodeConfig config, int partition) {
+        return Props.create(Database.class, () -> new Database(config, partition));
+    }
+
+    private static String genId(PartitionConfig partitionConfig, int partition) {
+        return partitionConfig.isPartitioned() ? String.format("Database-%d", partition + 1) : "Database";
+    }
+
+    private boolean isOwnKey(int key) {
+        return this.config.getPartitionConfig().getPartition(key) == this.partition;
+    }
+
+    @Override
+    public void preStart() {
+        if (this.bloomFilter != null) {
+            this.scheduleMessageToSelf(new RefreshBloomFilterMessage(), this.config.getBloomFilterConfig().getRefreshMillis());
+        }
+        if (this.config.getAdmissionConfig().isEnabled()) {
+            this.scheduleLoadProbe();
+        }
+        if (this.writeAheadLog != null && this.writeAheadLog.getFsyncPolicy().getMaxDelayMillis() > 0) {
+            this.schedulePeriodicMessageToSelf(new SyncLogMessage(), this.writeAheadLog.getFsyncPolicy().getMaxDelayMillis());
+        }
+        SnapshotConfig snapshotConfig = this.config.getSnapshotConfig();
+        if (this.writeAheadLog != null && this.storeType == BackingStoreConfig.Type.MEMORY && snapshotConfig.isEnabled()) {
+            this.schedulePeriodicMessageToSelf(new TakeSnapshotMessage(), snapshotConfig.getIntervalMillis());
+        }
+        LogCompactionConfig compactionConfig = this.config.getLogCompactionConfig();
+        if (this.writeAheadLog != null && compactionConfig.isEnabled()) {
+            this.logCompactor = new LogCompactor(compactionConfig.getMaxBytesPerSecond());
+            this.schedulePeriodicMessageToSelf(new CompactLogMessage(), compactionConfig.getIntervalMillis());
+        }
+    }
+
+    @Override
+    public void postStop() {
+        if (this.logCompactor != null) {
+            this.logCompactor.close();
+        }
+        if (this.writeAheadLog != null) {
+            try {
+                this.writeAheadLog.close();
+            } catch (IOException e) {
+                System.out.printf("%s - Wasn't able to close the write-ahead log\n", this.id);
+            }
+        }
+        try {
+            this.closeBackingStore();
+        } catch (IOException e) {
+            System.out.printf("%s - Wasn't able to close the %s store\n", this.id, this.storeType);
+        }
+    }
+
     private ActorRef getActorForUnconfirmedRead(int key) {
         if (this.isReadUnconfirmed(key)) {
             return this.getUnconfirmedActorsForRead(key).get(0);
@@ -40,14 +294,664 @@ public class Database extends OperationalNode implements Coordinator {
         return ActorRef.noSender();
     }
 
+    /**
+     * Writes random items. Like commits, they are numbered, such that they are replayed from the
+     * log after a restart, unless they are part of the snapshot or the tables.
+     */
     private void setDefaultData(int size) throws IllegalAccessException {
+        Random random = new Random();
         for (int i = 0; i < size; i++) {
-            int value = new Random().nextInt(1000);
-            int updateCount = new Random().nextInt(10 - 1) + 1;
-            this.setValue(i, value, updateCount);
+            if (!this.isOwnKey(i)) {
+                continue;
+            }
+            int value = random.nextInt(1000);
+            int updateCount = random.nextInt(10 - 1) + 1;
+            long seq = this.commitSeq + 1;
+            this.applyCommit(i, value, updateCount, seq);
+            this.appendToLog(LogRecord.put(i, value, updateCount, seq));
+            this.commitSeq = seq;
+        }
+        this.syncLog();
+    }
+
+    /**
+     * Opens the configured store and replaces the in-memory store by it. If the store can't be
+     * opened, the database keeps all data in memory.
+     *
+     * @param storeConfig The config of the store
+     * @param walConfig   The config of the log, the LSM tree is stored next to it
+     */
+    private void openBackingStore(BackingStoreConfig storeConfig, WriteAheadLogConfig walConfig) {
+        BackingStore store;
+        try {
+            switch (storeConfig.getType()) {
+                case FILE_LOG -> {
+                    Files.createDirectories(storeConfig.getDirectory());
+                    store = new LogFileStore(storeConfig.getLogPath(), storeConfig.getFsyncPolicy());
+                }
+                case MAPPED -> {
+                    Files.createDirectories(storeConfig.getDirectory());
+                    store = new MappedFileStore(storeConfig.getMappedPath(), storeConfig.getInitialCapacity());
+                }
+                case LSM -> {
+                    if (!walConfig.isEnabled()) {
+                        System.out.printf("%s - The LSM tree requires the write-ahead log, continuing in memory\n", this.id);
+                        return;
+                    }
+                    LsmTree tree = new LsmTree(walConfig.getLsmDirectory(), storeConfig.getMemtableSize(),
+                            storeConfig.getMaxTables());
+                    this.lsmStore = new LsmDataStore(tree, storeConfig.getRowCacheSize());
+                    this.commitSeq = tree.getFlushedSeq();
+                    store = this.lsmStore;
+                }
+                default -> {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            System.out.printf("%s - Wasn't able to open the %s store, continuing in memory\n", this.id, storeConfig.getType());
+            return;
+        }
+        this.setBackingStore(store);
+        this.storeType = storeConfig.getType();
+    }
+
+    /**
+     * Bulk loads the dataset file into the empty store. The file is parsed in chunks on
+     * several threads. The LSM tree writes every chunk into a table right away, the other
+     * stores are built at once from the merged chunks instead of key by key. A partition
+     * only keeps its own keys. If the file can't be loaded, the database starts empty.
+     *
+     * @param datasetConfig The config of the dataset
+     */
+    private void loadDataset(DatasetConfig datasetConfig) {
+        long start = System.currentTimeMillis();
+        DatasetLoader loader = new DatasetLoader(datasetConfig.getPath(), datasetConfig.getFormat(),
+                datasetConfig.getChunkRecords(), datasetConfig.getParallelism(), this::isOwnKey);
+        try {
+            long recordCount;
+            if (this.lsmStore != null) {
+                recordCount = this.lsmStore.getTree().load(loader);
+            } else {
+                DatasetLoader.Chunk items = loader.loadMerged();
+                this.loadSortedData(items.getKeys(), items.getValues(), items.getUpdateCounts(), items.getSize());
+                recordCount = loader.getRecordCount();
+            }
+            Logger.dataset(this.id, LoggerOperationType.RECEIVED, recordCount, System.currentTimeMillis() - start);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            // e.g. the mapped store can't hold some key of the dataset
+            System.out.printf("%s - Wasn't able to load the dataset %s, starting empty\n", this.id, datasetConfig.getPath());
+        }
+    }
+
+    /**
+     * Replays all commits after the latest snapshot from the write-ahead log. With the LSM
+     * tree, only the commits that haven't been flushed are replayed. The other stores persist
+     * their items on their own, replaying the whole log on top of them is harmless. If the log
+     * can't be opened, the database keeps running without it.
+     *
+     * @param walConfig The config of the log
+     */
+    private void restoreFromDisk(WriteAheadLogConfig walConfig) {
+        long restoredSeq = this.lsmStore != null ? this.lsmStore.getTree().getFlushedSeq() : this.snapshotSeq;
+        try {
+            // left behind by a compaction that has been abandoned when the database stopped
+            Files.deleteIfExists(LogCompactor.getCompactedPath(walConfig.getLogPath()));
+            this.writeAheadLog = new WriteAheadLog(walConfig.getLogPath(), walConfig.getFsyncPolicy());
+            long count = this.writeAheadLog.replay(record -> {
+                // older records are part of the snapshot or the tables
+                if (record.getSeq() > restoredSeq) {
+                    this.replayRecord(record);
+                }
+            });
+            Logger.writeAheadLog(this.id, LoggerOperationType.RECEIVED, count, this.writeAheadLog.getSyncCount(),
+                    this.writeAheadLog.getTruncatedBytes());
+        } catch (IOException e) {
+            System.out.printf("%s - Wasn't able to open the write-ahead log, continuing in memory\n", this.id);
+            this.writeAheadLog = null;
+        }
+    }
+
+    /**
+     * Returns whether the key has to be loaded from the LSM tree before the request can be
+     * processed. Then the request is parked, while the key is read on a reader thread. The
+     * result is piped back to this actor, such that it keeps processing other messages.
+     *
+     * @param key         The requested key
+     * @param message     The request
+     * @param messageType Type of the request
+     * @return True if the request has been parked
+     */
+    private boolean awaitKey(int key, Serializable message, MessageType messageType) {
+        if (this.lsmStore == null) {
+            return false;
+        }
+        List<PendingRequest> pendingRequests = this.pendingLoads.get(key);
+        if (pendingRequests == null) {
+            if (this.lsmStore.isResident(key)) {
+                return false;
+            }
+            pendingRequests = new ArrayList<>();
+            this.pendingLoads.put(key, pendingRequests);
+            this.loadCount = this.loadCount + 1;
+            CompletionStage<KeyLoadedMessage> loaded = this.lsmStore.load(key)
+                    .handle((item, e) -> e == null ? KeyLoadedMessage.loaded(key, item) : KeyLoadedMessage.failed(key));
+            Patterns.pipe(loaded, this.getContext().dispatcher()).to(this.getSelf());
+        }
+        pendingRequests.add(new PendingRequest(message, this.getSender(), messageType));
+        return true;
+    }
+
+    /**
+     * Dispatches all parked requests of the loaded key again, on behalf of their senders.
+     * If the key couldn't be read, they are answered with an error.
+     *
+     * @param message The received KeyLoadedMessage
+     */
+    private void onKeyLoadedMessage(KeyLoadedMessage message) {
+        int key = message.getKey();
+        List<PendingRequest> pendingRequests = this.pendingLoads.remove(key);
+        if (pendingRequests == null) {
+            return;
+        }
+        if (message.isOk()) {
+            this.lsmStore.onLoaded(key, message.getItem());
+            for (PendingRequest request : pendingRequests) {
+                this.getSelf().tell(request.message, request.sender);
+            }
+            return;
+        }
+
+        System.out.printf("%s - Wasn't able to load key %d from the LSM tree\n", this.id, key);
+        for (PendingRequest request : pendingRequests) {
+            String errMsg = String.format("Can't serve key %d, because it couldn't be loaded", key);
+            Logger.error(this.id, LoggerOperationType.SEND, request.messageType, key, false, errMsg);
+            this.send(ErrorMessage.internalError(key, request.messageType, errMsg), request.sender);
         }
     }
 
+    /**
+     * Loads the snapshot, which is mapped into memory. Its items are sorted, therefore the
+     * store is built at once instead of key by key.
+     *
+     * @param path The snapshot
+     */
+    private void loadSnapshot(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try (SnapshotFile.Reader reader = new SnapshotFile.Reader(path)) {
+            int size = Math.toIntExact(reader.getItemCount());
+            int[] keys = new int[size];
+            int[] values = new int[size];
+            int[] updateCounts = new int[size];
+            int[] next = {0};
+            reader.forEach((key, value, updateCount) -> {
+                keys[next[0]] = key;
+                values[next[0]] = value;
+                updateCounts[next[0]] = updateCount;
+                next[0] = next[0] + 1;
+            });
+            this.loadSortedData(keys, values, updateCounts, size);
+            this.snapshotSeq = reader.getSeq();
+            this.commitSeq = reader.getSeq();
+            Logger.snapshot(this.id, LoggerOperationType.RECEIVED, this.snapshotSeq, size, System.currentTimeMillis() - start);
+        } catch (IOException | ArithmeticException e) {
+            System.out.printf("%s - Wasn't able to load the snapshot, replaying the whole log\n", this.id);
+        }
+    }
+
+    /**
+     * Starts a snapshot, unless the previous one is still running or nothing has been committed
+     * since. The items are copied in chunks, other messages are processed in between.
+     *
+     * @param message The received TakeSnapshotMessage
+     */
+    private void onTakeSnapshotMessage(TakeSnapshotMessage message) {
+        if (this.snapshotWriter != null || this.commitSeq == this.snapshotSeq) {
+            return;
+        }
+        this.snapshotStartMillis = System.currentTimeMillis();
+        this.snapshotWriter = new AsyncSnapshotWriter(this.walConfig.getSnapshotPath(), this.commitSeq);
+        this.copySnapshotChunk(Integer.MIN_VALUE, this.commitSeq);
+    }
+
+    private void onSnapshotChunkMessage(SnapshotChunkMessage message) {
+        this.copySnapshotChunk(message.getFromKey(), message.getSeq());
+    }
+
+    /**
+     * Copies the next chunk of items and hands it to the snapshot writer. The snapshot is fuzzy:
+     * an item written between two chunks may or may not be part of it. Therefore, the log is
+     * replayed from the commit the snapshot has been started at. Since every record carries the
+     * absolute value and update count, replaying a commit that is already part of the snapshot
+     * is harmless.
+     *
+     * @param fromKey The first key of the chunk
+     * @param seq     Commit sequence number at the start of the snapshot
+     */
+    private void copySnapshotChunk(int fromKey, long seq) {
+        int[] keys = new int[SNAPSHOT_CHUNK_SIZE];
+        int[] values = new int[SNAPSHOT_CHUNK_SIZE];
+        int[] updateCounts = new int[SNAPSHOT_CHUNK_SIZE];
+        int size = this.copyItems(fromKey, keys, values, updateCounts);
+        this.snapshotWriter.append(keys, values, updateCounts, size);
+
+        if (size == SNAPSHOT_CHUNK_SIZE && keys[size - 1] != Integer.MAX_VALUE) {
+            this.send(new SnapshotChunkMessage(keys[size - 1] + 1, seq), this.getSelf());
+            return;
+        }
+        ActorRef self = this.getSelf();
+        this.snapshotWriter.commit().whenComplete((itemCount, e) ->
+                self.tell(new SnapshotDoneMessage(seq, e == null ? itemCount : 0, e == null), ActorRef.noSender()));
+    }
+
+    private void onSnapshotDoneMessage(SnapshotDoneMessage message) {
+        this.snapshotWriter = null;
+        if (!message.isOk()) {
+            System.out.printf("%s - Wasn't able to write the snapshot, keeping the previous one\n", this.id);
+            return;
+        }
+        this.snapshotSeq = message.getSeq();
+        this.snapshotCount = this.snapshotCount + 1;
+        Logger.snapshot(this.id, LoggerOperationType.CREATE, message.getSeq(), message.getItemCount(),
+                System.currentTimeMillis() - this.snapshotStartMillis);
+    }
+
+    /**
+     * Returns the commit sequence number up to which the log isn't needed anymore, as all
+     * commits are part of the latest snapshot or have been flushed into the LSM tree.
+     *
+     * @return The sequence number, 0 if there is no checkpoint yet
+     */
+    private long getCheckpointSeq() {
+        if (this.lsmStore != null) {
+            return this.lsmStore.getTree().getFlushedSeq();
+        }
+        return Math.max(0, this.snapshotSeq);
+    }
+
+    /**
+     * Starts a compaction of the log once it has doubled since the previous one. The log is
+     * copied up to its current end, later records are moved over when the copy replaces it.
+     *
+     * @param message The received CompactLogMessage
+     */
+    private void onCompactLogMessage(CompactLogMessage message) {
+        if (this.isCompactingLog) {
+            return;
+        }
+        long endOffset;
+        try {
+            endOffset = this.writeAheadLog.getWrittenBytes();
+        } catch (IOException e) {
+            System.out.printf("%s - Wasn't able to read the size of the write-ahead log\n", this.id);
+            return;
+        }
+        if (endOffset < this.config.getLogCompactionConfig().getMinLogBytes() || endOffset < 2 * this.compactedLogBytes) {
+            return;
+        }
+
+        this.isCompactingLog = true;
+        ActorRef self = this.getSelf();
+        this.logCompactor.compact(this.writeAheadLog.getPath(), endOffset, this.getCheckpointSeq())
+                .whenComplete((result, e) -> self.tell(new LogCompactedMessage(endOffset, e == null ? result : null),
+                        ActorRef.noSender()));
+    }
+
+    private void onLogCompactedMessage(LogCompactedMessage message) {
+        this.isCompactingLog = false;
+        if (!message.isOk()) {
+            System.out.printf("%s - Wasn't able to compact the write-ahead log, keeping it as it is\n", this.id);
+            return;
+        }
+        try {
+            this.compactedLogBytes = this.writeAheadLog.replaceBy(
+                    LogCompactor.getCompactedPath(this.writeAheadLog.getPath()), message.getEndOffset());
+        } catch (IOException e) {
+            System.out.printf("%s - Wasn't able to replace the write-ahead log: %s\n", this.id, e.getMessage());
+            return;
+        }
+
+        LogCompactor.Result result = message.getResult();
+        this.logCompactionCount = this.logCompactionCount + 1;
+        this.droppedLogRecords = this.droppedLogRecords + result.getInputRecords() - result.getOutputRecords();
+        this.lastCompactionBytesPerSecond = result.getBytesPerSecond();
+        Logger.logCompaction(this.id, LoggerOperationType.CREATE, result.getInputRecords(), result.getOutputRecords(),
+                result.getTruncatedRecords(), result.getInputBytes(), result.getOutputBytes(), result.getMillis(),
+                result.getBytesPerSecond());
+    }
+
+    /**
+     * @return The size of the file in bytes, 0 if it doesn't exist
+     */
+    private long getFileBytes(Path path) {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void replayRecord(LogRecord record) {
+        try {
+            this.applyCommit(record.getKey(), record.getValue(), record.getUpdateCount(), record.getSeq());
+        } catch (IllegalAccessException e) {
+            // nothing is locked during startup
+        }
+        this.commitSeq = Math.max(this.commitSeq, record.getSeq());
+    }
+
+    /**
+     * Writes a committed value. The LSM tree tracks the sequence number of its writes, to
+     * know from which commit the log has to be replayed.
+     */
+    private void applyCommit(int key, int value, int updateCount, long seq) throws IllegalAccessException {
+        if (this.lsmStore != null) {
+            this.lsmStore.setSeq(seq);
+        }
+        this.setValue(key, value, updateCount);
+    }
+
+    /**
+     * Appends the record to the write-ahead log, if enabled.
+     *
+     * @param record The committed write
+     * @return False if the record couldn't be written, then the write must not be applied
+     */
+    private boolean appendToLog(LogRecord record) {
+        if (this.writeAheadLog == null) {
+            return true;
+        }
+        try {
+            this.writeAheadLog.append(record);
+            return true;
+        } catch (IOException e) {
+            System.out.printf("%s - Wasn't able to append to the write-ahead log: %s\n", this.id, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Forces all pending log records to disk and releases their confirmations. If the fsync
+     * fails, the confirmations are held back until the next one succeeds.
+     */
+    private void syncLog() {
+        if (this.writeAheadLog == null) {
+            return;
+        }
+        try {
+            this.writeAheadLog.sync();
+            this.releaseAcks();
+        } catch (IOException e) {
+            System.out.printf("%s - Wasn't able to sync the write-ahead log: %s\n", this.id, e.getMessage());
+        }
+    }
+
+    private void onSyncLogMessage(SyncLogMessage message) {
+        if (this.writeAheadLog.isSyncDue(System.currentTimeMillis())) {
+            this.syncLog();
+        }
+    }
+
+    /**
+     * Multicasts the refill or commit of a write to all L1 caches once the write is durable.
+     * With group commit, all confirmations of a group are released after its fsync, in
+     * commit order.
+     *
+     * @param message The confirmation of the write
+     */
+    private void multicastWhenDurable(Serializable message) {
+        this.unsyncedAcks.add(message);
+        if (this.writeAheadLog == null || this.writeAheadLog.isSynced()) {
+            this.releaseAcks();
+        }
+    }
+
+    private void releaseAcks() {
+        for (Serializable ack : this.unsyncedAcks) {
+            this.multicast(ack, this.l1Caches);
+            this.multicast(ack, this.replicas);
+            this.appendChange(ack);
+        }
+        this.unsyncedAcks.clear();
+        if (!this.waitingSubscribers.isEmpty()) {
+            this.waitingSubscribers.entrySet().removeIf(entry -> this.answerChangeRequest(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void appendChange(Serializable ack) {
+        if (this.changeFeed == null) {
+            return;
+        }
+        if (ack instanceof RefillMessage refill) {
+            this.changeFeed.append(new ChangeEvent(refill.getCommitSeq(), refill.getKey(), refill.getValue(),
+                    refill.getUpdateCount(), false));
+        } else if (ack instanceof CritWriteCommitMessage commit) {
+            this.changeFeed.append(new ChangeEvent(commit.getCommitSeq(), commit.getKey(), commit.getValue(),
+                    commit.getUpdateCount(), true));
+        }
+    }
+
+    /**
+     * Answers a subscriber of the change stream with the next batch of durable changes. A
+     * subscriber gets a single batch per request, so a slow one never piles up messages.
+     *
+     * @return False if there is no change yet, then the request has to wait
+     */
+    private boolean answerChangeRequest(ActorRef subscriber, ChangeRequestMessage request) {
+        int maxCount = Math.min(Math.max(1, request.getMaxCount()), this.config.getChangeStreamConfig().getMaxBatchSize());
+        Optional<List<ChangeEvent>> changes = this.changeFeed.getSince(request.getAfterSeq(), this.commitSeq, maxCount);
+        if (changes.isPresent() && changes.get().isEmpty()) {
+            return false;
+        }
+
+        List<ChangeEvent> batch = changes.orElse(List.of());
+        Logger.changes(this.id, LoggerOperationType.SEND, request.getAfterSeq(), batch.size(), changes.isEmpty());
+        this.send(new ChangeBatchMessage(batch, changes.isEmpty(), this.changeFeed.getFirstSeq()), subscriber);
+        this.changeBatchCount = this.changeBatchCount + 1;
+        return true;
+    }
+
+    /**
+     * Answers the request at once if there are changes after the requested sequence
+     * number, otherwise with the next durable change.
+     *
+     * @param message The received ChangeRequestMessage
+     */
+    private void onChangeRequestMessage(ChangeRequestMessage message) {
+        Logger.changes(this.id, LoggerOperationType.RECEIVED, message.getAfterSeq(), message.getMaxCount(), false);
+        if (this.changeFeed == null) {
+            this.send(new ChangeBatchMessage(List.of(), true, 0), this.getSender());
+            return;
+        }
+        if (!this.answerChangeRequest(this.getSender(), message)) {
+            // a stopped subscriber is dropped, instead of waiting for the next change
+            this.getContext().watch(this.getSender());
+            this.waitingSubscribers.put(this.getSender(), message);
+        }
+    }
+
+    /**
+     * Drops the waiting request of a subscriber of the change stream that has stopped, e.g.
+     * since its stream has been cancelled.
+     *
+     * @param message The received Terminated
+     */
+    private void onTerminated(Terminated message) {
+        this.waitingSubscribers.remove(message.getActor());
+    }
+
+    /**
+     * Adds the sender to the read replicas and starts to copy all items to it. The
+     * commits from now on are streamed to the replica after the first chunk.
+     *
+     * @param message The received ReplicaJoinMessage
+     */
+    private void onReplicaJoinMessage(ReplicaJoinMessage message) {
+        ActorRef replica = this.getSender();
+        List<ActorRef> replicas = new ArrayList<>(this.replicas);
+        replicas.add(replica);
+        this.replicas = List.copyOf(replicas);
+        Logger.join(this.id, "Replicas", this.replicas.size());
+        this.copyToReplica(replica, Integer.MIN_VALUE, this.commitSeq);
+    }
+
+    private void onReplicaCopyMessage(ReplicaCopyMessage message) {
+        this.copyToReplica(message.getReplica(), message.getFromKey(), message.getSeq());
+    }
+
+    private void copyToReplica(ActorRef replica, int fromKey, long seq) {
+        int[] keys = new int[SNAPSHOT_CHUNK_SIZE];
+        int[] values = new int[SNAPSHOT_CHUNK_SIZE];
+        int[] updateCounts = new int[SNAPSHOT_CHUNK_SIZE];
+        int size = this.copyItems(fromKey, keys, values, updateCounts);
+        List<DataItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new DataItem(keys[i], values[i], updateCounts[i]));
+        }
+
+        // other requests are served between the chunks
+        boolean isLast = size < SNAPSHOT_CHUNK_SIZE || keys[size - 1] == Integer.MAX_VALUE;
+        Logger.replica(this.id, LoggerOperationType.SEND, seq, size, isLast);
+        this.send(new ReplicaSyncMessage(items, seq, isLast), replica);
+        if (!isLast) {
+            this.send(new ReplicaCopyMessage(replica, keys[size - 1] + 1, seq), this.getSelf());
+        }
+    }
+
+    /**
+     * Creates the Bloom filter for all keys that are currently known.
+     */
+    private void initBloomFilter() {
+        BloomFilterConfig filterConfig = this.config.getBloomFilterConfig();
+        this.bloomFilter = BloomFilter.create(filterConfig.getExpectedInsertions(), filterConfig.getFalsePositiveRate());
+        for (int key : this.getKeys()) {
+            this.bloomFilter.add(key);
+        }
+        // the first push is always a snapshot
+        this.bloomFilter.drainDelta();
+        Logger.bloomFilter(this.id, LoggerOperationType.CREATE, this.bloomFilterVersion, false, this.bloomFilter.getNumOfBits(),
+                this.bloomFilter.getNumOfHashes(), this.bloomFilter.getSizeInBytes(), 0);
+    }
+
+    private void addKeyToBloomFilter(int key) {
+        if (this.bloomFilter != null) {
+            this.bloomFilter.add(key);
+        }
+    }
+
+    private BloomFilterMessage createBloomFilterSnapshot() {
+        return BloomFilterMessage.snapshot(this.partition, this.bloomFilterVersion, this.bloomFilter.getNumOfBits(),
+                this.bloomFilter.getNumOfHashes(), this.bloomFilter.toWords());
+    }
+
+    private void multicastBloomFilter(BloomFilterMessage message) {
+        Logger.bloomFilter(this.id, LoggerOperationType.MULTICAST, message.getVersion(), message.isDelta(),
+                message.getNumOfBits(), message.getNumOfHashes(), this.bloomFilter.getSizeInBytes(), message.getSizeInBytes());
+        this.multicast(message, this.l1Caches);
+    }
+
+    /**
+     * Pushes the next version of the Bloom filter to all L1 caches. Every n-th
+     * version is a full snapshot, such that caches that have missed a version
+     * (e.g. because they crashed) will receive the filter again. Otherwise,
+     * only a delta is sent if some key has been added.
+     *
+     * @param message The received RefreshBloomFilterMessage
+     */
+    private void onRefreshBloomFilterMessage(RefreshBloomFilterMessage message) {
+        BloomFilterConfig filterConfig = this.config.getBloomFilterConfig();
+        boolean mustSnapshot = (this.bloomFilterVersion + 1) % filterConfig.getSnapshotEvery() == 0;
+
+        if (this.l1Caches != null && (mustSnapshot || this.bloomFilter.hasDelta())) {
+            this.bloomFilterVersion = this.bloomFilterVersion + 1;
+            int[] changedBits = this.bloomFilter.drainDelta();
+            BloomFilterMessage filterMessage = mustSnapshot
+                    ? this.createBloomFilterSnapshot()
+                    : BloomFilterMessage.delta(this.partition, this.bloomFilterVersion, this.bloomFilter.getNumOfBits(),
+                    this.bloomFilter.getNumOfHashes(), changedBits);
+            this.multicastBloomFilter(filterMessage);
+        }
+
+        this.scheduleMessageToSelf(new RefreshBloomFilterMessage(), filterConfig.getRefreshMillis());
+    }
+
+    private void scheduleLoadProbe() {
+        long probeMillis = this.config.getAdmissionConfig().getTargetDelayMillis();
+        this.scheduleMessageToSelf(new LoadProbeMessage(System.currentTimeMillis() + probeMillis), probeMillis);
+    }
+
+    /**
+     * Measures how long the probe has been queued in the mailbox, similar to CoDel. Once
+     * the delay has exceeded the target for a whole interval, new requests are shed until
+     * the delay is below the target again. The probe has been above the target for its
+     * delay minus the target, therefore a single long-queued probe suffices.
+     *
+     * @param message The received LoadProbeMessage
+     */
+    private void onLoadProbeMessage(LoadProbeMessage message) {
+        AdmissionConfig admissionConfig = this.config.getAdmissionConfig();
+        long now = System.currentTimeMillis();
+        long queueDelay = Math.max(0, now - message.getEnqueuedMillis());
+        boolean wasShedding = this.isShedding;
+        this.lastQueueDelayMillis = queueDelay;
+
+        if (queueDelay <= admissionConfig.getTargetDelayMillis()) {
+            this.aboveTargetSinceMillis = 0;
+            this.isShedding = false;
+        } else {
+            long aboveTargetSince = now - (queueDelay - admissionConfig.getTargetDelayMillis());
+            if (this.aboveTargetSinceMillis == 0 || aboveTargetSince < this.aboveTargetSinceMillis) {
+                this.aboveTargetSinceMillis = aboveTargetSince;
+            }
+            this.isShedding = now - this.aboveTargetSinceMillis >= admissionConfig.getIntervalMillis();
+        }
+
+        if (this.isShedding != wasShedding) {
+            Logger.admission(this.id, queueDelay, this.isShedding);
+        }
+        this.scheduleLoadProbe();
+    }
+
+    /**
+     * Rejects a new request while the database is overloaded. The error is passed on to the
+     * client, which may retry after a backoff.
+     *
+     * @param key         The requested key
+     * @param messageType Type of the request
+     * @return True if the request has been shed
+     */
+    private boolean shed(int key, MessageType messageType) {
+        if (!this.isShedding) {
+            return false;
+        }
+        this.shedCount = this.shedCount + 1;
+        String errMsg = String.format("Can't serve key %d, because the database is overloaded", key);
+        Logger.error(this.id, LoggerOperationType.SEND, messageType, key, false, errMsg);
+        this.send(ErrorMessage.overloaded(key, messageType, errMsg), this.getSender());
+        return true;
+    }
+
+    /**
+     * Returns whether the write has to be rejected, since the store can't hold its key, e.g.
+     * a negative key of the mapped store. Like an unknown key, it is not retried.
+     *
+     * @param key         The written key
+     * @param messageType Type of the write
+     * @return True if the write has been rejected
+     */
+    private boolean rejectUnstorableKey(int key, MessageType messageType) {
+        if (this.canStoreKey(key)) {
+            return false;
+        }
+        String errMsg = String.format("Can't write key %d, because the %s store can't hold it", key, this.storeType);
+        Logger.error(this.id, LoggerOperationType.SEND, messageType, key, false, errMsg);
+        this.send(ErrorMessage.unknownKey(key, messageType, errMsg), this.getSender());
+        return true;
+    }
+
     private void responseFill(int key) {
         if (this.isReadUnconfirmed(key)) {
             Optional<Integer> value = this.getValue(key);
@@ -73,9 +977,38 @@ public class Database extends OperationalNode implements Coordinator {
         }
     }
 
+    private long nextCommitSeq(int key) {
+        this.commitSeq = this.commitSeq + 1;
+        this.changeLog.append(this.commitSeq, key);
+        return this.commitSeq;
+    }
+
+    private void onEpochRequestMessage(EpochRequestMessage message) {
+        Logger.epoch(this.id, LoggerOperationType.SEND, 0, this.commitSeq);
+        this.send(new HighWaterMessage(this.commitSeq), this.getSender());
+    }
+
+    /**
+     * Answers an L2 cache with all keys changed since its last known commit.
+     *
+     * @param message The received CatchUpMessage
+     */
+    private void onCatchUpMessage(CatchUpMessage message) {
+        long sinceSeq = message.getSinceSeq();
+        Optional<Set<Integer>> keys = this.changeLog.getKeysSince(sinceSeq, this.commitSeq);
+        List<Integer> changedKeys = keys.map(List::copyOf).orElse(List.of());
+        Logger.catchUp(this.id, LoggerOperationType.SEND, sinceSeq, this.commitSeq, changedKeys.size(), keys.isEmpty());
+        CatchUpReplyMessage replyMessage = new CatchUpReplyMessage(sinceSeq, this.commitSeq, keys.isEmpty(), changedKeys);
+        this.send(replyMessage, this.getSender());
+    }
+
     private void onJoinL1Caches(JoinL1CachesMessage message) {
         this.l1Caches = List.copyOf(message.getL1Caches());
         Logger.join(this.id, "L1 Caches", this.l1Caches.size());
+
+        if (this.bloomFilter != null) {
+            this.multicastBloomFilter(this.createBloomFilterSnapshot());
+        }
     }
 
     private void onJoinL2Caches(JoinL2CachesMessage message) {
@@ -83,26 +1016,98 @@ public class Database extends OperationalNode implements Coordinator {
         Logger.join(this.id, "L2 Caches", this.l2Caches.size());
     }
 
+    /**
+     * Answers a retried write that has already been applied. Only the L1 cache that forwarded
+     * the retry gets the refill, it confirms the write to the waiting L2 cache. If the key has
+     * been overwritten since, the refill carries the current value.
+     *
+     * @param appliedRefill The refill of the original write
+     */
+    private void resendRefill(RefillMessage appliedRefill) {
+        int key = appliedRefill.getKey();
+        int updateCount = this.getUpdateCountOrElse(key);
+        RefillMessage refillMessage = updateCount == appliedRefill.getUpdateCount()
+                ? appliedRefill
+                : new RefillMessage(appliedRefill.getUuid(), key, this.getValueOrElse(key), updateCount,
+                appliedRefill.getCommitSeq());
+        this.duplicateWriteCount = this.duplicateWriteCount + 1;
+        Logger.refill(this.id, refillMessage.getUuid(), LoggerOperationType.SEND, key, refillMessage.getValue(), 0,
+                refillMessage.getUpdateCount(), 0, false, false, false);
+        this.send(refillMessage, this.getSender());
+    }
+
+    @Override
+    protected void onWriteMessage(WriteMessage message) {
+        if (!this.awaitKey(message.getKey(), message, MessageType.WRITE)) {
+            super.onWriteMessage(message);
+        }
+    }
+
+    @Override
+    protected void onCritWriteMessage(CritWriteMessage message) {
+        if (!this.awaitKey(message.getKey(), message, MessageType.CRITICAL_WRITE)) {
+            super.onCritWriteMessage(message);
+        }
+    }
+
+    @Override
+    protected void onReadMessage(ReadMessage message) {
+        if (!this.awaitKey(message.getKey(), message, MessageType.READ)) {
+            super.onReadMessage(message);
+        }
+    }
+
+    @Override
+    protected void onCritReadMessage(CritReadMessage message) {
+        if (!this.awaitKey(message.getKey(), message, MessageType.CRITICAL_READ)) {
+            super.onCritReadMessage(message);
+        }
+    }
+
     @Override
     protected void handleWriteMessage(WriteMessage message) {
         int key = message.getKey();
         int value = message.getValue();
 
+        RefillMessage appliedRefill = this.appliedWrites.get(message.getUuid());
+        if (appliedRefill != null) {
+            // retry of a write that has already been applied, if it isn't durable yet the pending refill answers it
+            if (!this.unsyncedAcks.contains(appliedRefill)) {
+                this.resendRefill(appliedRefill);
+            }
+            return;
+        }
+        if (this.shed(key, MessageType.WRITE) || this.rejectUnstorableKey(key, MessageType.WRITE)) {
+            return;
+        }
+
+        if (this.isKeyLocked(key)) {
+            // force timeout, either locked by another write or critical write
+            return;
+        }
+        // the write is logged before it is applied
+        int updateCount = this.getUpdateCountOrElse(key) + 1;
+        if (!this.appendToLog(LogRecord.put(key, value, updateCount, this.commitSeq + 1))) {
+            ErrorMessage errorMessage = ErrorMessage.internalError(key, MessageType.WRITE, "Write couldn't be logged");
+            this.send(errorMessage, this.getSender());
+            return;
+        }
+
         try {
             // write data
-            this.setValue(key, value);
+            this.applyCommit(key, value, updateCount, this.commitSeq + 1);
+            this.addKeyToBloomFilter(key);
 
             // Lock data until write confirm and refill has been sent
             this.lockKey(key);
 
-            // we can be sure it exists, since we set value previously
-            int updateCount = this.getUpdateCountOrElse(key);
-
             // Send refill to all other L1 caches
             // todo make own method
-            RefillMessage refillMessage = new RefillMessage(message.getUuid(), key, value, updateCount);
+            long seq = this.nextCommitSeq(key);
+            RefillMessage refillMessage = new RefillMessage(message.getUuid(), key, value, updateCount, seq);
             Logger.refill(this.id, message.getUuid(), LoggerOperationType.MULTICAST, key, value, 0, updateCount, 0, false, false, false);
-            this.multicast(refillMessage, this.l1Caches);
+            this.multicastWhenDurable(refillMessage);
+            this.appliedWrites.put(message.getUuid(), refillMessage);
 
             // Unlock value
             this.unlockKey(key);
@@ -115,6 +1120,9 @@ public class Database extends OperationalNode implements Coordinator {
     protected void handleCritWriteMessage(CritWriteMessage message) {
         int key = message.getKey();
         int value = message.getValue();
+        if (this.shed(key, MessageType.CRITICAL_WRITE) || this.rejectUnstorableKey(key, MessageType.CRITICAL_WRITE)) {
+            return;
+        }
         // lock value from now on
         this.lockKey(key);
         // Multicast vote request to all L1s // todo make own method
@@ -134,6 +1142,9 @@ public class Database extends OperationalNode implements Coordinator {
     @Override
     protected void handleReadMessage(ReadMessage message) {
         int key = message.getKey();
+        if (this.shed(key, MessageType.READ)) {
+            return;
+        }
 
         if (!this.isKeyAvailable(key)) {
             String errMsg = String.format("Can't read, because key %d is unknown", key);
@@ -152,6 +1163,9 @@ public class Database extends OperationalNode implements Coordinator {
     @Override
     protected void handleCritReadMessage(CritReadMessage message) {
         int key = message.getKey();
+        if (this.shed(key, MessageType.CRITICAL_READ)) {
+            return;
+        }
 
         if (!this.isKeyAvailable(key)) {
             String errMsg = String.format("Can't read, because key %d is unknown", key);
@@ -167,6 +1181,129 @@ public class Database extends OperationalNode implements Coordinator {
         this.responseFill(key);
     }
 
+    /**
+     * Answers a prefetch with all requested keys that are known and not locked. While
+     * shedding, the prefetch is answered without any key, as it is only speculative. For the
+     * same reason, keys that would have to be loaded from the LSM tree are left out.
+     *
+     * @param message The received PrefetchMessage
+     */
+    private void onPrefetchMessage(PrefetchMessage message) {
+        Logger.prefetch(this.id, LoggerOperationType.RECEIVED, MessageType.PREFETCH, message.getUuid(), message.getKeys());
+        List<DataItem> items = this.isShedding ? List.of() : this.getItems(message.getKeys());
+        BatchFillMessage batchFillMessage = new BatchFillMessage(message.getUuid(), items);
+        Logger.prefetch(this.id, LoggerOperationType.SEND, MessageType.BATCH_FILL, message.getUuid(),
+                items.stream().map(DataItem::getKey).toList());
+        this.send(batchFillMessage, this.getSender());
+    }
+
+    /**
+     * Compares the update counts of keys restored by a L1 cache with the current ones. The
+     * value is sent back only for keys that have changed since. Locked and unknown keys are
+     * left out, the cache reads them on demand. Like a prefetch, the validation is answered
+     * without any key while shedding.
+     *
+     * @param message The received ValidateMessage
+     */
+    private void onValidateMessage(ValidateMessage message) {
+        Logger.prefetch(this.id, LoggerOperationType.RECEIVED, MessageType.VALIDATE, message.getUuid(), message.getKeys());
+        List<DataItem> changedItems = new ArrayList<>();
+        List<Integer> validKeys = new ArrayList<>();
+        for (int i = 0; i < message.getKeys().size() && !this.isShedding; i++) {
+            int key = message.getKeys().get(i);
+            Optional<Integer> updateCount = this.getUpdateCount(key);
+            if (this.isKeyLocked(key) || updateCount.isEmpty()) {
+                continue;
+            }
+            if (updateCount.get().equals(message.getUpdateCounts().get(i))) {
+                validKeys.add(key);
+            } else {
+                changedItems.add(new DataItem(key, this.getValueOrElse(key), updateCount.get()));
+            }
+        }
+        this.validatedCount = this.validatedCount + validKeys.size();
+        this.changedCount = this.changedCount + changedItems.size();
+
+        Logger.prefetch(this.id, LoggerOperationType.SEND, MessageType.VALIDATE_REPLY, message.getUuid(),
+                changedItems.stream().map(DataItem::getKey).toList());
+        this.send(new ValidateReplyMessage(message.getUuid(), changedItems, validKeys), this.getSender());
+    }
+
+    private void onScanMessage(ScanMessage message) {
+        Logger.scan(this.id, LoggerOperationType.RECEIVED, message.getUuid(), message.getFromKey(), message.getToKey(),
+                message.getChunkSize(), message.getWindow());
+        ScanCursor cursor = new ScanCursor(this.getSender(), message.getFromKey(), message.getToKey(),
+                Math.max(1, message.getChunkSize()), Math.max(1, message.getWindow()), message.isAbsorbed());
+        this.scanCursors.put(message.getUuid(), cursor);
+        this.sendScanChunks(message.getUuid());
+    }
+
+    private void onScanAckMessage(ScanAckMessage message) {
+        ScanCursor cursor = this.scanCursors.get(message.getUuid());
+        if (cursor == null) {
+            return;
+        }
+
+        Logger.scanAck(this.id, LoggerOperationType.RECEIVED, message.getUuid(), message.getSeq());
+        cursor.ack(message.getSeq());
+        if (cursor.isComplete()) {
+            this.scanCursors.remove(message.getUuid());
+        } else {
+            this.sendScanChunks(message.getUuid());
+        }
+    }
+
+    /**
+     * Sends the next chunks of a scan, as long as the cursor has credits. The items
+     * are read from the ordered index, locked keys are left out. With the LSM tree,
+     * the tables are read synchronously, since a chunk covers many keys.
+     *
+     * @param uuid The UUID of the scan
+     */
+    private void sendScanChunks(UUID uuid) {
+        ScanCursor cursor = this.scanCursors.get(uuid);
+        while (!cursor.isDone() && cursor.hasCredits()) {
+            List<DataItem> range = this.getItemsInRange(cursor.getNextKey(), cursor.getToKey(), cursor.getChunkSize());
+            int lastKey = range.isEmpty() ? cursor.getToKey() : range.get(range.size() - 1).getKey();
+            boolean isLast = range.size() < cursor.getChunkSize() || lastKey + 1 >= cursor.getToKey();
+            int nextKey = range.isEmpty() ? cursor.getToKey() : lastKey + 1;
+            int seq = cursor.advance(nextKey, isLast);
+
+            List<DataItem> items = range.stream().filter(item -> !this.isKeyLocked(item.getKey())).toList();
+            ScanChunkMessage chunkMessage = new ScanChunkMessage(uuid, seq, items, isLast, cursor.isAbsorbed());
+            Logger.scanChunk(this.id, LoggerOperationType.SEND, uuid, seq, items.size(), isLast);
+            this.send(chunkMessage, cursor.getRequester());
+            this.setTimeout(chunkMessage, cursor.getRequester(), MessageType.SCAN_CHUNK);
+        }
+    }
+
+    private void onStatsMessage(StatsMessage message) {
+        String stats = String.format("store: %s, commits: %d, duplicate-writes: %d, scans: %d, shed: %d, queue-delay: %dms, replicas: %d, "
+                        + "validated: %d, validate-changed: %d", this.storeType, this.commitSeq, this.duplicateWriteCount,
+                this.scanCursors.size(), this.shedCount, this.lastQueueDelayMillis, this.replicas.size(), this.validatedCount,
+                this.changedCount);
+        if (this.writeAheadLog != null) {
+            stats = String.format("%s, wal-records: %d, fsyncs: %d, unsynced-acks: %d, snapshots: %d, snapshot-seq: %d, "
+                            + "wal-bytes: %d, snapshot-bytes: %d, wal-compactions: %d, wal-dropped: %d, compaction-mb-per-s: %.1f",
+                    stats, this.writeAheadLog.getRecordCount(), this.writeAheadLog.getSyncCount(), this.unsyncedAcks.size(),
+                    this.snapshotCount, this.snapshotSeq, this.getFileBytes(this.writeAheadLog.getPath()),
+                    this.getFileBytes(this.walConfig.getSnapshotPath()), this.logCompactionCount, this.droppedLogRecords,
+                    this.lastCompactionBytesPerSecond / (1024 * 1024));
+        }
+        if (this.changeFeed != null) {
+            stats = String.format("%s, retained-changes: %d, change-batches: %d, waiting-subscribers: %d", stats,
+                    this.changeFeed.size(), this.changeBatchCount, this.waitingSubscribers.size());
+        }
+        if (this.lsmStore != null) {
+            LsmTree tree = this.lsmStore.getTree();
+            stats = String.format("%s, lsm-tables: %d, memtable: %d, flushed-seq: %d, flushes: %d, compactions: %d, "
+                            + "failed-flushes: %d, row-cache: %d, loads: %d", stats, tree.getTableCount(), tree.getMemtableSize(),
+                    tree.getFlushedSeq(), tree.getFlushCount(), tree.getCompactionCount(), tree.getFailedFlushCount(),
+                    this.lsmStore.getRowCacheSize(), this.loadCount);
+        }
+        Logger.stats(this.id, String.format("%s, %s", stats, this.getTimerStats()));
+    }
+
     @Override
     public boolean haveAllParticipantsVoted(int voteCount) {
         return voteCount == this.l1Caches.size();
@@ -179,15 +1316,21 @@ public class Database extends OperationalNode implements Coordinator {
 
         // update value
         this.unlockKey(key);
+        int updateCount = this.getUpdateCountOrElse(key) + 1;
+        if (!this.appendToLog(LogRecord.commit(key, value, updateCount, this.commitSeq + 1))) {
+            this.abortCritWrite(uuid, key);
+            return;
+        }
         try {
-            this.setValue(key, value);
+            this.applyCommit(key, value, updateCount, this.commitSeq + 1);
+            this.addKeyToBloomFilter(key);
 
-            int updateCount = this.getUpdateCountOrElse(key);
             // now all participants have locked the data, then send a commit message to update the value
             // todo make own method
-            CritWriteCommitMessage commitMessage = new CritWriteCommitMessage(uuid, key, value, updateCount);
+            long seq = this.nextCommitSeq(key);
+            CritWriteCommitMessage commitMessage = new CritWriteCommitMessage(uuid, key, value, updateCount, seq);
             Logger.criticalWriteCommit(this.id, uuid, LoggerOperationType.MULTICAST, key, value, 0, updateCount, 0);
-            this.multicast(commitMessage, this.l1Caches);
+            this.multicastWhenDurable(commitMessage);
         } catch (IllegalAccessException e) {
             // already locked -> force timeout
         }
@@ -200,6 +1343,17 @@ public class Database extends OperationalNode implements Coordinator {
 
     @Override
     protected void handleTimeoutMessage(TimeoutMessage message) {
+        if (message.getType() == MessageType.SCAN_CHUNK) {
+            ScanChunkMessage chunkMessage = (ScanChunkMessage) message.getMessage();
+            ScanCursor cursor = this.scanCursors.get(chunkMessage.getUuid());
+            // the requester has stopped acknowledging, e.g. some cache on the path has crashed
+            if (cursor != null && cursor.getLastAckedSeq() < chunkMessage.getSeq()) {
+                Logger.timeout(this.id, message.getType());
+                this.scanCursors.remove(chunkMessage.getUuid());
+            }
+            return;
+        }
+
         if (message.getType() == MessageType.CRITICAL_WRITE_REQUEST && this.acCoordinator.hasRequestedCritWrite()) {
             CritWriteRequestMessage requestMessage = (CritWriteRequestMessage) message.getMessage();
             Logger.timeout(this.id, MessageType.CRITICAL_WRITE_REQUEST);
@@ -234,7 +1388,45 @@ public class Database extends OperationalNode implements Coordinator {
                 .match(ReadMessage.class, this::onReadMessage)
                 .match(CritReadMessage.class, this::onCritReadMessage)
                 .match(TimeoutMessage.class, this::onTimeoutMessage)
+                .match(TimerTickMessage.class, this::onTimerTickMessage)
+                .match(StatsMessage.class, this::onStatsMessage)
+                .match(RefreshBloomFilterMessage.class, this::onRefreshBloomFilterMessage)
+                .match(PrefetchMessage.class, this::onPrefetchMessage)
+                .match(ValidateMessage.class, this::onValidateMessage)
+                .match(ChangeRequestMessage.class, this::onChangeRequestMessage)
+                .match(Terminated.class, this::onTerminated)
+                .match(ScanMessage.class, this::onScanMessage)
+                .match(ScanAckMessage.class, this::onScanAckMessage)
+                .match(EpochRequestMessage.class, this::onEpochRequestMessage)
+                .match(CatchUpMessage.class, this::onCatchUpMessage)
+                .match(LoadProbeMessage.class, this::onLoadProbeMessage)
+                .match(SyncLogMessage.class, this::onSyncLogMessage)
+                .match(TakeSnapshotMessage.class, this::onTakeSnapshotMessage)
+                .match(SnapshotChunkMessage.class, this::onSnapshotChunkMessage)
+                .match(SnapshotDoneMessage.class, this::onSnapshotDoneMessage)
+                .match(CompactLogMessage.class, this::onCompactLogMessage)
+                .match(LogCompactedMessage.class, this::onLogCompactedMessage)
+                .match(KeyLoadedMessage.class, this::onKeyLoadedMessage)
+                .match(ReplicaJoinMessage.class, this::onReplicaJoinMessage)
+                .match(ReplicaCopyMessage.class, this::onReplicaCopyMessage)
                 .build();
     }
 
+    /**
+     * A request together with its sender, parked until its key has been loaded
+     */
+    private static class PendingRequest {
+
+        private final Serializable message;
+        private final ActorRef sender;
+        private final MessageType messageType;
+
+        PendingRequest(Serializable message, ActorRef sender, MessageType messageType) {
+            this.message = message;
+            this.sender = sender;
+            this.messageType = messageType;
+        }
+
+    }
+
 }
@@ -0,0 +1,150 @@
+package it.unitn.disi.ds1.multi_level_cache.actors;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.CommitSeqTracker;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.messages.*;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+import it.unitn.disi.ds1.multi_level_cache.utils.Logger.Logger;
+import it.unitn.disi.ds1.multi_level_cache.utils.Logger.LoggerOperationType;
+
+/**
+ * Read replica of a partition of the database. It copies all items of its primary on
+ * start and applies every later commit of the primary, as streamed with the refills and
+ * commits to the L1 caches. Reads of the L1 caches are served if the replica knows at least
+ * the update count of the requester, critical reads only if the replica has applied all
+ * commits the L1 cache has seen. Any other read is forwarded to the primary, which answers
+ * the L1 cache directly.
+ */
+public class DatabaseReplica extends Node {
+
+    private final ActorRef primary;
+    /**
+     * All commits of the primary that have been applied
+     */
+    private final CommitSeqTracker commitSeqTracker = new CommitSeqTracker();
+    /**
+     * True once all items of the primary have been copied
+     */
+    private boolean isSynced = false;
+    private long servedCount = 0;
+    private long staleCount = 0;
+    private long laggingCount = 0;
+    private long unknownCount = 0;
+
+    public DatabaseReplica(String id, NodeConfig config, ActorRef primary) {
+        super(id, config);
+        this.primary = primary;
+    }
+
+    static public Props props(String id, NodeConfig config, ActorRef primary) {
+        return Props.create(DatabaseReplica.class, () -> new DatabaseReplica(id, config, primary));
+    }
+
+    @Override
+    public void preStart() {
+        this.send(new ReplicaJoinMessage(), this.primary);
+    }
+
+    private void onReplicaSyncMessage(ReplicaSyncMessage message) {
+        Logger.replica(this.id, LoggerOperationType.RECEIVED, message.getSeq(), message.getItems().size(), message.isLast());
+        // all commits up to the join are part of the copy
+        this.commitSeqTracker.advanceTo(message.getSeq());
+        message.getItems().forEach(item -> this.apply(item.getKey(), item.getValue(), item.getUpdateCount()));
+        if (message.isLast()) {
+            this.isSynced = true;
+        }
+    }
+
+    private void onRefillMessage(RefillMessage message) {
+        this.apply(message.getKey(), message.getValue(), message.getUpdateCount());
+        this.commitSeqTracker.offer(message.getCommitSeq());
+    }
+
+    private void onCritWriteCommitMessage(CritWriteCommitMessage message) {
+        this.apply(message.getKey(), message.getValue(), message.getUpdateCount());
+        this.commitSeqTracker.offer(message.getCommitSeq());
+    }
+
+    /**
+     * Sets the value unless the replica already knows a newer one. A chunk of the copy may
+     * contain a commit that is streamed afterwards as well.
+     */
+    private void apply(int key, int value, int updateCount) {
+        if (updateCount <= this.getUpdateCountOrElse(key) && this.isKeyAvailable(key)) {
+            return;
+        }
+        try {
+            this.setValue(key, value, updateCount);
+        } catch (IllegalAccessException e) {
+            // a replica never locks its keys
+        }
+    }
+
+    /**
+     * Serves the read if this replica is fresh enough for it, otherwise forwards it to
+     * the primary.
+     *
+     * @param message The received ReplicaReadMessage
+     */
+    private void onReplicaReadMessage(ReplicaReadMessage message) {
+        Message read = message.getRead();
+        int key = ((KeyedMessage) read).getKey();
+        int updateCount = read instanceof ReadMessage readMessage
+                ? readMessage.getUpdateCount()
+                : ((CritReadMessage) read).getUpdateCount();
+
+        if (!this.isSynced || !this.isKeyAvailable(key)) {
+            // the key may have been created since the copy
+            this.unknownCount = this.unknownCount + 1;
+            this.primary.tell(read, this.getSender());
+            return;
+        }
+        if (this.commitSeqTracker.getLastSeq() < message.getMinCommitSeq()) {
+            this.laggingCount = this.laggingCount + 1;
+            this.primary.tell(read, this.getSender());
+            return;
+        }
+        if (this.getUpdateCountOrElse(key) < updateCount) {
+            // the requester has already seen a newer value
+            this.staleCount = this.staleCount + 1;
+            this.primary.tell(read, this.getSender());
+            return;
+        }
+
+        this.servedCount = this.servedCount + 1;
+        int value = this.getValueOrElse(key);
+        Logger.fill(this.id, LoggerOperationType.SEND, key, value, 0, this.getUpdateCountOrElse(key), 0);
+        this.send(new FillMessage(key, value, this.getUpdateCountOrElse(key)), this.getSender());
+    }
+
+    private void onStatsMessage(StatsMessage message) {
+        String stats = String.format("applied-seq: %d, is-synced: %b, served: %d, forwarded-stale: %d, forwarded-lagging: %d, "
+                        + "forwarded-unknown: %d", this.commitSeqTracker.getLastSeq(), this.isSynced, this.servedCount,
+                this.staleCount, this.laggingCount, this.unknownCount);
+        Logger.stats(this.id, stats);
+    }
+
+    @Override
+    protected void handleErrorMessage(ErrorMessage message) {
+        // Do nothing, errors are answered by the primary directly
+    }
+
+    @Override
+    protected void handleTimeoutMessage(TimeoutMessage message) {
+        // Do nothing, a replica doesn't wait for anyone
+    }
+
+    @Override
+    public Receive createReceive() {
+        return this.receiveBuilder()
+                .match(ReplicaSyncMessage.class, this::onReplicaSyncMessage)
+                .match(RefillMessage.class, this::onRefillMessage)
+                .match(CritWriteCommitMessage.class, this::onCritWriteCommitMessage)
+                .match(ReplicaReadMessage.class, this::onReplicaReadMessage)
+                .match(StatsMessage.class, this::onStatsMessage)
+                .build();
+    }
+
+}
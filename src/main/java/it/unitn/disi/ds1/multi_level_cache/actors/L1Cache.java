@@ -2,30 +2,493 @@ package it.unitn.disi.ds1.multi_level_cache.actors;
 
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.CacheSnapshotConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.CircuitBreaker;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.CircuitBreakerConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.HeavyHitters;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.HotKeyConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
 import it.unitn.disi.ds1.multi_level_cache.messages.*;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.ErrorType;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageType;
+import it.unitn.disi.ds1.multi_level_cache.storage.AsyncSnapshotWriter;
+import it.unitn.disi.ds1.multi_level_cache.storage.SnapshotFile;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.Logger;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.LoggerOperationType;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 public class L1Cache extends Cache implements Coordinator {
 
-    private final ACCoordinator acCoordinator = new ACCoordinator(this);
-
-    private boolean haveAllL2VotedOk = false;
+    /**
+     * Critical writes of different partitions of the database run independently
+     */
+    private final ACCoordinator[] acCoordinators;
+
+    private final boolean[] haveAllL2VotedOk;
+    /**
+     * Sketch of the most requested keys, null if disabled
+     */
+    private HeavyHitters hotKeys;
+    /**
+     * Hot keys that have been pushed to all L2 caches
+     */
+    private Set<Integer> pushedHotKeys = new HashSet<>();
+    private long pushCount = 0;
+    /**
+     * L2 caches that wait for a prefetch, that has been forwarded to the database
+     */
+    private Map<UUID, ActorRef> prefetchRequesters = new HashMap<>();
+    private Map<UUID, List<Integer>> prefetchKeys = new HashMap<>();
+    /**
+     * Number of partitions that still have to answer a forwarded prefetch
+     */
+    private Map<UUID, Integer> pendingPrefetches = new HashMap<>();
+    /**
+     * Incremented by every epoch-fenced recovery. Like the id, it survives a crash.
+     */
+    private long epoch = 0;
+    /**
+     * High-water sequence numbers of the partitions, collected before a new epoch is announced
+     */
+    private Long[] highWaterSeqs = new Long[0];
+    /**
+     * L2 caches of other L1 caches, that are attached while their L1 cache is unreachable
+     */
+    private Set<ActorRef> fosterL2Caches = new HashSet<>();
+    /**
+     * Breakers of the requests to each partition of the database, null if disabled
+     */
+    private CircuitBreaker[] databaseBreakers;
+    /**
+     * Latest commit of each partition this cache has seen. Like the epoch, it survives a crash.
+     */
+    private final long[] seenCommitSeqs;
+    private long replicaReadCount = 0;
+    /**
+     * Snapshot of the hot items that is being written, null if there is none
+     */
+    private CompletableFuture<Long> pendingPersist;
+    private long persistSeq = 0;
+    private long persistStartMillis = 0;
+    /**
+     * Keys loaded from the snapshot, they are validated once the database has joined
+     */
+    private List<Integer> restoredKeys = List.of();
 
     public L1Cache(String id) {
-        super(id);
+        this(id, NodeConfig.defaults());
+    }
+
+    public L1Cache(String id, NodeConfig config) {
+        super(id, config);
+        this.resetHotKeys();
+
+        int numOfPartitions = config.getPartitionConfig().getNumOfPartitions();
+        this.acCoordinators = new ACCoordinator[numOfPartitions];
+        for (int i = 0; i < numOfPartitions; i++) {
+            this.acCoordinators[i] = new ACCoordinator(this);
+        }
+        this.haveAllL2VotedOk = new boolean[numOfPartitions];
+        this.seenCommitSeqs = new long[numOfPartitions];
+
+        CircuitBreakerConfig breakerConfig = config.getCircuitBreakerConfig();
+        if (breakerConfig.isEnabled()) {
+            this.databaseBreakers = new CircuitBreaker[numOfPartitions];
+            for (int i = 0; i < numOfPartitions; i++) {
+                this.databaseBreakers[i] = new CircuitBreaker(breakerConfig.getFailureThreshold(), breakerConfig.getOpenMillis());
+            }
+        }
+
+        CacheSnapshotConfig snapshotConfig = config.getCacheSnapshotConfig();
+        if (snapshotConfig.isEnabled()) {
+            this.loadSnapshot(snapshotConfig.getPath(id));
+        }
     }
 
     static public Props props(String id) {
         return Props.create(Cache.class, () -> new L1Cache(id));
     }
 
+    static public Props props(String id, NodeConfig config) {
+        return Props.create(Cache.class, () -> new L1Cache(id, config));
+    }
+
+    @Override
+    public void preStart() {
+        HotKeyConfig hotKeyConfig = this.config.getHotKeyConfig();
+        if (hotKeyConfig.isEnabled()) {
+            this.schedulePeriodicMessageToSelf(new DecayHotKeysMessage(), hotKeyConfig.getDecayMillis());
+        }
+        CacheSnapshotConfig snapshotConfig = this.config.getCacheSnapshotConfig();
+        if (snapshotConfig.isEnabled()) {
+            try {
+                Files.createDirectories(snapshotConfig.getDirectory());
+                this.schedulePeriodicMessageToSelf(new PersistCacheMessage(), snapshotConfig.getIntervalMillis());
+            } catch (IOException e) {
+                System.out.printf("%s - Wasn't able to create the snapshot directory\n", this.id);
+            }
+        }
+    }
+
+    /**
+     * Writes the hot items a last time, once a running snapshot is done.
+     */
+    @Override
+    public void postStop() {
+        if (!this.config.getCacheSnapshotConfig().isEnabled()) {
+            return;
+        }
+        try {
+            if (this.pendingPersist != null) {
+                this.pendingPersist.exceptionally(e -> 0L).join();
+            }
+            this.persist().join();
+        } catch (CompletionException e) {
+            System.out.printf("%s - Wasn't able to write the snapshot\n", this.id);
+        }
+    }
+
+    /**
+     * Loads the items of the previous run. They are marked suspect, hence none of them is
+     * served before the database has confirmed it.
+     *
+     * @param path The snapshot of this cache
+     */
+    private void loadSnapshot(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try (SnapshotFile.Reader reader = new SnapshotFile.Reader(path)) {
+            int size = Math.toIntExact(reader.getItemCount());
+            int[] keys = new int[size];
+            int[] values = new int[size];
+            int[] updateCounts = new int[size];
+            int[] next = {0};
+            reader.forEach((key, value, updateCount) -> {
+                keys[next[0]] = key;
+                values[next[0]] = value;
+                updateCounts[next[0]] = updateCount;
+                next[0] = next[0] + 1;
+            });
+            this.loadSortedData(keys, values, updateCounts, size);
+            this.restoredKeys = Arrays.stream(keys, 0, size).boxed().toList();
+            this.markSuspect(this.restoredKeys);
+            this.persistSeq = reader.getSeq();
+            Logger.snapshot(this.id, LoggerOperationType.RECEIVED, this.persistSeq, size, System.currentTimeMillis() - start);
+        } catch (IOException | ArithmeticException e) {
+            System.out.printf("%s - Wasn't able to load the snapshot, starting empty\n", this.id);
+        }
+    }
+
+    @Override
+    protected void onDatabasesJoined() {
+        if (!this.restoredKeys.isEmpty()) {
+            this.validate(this.restoredKeys, this.config.getCacheSnapshotConfig().getBatchSize());
+            this.restoredKeys = List.of();
+        }
+    }
+
+    /**
+     * Selects the items to be persisted. Keys that are suspect or in the middle of a write
+     * are left out. If there are too many, the hottest keys are kept.
+     *
+     * @return The selected keys in ascending order
+     */
+    private List<Integer> getKeysToPersist() {
+        Comparator<Integer> hottestFirst = Comparator.comparingLong(
+                (Integer key) -> this.hotKeys != null ? this.hotKeys.getCount(key) : 0).reversed();
+        return this.getKeys().stream()
+                .filter(key -> !this.isSuspect(key) && !this.isKeyLocked(key) && !this.isWriteUnconfirmed(key))
+                .sorted(hottestFirst)
+                .limit(this.config.getCacheSnapshotConfig().getMaxKeys())
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Copies the selected items and writes them on a background thread.
+     *
+     * @return The number of items, once the snapshot is on disk
+     */
+    private CompletableFuture<Long> persist() {
+        List<Integer> selected = this.getKeysToPersist();
+        int size = selected.size();
+        int[] keys = new int[size];
+        int[] values = new int[size];
+        int[] updateCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = selected.get(i);
+            values[i] = this.getValueOrElse(keys[i]);
+            updateCounts[i] = this.getUpdateCountOrElse(keys[i]);
+        }
+
+        this.persistSeq = this.persistSeq + 1;
+        AsyncSnapshotWriter writer = new AsyncSnapshotWriter(this.config.getCacheSnapshotConfig().getPath(this.id), this.persistSeq);
+        writer.append(keys, values, updateCounts, size);
+        return writer.commit();
+    }
+
+    /**
+     * Starts a snapshot of the hot items, unless the previous one is still running.
+     *
+     * @param message The received PersistCacheMessage
+     */
+    private void onPersistCacheMessage(PersistCacheMessage message) {
+        // the done message is dropped if this cache has crashed meanwhile
+        if (this.pendingPersist != null && !this.pendingPersist.isDone()) {
+            return;
+        }
+        this.persistStartMillis = System.currentTimeMillis();
+        long seq = this.persistSeq + 1;
+        ActorRef self = this.getSelf();
+        this.pendingPersist = this.persist();
+        this.pendingPersist.whenComplete((itemCount, e) ->
+                self.tell(new SnapshotDoneMessage(seq, e == null ? itemCount : 0, e == null), ActorRef.noSender()));
+    }
+
+    private void onSnapshotDoneMessage(SnapshotDoneMessage message) {
+        this.pendingPersist = null;
+        if (!message.isOk()) {
+            System.out.printf("%s - Wasn't able to write the snapshot, keeping the previous one\n", this.id);
+            return;
+        }
+        Logger.snapshot(this.id, LoggerOperationType.CREATE, message.getSeq(), message.getItemCount(),
+                System.currentTimeMillis() - this.persistStartMillis);
+    }
+
+    private void resetHotKeys() {
+        HotKeyConfig hotKeyConfig = this.config.getHotKeyConfig();
+        if (hotKeyConfig.isEnabled()) {
+            this.hotKeys = new HeavyHitters(hotKeyConfig.getTopK());
+        }
+        this.pushedHotKeys = new HashSet<>();
+    }
+
+    private boolean isHotKey(int key) {
+        return this.hotKeys != null && this.hotKeys.getCount(key) >= this.config.getHotKeyConfig().getThreshold();
+    }
+
+    /**
+     * Pushes a hot key to all L2 caches that have not requested it. Afterwards, they
+     * know the key and will be kept up-to-date by all refills of this cache.
+     *
+     * @param key           The hot key
+     * @param requestedL2s  L2 caches that already get the key by a fill
+     */
+    private void pushHotKey(int key, List<ActorRef> requestedL2s) {
+        if (!this.isHotKey(key) || this.pushedHotKeys.contains(key) || !this.isKeyAvailable(key)) {
+            return;
+        }
+
+        int value = this.getValueOrElse(key);
+        int updateCount = this.getUpdateCountOrElse(key);
+        List<ActorRef> otherL2s = this.l2Caches
+                .stream().filter(actorRef -> !requestedL2s.contains(actorRef)).toList();
+        FillMessage fillMessage = new FillMessage(key, value, updateCount);
+        Logger.fill(this.id, LoggerOperationType.MULTICAST, key, value, 0, updateCount, 0);
+        this.multicast(fillMessage, otherL2s);
+
+        this.pushedHotKeys.add(key);
+        this.pushCount = this.pushCount + 1;
+    }
+
+    /**
+     * Lets all counts cool down. Keys that are not hot anymore can be pushed again,
+     * e.g. if some L2 has lost it by a flush.
+     *
+     * @param message The received DecayHotKeysMessage
+     */
+    private void onDecayHotKeysMessage(DecayHotKeysMessage message) {
+        if (this.hotKeys != null) {
+            this.hotKeys.decay();
+            this.pushedHotKeys.removeIf(key -> !this.isHotKey(key));
+        }
+    }
+
+    @Override
+    protected void handleReadMessage(ReadMessage message) {
+        if (this.hotKeys != null) {
+            this.hotKeys.offer(message.getKey());
+        }
+        super.handleReadMessage(message);
+    }
+
+    /**
+     * Serves a prefetch of an L2 cache. If all keys are known they are answered
+     * immediately, otherwise the missing keys are fetched from the database
+     * with a single request per partition.
+     *
+     * @param message The received PrefetchMessage
+     */
+    private void onPrefetchMessage(PrefetchMessage message) {
+        UUID uuid = message.getUuid();
+        List<Integer> keys = message.getKeys();
+        Logger.prefetch(this.id, LoggerOperationType.RECEIVED, MessageType.PREFETCH, uuid, keys);
+
+        List<Integer> missingKeys = keys.stream().filter(key -> !this.isKeyAvailable(key)).toList();
+        if (missingKeys.isEmpty()) {
+            this.replyBatchFill(uuid, keys, this.getSender());
+            return;
+        }
+
+        this.prefetchRequesters.put(uuid, this.getSender());
+        this.prefetchKeys.put(uuid, keys);
+        Map<ActorRef, List<Integer>> keysByPartition = missingKeys.stream()
+                .collect(Collectors.groupingBy(this::getDatabase, LinkedHashMap::new, Collectors.toList()));
+        this.pendingPrefetches.put(uuid, keysByPartition.size());
+        keysByPartition.forEach((database, partitionKeys) -> {
+            PrefetchMessage prefetchMessage = new PrefetchMessage(uuid, partitionKeys);
+            Logger.prefetch(this.id, LoggerOperationType.SEND, MessageType.PREFETCH, uuid, partitionKeys);
+            this.send(prefetchMessage, database);
+        });
+    }
+
+    /**
+     * Stores the keys fetched from the database and answers the L2 cache
+     * with the whole window, once all partitions have answered.
+     *
+     * @param message The received BatchFillMessage
+     */
+    private void onBatchFillMessage(BatchFillMessage message) {
+        UUID uuid = message.getUuid();
+        Logger.prefetch(this.id, LoggerOperationType.RECEIVED, MessageType.BATCH_FILL, uuid,
+                message.getItems().stream().map(DataItem::getKey).toList());
+        if (this.handleRehydrationFill(message)) {
+            return;
+        }
+        message.getItems().forEach(this::storeFetchedItem);
+
+        int pending = this.pendingPrefetches.getOrDefault(uuid, 1) - 1;
+        if (pending > 0) {
+            this.pendingPrefetches.put(uuid, pending);
+            return;
+        }
+        this.pendingPrefetches.remove(uuid);
+        ActorRef requester = this.prefetchRequesters.remove(uuid);
+        List<Integer> keys = this.prefetchKeys.remove(uuid);
+        if (requester != null) {
+            this.replyBatchFill(uuid, keys, requester);
+        }
+    }
+
+    private void replyBatchFill(UUID uuid, List<Integer> keys, ActorRef requester) {
+        List<DataItem> items = this.getItems(keys);
+        BatchFillMessage batchFillMessage = new BatchFillMessage(uuid, items);
+        Logger.prefetch(this.id, LoggerOperationType.SEND, MessageType.BATCH_FILL, uuid,
+                items.stream().map(DataItem::getKey).toList());
+        this.send(batchFillMessage, requester);
+    }
+
+    /**
+     * Announces a new epoch to all L2 caches, once every partition has sent its
+     * high-water sequence number. Each L2 cache catches up on the commits it has
+     * missed while this cache was crashed.
+     *
+     * @param message The received HighWaterMessage
+     */
+    private void onHighWaterMessage(HighWaterMessage message) {
+        int partition = this.databases.indexOf(this.getSender());
+        if (partition < 0 || partition >= this.highWaterSeqs.length) {
+            return;
+        }
+        this.highWaterSeqs[partition] = message.getHighWaterSeq();
+        if (Arrays.stream(this.highWaterSeqs).anyMatch(Objects::isNull)) {
+            return;
+        }
+
+        List<Long> highWaterSeqs = List.of(this.highWaterSeqs);
+        this.highWaterSeqs = new Long[0];
+        this.epoch = this.epoch + 1;
+        Logger.epoch(this.id, LoggerOperationType.MULTICAST, this.epoch,
+                highWaterSeqs.stream().mapToLong(Long::longValue).sum());
+        this.multicast(new EpochMessage(this.epoch, highWaterSeqs), this.l2Caches);
+    }
+
+    /**
+     * Requests that are rejected while the circuit to the database is open. Votes, commits
+     * and aborts of critical writes are never rejected, as they finish a running operation.
+     */
+    private boolean isGuardedByBreaker(MessageType messageType) {
+        return messageType == MessageType.READ || messageType == MessageType.CRITICAL_READ
+                || messageType == MessageType.WRITE || messageType == MessageType.CRITICAL_WRITE;
+    }
+
+    private void logBreakerTransition(int partition, CircuitBreaker.State previousState) {
+        CircuitBreaker breaker = this.databaseBreakers[partition];
+        if (breaker.getState() != previousState) {
+            Logger.circuitBreaker(this.id, this.databases.get(partition).path().name(), breaker.getState().toString(),
+                    breaker.getFailureCount());
+        }
+    }
+
+    /**
+     * Records the answer of the database to a request of this cache. An overloaded error
+     * counts as failure, any other answer as success.
+     *
+     * @param key  Key of the request, the breaker of its partition is updated
+     * @param isOk True if the database has served the request
+     */
+    private void recordDatabaseReply(int key, boolean isOk) {
+        if (this.databaseBreakers == null) {
+            return;
+        }
+        int partition = this.getPartition(key);
+        CircuitBreaker breaker = this.databaseBreakers[partition];
+        CircuitBreaker.State previousState = breaker.getState();
+        if (isOk) {
+            breaker.onSuccess();
+        } else {
+            breaker.onFailure(System.currentTimeMillis());
+        }
+        this.logBreakerTransition(partition, previousState);
+    }
+
+    /**
+     * Answers a request with an overloaded error, without contacting the database.
+     * It is handled like an error of the database, i.e. passed on to all waiting L2 caches.
+     */
+    private void rejectByBreaker(KeyedMessage message, MessageType messageType) {
+        String errMsg = String.format("Can't forward key %d, because the circuit to the database is open", message.getKey());
+        this.handleErrorMessage(ErrorMessage.overloaded(message.getKey(), messageType, errMsg));
+    }
+
+    @Override
+    protected String getStats() {
+        String stats = String.format("%s, hot-keys: %d, pushed: %d, foster-l2s: %d, replica-reads: %d, persisted-seq: %d",
+                super.getStats(), this.pushedHotKeys.size(), this.pushCount, this.fosterL2Caches.size(), this.replicaReadCount,
+                this.persistSeq);
+        if (this.databaseBreakers != null) {
+            String states = Arrays.stream(this.databaseBreakers)
+                    .map(breaker -> breaker.getState().toString())
+                    .collect(Collectors.joining("/"));
+            stats = String.format("%s, circuit: %s, circuit-opened: %d, rejected: %d", stats, states,
+                    Arrays.stream(this.databaseBreakers).mapToLong(CircuitBreaker::getOpenCount).sum(),
+                    Arrays.stream(this.databaseBreakers).mapToLong(CircuitBreaker::getRejectedCount).sum());
+        }
+        return stats;
+    }
+
     private void abortCritWriteAnd(UUID uuid, int key, boolean multicastAbort, boolean sendVoteToDatabase) {
         this.abortCritWrite(uuid, key);
 
@@ -33,7 +496,7 @@ public class L1Cache extends Cache implements Coordinator {
         if (sendVoteToDatabase) {
             CritWriteVoteMessage voteMessage = new CritWriteVoteMessage(uuid, key, false);
             Logger.criticalWriteVote(this.id, uuid, LoggerOperationType.SEND, key, false);
-            this.send(voteMessage, this.database);
+            this.send(voteMessage, this.getDatabase(key));
         }
 
         // multicast abort message to L2s
@@ -44,8 +507,50 @@ public class L1Cache extends Cache implements Coordinator {
         }
     }
 
+    /**
+     * Returns a read replica of the partition that owns the key, in turns, or null if the
+     * partition has none.
+     */
+    private ActorRef getReplica(int key) {
+        int partition = this.getPartition(key);
+        if (partition >= this.replicas.size() || this.replicas.get(partition).isEmpty()) {
+            return null;
+        }
+        List<ActorRef> partitionReplicas = this.replicas.get(partition);
+        this.replicaReadCount = this.replicaReadCount + 1;
+        return partitionReplicas.get((int) (this.replicaReadCount % partitionReplicas.size()));
+    }
+
     @Override
     protected void forwardMessageToNext(Serializable message, MessageType messageType, long millis) {
+        ActorRef database = this.getDatabaseOf(message);
+        Serializable request = message;
+        if ((messageType == MessageType.READ || messageType == MessageType.CRITICAL_READ) && message instanceof Message read) {
+            ActorRef replica = this.getReplica(((KeyedMessage) read).getKey());
+            if (replica != null) {
+                // a critical read must not miss any commit this cache has seen
+                long minCommitSeq = messageType == MessageType.CRITICAL_READ
+                        ? this.seenCommitSeqs[this.getPartition(((KeyedMessage) read).getKey())] : 0;
+                request = new ReplicaReadMessage(read, minCommitSeq);
+                database = replica;
+            }
+        }
+        if (this.databaseBreakers != null && this.isGuardedByBreaker(messageType) && message instanceof KeyedMessage keyedMessage) {
+            int partition = this.getPartition(keyedMessage.getKey());
+            CircuitBreaker breaker = this.databaseBreakers[partition];
+            CircuitBreaker.State previousState = breaker.getState();
+            boolean isAllowed = breaker.allowRequest(System.currentTimeMillis());
+            this.logBreakerTransition(partition, previousState);
+            if (!isAllowed) {
+                this.rejectByBreaker(keyedMessage, messageType);
+                return;
+            }
+            // a critical write waits for the votes of all caches, it is not a sign of overload
+            if (messageType != MessageType.CRITICAL_WRITE) {
+                this.setTimeout(message, database, messageType, millis);
+            }
+        }
+
         long messageDelay = 0;
         if (message instanceof Message msg) {
             if (msg.isMessageDelayedAtL1()) {
@@ -53,16 +558,30 @@ public class L1Cache extends Cache implements Coordinator {
             }
         }
 
-        this.send(message, this.database, messageDelay);
+        this.send(request, database, messageDelay);
     }
 
     @Override
     protected void forwardMessageToNext(Serializable message, MessageType messageType) {
-        this.forwardMessageToNext(message, messageType, this.getTimeoutMillis());
+        this.forwardMessageToNext(message, messageType, this.getTimeoutMillis(this.getDatabaseOf(message), messageType));
+    }
+
+    /**
+     * Returns the partition of the database a request is routed to.
+     */
+    private ActorRef getDatabaseOf(Serializable message) {
+        if (message instanceof KeyedMessage keyedMessage) {
+            return this.getDatabase(keyedMessage.getKey());
+        }
+        return this.databases.get(0);
     }
 
     @Override
     protected void handleRefillMessage(RefillMessage message) {
+        if (this.isWriteUUIDUnconfirmed(message.getUuid())) {
+            // the database has served a write of this cache
+            this.recordDatabaseReply(message.getKey(), true);
+        }
         // just multicast to all L2s
         Logger.refill(this.id, message.getUuid(), LoggerOperationType.MULTICAST, message.getKey(), message.getValue(), 0,
                 message.getUpdateCount(), 0, false, false, true);
@@ -70,13 +589,33 @@ public class L1Cache extends Cache implements Coordinator {
         this.abortWrite(message.getUuid(), message.getKey());
     }
 
+    /**
+     * With epoch fencing, the L2 caches keep their keys while this cache is crashed, so they
+     * may know keys this cache has lost. They also have to see every commit, otherwise each
+     * skipped sequence number is a gap that only a catch-up closes. Therefore, refills this
+     * cache doesn't apply are passed on as well. Otherwise, only the refill of a key that is
+     * new to the Bloom filter is passed on, such that the L2 caches add it to theirs.
+     *
+     * @param message            The received RefillMessage
+     * @param isNewToBloomFilter True if the key has just been added to the Bloom filter
+     */
+    @Override
+    protected void handleIgnoredRefill(RefillMessage message, boolean isNewToBloomFilter) {
+        if (!this.config.getRecoveryConfig().isEpochFenced() && !isNewToBloomFilter) {
+            return;
+        }
+        Logger.refill(this.id, message.getUuid(), LoggerOperationType.MULTICAST, message.getKey(), message.getValue(), 0,
+                message.getUpdateCount(), 0, false, false, false);
+        this.multicast(message, this.l2Caches);
+    }
+
     @Override
     protected void handleTimeoutMessage(TimeoutMessage message) {
         if (message.getType() == MessageType.CRITICAL_WRITE_REQUEST) {
             CritWriteRequestMessage requestMessage = (CritWriteRequestMessage) message.getMessage();
             int key = requestMessage.getKey();
 
-            if (this.isWriteUnconfirmed(key) && !this.haveAllL2VotedOk) {
+            if (this.isWriteUnconfirmed(key) && !this.haveAllL2VotedOk[this.getPartition(key)]) {
                 // Some L2 has timed-out during crit-write
                 Logger.timeout(this.id, message.getType());
                 // reset and just timeout
@@ -89,6 +628,7 @@ public class L1Cache extends Cache implements Coordinator {
 
             if (this.isWriteUnconfirmed(key)) {
                 Logger.timeout(this.id, message.getType());
+                this.recordDatabaseReply(key, false);
                 // reset and timeout
                 this.abortWrite(uuid, key);
             }
@@ -101,12 +641,13 @@ public class L1Cache extends Cache implements Coordinator {
                 Logger.timeout(this.id, message.getType());
                 this.abortCritWriteAnd(critWriteMessage.getUuid(), key, false, false);
             }
-        } else if (message.getType() == MessageType.READ) {
-            ReadMessage readMessage = (ReadMessage) message.getMessage();
+        } else if (message.getType() == MessageType.READ || message.getType() == MessageType.CRITICAL_READ) {
+            KeyedMessage readMessage = (KeyedMessage) message.getMessage();
             int key = readMessage.getKey();
 
             if (this.isReadUnconfirmed(key)) {
                 Logger.timeout(this.id, message.getType());
+                this.recordDatabaseReply(key, false);
                 this.removeUnconfirmedRead(key);
             }
         }
@@ -115,13 +656,15 @@ public class L1Cache extends Cache implements Coordinator {
     @Override
     protected void handleCritWriteRequestMessage(CritWriteRequestMessage message, boolean isOk) {
         int key = message.getKey();
+        // a suspected L2 would not vote, abort right away instead of waiting for the timeout
+        boolean isAnyL2Suspected = this.l2Caches.stream().anyMatch(this::isSuspected);
 
-        if (isOk) {
+        if (isOk && !isAnyL2Suspected) {
             // first lock
             this.lockKey(key);
             // iff everything is ok, then multicast the request to all L2s, otherwise force a timeout
             Logger.criticalWriteRequest(this.id, message.getUuid(), LoggerOperationType.MULTICAST, key, true);
-            this.acCoordinator.setCritWriteConfig(key);
+            this.acCoordinators[this.getPartition(key)].setCritWriteConfig(key);
             this.multicast(message, this.l2Caches);
             this.setMulticastTimeout(message, MessageType.CRITICAL_WRITE_REQUEST);
             // set as unconfirmed with no sender if not already srt as unconfirmed
@@ -138,7 +681,7 @@ public class L1Cache extends Cache implements Coordinator {
         boolean isOk = message.isOk();
         Logger.criticalWriteVote(this.id, message.getUuid(), LoggerOperationType.RECEIVED, key, isOk);
 
-        this.acCoordinator.onCritWriteVoteMessage(message);
+        this.acCoordinators[this.getPartition(key)].onCritWriteVoteMessage(message);
     }
 
     @Override
@@ -163,6 +706,10 @@ public class L1Cache extends Cache implements Coordinator {
         MessageType messageType = message.getMessageType();
         int key = message.getKey();
 
+        if (this.isDatabase(this.getSender())) {
+            this.recordDatabaseReply(key, message.getErrorType() != ErrorType.OVERLOADED);
+        }
+
         if (messageType == MessageType.WRITE && this.isWriteUnconfirmed(key)) {
             Logger.error(this.id, LoggerOperationType.SEND, messageType, key, false, message.getErrorMessage());
             // tell L2 about message
@@ -225,8 +772,18 @@ public class L1Cache extends Cache implements Coordinator {
         // Do nothing
     }
 
+    @Override
+    protected void handleCommitSeq(int key, long commitSeq) {
+        // only needed to route critical reads to a replica, a L1 cache is flushed on a crash anyway
+        int partition = this.getPartition(key);
+        this.seenCommitSeqs[partition] = Math.max(this.seenCommitSeqs[partition], commitSeq);
+    }
+
     @Override
     protected void handleFill(int key) {
+        if (this.isDatabase(this.getSender()) && this.isReadUnconfirmed(key)) {
+            this.recordDatabaseReply(key, true);
+        }
         if (this.isReadUnconfirmed(key)) {
             int value = this.getValueOrElse(key);
             int updateCount = this.getUpdateCountOrElse(key);
@@ -236,20 +793,90 @@ public class L1Cache extends Cache implements Coordinator {
             FillMessage fillMessage = new FillMessage(key, value, updateCount);
             Logger.fill(this.id, LoggerOperationType.MULTICAST, key, value, 0, updateCount, 0);
             this.multicast(fillMessage, requestedL2s);
+            this.pushHotKey(key, requestedL2s);
             // afterwards reset for key
             this.removeUnconfirmedRead(key);
         }
     }
 
+    /**
+     * Adds the sender to the L2 caches, such that it gets all refills and takes part in
+     * critical writes. L2 caches of this cache are already known, for them the attach
+     * just confirms that this cache is reachable again.
+     *
+     * @param message The received AttachMessage
+     */
+    private void onAttachMessage(AttachMessage message) {
+        ActorRef l2Cache = this.getSender();
+        boolean isHome = this.l2Caches.contains(l2Cache) && !this.fosterL2Caches.contains(l2Cache);
+        Logger.attach(this.id, LoggerOperationType.RECEIVED, MessageType.ATTACH, l2Cache.path().name(), isHome);
+
+        if (!this.l2Caches.contains(l2Cache)) {
+            List<ActorRef> l2Caches = new ArrayList<>(this.l2Caches);
+            l2Caches.add(l2Cache);
+            this.l2Caches = List.copyOf(l2Caches);
+            this.fosterL2Caches.add(l2Cache);
+        }
+        this.send(new AttachConfirmMessage(), l2Cache);
+    }
+
+    /**
+     * Removes the sender from the L2 caches, if it has been attached temporarily.
+     *
+     * @param message The received DetachMessage
+     */
+    private void onDetachMessage(DetachMessage message) {
+        ActorRef l2Cache = this.getSender();
+        Logger.attach(this.id, LoggerOperationType.RECEIVED, MessageType.DETACH, l2Cache.path().name(), false);
+
+        if (this.fosterL2Caches.remove(l2Cache)) {
+            this.l2Caches = this.l2Caches.stream().filter(actorRef -> !actorRef.equals(l2Cache)).toList();
+        }
+    }
+
     @Override
     protected void flush() {
         super.flush();
-        this.acCoordinator.resetCritWriteConfig();
+        for (int i = 0; i < this.acCoordinators.length; i++) {
+            this.acCoordinators[i].resetCritWriteConfig();
+            this.haveAllL2VotedOk[i] = false;
+        }
+        this.resetHotKeys();
+        this.prefetchRequesters = new HashMap<>();
+        this.prefetchKeys = new HashMap<>();
+        this.pendingPrefetches = new HashMap<>();
+    }
+
+    @Override
+    public Receive createReceive() {
+        return this.receiveBuilder()
+                .match(DecayHotKeysMessage.class, this::onDecayHotKeysMessage)
+                .match(PersistCacheMessage.class, this::onPersistCacheMessage)
+                .match(SnapshotDoneMessage.class, this::onSnapshotDoneMessage)
+                .match(PrefetchMessage.class, this::onPrefetchMessage)
+                .match(BatchFillMessage.class, this::onBatchFillMessage)
+                .match(HighWaterMessage.class, this::onHighWaterMessage)
+                .match(AttachMessage.class, this::onAttachMessage)
+                .match(DetachMessage.class, this::onDetachMessage)
+                .build()
+                .orElse(super.createReceive());
     }
 
     @Override
     protected void recover() {
         super.recover();
+        if (this.config.getRecoveryConfig().isEpochFenced()) {
+            // the new epoch is announced as soon as all partitions of the database have answered
+            this.highWaterSeqs = new Long[this.databases.size()];
+            this.multicast(new EpochRequestMessage(), this.databases);
+            return;
+        }
+        if (this.config.getRecoveryConfig().isWarm()) {
+            // L2s keep their keys, but don't serve them until revalidated
+            Logger.flush(this.id, LoggerOperationType.MULTICAST);
+            this.multicast(new RevalidateMessage(), this.l2Caches);
+            return;
+        }
         // send flush to all L2s
         FlushMessage flushMessage = new FlushMessage(this.getSelf());
         Logger.flush(this.id, LoggerOperationType.MULTICAST);
@@ -265,17 +892,18 @@ public class L1Cache extends Cache implements Coordinator {
     public void onVoteOk(UUID uuid, int key, int value) {
         // set as unconfirmed with no sender, just to block all new write requests
         this.addUnconfirmedWrite(uuid, key, ActorRef.noSender());
-        this.haveAllL2VotedOk = true;
+        this.haveAllL2VotedOk[this.getPartition(key)] = true;
 
         CritWriteVoteMessage critWriteVoteMessage = new CritWriteVoteMessage(uuid, key, true);
         Logger.criticalWriteVote(this.id, uuid, LoggerOperationType.SEND, key, true);
-        this.send(critWriteVoteMessage, this.database);
+        this.send(critWriteVoteMessage, this.getDatabase(key));
     }
 
     @Override
     public void abortCritWrite(UUID uuid, int key) {
-        this.haveAllL2VotedOk = false;
+        int partition = this.getPartition(key);
+        this.haveAllL2VotedOk[partition] = false;
         this.abortWrite(uuid, key);
-        this.acCoordinator.resetCritWriteConfig();
+        this.acCoordinators[partition].resetCritWriteConfig();
     }
 }
@@ -2,26 +2,103 @@ package it.unitn.disi.ds1.multi_level_cache.actors;
 
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BloomFilter;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.CommitSeqTracker;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.CooperativeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.PrefetchConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.ReparentConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.StrideDetector;
 import it.unitn.disi.ds1.multi_level_cache.messages.*;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageType;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.Logger;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.LoggerOperationType;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public class L2Cache extends Cache {
 
+    /**
+     * All other L2 caches of the same L1 cache
+     */
+    private List<ActorRef> siblingL2Caches = List.of();
+    /**
+     * The latest digest of each sibling
+     */
+    private Map<ActorRef, BloomFilter> siblingDigests = new HashMap<>();
+    /**
+     * Reads that wait for a sibling, they are forwarded to the L1 on a miss
+     */
+    private Map<Integer, ReadMessage> pendingPeerReads = new HashMap<>();
+    private long peerHitCount = 0;
+    private long peerMissCount = 0;
+    /**
+     * Access pattern of each client that reads from this cache
+     */
+    private Map<ActorRef, StrideDetector> readStreams = new HashMap<>();
+    /**
+     * Keys of each prefetch that has not been answered yet
+     */
+    private Map<UUID, List<Integer>> inFlightPrefetches = new HashMap<>();
+    /**
+     * Prefetched keys that have not been read yet
+     */
+    private Set<Integer> prefetchedKeys = new HashSet<>();
+    private long prefetchCount = 0;
+    private long prefetchHitCount = 0;
+    /**
+     * All commits of each partition of the database this cache has seen, by refills and commits
+     */
+    private CommitSeqTracker[] commitSeqTrackers;
+    /**
+     * Latest announced epoch of the main L1 cache
+     */
+    private long mainL1Epoch = 0;
+    private long fencedKeyCount = 0;
+    /**
+     * All L1 caches, any of them can become the main L1 cache while the home L1 cache is unreachable
+     */
+    private List<ActorRef> l1Caches = List.of();
+    /**
+     * The L1 cache this cache has initially joined, null until the first failover
+     */
+    private ActorRef homeL1Cache;
+    /**
+     * Writes that have already been forwarded again after a failover
+     */
+    private Set<UUID> reforwardedWrites = new HashSet<>();
+    private long failoverCount = 0;
+    private long rejoinCount = 0;
+
     public L2Cache(String id) {
-        super(id);
+        this(id, NodeConfig.defaults());
+    }
+
+    public L2Cache(String id, NodeConfig config) {
+        super(id, config);
+        this.resetCommitSeqTrackers();
     }
 
     static public Props props(String id) {
         return Props.create(Cache.class, () -> new L2Cache(id));
     }
 
+    static public Props props(String id, NodeConfig config) {
+        return Props.create(Cache.class, () -> new L2Cache(id, config));
+    }
+
     private void abortCritWriteAnd(UUID uuid, int key, boolean sendErrorToClient) {
         // send error to client
         if (this.isWriteUnconfirmed(key) && sendErrorToClient) {
@@ -36,7 +113,157 @@ public class L2Cache extends Cache {
     }
 
     @Override
-    protected void forwardMessageToNext(Serializable message, MessageType messageType, long millis) {
+    public void preStart() {
+        CooperativeConfig cooperativeConfig = this.config.getCooperativeConfig();
+        if (cooperativeConfig.isEnabled()) {
+            this.schedulePeriodicMessageToSelf(new PublishDigestMessage(), cooperativeConfig.getDigestRefreshMillis());
+        }
+        ReparentConfig reparentConfig = this.config.getReparentConfig();
+        if (reparentConfig.isEnabled()) {
+            this.schedulePeriodicMessageToSelf(new RejoinMessage(), reparentConfig.getRejoinProbeMillis());
+        }
+    }
+
+    private boolean isAttachedToHome() {
+        return this.homeL1Cache == null || this.homeL1Cache.equals(this.mainL1Cache);
+    }
+
+    /**
+     * Returns the next L1 cache after the given one that is not suspected. If all of them
+     * are suspected, simply the next one.
+     *
+     * @param unreachableL1Cache The L1 cache that has timed-out
+     * @return Another L1 cache
+     */
+    private ActorRef getNextL1Cache(ActorRef unreachableL1Cache) {
+        int index = this.l1Caches.indexOf(unreachableL1Cache);
+        for (int i = 1; i < this.l1Caches.size(); i++) {
+            ActorRef l1Cache = this.l1Caches.get((index + i) % this.l1Caches.size());
+            if (!l1Cache.equals(unreachableL1Cache) && !this.isSuspected(l1Cache)) {
+                return l1Cache;
+            }
+        }
+        return this.l1Caches.get((index + 1) % this.l1Caches.size());
+    }
+
+    @Override
+    protected void onPeerSuspected(ActorRef peer) {
+        if (peer.equals(this.mainL1Cache)) {
+            this.failoverFrom(peer);
+        }
+        // reads fall back to the database, writes are forwarded to the new main L1 cache or fail
+        this.expireTimeoutsOf(peer);
+    }
+
+    /**
+     * Attaches this cache to the next L1 cache, if the given unreachable L1 cache is the
+     * main L1 cache. Requests are sent to the new main L1 cache from now on, instead of
+     * paying a timeout each.
+     *
+     * @param unreachableL1Cache The L1 cache that has timed-out
+     * @return True if the main L1 cache has been changed, now or by an earlier timeout
+     */
+    private boolean failoverFrom(ActorRef unreachableL1Cache) {
+        if (!this.config.getReparentConfig().isEnabled() || this.l1Caches.size() < 2) {
+            return false;
+        }
+        if (!unreachableL1Cache.equals(this.mainL1Cache)) {
+            // another timeout has already moved this cache
+            return true;
+        }
+        if (this.homeL1Cache == null) {
+            this.homeL1Cache = this.mainL1Cache;
+        }
+
+        if (!this.isAttachedToHome()) {
+            // leave the unreachable foster L1, in case it is just slow
+            this.send(new DetachMessage(), this.mainL1Cache);
+        }
+        this.mainL1Cache = this.getNextL1Cache(unreachableL1Cache);
+        this.monitor(this.mainL1Cache);
+        this.failoverCount = this.failoverCount + 1;
+        if (!this.isAttachedToHome()) {
+            // the home L1 knows this cache anyway
+            Logger.attach(this.id, LoggerOperationType.SEND, MessageType.ATTACH, this.mainL1Cache.path().name(), false);
+            this.send(new AttachMessage(), this.mainL1Cache);
+        }
+        this.revalidateAtMainL1Cache();
+        return true;
+    }
+
+    /**
+     * Marks all keys as suspect and reads them again from the new main L1 cache. It doesn't
+     * know which keys this cache holds, hence it would drop their refills, and the epochs of
+     * the previous main L1 cache have been missed. The read keys are known by the new main
+     * L1 cache afterwards, so it keeps this cache up-to-date.
+     */
+    private void revalidateAtMainL1Cache() {
+        // epochs of different L1 caches are not comparable
+        this.mainL1Epoch = 0;
+        this.rehydrate(this.getKeys(), true);
+    }
+
+    /**
+     * Returns a sibling whose digest contains the given key, if any.
+     *
+     * @param key The requested key
+     * @return A sibling that probably holds the key
+     */
+    private Optional<ActorRef> findSiblingForKey(int key) {
+        for (Map.Entry<ActorRef, BloomFilter> entry : this.siblingDigests.entrySet()) {
+            if (entry.getValue().mightContain(key)) {
+                return Optional.of(entry.getKey());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Asks a sibling for the key of the given read, if the cooperative mode is enabled
+     * and some sibling probably holds the key.
+     *
+     * @param readMessage The ReadMessage that has missed in this cache
+     * @return True if a sibling has been asked
+     */
+    private boolean tryPeerRead(ReadMessage readMessage) {
+        CooperativeConfig cooperativeConfig = this.config.getCooperativeConfig();
+        int key = readMessage.getKey();
+        if (!cooperativeConfig.isEnabled() || this.pendingPeerReads.containsKey(key)) {
+            return false;
+        }
+
+        Optional<ActorRef> sibling = this.findSiblingForKey(key);
+        if (sibling.isEmpty()) {
+            return false;
+        }
+
+        PeerReadMessage peerReadMessage = new PeerReadMessage(key, readMessage.getUpdateCount());
+        Logger.peerRead(this.id, LoggerOperationType.SEND, key, readMessage.getUpdateCount(), false);
+        this.send(peerReadMessage, sibling.get());
+        this.pendingPeerReads.put(key, readMessage);
+        this.setTimeout(peerReadMessage, sibling.get(), MessageType.PEER_READ, cooperativeConfig.getPeerTimeoutMillis());
+        return true;
+    }
+
+    /**
+     * Forwards a read, that has missed at a sibling, to the L1 cache.
+     *
+     * @param key The requested key
+     */
+    private void forwardPeerMissToL1(int key) {
+        ReadMessage readMessage = this.pendingPeerReads.remove(key);
+        if (readMessage != null) {
+            this.peerMissCount = this.peerMissCount + 1;
+            this.forwardToMainL1Cache(readMessage, MessageType.READ, this.getTimeoutMillis(this.mainL1Cache, MessageType.READ));
+        }
+    }
+
+    private void forwardToMainL1Cache(Serializable message, MessageType messageType, long millis) {
+        if (this.isSuspected(this.mainL1Cache) && !this.failoverFrom(this.mainL1Cache)) {
+            // fail fast, exactly as if the request had timed-out
+            this.handleTimeoutMessage(new TimeoutMessage(message, this.mainL1Cache, messageType));
+            return;
+        }
         long messageDelay = 0;
 
         if (message instanceof Message msg) {
@@ -49,28 +276,126 @@ public class L2Cache extends Cache {
         this.setTimeout(message, this.mainL1Cache, messageType, millis);
     }
 
+    @Override
+    protected void forwardMessageToNext(Serializable message, MessageType messageType, long millis) {
+        if (messageType == MessageType.READ && message instanceof ReadMessage readMessage && this.tryPeerRead(readMessage)) {
+            return;
+        }
+        this.forwardToMainL1Cache(message, messageType, millis);
+    }
+
     @Override
     protected void forwardMessageToNext(Serializable message, MessageType messageType) {
-        this.forwardMessageToNext(message, messageType, this.getTimeoutMillis());
+        this.forwardMessageToNext(message, messageType, this.getTimeoutMillis(this.mainL1Cache, messageType));
+    }
+
+    @Override
+    protected void handleReadMessage(ReadMessage message) {
+        int key = message.getKey();
+        if (this.prefetchedKeys.remove(key) && this.isKeyAvailable(key)) {
+            this.prefetchHitCount = this.prefetchHitCount + 1;
+        }
+        super.handleReadMessage(message);
+
+        PrefetchConfig prefetchConfig = this.config.getPrefetchConfig();
+        if (prefetchConfig.isEnabled()) {
+            StrideDetector stream = this.readStreams
+                    .computeIfAbsent(this.getSender(), actorRef -> new StrideDetector(prefetchConfig.getMinRunLength()));
+            if (stream.offer(key)) {
+                this.prefetchAhead(key, stream.getStride());
+            }
+        }
+    }
+
+    private boolean isPrefetching(int key) {
+        return this.inFlightPrefetches.values().stream().anyMatch(keys -> keys.contains(key));
+    }
+
+    /**
+     * Requests the next window of a strided stream with a single message. Keys that
+     * are cached or already requested are skipped. The request is only sent once
+     * half of the window is missing, such that a scan doesn't send a prefetch for
+     * each single key, and only if not too many prefetches are in flight.
+     *
+     * @param key    The last read key
+     * @param stride The stride of the stream
+     */
+    private void prefetchAhead(int key, int stride) {
+        PrefetchConfig prefetchConfig = this.config.getPrefetchConfig();
+        if (this.inFlightPrefetches.size() >= prefetchConfig.getMaxInFlight()) {
+            return;
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 1; i <= prefetchConfig.getDepth(); i++) {
+            int nextKey = key + stride * i;
+            if (nextKey >= 0 && !this.isKeyAvailable(nextKey) && !this.isReadUnconfirmed(nextKey)
+                    && !this.isPrefetching(nextKey)) {
+                keys.add(nextKey);
+            }
+        }
+        if (keys.isEmpty() || keys.size() < prefetchConfig.getDepth() / 2) {
+            return;
+        }
+
+        PrefetchMessage prefetchMessage = new PrefetchMessage(keys);
+        Logger.prefetch(this.id, LoggerOperationType.SEND, MessageType.PREFETCH, prefetchMessage.getUuid(), keys);
+        this.send(prefetchMessage, this.mainL1Cache);
+        this.inFlightPrefetches.put(prefetchMessage.getUuid(), keys);
+        this.prefetchCount = this.prefetchCount + 1;
+        this.setTimeout(prefetchMessage, this.mainL1Cache, MessageType.PREFETCH, this.getTimeoutMillis());
+    }
+
+    private void onBatchFillMessage(BatchFillMessage message) {
+        Logger.prefetch(this.id, LoggerOperationType.RECEIVED, MessageType.BATCH_FILL, message.getUuid(),
+                message.getItems().stream().map(DataItem::getKey).toList());
+        if (this.handleRehydrationFill(message)) {
+            return;
+        }
+        if (this.inFlightPrefetches.remove(message.getUuid()) == null) {
+            // already timed-out
+            return;
+        }
+
+        for (DataItem item : message.getItems()) {
+            if (this.storeFetchedItem(item)) {
+                this.prefetchedKeys.add(item.getKey());
+            }
+        }
     }
 
     @Override
     protected void handleRefillMessage(RefillMessage message) {
+        this.reforwardedWrites.remove(message.getUuid());
         this.abortWrite(message.getUuid(), message.getKey());
     }
 
     @Override
     protected void handleTimeoutMessage(TimeoutMessage message) {
         // forward message to DB, no need for timeout since DB can't timeout
-        if (message.getType() == MessageType.READ) {
+        if (message.getType() == MessageType.PREFETCH) {
+            PrefetchMessage prefetchMessage = (PrefetchMessage) message.getMessage();
+            if (this.inFlightPrefetches.remove(prefetchMessage.getUuid()) != null) {
+                Logger.timeout(this.id, message.getType());
+            }
+        } else if (message.getType() == MessageType.PEER_READ) {
+            PeerReadMessage peerReadMessage = (PeerReadMessage) message.getMessage();
+            if (this.pendingPeerReads.containsKey(peerReadMessage.getKey())) {
+                Logger.timeout(this.id, message.getType());
+                this.forwardPeerMissToL1(peerReadMessage.getKey());
+            }
+        } else if (message.getType() == MessageType.READ) {
             ReadMessage readMessage = (ReadMessage) message.getMessage();
             int key = readMessage.getKey();
+            // the client already got a stale value, just give up the revalidation
+            this.stopRevalidating(key);
             // if the key is in this map, then no ReadReply has been received for the key
             if (this.isReadUnconfirmed(key)) {
                 Logger.timeout(this.id, message.getType());
+                this.failoverFrom(message.getUnreachableActor());
                 Logger.read(this.id, LoggerOperationType.SEND, key, readMessage.getUpdateCount(),
                         this.getUpdateCountOrElse(key), this.isKeyLocked(key), false, true);
-                this.send(readMessage, this.database);
+                this.send(readMessage, this.getDatabase(key));
             }
         } else if (message.getType() == MessageType.CRITICAL_READ) {
             CritReadMessage critReadMessage = (CritReadMessage) message.getMessage();
@@ -79,9 +404,10 @@ public class L2Cache extends Cache {
             // if the key is in this map, then no ReadReply has been received for the key
             if (this.isReadUnconfirmed(key)) {
                 Logger.timeout(this.id, message.getType());
+                this.failoverFrom(message.getUnreachableActor());
                 Logger.criticalRead(this.id, LoggerOperationType.SEND, key, critReadMessage.getUpdateCount(),
                         this.getUpdateCountOrElse(key), this.isKeyLocked(key));
-                this.send(critReadMessage, this.database);
+                this.send(critReadMessage, this.getDatabase(key));
             }
         } else if (message.getType() == MessageType.WRITE) {
             WriteMessage writeMessage = (WriteMessage) message.getMessage();
@@ -91,7 +417,16 @@ public class L2Cache extends Cache {
                 Logger.timeout(this.id, message.getType());
 
                 Optional<UUID> uuid = this.getUnconfirmedWriteUUID(key);
-                if (uuid.isPresent()) {
+                if (uuid.isPresent() && this.reforwardedWrites.add(uuid.get())
+                        && this.failoverFrom(message.getUnreachableActor())) {
+                    // same UUID, hence the database applies it only once, even if the first one got through
+                    WriteMessage reforwardMessage = new WriteMessage(uuid.get(), key, writeMessage.getValue(),
+                            MessageConfig.none());
+                    Logger.write(this.id, LoggerOperationType.RETRY, key, writeMessage.getValue(), true, uuid.get());
+                    this.forwardToMainL1Cache(reforwardMessage, MessageType.WRITE,
+                            this.getTimeoutMillis(this.mainL1Cache, MessageType.WRITE));
+                } else if (uuid.isPresent()) {
+                    this.reforwardedWrites.remove(uuid.get());
                     // send error to client
                     String errMsg = "L1 is unreachable";
                     Logger.error(this.id, LoggerOperationType.ERROR, message.getType(), key, false, errMsg);
@@ -125,7 +460,8 @@ public class L2Cache extends Cache {
         // answer back
         CritWriteVoteMessage critWriteVoteOkMessage = new CritWriteVoteMessage(message.getUuid(), key, isOk);
         Logger.criticalWriteVote(this.id, message.getUuid(), LoggerOperationType.SEND, key, isOk);
-        this.send(critWriteVoteOkMessage, this.mainL1Cache);
+        // the coordinator is not necessarily the main L1 cache, e.g. right after a failover
+        this.send(critWriteVoteOkMessage, this.getSender());
     }
 
     @Override
@@ -190,12 +526,16 @@ public class L2Cache extends Cache {
                 // reset and just timeout
                 this.abortCritWriteAnd(uuid.get(), key, false);
             }
+        } else if (messageType == MessageType.READ && this.isRevalidating(key) && !this.isReadUnconfirmed(key)) {
+            // only a background revalidation has failed, nobody is waiting
+            this.stopRevalidating(key);
         } else if ((messageType == MessageType.READ || messageType == MessageType.CRITICAL_READ) && this.isReadUnconfirmed(key)) {
             if (messageType == MessageType.READ) {
                 Logger.error(this.id, LoggerOperationType.MULTICAST, messageType, key, false, message.getErrorMessage());
             } else {
                 Logger.error(this.id, LoggerOperationType.MULTICAST, messageType, key, false, message.getErrorMessage());
             }
+            this.stopRevalidating(key);
 
             // tell L2 about message
             List<ActorRef> clients = this.getUnconfirmedActorsForRead(key);
@@ -243,6 +583,215 @@ public class L2Cache extends Cache {
         }
     }
 
+    private void onJoinSiblingL2Caches(JoinSiblingL2CachesMessage message) {
+        this.siblingL2Caches = message.getSiblingL2Caches()
+                .stream().filter(actorRef -> !actorRef.equals(this.getSelf())).toList();
+        Logger.join(this.id, "Sibling L2 Caches", this.siblingL2Caches.size());
+    }
+
+    /**
+     * Sends a digest of all keys of this cache to all siblings.
+     *
+     * @param message The received PublishDigestMessage
+     */
+    private void onPublishDigestMessage(PublishDigestMessage message) {
+        CooperativeConfig cooperativeConfig = this.config.getCooperativeConfig();
+        BloomFilter digest = BloomFilter.create(cooperativeConfig.getExpectedKeys(), cooperativeConfig.getFalsePositiveRate());
+        for (int key : this.getKeys()) {
+            digest.add(key);
+        }
+        CacheDigestMessage digestMessage = new CacheDigestMessage(digest.getNumOfBits(), digest.getNumOfHashes(), digest.toWords());
+        this.multicast(digestMessage, this.siblingL2Caches);
+    }
+
+    private void onCacheDigestMessage(CacheDigestMessage message) {
+        BloomFilter digest = BloomFilter.fromSnapshot(message.getNumOfBits(), message.getNumOfHashes(), message.getWords());
+        this.siblingDigests.put(this.getSender(), digest);
+    }
+
+    /**
+     * Answers a sibling with the value of the key, if it is not locked and at
+     * least as new as the one the client has seen.
+     *
+     * @param message The received PeerReadMessage
+     */
+    private void onPeerReadMessage(PeerReadMessage message) {
+        int key = message.getKey();
+        boolean isFresh = this.isKeyAvailable(key) && this.getUpdateCountOrElse(key) >= message.getUpdateCount();
+        boolean isFound = isFresh && !this.isKeyLocked(key) && !this.isWriteUnconfirmed(key);
+
+        PeerReadReplyMessage replyMessage = isFound
+                ? new PeerReadReplyMessage(key, true, this.getValueOrElse(key), this.getUpdateCountOrElse(key))
+                : PeerReadReplyMessage.notFound(key);
+        Logger.peerRead(this.id, LoggerOperationType.SEND, key, replyMessage.getUpdateCount(), isFound);
+        this.send(replyMessage, this.getSender());
+    }
+
+    /**
+     * A sibling has answered. On a hit the key is filled, otherwise the read
+     * is forwarded to the L1 cache.
+     *
+     * @param message The received PeerReadReplyMessage
+     */
+    private void onPeerReadReplyMessage(PeerReadReplyMessage message) {
+        int key = message.getKey();
+        Logger.peerRead(this.id, LoggerOperationType.RECEIVED, key, message.getUpdateCount(), message.isFound());
+
+        if (!this.pendingPeerReads.containsKey(key)) {
+            // already timed-out
+            return;
+        }
+
+        if (message.isFound()) {
+            this.pendingPeerReads.remove(key);
+            this.peerHitCount = this.peerHitCount + 1;
+            this.fillKey(key, message.getValue(), message.getUpdateCount());
+        } else {
+            this.forwardPeerMissToL1(key);
+        }
+    }
+
+    @Override
+    protected void handleCommitSeq(int key, long commitSeq) {
+        // only the L1 cache of an epoch-fenced recovery passes on every commit
+        if (this.config.getRecoveryConfig().isEpochFenced()) {
+            this.commitSeqTrackers[this.getPartition(key)].offer(commitSeq);
+        }
+    }
+
+    private void resetCommitSeqTrackers() {
+        this.commitSeqTrackers = new CommitSeqTracker[this.config.getPartitionConfig().getNumOfPartitions()];
+        Arrays.setAll(this.commitSeqTrackers, i -> new CommitSeqTracker());
+    }
+
+    /**
+     * The main L1 cache has recovered. If this cache has missed a commit of some
+     * partition in the meantime, it asks that partition which keys have changed.
+     *
+     * @param message The received EpochMessage
+     */
+    private void onEpochMessage(EpochMessage message) {
+        List<Long> highWaterSeqs = message.getHighWaterSeqs();
+        Logger.epoch(this.id, LoggerOperationType.RECEIVED, message.getEpoch(),
+                highWaterSeqs.stream().mapToLong(Long::longValue).sum());
+        if (!this.getSender().equals(this.mainL1Cache) || message.getEpoch() <= this.mainL1Epoch) {
+            // epochs of other L1 caches are not comparable
+            return;
+        }
+        this.mainL1Epoch = message.getEpoch();
+
+        for (int partition = 0; partition < highWaterSeqs.size(); partition++) {
+            CommitSeqTracker tracker = this.commitSeqTrackers[partition];
+            long highWaterSeq = highWaterSeqs.get(partition);
+            if (!tracker.isKnown()) {
+                // no commit seen yet, so any key of the partition may have changed
+                this.fencedKeyCount = this.fencedKeyCount + this.markSuspect(this.getKeysOfPartition(partition));
+                tracker.advanceTo(highWaterSeq);
+            } else if (tracker.getLastSeq() < highWaterSeq) {
+                long sinceSeq = tracker.getLastSeq();
+                Logger.catchUp(this.id, LoggerOperationType.SEND, sinceSeq, highWaterSeq, 0, false);
+                this.send(new CatchUpMessage(sinceSeq), this.databases.get(partition));
+            }
+        }
+    }
+
+    private List<Integer> getKeysOfPartition(int partition) {
+        return this.getKeys().stream().filter(key -> this.getPartition(key) == partition).toList();
+    }
+
+    /**
+     * Marks all keys changed during the outage as suspect. If the change log of the
+     * database has been truncated, all keys are suspect.
+     *
+     * @param message The received CatchUpReplyMessage
+     */
+    private void onCatchUpReplyMessage(CatchUpReplyMessage message) {
+        Logger.catchUp(this.id, LoggerOperationType.RECEIVED, message.getSinceSeq(), message.getHighWaterSeq(),
+                message.getKeys().size(), message.isTruncated());
+        int partition = this.databases.indexOf(this.getSender());
+        if (partition < 0) {
+            return;
+        }
+        Collection<Integer> keys = message.isTruncated() ? this.getKeysOfPartition(partition) : message.getKeys();
+        this.fencedKeyCount = this.fencedKeyCount + this.markSuspect(keys);
+        this.commitSeqTrackers[partition].advanceTo(message.getHighWaterSeq());
+    }
+
+    private void onJoinL1Caches(JoinL1CachesMessage message) {
+        this.l1Caches = List.copyOf(message.getL1Caches());
+        Logger.join(this.id, "L1 Caches", this.l1Caches.size());
+    }
+
+    /**
+     * Probes the home L1 cache while this cache is attached to another one.
+     *
+     * @param message The received RejoinMessage
+     */
+    private void onRejoinMessage(RejoinMessage message) {
+        if (!this.isAttachedToHome()) {
+            Logger.attach(this.id, LoggerOperationType.SEND, MessageType.ATTACH, this.homeL1Cache.path().name(), true);
+            this.send(new AttachMessage(), this.homeL1Cache);
+        }
+    }
+
+    /**
+     * If the home L1 cache has answered a probe, this cache leaves the foster L1 cache
+     * and sends all further requests to the home L1 cache again.
+     *
+     * @param message The received AttachConfirmMessage
+     */
+    private void onAttachConfirmMessage(AttachConfirmMessage message) {
+        ActorRef l1Cache = this.getSender();
+        boolean isHome = l1Cache.equals(this.homeL1Cache);
+        Logger.attach(this.id, LoggerOperationType.RECEIVED, MessageType.ATTACH, l1Cache.path().name(), isHome);
+
+        if (isHome && !this.isAttachedToHome()) {
+            Logger.attach(this.id, LoggerOperationType.SEND, MessageType.DETACH, this.mainL1Cache.path().name(), false);
+            this.send(new DetachMessage(), this.mainL1Cache);
+            this.mainL1Cache = this.homeL1Cache;
+            this.rejoinCount = this.rejoinCount + 1;
+            this.revalidateAtMainL1Cache();
+        }
+    }
+
+    @Override
+    protected String getStats() {
+        return String.format("%s, peer-hits: %d, peer-misses: %d, prefetches: %d, prefetch-hits: %d, fenced: %d, " +
+                        "main-l1: %s, failovers: %d, rejoins: %d",
+                super.getStats(), this.peerHitCount, this.peerMissCount, this.prefetchCount, this.prefetchHitCount,
+                this.fencedKeyCount, this.mainL1Cache.path().name(), this.failoverCount, this.rejoinCount);
+    }
+
+    @Override
+    protected void flush() {
+        super.flush();
+        this.siblingDigests = new HashMap<>();
+        this.pendingPeerReads = new HashMap<>();
+        this.readStreams = new HashMap<>();
+        this.inFlightPrefetches = new HashMap<>();
+        this.prefetchedKeys = new HashSet<>();
+        this.resetCommitSeqTrackers();
+        this.reforwardedWrites = new HashSet<>();
+    }
+
+    @Override
+    public Receive createReceive() {
+        return this.receiveBuilder()
+                .match(JoinSiblingL2CachesMessage.class, this::onJoinSiblingL2Caches)
+                .match(PublishDigestMessage.class, this::onPublishDigestMessage)
+                .match(CacheDigestMessage.class, this::onCacheDigestMessage)
+                .match(PeerReadMessage.class, this::onPeerReadMessage)
+                .match(PeerReadReplyMessage.class, this::onPeerReadReplyMessage)
+                .match(BatchFillMessage.class, this::onBatchFillMessage)
+                .match(EpochMessage.class, this::onEpochMessage)
+                .match(CatchUpReplyMessage.class, this::onCatchUpReplyMessage)
+                .match(JoinL1CachesMessage.class, this::onJoinL1Caches)
+                .match(RejoinMessage.class, this::onRejoinMessage)
+                .match(AttachConfirmMessage.class, this::onAttachConfirmMessage)
+                .build()
+                .orElse(super.createReceive());
+    }
+
     /**
      * Sends a ReadReply message to the saved sender. A ReadReply message is only send
      * back to the client. Therefore, no need to start a timeout, since a client is
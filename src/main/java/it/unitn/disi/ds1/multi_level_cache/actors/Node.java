@@ -1,17 +1,33 @@
 package it.unitn.disi.ds1.multi_level_cache.actors;
 
 import akka.actor.ActorRef;
+import akka.actor.Cancellable;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.FailureDetectorConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.PhiAccrualDetector;
 import it.unitn.disi.ds1.multi_level_cache.actors.utils.ReadConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.RttEstimator;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.TimerConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.TimerWheel;
 import it.unitn.disi.ds1.multi_level_cache.actors.utils.WriteConfig;
 import it.unitn.disi.ds1.multi_level_cache.messages.ErrorMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.HeartbeatMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.HeartbeatReplyMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.HeartbeatTickMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.KeyedMessage;
 import it.unitn.disi.ds1.multi_level_cache.messages.TimeoutMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.TimerTickMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.UUIDMessage;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageType;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.Logger;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.LoggerOperationType;
 
 import java.io.Serializable;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -25,15 +41,71 @@ public abstract class Node extends DataNode {
      * ID of this node
      */
     public String id;
+    /**
+     * Optional features of this node
+     */
+    protected final NodeConfig config;
     private WriteConfig writeConfig = new WriteConfig();
     /**
      * Data the Node knows about
      */
     private ReadConfig readConfig = new ReadConfig();
+    /**
+     * Pending timeouts, null if every timeout is its own scheduler task
+     */
+    private final TimerWheel<TimeoutMessage> timerWheel;
+    /**
+     * Pending timeouts of each operation, either a key (reads) or an UUID (writes)
+     */
+    private final Map<Object, List<PendingTimeout>> timersByOperation = new HashMap<>();
+    /**
+     * Round-trip time of every peer this node has sent a request to
+     */
+    private final Map<ActorRef, RttEstimator> rttEstimators = new HashMap<>();
+    /**
+     * The periodic tick of the wheel, null while no timeout is pending
+     */
+    private Cancellable timerTick;
+    private long timerCount = 0;
+    private long cancelledTimerCount = 0;
+    private long firedTimerCount = 0;
+    private long schedulerTaskCount = 0;
+    private long timerMessageCount = 0;
+    private long rttSampleCount = 0;
+    /**
+     * Failure detector of every monitored peer
+     */
+    private final Map<ActorRef, PhiAccrualDetector> failureDetectors = new HashMap<>();
+    /**
+     * Suspected peers, with their incarnation at the time of the suspicion
+     */
+    private final Map<ActorRef, Long> suspectedPeers = new HashMap<>();
+    private final Map<ActorRef, Long> peerIncarnations = new HashMap<>();
+    /**
+     * The periodic heartbeat, null while no peer is monitored
+     */
+    private Cancellable heartbeatTick;
+    /**
+     * Number of recoveries of this node
+     */
+    private long incarnation = 0;
+    private long suspicionCount = 0;
+    private long falseSuspicionCount = 0;
+    private long detectionMillisSum = 0;
 
     public Node(String id) {
+        this(id, NodeConfig.defaults());
+    }
+
+    public Node(String id, NodeConfig config) {
         super();
         this.id = id;
+        this.config = config;
+
+        TimerConfig timerConfig = config.getTimerConfig();
+        this.timerWheel = timerConfig.isWheel()
+                ? new TimerWheel<>(timerConfig.getTickMillis(), timerConfig.getNumOfSlots())
+                : null;
     }
 
     protected abstract void handleErrorMessage(ErrorMessage message);
@@ -58,6 +130,7 @@ public abstract class Node extends DataNode {
 
     protected void removeUnconfirmedWrite(UUID uuid) {
         this.writeConfig.removeUnconfirmedWrite(uuid);
+        this.cancelTimeouts(uuid);
     }
 
     /*protected ActorRef getUnconfirmedActorForWrit(int key) {
@@ -85,6 +158,7 @@ public abstract class Node extends DataNode {
 
     protected void removeUnconfirmedRead(int key) {
         this.readConfig.removeUnconfirmedRead(key);
+        this.cancelTimeouts(key);
     }
 
     protected List<ActorRef> getUnconfirmedActorsForRead(int key) {
@@ -108,6 +182,11 @@ public abstract class Node extends DataNode {
     }
 
     protected void send(Serializable message, ActorRef receiver, long delay) {
+        if (delay <= 0 && this.timerWheel != null) {
+            // no need to go through the scheduler, without the wheel every send is scheduled as before
+            receiver.tell(message, this.getSelf());
+            return;
+        }
         this.scheduleMessageTo(message, delay, receiver);
     }
 
@@ -115,6 +194,7 @@ public abstract class Node extends DataNode {
         this.flushData();
         this.writeConfig = new WriteConfig();
         this.readConfig = new ReadConfig();
+        this.clearTimeouts();
     }
 
     /**
@@ -126,7 +206,46 @@ public abstract class Node extends DataNode {
         return TIMEOUT_MILLIS;
     }
 
+    /**
+     * Returns the timeout of a request to the given peer. If adaptive timeouts are enabled,
+     * it is derived from the round-trip times to that peer and bounded by the floor and
+     * ceiling of this tier. Until the first sample, the ceiling is used.
+     *
+     * @param peer        The receiver of the request
+     * @param messageType Type of the request
+     * @return millis
+     */
+    protected long getTimeoutMillis(ActorRef peer, MessageType messageType) {
+        if (!this.config.getTimeoutConfig().isAdaptive() || !this.isRttSampled(messageType)) {
+            return this.getTimeoutMillis();
+        }
+        RttEstimator estimator = this.rttEstimators.get(peer);
+        if (estimator == null || !estimator.hasSamples()) {
+            return this.getTimeoutCeilingMillis();
+        }
+        long millis = estimator.getTimeoutMillis();
+        return Math.max(this.getTimeoutFloorMillis(), Math.min(millis, this.getTimeoutCeilingMillis()));
+    }
+
+    protected long getTimeoutFloorMillis() {
+        return this.config.getTimeoutConfig().getCacheFloorMillis();
+    }
+
+    protected long getTimeoutCeilingMillis() {
+        return this.config.getTimeoutConfig().getCacheCeilingMillis();
+    }
+
+    /**
+     * Only plain request/reply pairs are sampled. Critical writes wait for votes of other
+     * nodes, hedges and scans are not a single round-trip.
+     */
+    private boolean isRttSampled(MessageType messageType) {
+        return messageType == MessageType.READ || messageType == MessageType.CRITICAL_READ
+                || messageType == MessageType.WRITE;
+    }
+
     protected void scheduleMessageTo(Serializable message, long millis, ActorRef receiver) {
+        this.schedulerTaskCount = this.schedulerTaskCount + 1;
         this.getContext()
                 .system()
                 .scheduler()
@@ -143,9 +262,35 @@ public abstract class Node extends DataNode {
         this.scheduleMessageTo(message, millis, this.getSelf());
     }
 
+    /**
+     * Sends the given message to itself every period. The schedule keeps running
+     * while a cache is crashed, the messages are then just dropped.
+     *
+     * @param message The periodic message
+     * @param millis  The period
+     */
+    protected void schedulePeriodicMessageToSelf(Serializable message, long millis) {
+        this.schedulePeriodic(message, millis);
+    }
+
+    private Cancellable schedulePeriodic(Serializable message, long millis) {
+        this.schedulerTaskCount = this.schedulerTaskCount + 1;
+        return this.getContext()
+                .system()
+                .scheduler()
+                .scheduleWithFixedDelay(
+                        Duration.ofMillis(millis),
+                        Duration.ofMillis(millis),
+                        this.getSelf(),
+                        message,
+                        this.getContext().system().dispatcher(),
+                        this.getSelf()
+                );
+    }
+
     protected void setTimeout(Serializable message, ActorRef receiver, MessageType messageType, long millis) {
         TimeoutMessage timeoutMessage = new TimeoutMessage(message, receiver, messageType);
-        this.scheduleMessageToSelf(timeoutMessage, millis);
+        this.scheduleTimeout(timeoutMessage, millis);
     }
 
     /**
@@ -153,12 +298,321 @@ public abstract class Node extends DataNode {
      */
     protected void setTimeout(Serializable message, ActorRef receiver, MessageType messageType) {
         TimeoutMessage timeoutMessage = new TimeoutMessage(message, receiver, messageType);
-        this.scheduleMessageToSelf(timeoutMessage, this.getTimeoutMillis());
+        this.scheduleTimeout(timeoutMessage, this.getTimeoutMillis(receiver, messageType));
     }
 
     protected void setMulticastTimeout(Serializable message, MessageType messageType) {
         TimeoutMessage timeoutMessage = new TimeoutMessage(message, ActorRef.noSender(), messageType);
-        this.scheduleMessageToSelf(timeoutMessage, this.getTimeoutMillis());
+        this.scheduleTimeout(timeoutMessage, this.getTimeoutMillis());
+    }
+
+    /**
+     * Returns the operation a timeout belongs to. Its timers are cancelled as soon
+     * as the operation is confirmed.
+     *
+     * @param timeoutMessage The timeout
+     * @return Either the key of a read or the UUID of a write, empty otherwise
+     */
+    private Optional<Object> getOperationOf(TimeoutMessage timeoutMessage) {
+        MessageType type = timeoutMessage.getType();
+        Serializable message = timeoutMessage.getMessage();
+        boolean isRead = type == MessageType.READ || type == MessageType.CRITICAL_READ || type == MessageType.HEDGED_READ;
+        boolean isWrite = type == MessageType.WRITE || type == MessageType.CRITICAL_WRITE
+                || type == MessageType.CRITICAL_WRITE_REQUEST;
+
+        if (isRead && message instanceof KeyedMessage keyedMessage) {
+            return Optional.of(keyedMessage.getKey());
+        } else if (isWrite && message instanceof UUIDMessage uuidMessage) {
+            return Optional.of(uuidMessage.getUuid());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Adds the timeout to the timing wheel, such that it can be cancelled once the
+     * operation is confirmed. Very short timeouts (e.g. hedges) would be delayed by
+     * the tick, therefore they are still scheduled on their own.
+     *
+     * @param timeoutMessage The timeout
+     * @param millis         Delay of the timeout
+     */
+    private void scheduleTimeout(TimeoutMessage timeoutMessage, long millis) {
+        this.timerCount = this.timerCount + 1;
+        long now = System.currentTimeMillis();
+        long handle = PendingTimeout.NO_HANDLE;
+        if (this.timerWheel == null || millis < 2 * this.timerWheel.getTickMillis()) {
+            this.scheduleMessageToSelf(timeoutMessage, millis);
+        } else {
+            handle = this.timerWheel.schedule(timeoutMessage, millis, now);
+            if (this.timerTick == null) {
+                long tickMillis = this.timerWheel.getTickMillis();
+                this.timerTick = this.schedulePeriodic(new TimerTickMessage(), tickMillis);
+            }
+        }
+
+        PendingTimeout pending = new PendingTimeout(handle, timeoutMessage, now);
+        this.getOperationOf(timeoutMessage).ifPresent(operation ->
+                this.timersByOperation.computeIfAbsent(operation, op -> new ArrayList<>()).add(pending));
+    }
+
+    /**
+     * Forgets a timeout that has fired. The operation is not sampled anymore, as a late
+     * reply can't be told apart from a reply to a retry (Karn's algorithm).
+     *
+     * @param timeoutMessage The fired timeout
+     */
+    private void removeFiredTimeout(TimeoutMessage timeoutMessage) {
+        this.getOperationOf(timeoutMessage).ifPresent(operation -> {
+            List<PendingTimeout> pendingTimeouts = this.timersByOperation.get(operation);
+            if (pendingTimeouts != null) {
+                pendingTimeouts.removeIf(pending -> pending.timeoutMessage == timeoutMessage);
+                pendingTimeouts.forEach(PendingTimeout::markAmbiguous);
+                if (pendingTimeouts.isEmpty()) {
+                    this.timersByOperation.remove(operation);
+                }
+            }
+        });
+    }
+
+    /**
+     * Takes a round-trip sample of a confirmed operation. The sample is skipped if more than
+     * one request was sent (e.g. a fired hedge), as it is unknown which of them was answered.
+     *
+     * @param pendingTimeouts The timeouts of the operation
+     * @param now             Time of the confirmation
+     */
+    private void sampleRtt(List<PendingTimeout> pendingTimeouts, long now) {
+        List<PendingTimeout> requests = pendingTimeouts.stream()
+                .filter(pending -> this.isRttSampled(pending.timeoutMessage.getType()))
+                .toList();
+        if (requests.size() != 1 || requests.get(0).isAmbiguous) {
+            return;
+        }
+        PendingTimeout request = requests.get(0);
+        ActorRef peer = request.timeoutMessage.getUnreachableActor();
+        if (peer == null || peer.equals(ActorRef.noSender())) {
+            return;
+        }
+        this.rttEstimators.computeIfAbsent(peer, actorRef -> new RttEstimator()).sample(now - request.startMillis);
+        this.rttSampleCount = this.rttSampleCount + 1;
+    }
+
+    /**
+     * Cancels all pending timeouts of the given operation.
+     *
+     * @param operation Either the key of a read or the UUID of a write
+     */
+    protected void cancelTimeouts(Object operation) {
+        List<PendingTimeout> pendingTimeouts = this.timersByOperation.remove(operation);
+        if (pendingTimeouts == null) {
+            return;
+        }
+        this.sampleRtt(pendingTimeouts, System.currentTimeMillis());
+        if (this.timerWheel == null) {
+            return;
+        }
+        for (PendingTimeout pending : pendingTimeouts) {
+            if (pending.handle != PendingTimeout.NO_HANDLE && this.timerWheel.cancel(pending.handle)) {
+                this.cancelledTimerCount = this.cancelledTimerCount + 1;
+            }
+        }
+        this.stopTimerTickIfIdle();
+    }
+
+    private void clearTimeouts() {
+        this.timersByOperation.clear();
+        if (this.timerWheel != null) {
+            this.timerWheel.clear();
+            this.stopTimerTickIfIdle();
+        }
+    }
+
+    private void stopTimerTickIfIdle() {
+        if (this.timerTick != null && this.timerWheel.isEmpty()) {
+            this.timerTick.cancel();
+            this.timerTick = null;
+        }
+    }
+
+    /**
+     * Advances the timing wheel and handles all expired timeouts right away,
+     * without sending them through the mailbox.
+     *
+     * @param message The received TimerTickMessage
+     */
+    protected void onTimerTickMessage(TimerTickMessage message) {
+        this.timerMessageCount = this.timerMessageCount + 1;
+        if (this.timerWheel == null) {
+            return;
+        }
+
+        Map<Long, TimeoutMessage> expired = this.timerWheel.advance(System.currentTimeMillis());
+        for (Map.Entry<Long, TimeoutMessage> entry : expired.entrySet()) {
+            this.removeFiredTimeout(entry.getValue());
+            this.firedTimerCount = this.firedTimerCount + 1;
+            this.handleTimeoutMessage(entry.getValue());
+        }
+        this.stopTimerTickIfIdle();
+    }
+
+    /**
+     * Returns the timer statistics of this node as log info.
+     *
+     * @return The formatted statistics
+     */
+    protected String getTimerStats() {
+        return String.format("timers: %d, cancelled: %d, fired: %d, scheduler-tasks: %d, timer-msgs: %d, rtt-samples: %d, rto: %s",
+                this.timerCount, this.cancelledTimerCount, this.firedTimerCount, this.schedulerTaskCount,
+                this.timerMessageCount, this.rttSampleCount, this.getRtoStats());
+    }
+
+    /**
+     * Returns the current timeout of every sampled peer, e.g. [L1-1: 12ms (srtt 4ms)].
+     */
+    private String getRtoStats() {
+        List<String> stats = new ArrayList<>();
+        for (Map.Entry<ActorRef, RttEstimator> entry : this.rttEstimators.entrySet()) {
+            RttEstimator estimator = entry.getValue();
+            stats.add(String.format("%s: %dms (srtt %dms)", entry.getKey().path().name(),
+                    this.getTimeoutMillis(entry.getKey(), MessageType.READ), estimator.getSmoothedRttMillis()));
+        }
+        return stats.toString();
+    }
+
+    /**
+     * Starts sending heartbeats to the given peer, if the failure detector is enabled.
+     *
+     * @param peer The peer to be monitored
+     */
+    protected void monitor(ActorRef peer) {
+        FailureDetectorConfig detectorConfig = this.config.getFailureDetectorConfig();
+        if (!detectorConfig.isEnabled() || peer == null || this.failureDetectors.containsKey(peer)) {
+            return;
+        }
+        this.failureDetectors.put(peer, new PhiAccrualDetector(detectorConfig.getWindowSize(),
+                detectorConfig.getMinStdDevMillis(), detectorConfig.getHeartbeatMillis(), System.currentTimeMillis()));
+        if (this.heartbeatTick == null) {
+            this.heartbeatTick = this.schedulePeriodic(new HeartbeatTickMessage(), detectorConfig.getHeartbeatMillis());
+        }
+    }
+
+    protected boolean isSuspected(ActorRef peer) {
+        return this.suspectedPeers.containsKey(peer);
+    }
+
+    /**
+     * Called once the given peer is suspected, e.g. to route around it.
+     *
+     * @param peer The suspected peer
+     */
+    protected void onPeerSuspected(ActorRef peer) {
+    }
+
+    /**
+     * Increments the incarnation and restarts the silence of all monitored peers, since
+     * their heartbeats have been dropped while this node was crashed.
+     */
+    protected void recoverFailureDetectors() {
+        this.incarnation = this.incarnation + 1;
+        long now = System.currentTimeMillis();
+        for (PhiAccrualDetector detector : this.failureDetectors.values()) {
+            detector.reset(now);
+        }
+    }
+
+    /**
+     * Suspects every monitored peer whose phi has reached the threshold, then pings all of them.
+     *
+     * @param message The received HeartbeatTickMessage
+     */
+    protected void onHeartbeatTickMessage(HeartbeatTickMessage message) {
+        long now = System.currentTimeMillis();
+        double phiThreshold = this.config.getFailureDetectorConfig().getPhiThreshold();
+        for (Map.Entry<ActorRef, PhiAccrualDetector> entry : this.failureDetectors.entrySet()) {
+            ActorRef peer = entry.getKey();
+            PhiAccrualDetector detector = entry.getValue();
+            double phi = detector.phi(now);
+            if (!this.isSuspected(peer) && phi >= phiThreshold) {
+                this.suspectedPeers.put(peer, this.peerIncarnations.getOrDefault(peer, 0L));
+                this.suspicionCount = this.suspicionCount + 1;
+                this.detectionMillisSum = this.detectionMillisSum + now - detector.getLastArrivalMillis();
+                Logger.heartbeat(this.id, LoggerOperationType.ERROR, peer.path().name(), phi, true);
+                this.onPeerSuspected(peer);
+            }
+            this.send(new HeartbeatMessage(), peer);
+        }
+    }
+
+    /**
+     * Handles the pending timeouts of all requests to the given peer right away, as if they
+     * had expired. Used once the peer is suspected, such that none of them waits any longer.
+     *
+     * @param peer The suspected peer
+     */
+    protected void expireTimeoutsOf(ActorRef peer) {
+        List<PendingTimeout> expired = new ArrayList<>();
+        for (List<PendingTimeout> pendingTimeouts : this.timersByOperation.values()) {
+            for (PendingTimeout pending : pendingTimeouts) {
+                // a hedge is just a delay, not a request
+                if (peer.equals(pending.timeoutMessage.getUnreachableActor())
+                        && pending.timeoutMessage.getType() != MessageType.HEDGED_READ) {
+                    expired.add(pending);
+                }
+            }
+        }
+
+        for (PendingTimeout pending : expired) {
+            if (this.timerWheel != null && pending.handle != PendingTimeout.NO_HANDLE) {
+                this.timerWheel.cancel(pending.handle);
+            }
+            this.removeFiredTimeout(pending.timeoutMessage);
+            this.firedTimerCount = this.firedTimerCount + 1;
+            this.handleTimeoutMessage(pending.timeoutMessage);
+        }
+        if (this.timerWheel != null) {
+            this.stopTimerTickIfIdle();
+        }
+    }
+
+    protected void onHeartbeatMessage(HeartbeatMessage message) {
+        this.send(new HeartbeatReplyMessage(this.incarnation), this.getSender());
+    }
+
+    protected void onHeartbeatReplyMessage(HeartbeatReplyMessage message) {
+        ActorRef peer = this.getSender();
+        PhiAccrualDetector detector = this.failureDetectors.get(peer);
+        if (detector == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        this.peerIncarnations.put(peer, message.getIncarnation());
+        Long incarnationAtSuspicion = this.suspectedPeers.remove(peer);
+        if (incarnationAtSuspicion == null) {
+            detector.heartbeat(now);
+            return;
+        }
+
+        // the outage is not a regular inter-arrival time
+        detector.reset(now);
+        if (incarnationAtSuspicion == message.getIncarnation()) {
+            // the peer has not crashed in the meantime
+            this.falseSuspicionCount = this.falseSuspicionCount + 1;
+        }
+        Logger.heartbeat(this.id, LoggerOperationType.RECEIVED, peer.path().name(), 0, false);
+    }
+
+    /**
+     * Returns the failure detector statistics of this node as log info. The detection
+     * latency is the silence of a peer until it has been suspected.
+     *
+     * @return The formatted statistics
+     */
+    protected String getFailureDetectorStats() {
+        long avgDetectionMillis = this.suspicionCount > 0 ? this.detectionMillisSum / this.suspicionCount : 0;
+        return String.format("monitored: %d, suspected: %d, suspicions: %d, false-suspicions: %d, avg-detection: %dms",
+                this.failureDetectors.size(), this.suspectedPeers.size(), this.suspicionCount, this.falseSuspicionCount,
+                avgDetectionMillis);
     }
 
     protected void onErrorMessage(ErrorMessage message) {
@@ -166,7 +620,31 @@ public abstract class Node extends DataNode {
         this.handleErrorMessage(message);
     }
 
+    /**
+     * Checks if the timeout is still pending. A timeout on the scheduler can't be taken back,
+     * it still arrives after its operation has been confirmed or after it has been expired.
+     *
+     * @param timeoutMessage The timeout
+     * @return True if the timeout has neither been cancelled nor handled yet
+     */
+    private boolean isTimeoutPending(TimeoutMessage timeoutMessage) {
+        return this.getOperationOf(timeoutMessage)
+                .map(operation -> {
+                    List<PendingTimeout> pendingTimeouts = this.timersByOperation.get(operation);
+                    return pendingTimeouts != null
+                            && pendingTimeouts.stream().anyMatch(pending -> pending.timeoutMessage == timeoutMessage);
+                })
+                // e.g. a retry, it is not bound to an operation
+                .orElse(true);
+    }
+
     protected void onTimeoutMessage(TimeoutMessage message) {
+        if (!this.isTimeoutPending(message)) {
+            return;
+        }
+        this.removeFiredTimeout(message);
+        this.timerMessageCount = this.timerMessageCount + 1;
+        this.firedTimerCount = this.firedTimerCount + 1;
         this.handleTimeoutMessage(message);
     }
 
@@ -175,4 +653,33 @@ public abstract class Node extends DataNode {
         return this.receiveBuilder().build();
     }
 
+    /**
+     * A scheduled timeout, together with the time its request was sent.
+     */
+    private static final class PendingTimeout {
+
+        static final long NO_HANDLE = -1;
+        /**
+         * Handle in the timing wheel, NO_HANDLE if it is a scheduler task
+         */
+        final long handle;
+        final TimeoutMessage timeoutMessage;
+        final long startMillis;
+        /**
+         * Set once another timeout of the same operation has fired
+         */
+        boolean isAmbiguous = false;
+
+        PendingTimeout(long handle, TimeoutMessage timeoutMessage, long startMillis) {
+            this.handle = handle;
+            this.timeoutMessage = timeoutMessage;
+            this.startMillis = startMillis;
+        }
+
+        void markAmbiguous() {
+            this.isAmbiguous = true;
+        }
+
+    }
+
 }
@@ -1,5 +1,6 @@
 package it.unitn.disi.ds1.multi_level_cache.actors;
 
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
 import it.unitn.disi.ds1.multi_level_cache.messages.*;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageType;
 import it.unitn.disi.ds1.multi_level_cache.utils.Logger.Logger;
@@ -11,6 +12,10 @@ public abstract class OperationalNode extends Node {
         super(id);
     }
 
+    public OperationalNode(String id, NodeConfig config) {
+        super(id, config);
+    }
+
     private void sendLockedErrorToSender(int key, MessageType messageType) {
         ErrorMessage errorMessage = ErrorMessage.lockedKey(key, messageType, String.format("Key %d is locked", key));
         this.send(errorMessage, this.getSender());
@@ -0,0 +1,71 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Locks and batch operations, which are the same for every store.
+ */
+public abstract class AbstractBackingStore implements BackingStore {
+
+    private List<Integer> lockedKeys = new ArrayList<>();
+
+    @Override
+    public void lockValueForKey(int key) {
+        if (!this.lockedKeys.contains(key)) {
+            this.lockedKeys.add(key);
+        }
+    }
+
+    @Override
+    public void unLockValueForKey(int key) {
+        if (this.isLocked(key)) {
+            this.lockedKeys.remove((Integer) key);
+        }
+    }
+
+    @Override
+    public void unLockAll() {
+        this.lockedKeys = new ArrayList<>();
+    }
+
+    @Override
+    public boolean isLocked(int key) {
+        return this.lockedKeys.contains(key);
+    }
+
+    @Override
+    public List<DataItem> getItems(List<Integer> keys) {
+        List<DataItem> items = new ArrayList<>();
+        for (int key : keys) {
+            if (this.isLocked(key)) {
+                continue;
+            }
+            this.getValueForKey(key).ifPresent(value ->
+                    items.add(new DataItem(key, value, this.getUpdateCountForKey(key).orElse(0))));
+        }
+        return items;
+    }
+
+    @Override
+    public int putAll(List<DataItem> items) {
+        int count = 0;
+        for (DataItem item : items) {
+            try {
+                this.setValueForKey(item.getKey(), item.getValue(), item.getUpdateCount());
+                count = count + 1;
+            } catch (IllegalAccessException e) {
+                // locked keys are left out
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+}
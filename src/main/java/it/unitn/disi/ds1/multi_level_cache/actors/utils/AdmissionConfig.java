@@ -0,0 +1,42 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class AdmissionConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Acceptable queueing delay of the mailbox, it is probed every target
+     */
+    private final long targetDelayMillis;
+    /**
+     * New requests are shed once the delay has exceeded the target for this long,
+     * such that a short burst is still queued
+     */
+    private final long intervalMillis;
+
+    public AdmissionConfig(boolean isEnabled, long targetDelayMillis, long intervalMillis) {
+        this.isEnabled = isEnabled;
+        this.targetDelayMillis = targetDelayMillis;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public static AdmissionConfig disabled() {
+        return new AdmissionConfig(false, 0, 0);
+    }
+
+    public static AdmissionConfig of(long targetDelayMillis, long intervalMillis) {
+        return new AdmissionConfig(true, targetDelayMillis, intervalMillis);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public long getTargetDelayMillis() {
+        return this.targetDelayMillis;
+    }
+
+    public long getIntervalMillis() {
+        return this.intervalMillis;
+    }
+
+}
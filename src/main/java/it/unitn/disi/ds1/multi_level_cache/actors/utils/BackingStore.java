@@ -0,0 +1,125 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.Consumer;
+
+/**
+ * Storage of the items of a node. The nodes only use this interface, such that the storage
+ * can be swapped without touching the coordination logic. Every key has a value and an
+ * update count, keys are iterated in ascending order.
+ * <p>
+ * A locked key can't be written until it is unlocked. Locks aren't persisted.
+ */
+public interface BackingStore extends Closeable {
+
+    boolean containsKey(int key);
+
+    Optional<Integer> getValueForKey(int key);
+
+    Optional<Integer> getUpdateCountForKey(int key);
+
+    /**
+     * Writes the value and increments the update count, it starts at 1 for a new key.
+     *
+     * @throws IllegalAccessException If the key is locked
+     */
+    void setValueForKey(int key, int value) throws IllegalAccessException;
+
+    /**
+     * Writes the value together with its update count.
+     *
+     * @throws IllegalAccessException If the key is locked
+     */
+    void setValueForKey(int key, int value, int updateCount) throws IllegalAccessException;
+
+    /**
+     * Returns whether the key can be written. Writing any other key throws an
+     * IllegalArgumentException.
+     */
+    default boolean canStore(int key) {
+        return true;
+    }
+
+    void lockValueForKey(int key);
+
+    void unLockValueForKey(int key);
+
+    void unLockAll();
+
+    boolean isLocked(int key);
+
+    /**
+     * Returns all given keys that are known and not locked, in the given order.
+     *
+     * @param keys The requested keys
+     * @return The items of all readable keys
+     */
+    List<DataItem> getItems(List<Integer> keys);
+
+    /**
+     * Writes all given items, unless their key is locked.
+     *
+     * @param items The items with their update counts
+     * @return The number of written items
+     */
+    int putAll(List<DataItem> items);
+
+    /**
+     * Passes all items in ascending order of their keys.
+     */
+    void forEach(Consumer<DataItem> consumer);
+
+    Set<Integer> getKeys();
+
+    /**
+     * Returns all keys in [fromKey, toKey) in ascending order.
+     *
+     * @param fromKey First key, inclusive
+     * @param toKey   Last key, exclusive
+     * @return The keys in the range
+     */
+    SortedSet<Integer> getKeysInRange(int fromKey, int toKey);
+
+    /**
+     * Returns the items of the smallest keys in [fromKey, toKey) in ascending order, at most
+     * limit many.
+     *
+     * @param fromKey First key, inclusive
+     * @param toKey   Last key, exclusive
+     * @param limit   Maximum number of items
+     * @return The items in the range
+     */
+    List<DataItem> getItemsInRange(int fromKey, int toKey, int limit);
+
+    /**
+     * Copies the items with the smallest keys that are greater or equal to fromKey into the
+     * given arrays, at most as many as the arrays can hold.
+     *
+     * @return The number of copied items
+     */
+    int copyItems(int fromKey, int[] keys, int[] values, int[] updateCounts);
+
+    /**
+     * Replaces all data by the given items, which must be sorted by key without duplicates.
+     */
+    void loadSorted(int[] keys, int[] values, int[] updateCounts, int size);
+
+    int size();
+
+    boolean isEmpty();
+
+    /**
+     * Releases the files of the store, if any.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+}
@@ -0,0 +1,119 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.storage.FsyncPolicy;
+
+import java.nio.file.Path;
+
+/**
+ * Storage of the database. By default, all items are held in memory, then they are only
+ * durable with the write-ahead log. The other stores keep their files in the given directory,
+ * except for the LSM tree, which requires the write-ahead log and is stored next to it. Only
+ * the commits that haven't been flushed into its tables are replayed from the log.
+ */
+public class BackingStoreConfig {
+
+    public enum Type {
+        MEMORY,
+        FILE_LOG,
+        MAPPED,
+        LSM
+    }
+
+    private final Type type;
+    private final Path directory;
+    /**
+     * When the log of the FILE_LOG store is forced to disk
+     */
+    private final FsyncPolicy fsyncPolicy;
+    /**
+     * Number of slots of a new MAPPED store
+     */
+    private final int initialCapacity;
+    /**
+     * Number of keys of the memtable of the LSM tree before it is flushed into a table
+     */
+    private final int memtableSize;
+    /**
+     * Number of tables of the LSM tree before all of them are merged into one
+     */
+    private final int maxTables;
+    /**
+     * Number of keys that have been read from the tables of the LSM tree and are kept in memory
+     */
+    private final int rowCacheSize;
+
+    private BackingStoreConfig(Type type, Path directory, FsyncPolicy fsyncPolicy, int initialCapacity,
+                               int memtableSize, int maxTables, int rowCacheSize) {
+        this.type = type;
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.initialCapacity = initialCapacity;
+        this.memtableSize = memtableSize;
+        this.maxTables = maxTables;
+        this.rowCacheSize = rowCacheSize;
+    }
+
+    public static BackingStoreConfig memory() {
+        return new BackingStoreConfig(Type.MEMORY, null, null, 0, 0, 0, 0);
+    }
+
+    public static BackingStoreConfig fileLog(Path directory, FsyncPolicy fsyncPolicy) {
+        return new BackingStoreConfig(Type.FILE_LOG, directory, fsyncPolicy, 0, 0, 0, 0);
+    }
+
+    public static BackingStoreConfig mapped(Path directory, int initialCapacity) {
+        return new BackingStoreConfig(Type.MAPPED, directory, null, initialCapacity, 0, 0, 0);
+    }
+
+    public static BackingStoreConfig lsm(int memtableSize, int maxTables, int rowCacheSize) {
+        return new BackingStoreConfig(Type.LSM, null, null, 0, memtableSize, maxTables, rowCacheSize);
+    }
+
+    /**
+     * Returns the config of a database partition, which keeps its files in a subdirectory.
+     */
+    public BackingStoreConfig forPartition(int partition) {
+        if (this.directory == null) {
+            return this;
+        }
+        return new BackingStoreConfig(this.type, this.directory.resolve("partition-" + (partition + 1)), this.fsyncPolicy,
+                this.initialCapacity, this.memtableSize, this.maxTables, this.rowCacheSize);
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    public Path getLogPath() {
+        return this.directory.resolve("database.log");
+    }
+
+    public Path getMappedPath() {
+        return this.directory.resolve("database.mmap");
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return this.fsyncPolicy;
+    }
+
+    public int getInitialCapacity() {
+        return this.initialCapacity;
+    }
+
+    public int getMemtableSize() {
+        return this.memtableSize;
+    }
+
+    public int getMaxTables() {
+        return this.maxTables;
+    }
+
+    public int getRowCacheSize() {
+        return this.rowCacheSize;
+    }
+
+}
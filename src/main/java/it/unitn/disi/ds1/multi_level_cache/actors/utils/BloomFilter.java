@@ -0,0 +1,178 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A Bloom filter over integer keys. It never reports a known key as missing,
+ * but it may report an unknown key as present (false positive).
+ * <p>
+ * Every bit that is set since the last call of {@link #drainDelta()} is
+ * recorded, such that a delta can be sent instead of a full snapshot.
+ */
+public class BloomFilter {
+
+    private final int numOfBits;
+    private final int numOfHashes;
+    private final BitSet bits;
+    private final List<Integer> changedBits = new ArrayList<>();
+    /**
+     * False if the filter is never sent as delta, then set bits aren't recorded
+     */
+    private final boolean isTrackingChanges;
+
+    public BloomFilter(int numOfBits, int numOfHashes) {
+        this(numOfBits, numOfHashes, new BitSet(numOfBits), true);
+    }
+
+    private BloomFilter(int numOfBits, int numOfHashes, BitSet bits, boolean isTrackingChanges) {
+        if (numOfBits <= 0 || numOfHashes <= 0) {
+            throw new IllegalArgumentException("Bloom filter needs at least one bit and one hash function");
+        }
+        this.numOfBits = numOfBits;
+        this.numOfHashes = numOfHashes;
+        this.bits = bits;
+        this.isTrackingChanges = isTrackingChanges;
+    }
+
+    /**
+     * Creates a filter that is sized for the given number of keys and the
+     * expected false-positive rate.
+     *
+     * @param expectedInsertions Expected number of keys
+     * @param falsePositiveRate  Expected false-positive rate, between 0 and 1
+     * @return An empty filter
+     */
+    public static BloomFilter create(int expectedInsertions, double falsePositiveRate) {
+        int numOfBits = optimalNumOfBits(expectedInsertions, falsePositiveRate);
+        int numOfHashes = optimalNumOfHashes(expectedInsertions, numOfBits);
+        return new BloomFilter(numOfBits, numOfHashes);
+    }
+
+    /**
+     * Like {@link #create(int, double)}, but for a filter that is never sent as delta, e.g.
+     * the filter of a table on disk. It doesn't record the set bits.
+     */
+    public static BloomFilter createUntracked(int expectedInsertions, double falsePositiveRate) {
+        int numOfBits = optimalNumOfBits(expectedInsertions, falsePositiveRate);
+        int numOfHashes = optimalNumOfHashes(expectedInsertions, numOfBits);
+        return new BloomFilter(numOfBits, numOfHashes, new BitSet(numOfBits), false);
+    }
+
+    /**
+     * Creates a filter from a snapshot sent by another node.
+     *
+     * @param numOfBits   Number of bits of the filter
+     * @param numOfHashes Number of hash functions
+     * @param words       The bits as long words
+     * @return The restored filter
+     */
+    public static BloomFilter fromSnapshot(int numOfBits, int numOfHashes, long[] words) {
+        return new BloomFilter(numOfBits, numOfHashes, BitSet.valueOf(words), true);
+    }
+
+    public static int optimalNumOfBits(int expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        return (int) Math.max(64, Math.min(Integer.MAX_VALUE - 64, bits));
+    }
+
+    public static int optimalNumOfHashes(int expectedInsertions, int numOfBits) {
+        long n = Math.max(1, expectedInsertions);
+        return Math.max(1, (int) Math.round((double) numOfBits / n * Math.log(2)));
+    }
+
+    /**
+     * Murmur3 finalizer, used to derive two independent hashes of a key.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Double hashing (Kirsch-Mitzenmacher): the i-th index is h1 + i * h2.
+     */
+    private int indexOf(int key, int i) {
+        int h1 = mix(key);
+        int h2 = mix(h1 ^ 0x9e3779b9) | 1;
+        return Math.floorMod(h1 + i * h2, this.numOfBits);
+    }
+
+    public void add(int key) {
+        for (int i = 0; i < this.numOfHashes; i++) {
+            int index = this.indexOf(key, i);
+            if (!this.bits.get(index)) {
+                this.bits.set(index);
+                if (this.isTrackingChanges) {
+                    this.changedBits.add(index);
+                }
+            }
+        }
+    }
+
+    public boolean mightContain(int key) {
+        for (int i = 0; i < this.numOfHashes; i++) {
+            if (!this.bits.get(this.indexOf(key, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets all given bits, as received by a delta of another filter.
+     *
+     * @param bitIndices Indices of the bits to set
+     */
+    public void applyDelta(int[] bitIndices) {
+        for (int index : bitIndices) {
+            this.bits.set(index);
+        }
+    }
+
+    /**
+     * Returns all bits that have been set since the last call and resets the record.
+     *
+     * @return Indices of the newly set bits
+     */
+    public int[] drainDelta() {
+        int[] delta = this.changedBits.stream().mapToInt(Integer::intValue).toArray();
+        this.changedBits.clear();
+        return delta;
+    }
+
+    public boolean hasDelta() {
+        return !this.changedBits.isEmpty();
+    }
+
+    public long[] toWords() {
+        return this.bits.toLongArray();
+    }
+
+    public int getNumOfBits() {
+        return this.numOfBits;
+    }
+
+    public int getNumOfHashes() {
+        return this.numOfHashes;
+    }
+
+    /**
+     * Returns the memory needed for the bits of this filter.
+     *
+     * @return Size in bytes
+     */
+    public int getSizeInBytes() {
+        return (this.numOfBits + 7) / 8;
+    }
+
+}
@@ -0,0 +1,61 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class BloomFilterConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Number of keys the filter is sized for
+     */
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    /**
+     * Delay between two pushes of the database
+     */
+    private final long refreshMillis;
+    /**
+     * Every n-th push is a full snapshot, all others are deltas
+     */
+    private final int snapshotEvery;
+
+    public BloomFilterConfig(boolean isEnabled, int expectedInsertions, double falsePositiveRate, long refreshMillis,
+                             int snapshotEvery) {
+        this.isEnabled = isEnabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.refreshMillis = refreshMillis;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    public static BloomFilterConfig disabled() {
+        return new BloomFilterConfig(false, 0, 0.01, 0, 1);
+    }
+
+    public static BloomFilterConfig of(int expectedInsertions, double falsePositiveRate, long refreshMillis) {
+        return new BloomFilterConfig(true, expectedInsertions, falsePositiveRate, refreshMillis, 10);
+    }
+
+    public static BloomFilterConfig of(int expectedInsertions, double falsePositiveRate, long refreshMillis, int snapshotEvery) {
+        return new BloomFilterConfig(true, expectedInsertions, falsePositiveRate, refreshMillis, snapshotEvery);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public int getExpectedInsertions() {
+        return this.expectedInsertions;
+    }
+
+    public double getFalsePositiveRate() {
+        return this.falsePositiveRate;
+    }
+
+    public long getRefreshMillis() {
+        return this.refreshMillis;
+    }
+
+    public int getSnapshotEvery() {
+        return this.snapshotEvery;
+    }
+
+}
@@ -0,0 +1,72 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import java.nio.file.Path;
+
+/**
+ * Periodic snapshots of the items of every L1 cache, each to its own file in the
+ * directory. A restarted L1 cache loads its snapshot, but serves none of the loaded keys
+ * until the database has confirmed their update counts in bulk. Keys that have changed in
+ * the meantime are replaced by the current values.
+ */
+public class CacheSnapshotConfig {
+
+    /**
+     * Directory of the snapshots, null if disabled
+     */
+    private final Path directory;
+    /**
+     * Delay between two snapshots, a snapshot is skipped if the previous one is still written
+     */
+    private final long intervalMillis;
+    /**
+     * Maximum number of keys per snapshot, the hottest keys are kept first
+     */
+    private final int maxKeys;
+    /**
+     * Number of keys validated by a single message
+     */
+    private final int batchSize;
+
+    private CacheSnapshotConfig(Path directory, long intervalMillis, int maxKeys, int batchSize) {
+        this.directory = directory;
+        this.intervalMillis = intervalMillis;
+        this.maxKeys = maxKeys;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public static CacheSnapshotConfig disabled() {
+        return new CacheSnapshotConfig(null, 0, 0, 1);
+    }
+
+    public static CacheSnapshotConfig of(Path directory, long intervalMillis, int maxKeys, int batchSize) {
+        return new CacheSnapshotConfig(directory, intervalMillis, maxKeys, batchSize);
+    }
+
+    public boolean isEnabled() {
+        return this.directory != null;
+    }
+
+    /**
+     * @return The snapshot file of the cache with the given id
+     */
+    public Path getPath(String id) {
+        return this.directory.resolve(String.format("%s.snapshot", id.toLowerCase()));
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    public long getIntervalMillis() {
+        return this.intervalMillis;
+    }
+
+    public int getMaxKeys() {
+        return this.maxKeys;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+}
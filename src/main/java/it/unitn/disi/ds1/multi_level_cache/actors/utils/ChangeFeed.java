@@ -0,0 +1,93 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.ChangeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded ring of the latest changes of the database, in commit order. The oldest
+ * changes are dropped once the ring is full. Unlike the ChangeLog, it keeps the values,
+ * such that subscribers of the change stream can read the changes in batches.
+ */
+public class ChangeFeed {
+
+    private final ChangeEvent[] events;
+    /**
+     * Index of the oldest change
+     */
+    private int head = 0;
+    private int size = 0;
+
+    public ChangeFeed(int capacity) {
+        this.events = new ChangeEvent[Math.max(1, capacity)];
+    }
+
+    /**
+     * Appends a change, its sequence number must be greater than the one of all previous changes.
+     */
+    public void append(ChangeEvent event) {
+        if (this.size == this.events.length) {
+            this.events[this.head] = event;
+            this.head = (this.head + 1) % this.events.length;
+            return;
+        }
+        this.events[(this.head + this.size) % this.events.length] = event;
+        this.size = this.size + 1;
+    }
+
+    private ChangeEvent get(int index) {
+        return this.events[(this.head + index) % this.events.length];
+    }
+
+    /**
+     * @return The sequence number of the oldest retained change, 0 if there is none
+     */
+    public long getFirstSeq() {
+        return this.size == 0 ? 0 : this.get(0).getSeq();
+    }
+
+    /**
+     * Returns the changes after the given sequence number. Sequence numbers may have gaps,
+     * e.g. if a write couldn't be logged.
+     *
+     * @param afterSeq The last sequence number known by the caller, negative for the oldest retained change
+     * @param lastSeq  The current sequence number
+     * @param limit    Maximum number of changes
+     * @return The changes, empty if the feed doesn't reach back far enough
+     */
+    public Optional<List<ChangeEvent>> getSince(long afterSeq, long lastSeq, int limit) {
+        List<ChangeEvent> changes = new ArrayList<>();
+        if (afterSeq < 0) {
+            afterSeq = this.getFirstSeq() - 1;
+        }
+        if (afterSeq >= lastSeq || this.size == 0 || this.get(this.size - 1).getSeq() <= afterSeq) {
+            return Optional.of(changes);
+        }
+        if (this.getFirstSeq() > afterSeq + 1) {
+            return Optional.empty();
+        }
+
+        // binary search for the first change after the given one
+        int low = 0;
+        int high = this.size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.get(mid).getSeq() <= afterSeq) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < this.size && changes.size() < limit; i++) {
+            changes.add(this.get(i));
+        }
+        return Optional.of(changes);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+}
@@ -0,0 +1,56 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Bounded log of the keys changed by each commit of the database. The oldest
+ * entries are dropped once the log is full.
+ */
+public class ChangeLog {
+
+    private final int capacity;
+    private final Deque<long[]> entries = new ArrayDeque<>();
+
+    public ChangeLog(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void append(long seq, int key) {
+        if (this.capacity <= 0) {
+            return;
+        }
+        if (this.entries.size() == this.capacity) {
+            this.entries.removeFirst();
+        }
+        this.entries.addLast(new long[]{seq, key});
+    }
+
+    /**
+     * Returns all keys changed by a commit after the given sequence number.
+     *
+     * @param sinceSeq The last sequence number known by the caller
+     * @param lastSeq  The current sequence number
+     * @return The changed keys, empty if the log doesn't reach back far enough
+     */
+    public Optional<Set<Integer>> getKeysSince(long sinceSeq, long lastSeq) {
+        Set<Integer> keys = new TreeSet<>();
+        if (sinceSeq >= lastSeq) {
+            return Optional.of(keys);
+        }
+        if (this.entries.isEmpty() || this.entries.peekFirst()[0] > sinceSeq + 1) {
+            return Optional.empty();
+        }
+
+        for (long[] entry : this.entries) {
+            if (entry[0] > sinceSeq) {
+                keys.add((int) entry[1]);
+            }
+        }
+        return Optional.of(keys);
+    }
+
+}
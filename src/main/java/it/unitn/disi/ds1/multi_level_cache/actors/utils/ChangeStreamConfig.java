@@ -0,0 +1,45 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+/**
+ * Change stream of the database, it lets external consumers follow all durable commits in
+ * commit order. The database retains the latest changes in memory and answers each request
+ * of a subscriber with a single batch, hence a slow subscriber never holds up a write. A
+ * subscriber that falls further behind than the retained changes can't resume.
+ */
+public class ChangeStreamConfig {
+
+    /**
+     * Number of changes retained by the database, 0 if disabled
+     */
+    private final int retainedChanges;
+    /**
+     * Maximum number of changes per batch
+     */
+    private final int maxBatchSize;
+
+    private ChangeStreamConfig(int retainedChanges, int maxBatchSize) {
+        this.retainedChanges = Math.max(0, retainedChanges);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public static ChangeStreamConfig disabled() {
+        return new ChangeStreamConfig(0, 1);
+    }
+
+    public static ChangeStreamConfig of(int retainedChanges, int maxBatchSize) {
+        return new ChangeStreamConfig(retainedChanges, maxBatchSize);
+    }
+
+    public boolean isEnabled() {
+        return this.retainedChanges > 0;
+    }
+
+    public int getRetainedChanges() {
+        return this.retainedChanges;
+    }
+
+    public int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+}
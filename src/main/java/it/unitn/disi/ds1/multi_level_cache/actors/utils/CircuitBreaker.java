@@ -0,0 +1,83 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+/**
+ * Circuit breaker of the requests to a single peer. After too many consecutive failures
+ * the circuit opens and all requests are rejected immediately, such that an overloaded
+ * peer can catch up. Once the open time has passed, a single trial request is let
+ * through (half-open): if it succeeds the circuit closes, otherwise it opens again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN,
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private State state = State.CLOSED;
+    private int failureCount = 0;
+    /**
+     * Time the circuit has been opened, or the trial request has been let through
+     */
+    private long sinceMillis = 0;
+    private long openCount = 0;
+    private long rejectedCount = 0;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Returns if a request may be sent. A trial request that has not been answered within
+     * the open time is considered lost, then another one is let through.
+     *
+     * @param nowMillis The current time
+     * @return True if the request may be sent, otherwise it has to be rejected
+     */
+    public boolean allowRequest(long nowMillis) {
+        if (this.state == State.CLOSED) {
+            return true;
+        }
+        if (nowMillis - this.sinceMillis >= this.openMillis) {
+            this.state = State.HALF_OPEN;
+            this.sinceMillis = nowMillis;
+            return true;
+        }
+        this.rejectedCount = this.rejectedCount + 1;
+        return false;
+    }
+
+    public void onSuccess() {
+        this.state = State.CLOSED;
+        this.failureCount = 0;
+    }
+
+    public void onFailure(long nowMillis) {
+        this.failureCount = this.failureCount + 1;
+        if (this.state == State.HALF_OPEN || (this.state == State.CLOSED && this.failureCount >= this.failureThreshold)) {
+            this.state = State.OPEN;
+            this.sinceMillis = nowMillis;
+            this.openCount = this.openCount + 1;
+        }
+    }
+
+    public State getState() {
+        return this.state;
+    }
+
+    public int getFailureCount() {
+        return this.failureCount;
+    }
+
+    public long getOpenCount() {
+        return this.openCount;
+    }
+
+    public long getRejectedCount() {
+        return this.rejectedCount;
+    }
+
+}
@@ -0,0 +1,41 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class CircuitBreakerConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Number of consecutive failed requests after which the circuit opens
+     */
+    private final int failureThreshold;
+    /**
+     * Time the circuit stays open, until a single trial request is let through
+     */
+    private final long openMillis;
+
+    public CircuitBreakerConfig(boolean isEnabled, int failureThreshold, long openMillis) {
+        this.isEnabled = isEnabled;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    public static CircuitBreakerConfig disabled() {
+        return new CircuitBreakerConfig(false, 0, 0);
+    }
+
+    public static CircuitBreakerConfig of(int failureThreshold, long openMillis) {
+        return new CircuitBreakerConfig(true, failureThreshold, openMillis);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public int getFailureThreshold() {
+        return this.failureThreshold;
+    }
+
+    public long getOpenMillis() {
+        return this.openMillis;
+    }
+
+}
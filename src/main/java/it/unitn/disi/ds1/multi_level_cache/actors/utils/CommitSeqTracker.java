@@ -0,0 +1,56 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import java.util.TreeSet;
+
+/**
+ * Tracks the highest commit sequence number up to which all commits have been
+ * seen without a gap. Commits that arrive ahead of a gap are kept aside until
+ * the gap is closed, e.g. by a catch-up.
+ */
+public class CommitSeqTracker {
+
+    /**
+     * -1 as long as no commit has been seen
+     */
+    private long lastSeq = -1;
+    private final TreeSet<Long> aheadSeqs = new TreeSet<>();
+
+    public void offer(long seq) {
+        if (seq <= 0) {
+            return;
+        }
+        if (this.lastSeq < 0) {
+            // the first commit is the baseline, everything before has been read from the parent
+            this.lastSeq = seq;
+        } else if (seq > this.lastSeq) {
+            this.aheadSeqs.add(seq);
+        }
+        this.closeGaps();
+    }
+
+    /**
+     * Marks all commits up to the given sequence number as seen.
+     *
+     * @param seq The caught-up sequence number
+     */
+    public void advanceTo(long seq) {
+        this.lastSeq = Math.max(this.lastSeq, seq);
+        this.closeGaps();
+    }
+
+    private void closeGaps() {
+        this.aheadSeqs.headSet(this.lastSeq, true).clear();
+        while (!this.aheadSeqs.isEmpty() && this.aheadSeqs.first() == this.lastSeq + 1) {
+            this.lastSeq = this.aheadSeqs.pollFirst();
+        }
+    }
+
+    public boolean isKnown() {
+        return this.lastSeq >= 0;
+    }
+
+    public long getLastSeq() {
+        return this.lastSeq;
+    }
+
+}
@@ -0,0 +1,57 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class CooperativeConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Delay between two digests sent to the sibling L2 caches
+     */
+    private final long digestRefreshMillis;
+    /**
+     * Number of keys a digest is sized for
+     */
+    private final int expectedKeys;
+    private final double falsePositiveRate;
+    /**
+     * Time to wait for a sibling, before the read is forwarded to the L1 cache
+     */
+    private final long peerTimeoutMillis;
+
+    public CooperativeConfig(boolean isEnabled, long digestRefreshMillis, int expectedKeys, double falsePositiveRate,
+                             long peerTimeoutMillis) {
+        this.isEnabled = isEnabled;
+        this.digestRefreshMillis = digestRefreshMillis;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.peerTimeoutMillis = peerTimeoutMillis;
+    }
+
+    public static CooperativeConfig disabled() {
+        return new CooperativeConfig(false, 0, 0, 0.01, 0);
+    }
+
+    public static CooperativeConfig of(long digestRefreshMillis, int expectedKeys, double falsePositiveRate, long peerTimeoutMillis) {
+        return new CooperativeConfig(true, digestRefreshMillis, expectedKeys, falsePositiveRate, peerTimeoutMillis);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public long getDigestRefreshMillis() {
+        return this.digestRefreshMillis;
+    }
+
+    public int getExpectedKeys() {
+        return this.expectedKeys;
+    }
+
+    public double getFalsePositiveRate() {
+        return this.falsePositiveRate;
+    }
+
+    public long getPeerTimeoutMillis() {
+        return this.peerTimeoutMillis;
+    }
+
+}
@@ -1,6 +1,9 @@
 package it.unitn.disi.ds1.multi_level_cache.actors.utils;
 
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
 import java.util.*;
+import java.util.function.Consumer;
 
 class DataEntry {
 
@@ -43,10 +46,15 @@ class DataEntry {
 
 }
 
-public class DataStore {
+/**
+ * Store that holds all items in memory.
+ */
+public class DataStore extends AbstractBackingStore {
 
-    private Map<Integer, DataEntry> data = new HashMap<>();
-    private List<Integer> lockedKeys = new ArrayList<>();
+    /**
+     * Ordered by key, such that ranges of keys can be scanned
+     */
+    private NavigableMap<Integer, DataEntry> data = new TreeMap<>();
 
     private DataEntry getData(int key) {
         return this.data.get(key);
@@ -56,6 +64,93 @@ public class DataStore {
         return this.data.containsKey(key);
     }
 
+    public Set<Integer> getKeys() {
+        return Collections.unmodifiableSet(this.data.keySet());
+    }
+
+    @Override
+    public void forEach(Consumer<DataItem> consumer) {
+        for (Map.Entry<Integer, DataEntry> entry : this.data.entrySet()) {
+            consumer.accept(new DataItem(entry.getKey(), entry.getValue().getValue(), entry.getValue().getUpdateCount()));
+        }
+    }
+
+    /**
+     * Returns all keys in [fromKey, toKey) in ascending order.
+     *
+     * @param fromKey First key, inclusive
+     * @param toKey   Last key, exclusive
+     * @return View of the keys in the range
+     */
+    public SortedSet<Integer> getKeysInRange(int fromKey, int toKey) {
+        if (fromKey >= toKey) {
+            return Collections.emptySortedSet();
+        }
+        return Collections.unmodifiableSortedSet(this.data.navigableKeySet().subSet(fromKey, true, toKey, false));
+    }
+
+    /**
+     * Returns the items of the smallest keys in [fromKey, toKey) in ascending order, at most
+     * limit many.
+     *
+     * @param fromKey First key, inclusive
+     * @param toKey   Last key, exclusive
+     * @param limit   Maximum number of items
+     * @return The items in the range
+     */
+    public List<DataItem> getItemsInRange(int fromKey, int toKey, int limit) {
+        List<DataItem> items = new ArrayList<>();
+        if (fromKey >= toKey) {
+            return items;
+        }
+        for (Map.Entry<Integer, DataEntry> entry : this.data.subMap(fromKey, true, toKey, false).entrySet()) {
+            if (items.size() == limit) {
+                break;
+            }
+            items.add(new DataItem(entry.getKey(), entry.getValue().getValue(), entry.getValue().getUpdateCount()));
+        }
+        return items;
+    }
+
+    public int size() {
+        return this.data.size();
+    }
+
+    public boolean isEmpty() {
+        return this.data.isEmpty();
+    }
+
+    /**
+     * Copies the items with the smallest keys that are greater or equal to fromKey into the
+     * given arrays, at most as many as the arrays can hold.
+     *
+     * @return The number of copied items
+     */
+    public int copyItems(int fromKey, int[] keys, int[] values, int[] updateCounts) {
+        int count = 0;
+        for (Map.Entry<Integer, DataEntry> entry : this.data.tailMap(fromKey, true).entrySet()) {
+            if (count == keys.length) {
+                break;
+            }
+            keys[count] = entry.getKey();
+            values[count] = entry.getValue().getValue();
+            updateCounts[count] = entry.getValue().getUpdateCount();
+            count = count + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Replaces all data by the given items, which must be sorted by key without duplicates.
+     * The tree is built bottom-up in linear time, instead of inserting one key after another.
+     */
+    public void loadSorted(int[] keys, int[] values, int[] updateCounts, int size) {
+        TreeMap<Integer, DataEntry> sorted = new TreeMap<>();
+        sorted.putAll(new SortedItems(keys, values, updateCounts, size));
+        this.data = sorted;
+        this.unLockAll();
+    }
+
     public void setValueForKey(int key, int value) throws IllegalAccessException {
         if (this.isLocked(key)) {
             throw new IllegalAccessException();
@@ -101,29 +196,125 @@ public class DataStore {
         return Optional.empty();
     }
 
-    public void lockValueForKey(int key) {
-        if (!this.lockedKeys.contains(key)) {
-            this.lockedKeys.add(key);
-        }
+    public void resetData() {
+        this.data = new TreeMap<>();
+        this.unLockAll();
     }
 
-    public void unLockValueForKey(int key) {
-        if (this.isLocked(key)) {
-            this.lockedKeys.remove((Integer) key);
+}
+
+/**
+ * Read-only view of sorted items, the source of TreeMap.putAll, which builds the tree in
+ * linear time from a SortedMap. The items are copied into the tree, the view only saves
+ * the intermediate map. Sub-maps are views of a range of the same arrays.
+ */
+class SortedItems extends AbstractMap<Integer, DataEntry> implements SortedMap<Integer, DataEntry> {
+
+    private final int[] keys;
+    private final int[] values;
+    private final int[] updateCounts;
+    /**
+     * Index of the first item of this view, inclusive
+     */
+    private final int from;
+    /**
+     * Index of the last item of this view, exclusive
+     */
+    private final int to;
+
+    SortedItems(int[] keys, int[] values, int[] updateCounts, int size) {
+        this(keys, values, updateCounts, 0, size);
+    }
+
+    private SortedItems(int[] keys, int[] values, int[] updateCounts, int from, int to) {
+        this.keys = keys;
+        this.values = values;
+        this.updateCounts = updateCounts;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns the index of the first item whose key is greater or equal to the given key.
+     */
+    private int indexOf(int key) {
+        int index = Arrays.binarySearch(this.keys, this.from, this.to, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private SortedItems range(int from, int to) {
+        return new SortedItems(this.keys, this.values, this.updateCounts, from, Math.max(from, to));
+    }
+
+    @Override
+    public Set<Entry<Integer, DataEntry>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, DataEntry>> iterator() {
+                return new Iterator<>() {
+                    private int next = SortedItems.this.from;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next < SortedItems.this.to;
+                    }
+
+                    @Override
+                    public Entry<Integer, DataEntry> next() {
+                        if (!this.hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = this.next++;
+                        return new SimpleImmutableEntry<>(SortedItems.this.keys[i],
+                                new DataEntry(SortedItems.this.values[i], SortedItems.this.updateCounts[i]));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return SortedItems.this.to - SortedItems.this.from;
+            }
+        };
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return null;
+    }
+
+    @Override
+    public SortedMap<Integer, DataEntry> subMap(Integer fromKey, Integer toKey) {
+        if (fromKey > toKey) {
+            throw new IllegalArgumentException("fromKey > toKey");
         }
+        return this.range(this.indexOf(fromKey), this.indexOf(toKey));
     }
 
-    public void unLockAll() {
-        this.lockedKeys = new ArrayList<>();
+    @Override
+    public SortedMap<Integer, DataEntry> headMap(Integer toKey) {
+        return this.range(this.from, this.indexOf(toKey));
     }
 
-    public boolean isLocked(int key) {
-        return this.lockedKeys.contains(key);
+    @Override
+    public SortedMap<Integer, DataEntry> tailMap(Integer fromKey) {
+        return this.range(this.indexOf(fromKey), this.to);
     }
 
-    public void resetData() {
-        this.data = new HashMap<>();
-        this.unLockAll();
+    @Override
+    public Integer firstKey() {
+        if (this.from == this.to) {
+            throw new NoSuchElementException();
+        }
+        return this.keys[this.from];
+    }
+
+    @Override
+    public Integer lastKey() {
+        if (this.from == this.to) {
+            throw new NoSuchElementException();
+        }
+        return this.keys[this.to - 1];
     }
 
 }
@@ -0,0 +1,76 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.storage.DatasetLoader;
+
+import java.nio.file.Path;
+
+/**
+ * Initial items of the database, set on its first start while the store is empty. By
+ * default, a few random items are generated. A dataset file is bulk loaded instead, it is the
+ * base of the write-ahead log and isn't logged itself. Therefore, the file must not change as
+ * long as the log is kept.
+ */
+public class DatasetConfig {
+
+    private final int numOfRandomItems;
+    /**
+     * Dataset file, null for random items
+     */
+    private final Path path;
+    private final DatasetLoader.Format format;
+    /**
+     * Number of records parsed by a thread at once
+     */
+    private final int chunkRecords;
+    private final int parallelism;
+
+    private DatasetConfig(int numOfRandomItems, Path path, DatasetLoader.Format format, int chunkRecords,
+                          int parallelism) {
+        this.numOfRandomItems = numOfRandomItems;
+        this.path = path;
+        this.format = format;
+        this.chunkRecords = chunkRecords;
+        this.parallelism = parallelism;
+    }
+
+    public static DatasetConfig random(int numOfItems) {
+        return new DatasetConfig(numOfItems, null, null, 0, 0);
+    }
+
+    /**
+     * Loads the file in chunks of 1M records on all processors, its format is given by its
+     * extension.
+     */
+    public static DatasetConfig file(Path path) {
+        return file(path, DatasetLoader.Format.of(path), 1 << 20, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static DatasetConfig file(Path path, DatasetLoader.Format format, int chunkRecords, int parallelism) {
+        return new DatasetConfig(0, path, format, chunkRecords, parallelism);
+    }
+
+    public boolean isFile() {
+        return this.path != null;
+    }
+
+    public int getNumOfRandomItems() {
+        return this.numOfRandomItems;
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public DatasetLoader.Format getFormat() {
+        return this.format;
+    }
+
+    public int getChunkRecords() {
+        return this.chunkRecords;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+}
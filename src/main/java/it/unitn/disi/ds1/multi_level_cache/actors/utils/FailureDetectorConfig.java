@@ -0,0 +1,61 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class FailureDetectorConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Delay between two heartbeats sent to every monitored peer
+     */
+    private final long heartbeatMillis;
+    /**
+     * A peer is suspected once its phi reaches the threshold, e.g. 8
+     */
+    private final double phiThreshold;
+    /**
+     * Number of inter-arrival times the distribution is estimated from
+     */
+    private final int windowSize;
+    /**
+     * Lower bound of the standard deviation, such that a very regular peer is not
+     * suspected after a tiny delay
+     */
+    private final long minStdDevMillis;
+
+    public FailureDetectorConfig(boolean isEnabled, long heartbeatMillis, double phiThreshold, int windowSize,
+                                 long minStdDevMillis) {
+        this.isEnabled = isEnabled;
+        this.heartbeatMillis = heartbeatMillis;
+        this.phiThreshold = phiThreshold;
+        this.windowSize = windowSize;
+        this.minStdDevMillis = minStdDevMillis;
+    }
+
+    public static FailureDetectorConfig disabled() {
+        return new FailureDetectorConfig(false, 0, 0, 1, 0);
+    }
+
+    public static FailureDetectorConfig of(long heartbeatMillis, double phiThreshold) {
+        return new FailureDetectorConfig(true, heartbeatMillis, phiThreshold, 100, Math.max(1, heartbeatMillis / 4));
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public long getHeartbeatMillis() {
+        return this.heartbeatMillis;
+    }
+
+    public double getPhiThreshold() {
+        return this.phiThreshold;
+    }
+
+    public int getWindowSize() {
+        return this.windowSize;
+    }
+
+    public long getMinStdDevMillis() {
+        return this.minStdDevMillis;
+    }
+
+}
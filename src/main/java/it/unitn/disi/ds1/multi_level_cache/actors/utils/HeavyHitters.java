@@ -0,0 +1,64 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving sketch of the most frequent keys. At most capacity keys are
+ * counted. When a new key arrives and the sketch is full, the key with the
+ * lowest count is replaced and the new key inherits its count, therefore
+ * counts may be overestimated, but never underestimated.
+ */
+public class HeavyHitters {
+
+    private final int capacity;
+    private final Map<Integer, Long> counts = new HashMap<>();
+
+    public HeavyHitters(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Counts one occurrence of the given key.
+     *
+     * @param key The requested key
+     * @return The estimated count of the key
+     */
+    public long offer(int key) {
+        if (this.counts.containsKey(key) || this.counts.size() < this.capacity) {
+            long count = this.counts.getOrDefault(key, 0L) + 1;
+            this.counts.put(key, count);
+            return count;
+        }
+
+        // replace the key with the minimum count
+        int minKey = key;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<Integer, Long> entry : this.counts.entrySet()) {
+            if (entry.getValue() < minCount) {
+                minKey = entry.getKey();
+                minCount = entry.getValue();
+            }
+        }
+        this.counts.remove(minKey);
+        this.counts.put(key, minCount + 1);
+        return minCount + 1;
+    }
+
+    public long getCount(int key) {
+        return this.counts.getOrDefault(key, 0L);
+    }
+
+    /**
+     * Halves all counts, such that keys that are not requested anymore cool down.
+     */
+    public void decay() {
+        this.counts.replaceAll((key, count) -> count / 2);
+        this.counts.values().removeIf(count -> count == 0);
+    }
+
+    public int size() {
+        return this.counts.size();
+    }
+
+}
@@ -0,0 +1,68 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class HedgeConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Fixed delay before the hedged read is sent. If 0, the delay is
+     * derived from the observed read latencies.
+     */
+    private final long fixedDelayMillis;
+    /**
+     * Percentile of the observed read latencies used as delay, e.g. 0.95
+     */
+    private final double percentile;
+    /**
+     * Delay used until enough latencies have been observed
+     */
+    private final long fallbackDelayMillis;
+    /**
+     * Max. number of hedged reads per read, e.g. 0.1 allows 10% extra load
+     */
+    private final double budgetRatio;
+
+    public HedgeConfig(boolean isEnabled, long fixedDelayMillis, double percentile, long fallbackDelayMillis, double budgetRatio) {
+        this.isEnabled = isEnabled;
+        this.fixedDelayMillis = fixedDelayMillis;
+        this.percentile = percentile;
+        this.fallbackDelayMillis = fallbackDelayMillis;
+        this.budgetRatio = budgetRatio;
+    }
+
+    public static HedgeConfig disabled() {
+        return new HedgeConfig(false, 0, 0, 0, 0);
+    }
+
+    public static HedgeConfig fixed(long delayMillis, double budgetRatio) {
+        return new HedgeConfig(true, delayMillis, 0, delayMillis, budgetRatio);
+    }
+
+    public static HedgeConfig percentile(double percentile, long fallbackDelayMillis, double budgetRatio) {
+        return new HedgeConfig(true, 0, percentile, fallbackDelayMillis, budgetRatio);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public boolean isFixed() {
+        return this.fixedDelayMillis > 0;
+    }
+
+    public long getFixedDelayMillis() {
+        return this.fixedDelayMillis;
+    }
+
+    public double getPercentile() {
+        return this.percentile;
+    }
+
+    public long getFallbackDelayMillis() {
+        return this.fallbackDelayMillis;
+    }
+
+    public double getBudgetRatio() {
+        return this.budgetRatio;
+    }
+
+}
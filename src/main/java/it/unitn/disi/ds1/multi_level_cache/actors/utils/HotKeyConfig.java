@@ -0,0 +1,50 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class HotKeyConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Number of keys tracked by the sketch
+     */
+    private final int topK;
+    /**
+     * Number of reads after which a key is pushed to all L2 caches
+     */
+    private final long threshold;
+    /**
+     * Delay after which all counts are halved
+     */
+    private final long decayMillis;
+
+    public HotKeyConfig(boolean isEnabled, int topK, long threshold, long decayMillis) {
+        this.isEnabled = isEnabled;
+        this.topK = topK;
+        this.threshold = threshold;
+        this.decayMillis = decayMillis;
+    }
+
+    public static HotKeyConfig disabled() {
+        return new HotKeyConfig(false, 0, 0, 0);
+    }
+
+    public static HotKeyConfig of(int topK, long threshold, long decayMillis) {
+        return new HotKeyConfig(true, topK, threshold, decayMillis);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public int getTopK() {
+        return this.topK;
+    }
+
+    public long getThreshold() {
+        return this.threshold;
+    }
+
+    public long getDecayMillis() {
+        return this.decayMillis;
+    }
+
+}
@@ -0,0 +1,56 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latest latencies in a ring buffer, to compute percentiles
+ * over a sliding window.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int nextIndex = 0;
+    private int size = 0;
+    private long totalCount = 0;
+
+    public LatencyTracker(int windowSize) {
+        this.samples = new long[windowSize];
+    }
+
+    public void record(long latencyMillis) {
+        this.samples[this.nextIndex] = latencyMillis;
+        this.nextIndex = (this.nextIndex + 1) % this.samples.length;
+        this.size = Math.min(this.size + 1, this.samples.length);
+        this.totalCount = this.totalCount + 1;
+    }
+
+    /**
+     * Returns the given percentile of the window, or 0 if nothing has been recorded.
+     *
+     * @param percentile Between 0 and 1, e.g. 0.99
+     * @return Latency in millis
+     */
+    public long getPercentile(double percentile) {
+        if (this.size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(this.samples, this.size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * this.size) - 1;
+        return sorted[Math.max(0, Math.min(index, this.size - 1))];
+    }
+
+    /**
+     * Returns the number of samples within the window.
+     *
+     * @return Number of samples
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+}
@@ -0,0 +1,57 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+/**
+ * Background compaction of the write-ahead log of the database. It keeps only the latest
+ * record per key and drops all records behind the checkpoint, i.e. the latest snapshot or
+ * the commits flushed into the LSM tree. A compaction is started once the log has doubled
+ * in size since the previous one and is throttled, such that the database keeps serving
+ * requests at full speed.
+ */
+public class LogCompactionConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Delay between two checks of the size of the log
+     */
+    private final long intervalMillis;
+    /**
+     * Smaller logs are never compacted
+     */
+    private final long minLogBytes;
+    /**
+     * Bytes read and written per second by a compaction, 0 for unlimited
+     */
+    private final long maxBytesPerSecond;
+
+    private LogCompactionConfig(boolean isEnabled, long intervalMillis, long minLogBytes, long maxBytesPerSecond) {
+        this.isEnabled = isEnabled;
+        this.intervalMillis = intervalMillis;
+        this.minLogBytes = minLogBytes;
+        this.maxBytesPerSecond = Math.max(0, maxBytesPerSecond);
+    }
+
+    public static LogCompactionConfig disabled() {
+        return new LogCompactionConfig(false, 0, 0, 0);
+    }
+
+    public static LogCompactionConfig of(long intervalMillis, long minLogBytes, long maxBytesPerSecond) {
+        return new LogCompactionConfig(true, intervalMillis, minLogBytes, maxBytesPerSecond);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public long getIntervalMillis() {
+        return this.intervalMillis;
+    }
+
+    public long getMinLogBytes() {
+        return this.minLogBytes;
+    }
+
+    public long getMaxBytesPerSecond() {
+        return this.maxBytesPerSecond;
+    }
+
+}
@@ -0,0 +1,109 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.storage.FsyncPolicy;
+import it.unitn.disi.ds1.multi_level_cache.storage.LogRecord;
+import it.unitn.disi.ds1.multi_level_cache.storage.WriteAheadLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Store that holds all items in memory and appends every write to a log file of its own. The
+ * log is replayed when the store is opened, it is forced to disk as the fsync policy demands.
+ * Unlike the write-ahead log of the database, it doesn't tell when a write is durable.
+ */
+public class LogFileStore extends DataStore {
+
+    private final WriteAheadLog log;
+    /**
+     * Number of the latest record
+     */
+    private long seq = 0;
+
+    /**
+     * Opens the log and replays all of its records.
+     *
+     * @param path        The log file
+     * @param fsyncPolicy When the log is forced to disk
+     * @throws IOException If the log can't be read
+     */
+    public LogFileStore(Path path, FsyncPolicy fsyncPolicy) throws IOException {
+        this.log = new WriteAheadLog(path, fsyncPolicy);
+        this.log.replay(record -> {
+            try {
+                super.setValueForKey(record.getKey(), record.getValue(), record.getUpdateCount());
+            } catch (IllegalAccessException e) {
+                // nothing is locked while opening
+            }
+            this.seq = record.getSeq();
+        });
+    }
+
+    private void append(int key, int value, int updateCount) {
+        try {
+            this.seq = this.seq + 1;
+            this.log.append(LogRecord.put(key, value, updateCount, this.seq));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void setValueForKey(int key, int value) throws IllegalAccessException {
+        this.setValueForKey(key, value, this.getUpdateCountForKey(key).orElse(0) + 1);
+    }
+
+    /**
+     * Appends the write to the log before it is applied.
+     *
+     * @throws UncheckedIOException If the write can't be logged, then it isn't applied
+     */
+    @Override
+    public void setValueForKey(int key, int value, int updateCount) throws IllegalAccessException {
+        if (this.isLocked(key)) {
+            throw new IllegalAccessException();
+        }
+        this.append(key, value, updateCount);
+        super.setValueForKey(key, value, updateCount);
+    }
+
+    /**
+     * Truncates the log and appends all items to it, such that the keys of earlier records
+     * don't return with the next replay.
+     */
+    @Override
+    public void loadSorted(int[] keys, int[] values, int[] updateCounts, int size) {
+        this.resetData();
+        for (int i = 0; i < size; i++) {
+            this.append(keys[i], values[i], updateCounts[i]);
+        }
+        super.loadSorted(keys, values, updateCounts, size);
+    }
+
+    /**
+     * Truncates the log together with the data.
+     *
+     * @throws UncheckedIOException If the log can't be truncated, then the data is kept
+     */
+    @Override
+    public void resetData() {
+        try {
+            this.log.truncate();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.seq = 0;
+        super.resetData();
+    }
+
+    public WriteAheadLog getLog() {
+        return this.log;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.log.close();
+    }
+
+}
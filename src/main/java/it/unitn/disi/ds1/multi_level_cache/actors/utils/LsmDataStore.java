@@ -0,0 +1,229 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+import it.unitn.disi.ds1.multi_level_cache.storage.LsmTree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Data store on top of an LSM tree, only a part of the keys is held in memory: the memtables
+ * and a row cache of the keys that have been read from the tables. A point access only
+ * answers from memory, {@link #isResident(int)} tells whether its answer is complete.
+ * Otherwise, the key has to be loaded by {@link #load(int)} first, which doesn't block the
+ * caller. Range accesses read the tables synchronously.
+ * <p>
+ * Locked keys are never evicted from the row cache, such that a critical write finds its key
+ * again when it is committed.
+ */
+public class LsmDataStore extends AbstractBackingStore {
+
+    private final LsmTree tree;
+    /**
+     * Keys read from the tables, the least recently used one is evicted first. A key without
+     * item is unknown.
+     */
+    private final Map<Integer, DataItem> rowCache;
+    /**
+     * Sequence number of the following writes
+     */
+    private long seq = 0;
+
+    public LsmDataStore(LsmTree tree, int rowCacheSize) {
+        this.tree = tree;
+        this.rowCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, DataItem> eldest) {
+                return this.size() > rowCacheSize && !LsmDataStore.this.isLocked(eldest.getKey());
+            }
+        };
+    }
+
+    public LsmTree getTree() {
+        return this.tree;
+    }
+
+    public int getRowCacheSize() {
+        return this.rowCache.size();
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Returns whether the key is held in memory, then point accesses answer whether it is
+     * known and its value.
+     */
+    public boolean isResident(int key) {
+        return this.tree.getFromMemory(key) != null || this.rowCache.containsKey(key);
+    }
+
+    /**
+     * Reads the key from the tables on a reader thread. The result must be handed to
+     * {@link #onLoaded(int, Optional)} by the owner of the store.
+     *
+     * @param key The key
+     * @return The item once it has been read, empty if the key is unknown
+     */
+    public CompletableFuture<Optional<DataItem>> load(int key) {
+        return this.tree.readAsync(key);
+    }
+
+    /**
+     * Adds a loaded key to the row cache, unless it has been written meanwhile.
+     */
+    public void onLoaded(int key, Optional<DataItem> item) {
+        if (this.tree.getFromMemory(key) == null) {
+            this.rowCache.put(key, item.orElse(null));
+        }
+    }
+
+    private DataItem getItem(int key) {
+        DataItem item = this.tree.getFromMemory(key);
+        return item != null ? item : this.rowCache.get(key);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return this.getItem(key) != null;
+    }
+
+    /**
+     * Passes all items, which requires to read all tables.
+     */
+    @Override
+    public void forEach(Consumer<DataItem> consumer) {
+        this.tree.scan(Integer.MIN_VALUE).forEachRemaining(consumer);
+    }
+
+    /**
+     * Returns all keys, which requires to read all tables.
+     */
+    @Override
+    public Set<Integer> getKeys() {
+        Set<Integer> keys = new TreeSet<>();
+        this.tree.scan(Integer.MIN_VALUE).forEachRemaining(item -> keys.add(item.getKey()));
+        return Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public SortedSet<Integer> getKeysInRange(int fromKey, int toKey) {
+        SortedSet<Integer> keys = new TreeSet<>();
+        if (fromKey < toKey) {
+            Iterator<DataItem> items = this.tree.scan(fromKey);
+            while (items.hasNext()) {
+                int key = items.next().getKey();
+                if (key >= toKey) {
+                    break;
+                }
+                keys.add(key);
+            }
+        }
+        return Collections.unmodifiableSortedSet(keys);
+    }
+
+    @Override
+    public List<DataItem> getItemsInRange(int fromKey, int toKey, int limit) {
+        List<DataItem> items = new ArrayList<>();
+        if (fromKey >= toKey) {
+            return items;
+        }
+        Iterator<DataItem> scan = this.tree.scan(fromKey);
+        while (scan.hasNext() && items.size() < limit) {
+            DataItem item = scan.next();
+            if (item.getKey() >= toKey) {
+                break;
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Iterator<DataItem> items = this.tree.scan(Integer.MIN_VALUE); items.hasNext(); items.next()) {
+            size = size + 1;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.tree.isEmpty();
+    }
+
+    @Override
+    public int copyItems(int fromKey, int[] keys, int[] values, int[] updateCounts) {
+        int count = 0;
+        Iterator<DataItem> items = this.tree.scan(fromKey);
+        while (items.hasNext() && count < keys.length) {
+            DataItem item = items.next();
+            keys[count] = item.getKey();
+            values[count] = item.getValue();
+            updateCounts[count] = item.getUpdateCount();
+            count = count + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Writes all items into a single table. Only an empty store can be loaded, the tree
+     * restores its data from its own tables otherwise.
+     *
+     * @throws UncheckedIOException If the table can't be written, then the store stays empty
+     */
+    @Override
+    public void loadSorted(int[] keys, int[] values, int[] updateCounts, int size) {
+        try {
+            this.tree.loadSorted(keys, values, updateCounts, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.rowCache.clear();
+        this.unLockAll();
+    }
+
+    @Override
+    public void setValueForKey(int key, int value) throws IllegalAccessException {
+        this.setValueForKey(key, value, this.getUpdateCountForKey(key).orElse(0) + 1);
+    }
+
+    @Override
+    public void setValueForKey(int key, int value, int updateCount) throws IllegalAccessException {
+        if (this.isLocked(key)) {
+            throw new IllegalAccessException();
+        }
+        this.tree.put(key, value, updateCount, this.seq);
+        // keeps the key resident once the memtable has been flushed
+        this.rowCache.put(key, new DataItem(key, value, updateCount));
+    }
+
+    @Override
+    public Optional<Integer> getValueForKey(int key) {
+        return Optional.ofNullable(this.getItem(key)).map(DataItem::getValue);
+    }
+
+    @Override
+    public Optional<Integer> getUpdateCountForKey(int key) {
+        return Optional.ofNullable(this.getItem(key)).map(DataItem::getUpdateCount);
+    }
+
+    @Override
+    public void lockValueForKey(int key) {
+        super.lockValueForKey(key);
+        if (this.isResident(key) && !this.rowCache.containsKey(key)) {
+            this.rowCache.put(key, this.getItem(key));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.tree.close();
+    }
+
+}
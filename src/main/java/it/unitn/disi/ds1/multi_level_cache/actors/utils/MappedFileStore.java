@@ -0,0 +1,247 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Store that keeps its items in a memory-mapped file outside of the heap. Every key owns a
+ * fixed slot at the position of the key, therefore it suits dense key spaces starting at 0,
+ * negative keys aren't supported. The file starts with a header of 16 bytes: magic (4),
+ * version (4), capacity (4) and number of items (4). Each slot is 12 bytes: flags (4), value
+ * (4) and update count (4).
+ * <p>
+ * Writes go to the page cache, the operating system writes them back. The file is forced to
+ * disk when the store is closed.
+ */
+public class MappedFileStore extends AbstractBackingStore {
+
+    public static final int HEADER_BYTES = 16;
+    public static final int SLOT_BYTES = 12;
+    /**
+     * A single mapping is limited to 2GB
+     */
+    public static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_BYTES) / SLOT_BYTES;
+    private static final int MAGIC = 0x4d4c434d;
+    private static final int VERSION = 1;
+    private static final int PRESENT = 1;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+
+    /**
+     * Opens the file, it is created if missing.
+     *
+     * @param path            The file
+     * @param initialCapacity Number of slots of a new file, it grows on demand
+     * @throws IOException If the file can't be mapped or isn't a store
+     */
+    public MappedFileStore(Path path, int initialCapacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (this.channel.size() == 0) {
+                this.map(Math.max(1, Math.min(MAX_CAPACITY, initialCapacity)));
+                this.buffer.putInt(0, MAGIC).putInt(4, VERSION);
+                this.writeHeader();
+            } else {
+                if (this.channel.size() < HEADER_BYTES) {
+                    throw new IOException(String.format("%s is not a mapped store", path));
+                }
+                MappedByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException(String.format("%s is not a mapped store", path));
+                }
+                this.map(header.getInt(8));
+                this.size = header.getInt(12);
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    private void map(int capacity) throws IOException {
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        this.capacity = capacity;
+    }
+
+    private void writeHeader() {
+        this.buffer.putInt(8, this.capacity).putInt(12, this.size);
+    }
+
+    /**
+     * Grows the file, such that the key has a slot.
+     */
+    private void ensureCapacity(int key) {
+        if (!this.canStore(key)) {
+            throw new IllegalArgumentException(String.format("Key %d has no slot in a mapped store", key));
+        }
+        if (key < this.capacity) {
+            return;
+        }
+        try {
+            this.map((int) Math.min(MAX_CAPACITY, Math.max(key + 1L, this.capacity * 2L)));
+            this.writeHeader();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean canStore(int key) {
+        return key >= 0 && key < MAX_CAPACITY;
+    }
+
+    private static int offsetOf(int key) {
+        return HEADER_BYTES + key * SLOT_BYTES;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return key >= 0 && key < this.capacity && this.buffer.getInt(offsetOf(key)) == PRESENT;
+    }
+
+    @Override
+    public Optional<Integer> getValueForKey(int key) {
+        return this.containsKey(key) ? Optional.of(this.buffer.getInt(offsetOf(key) + 4)) : Optional.empty();
+    }
+
+    @Override
+    public Optional<Integer> getUpdateCountForKey(int key) {
+        return this.containsKey(key) ? Optional.of(this.buffer.getInt(offsetOf(key) + 8)) : Optional.empty();
+    }
+
+    @Override
+    public void setValueForKey(int key, int value) throws IllegalAccessException {
+        this.setValueForKey(key, value, this.getUpdateCountForKey(key).orElse(0) + 1);
+    }
+
+    @Override
+    public void setValueForKey(int key, int value, int updateCount) throws IllegalAccessException {
+        if (this.isLocked(key)) {
+            throw new IllegalAccessException();
+        }
+        this.ensureCapacity(key);
+        if (!this.containsKey(key)) {
+            this.size = this.size + 1;
+            this.writeHeader();
+        }
+        this.buffer.putInt(offsetOf(key) + 4, value)
+                .putInt(offsetOf(key) + 8, updateCount)
+                .putInt(offsetOf(key), PRESENT);
+    }
+
+    private DataItem getItem(int key) {
+        int offset = offsetOf(key);
+        return new DataItem(key, this.buffer.getInt(offset + 4), this.buffer.getInt(offset + 8));
+    }
+
+    @Override
+    public void forEach(Consumer<DataItem> consumer) {
+        for (int key = 0; key < this.capacity; key++) {
+            if (this.containsKey(key)) {
+                consumer.accept(this.getItem(key));
+            }
+        }
+    }
+
+    @Override
+    public Set<Integer> getKeys() {
+        return Collections.unmodifiableSet(this.getKeysInRange(0, this.capacity));
+    }
+
+    @Override
+    public SortedSet<Integer> getKeysInRange(int fromKey, int toKey) {
+        SortedSet<Integer> keys = new TreeSet<>();
+        for (int key = Math.max(0, fromKey); key < Math.min(toKey, this.capacity); key++) {
+            if (this.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        return Collections.unmodifiableSortedSet(keys);
+    }
+
+    @Override
+    public List<DataItem> getItemsInRange(int fromKey, int toKey, int limit) {
+        List<DataItem> items = new ArrayList<>();
+        for (int key = Math.max(0, fromKey); key < Math.min(toKey, this.capacity) && items.size() < limit; key++) {
+            if (this.containsKey(key)) {
+                items.add(this.getItem(key));
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public int copyItems(int fromKey, int[] keys, int[] values, int[] updateCounts) {
+        int count = 0;
+        for (int key = Math.max(0, fromKey); key < this.capacity && count < keys.length; key++) {
+            if (this.containsKey(key)) {
+                keys[count] = key;
+                values[count] = this.buffer.getInt(offsetOf(key) + 4);
+                updateCounts[count] = this.buffer.getInt(offsetOf(key) + 8);
+                count = count + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replaces all data by the given items. If a key has no slot, nothing is replaced.
+     *
+     * @throws IllegalArgumentException If a key has no slot
+     */
+    @Override
+    public void loadSorted(int[] keys, int[] values, int[] updateCounts, int size) {
+        // the keys are sorted, the smallest and the largest one decide
+        if (size > 0 && (!this.canStore(keys[0]) || !this.canStore(keys[size - 1]))) {
+            throw new IllegalArgumentException(String.format("Keys %d to %d have no slots in a mapped store",
+                    keys[0], keys[size - 1]));
+        }
+        this.resetData();
+        for (int i = 0; i < size; i++) {
+            this.ensureCapacity(keys[i]);
+            this.buffer.putInt(offsetOf(keys[i]) + 4, values[i])
+                    .putInt(offsetOf(keys[i]) + 8, updateCounts[i])
+                    .putInt(offsetOf(keys[i]), PRESENT);
+        }
+        this.size = size;
+        this.writeHeader();
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Truncates the file, all slots are empty once it grows again.
+     */
+    public void resetData() {
+        try {
+            this.channel.truncate(HEADER_BYTES);
+            this.map(this.capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.size = 0;
+        this.writeHeader();
+        this.unLockAll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.buffer.force();
+        this.channel.close();
+    }
+
+}
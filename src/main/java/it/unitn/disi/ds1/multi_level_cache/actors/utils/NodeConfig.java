@@ -0,0 +1,287 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+/**
+ * Collection of all optional features of the nodes. An instance is shared
+ * by all actors created by the same environment, therefore it is immutable.
+ * Every with-method returns a modified copy.
+ */
+public class NodeConfig {
+
+    private BloomFilterConfig bloomFilterConfig = BloomFilterConfig.disabled();
+    private HedgeConfig hedgeConfig = HedgeConfig.disabled();
+    private HotKeyConfig hotKeyConfig = HotKeyConfig.disabled();
+    private CooperativeConfig cooperativeConfig = CooperativeConfig.disabled();
+    private PrefetchConfig prefetchConfig = PrefetchConfig.disabled();
+    private RecoveryConfig recoveryConfig = RecoveryConfig.flush();
+    private TimerConfig timerConfig = TimerConfig.wheel(50, 512);
+    private TimeoutConfig timeoutConfig = TimeoutConfig.fixed();
+    private RetryConfig retryConfig = RetryConfig.disabled();
+    private ReparentConfig reparentConfig = ReparentConfig.disabled();
+    private FailureDetectorConfig failureDetectorConfig = FailureDetectorConfig.disabled();
+    private CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.disabled();
+    private AdmissionConfig admissionConfig = AdmissionConfig.disabled();
+    private WriteAheadLogConfig writeAheadLogConfig = WriteAheadLogConfig.disabled();
+    private SnapshotConfig snapshotConfig = SnapshotConfig.disabled();
+    private BackingStoreConfig backingStoreConfig = BackingStoreConfig.memory();
+    private DatasetConfig datasetConfig = DatasetConfig.random(100);
+    private PartitionConfig partitionConfig = PartitionConfig.single();
+    private ReplicaConfig replicaConfig = ReplicaConfig.disabled();
+    private CacheSnapshotConfig cacheSnapshotConfig = CacheSnapshotConfig.disabled();
+    private ChangeStreamConfig changeStreamConfig = ChangeStreamConfig.disabled();
+    private LogCompactionConfig logCompactionConfig = LogCompactionConfig.disabled();
+
+    private NodeConfig() {
+    }
+
+    public static NodeConfig defaults() {
+        return new NodeConfig();
+    }
+
+    private NodeConfig copy() {
+        NodeConfig copy = new NodeConfig();
+        copy.bloomFilterConfig = this.bloomFilterConfig;
+        copy.hedgeConfig = this.hedgeConfig;
+        copy.hotKeyConfig = this.hotKeyConfig;
+        copy.cooperativeConfig = this.cooperativeConfig;
+        copy.prefetchConfig = this.prefetchConfig;
+        copy.recoveryConfig = this.recoveryConfig;
+        copy.timerConfig = this.timerConfig;
+        copy.timeoutConfig = this.timeoutConfig;
+        copy.retryConfig = this.retryConfig;
+        copy.reparentConfig = this.reparentConfig;
+        copy.failureDetectorConfig = this.failureDetectorConfig;
+        copy.circuitBreakerConfig = this.circuitBreakerConfig;
+        copy.admissionConfig = this.admissionConfig;
+        copy.writeAheadLogConfig = this.writeAheadLogConfig;
+        copy.snapshotConfig = this.snapshotConfig;
+        copy.backingStoreConfig = this.backingStoreConfig;
+        copy.datasetConfig = this.datasetConfig;
+        copy.partitionConfig = this.partitionConfig;
+        copy.replicaConfig = this.replicaConfig;
+        copy.cacheSnapshotConfig = this.cacheSnapshotConfig;
+        copy.changeStreamConfig = this.changeStreamConfig;
+        copy.logCompactionConfig = this.logCompactionConfig;
+        return copy;
+    }
+
+    public NodeConfig withBloomFilterConfig(BloomFilterConfig bloomFilterConfig) {
+        NodeConfig copy = this.copy();
+        copy.bloomFilterConfig = bloomFilterConfig;
+        return copy;
+    }
+
+    public NodeConfig withHedgeConfig(HedgeConfig hedgeConfig) {
+        NodeConfig copy = this.copy();
+        copy.hedgeConfig = hedgeConfig;
+        return copy;
+    }
+
+    public NodeConfig withHotKeyConfig(HotKeyConfig hotKeyConfig) {
+        NodeConfig copy = this.copy();
+        copy.hotKeyConfig = hotKeyConfig;
+        return copy;
+    }
+
+    public NodeConfig withCooperativeConfig(CooperativeConfig cooperativeConfig) {
+        NodeConfig copy = this.copy();
+        copy.cooperativeConfig = cooperativeConfig;
+        return copy;
+    }
+
+    public NodeConfig withPrefetchConfig(PrefetchConfig prefetchConfig) {
+        NodeConfig copy = this.copy();
+        copy.prefetchConfig = prefetchConfig;
+        return copy;
+    }
+
+    public NodeConfig withRecoveryConfig(RecoveryConfig recoveryConfig) {
+        NodeConfig copy = this.copy();
+        copy.recoveryConfig = recoveryConfig;
+        return copy;
+    }
+
+    public NodeConfig withTimerConfig(TimerConfig timerConfig) {
+        NodeConfig copy = this.copy();
+        copy.timerConfig = timerConfig;
+        return copy;
+    }
+
+    public NodeConfig withTimeoutConfig(TimeoutConfig timeoutConfig) {
+        NodeConfig copy = this.copy();
+        copy.timeoutConfig = timeoutConfig;
+        return copy;
+    }
+
+    public NodeConfig withRetryConfig(RetryConfig retryConfig) {
+        NodeConfig copy = this.copy();
+        copy.retryConfig = retryConfig;
+        return copy;
+    }
+
+    public NodeConfig withReparentConfig(ReparentConfig reparentConfig) {
+        NodeConfig copy = this.copy();
+        copy.reparentConfig = reparentConfig;
+        return copy;
+    }
+
+    public NodeConfig withFailureDetectorConfig(FailureDetectorConfig failureDetectorConfig) {
+        NodeConfig copy = this.copy();
+        copy.failureDetectorConfig = failureDetectorConfig;
+        return copy;
+    }
+
+    public NodeConfig withCircuitBreakerConfig(CircuitBreakerConfig circuitBreakerConfig) {
+        NodeConfig copy = this.copy();
+        copy.circuitBreakerConfig = circuitBreakerConfig;
+        return copy;
+    }
+
+    public NodeConfig withAdmissionConfig(AdmissionConfig admissionConfig) {
+        NodeConfig copy = this.copy();
+        copy.admissionConfig = admissionConfig;
+        return copy;
+    }
+
+    public NodeConfig withWriteAheadLogConfig(WriteAheadLogConfig writeAheadLogConfig) {
+        NodeConfig copy = this.copy();
+        copy.writeAheadLogConfig = writeAheadLogConfig;
+        return copy;
+    }
+
+    public NodeConfig withSnapshotConfig(SnapshotConfig snapshotConfig) {
+        NodeConfig copy = this.copy();
+        copy.snapshotConfig = snapshotConfig;
+        return copy;
+    }
+
+    public NodeConfig withBackingStoreConfig(BackingStoreConfig backingStoreConfig) {
+        NodeConfig copy = this.copy();
+        copy.backingStoreConfig = backingStoreConfig;
+        return copy;
+    }
+
+    public NodeConfig withDatasetConfig(DatasetConfig datasetConfig) {
+        NodeConfig copy = this.copy();
+        copy.datasetConfig = datasetConfig;
+        return copy;
+    }
+
+    public NodeConfig withPartitionConfig(PartitionConfig partitionConfig) {
+        NodeConfig copy = this.copy();
+        copy.partitionConfig = partitionConfig;
+        return copy;
+    }
+
+    public NodeConfig withReplicaConfig(ReplicaConfig replicaConfig) {
+        NodeConfig copy = this.copy();
+        copy.replicaConfig = replicaConfig;
+        return copy;
+    }
+
+    public NodeConfig withCacheSnapshotConfig(CacheSnapshotConfig cacheSnapshotConfig) {
+        NodeConfig copy = this.copy();
+        copy.cacheSnapshotConfig = cacheSnapshotConfig;
+        return copy;
+    }
+
+    public NodeConfig withChangeStreamConfig(ChangeStreamConfig changeStreamConfig) {
+        NodeConfig copy = this.copy();
+        copy.changeStreamConfig = changeStreamConfig;
+        return copy;
+    }
+
+    public NodeConfig withLogCompactionConfig(LogCompactionConfig logCompactionConfig) {
+        NodeConfig copy = this.copy();
+        copy.logCompactionConfig = logCompactionConfig;
+        return copy;
+    }
+
+    public BloomFilterConfig getBloomFilterConfig() {
+        return this.bloomFilterConfig;
+    }
+
+    public HedgeConfig getHedgeConfig() {
+        return this.hedgeConfig;
+    }
+
+    public HotKeyConfig getHotKeyConfig() {
+        return this.hotKeyConfig;
+    }
+
+    public CooperativeConfig getCooperativeConfig() {
+        return this.cooperativeConfig;
+    }
+
+    public PrefetchConfig getPrefetchConfig() {
+        return this.prefetchConfig;
+    }
+
+    public RecoveryConfig getRecoveryConfig() {
+        return this.recoveryConfig;
+    }
+
+    public TimerConfig getTimerConfig() {
+        return this.timerConfig;
+    }
+
+    public TimeoutConfig getTimeoutConfig() {
+        return this.timeoutConfig;
+    }
+
+    public RetryConfig getRetryConfig() {
+        return this.retryConfig;
+    }
+
+    public ReparentConfig getReparentConfig() {
+        return this.reparentConfig;
+    }
+
+    public FailureDetectorConfig getFailureDetectorConfig() {
+        return this.failureDetectorConfig;
+    }
+
+    public CircuitBreakerConfig getCircuitBreakerConfig() {
+        return this.circuitBreakerConfig;
+    }
+
+    public AdmissionConfig getAdmissionConfig() {
+        return this.admissionConfig;
+    }
+
+    public WriteAheadLogConfig getWriteAheadLogConfig() {
+        return this.writeAheadLogConfig;
+    }
+
+    public SnapshotConfig getSnapshotConfig() {
+        return this.snapshotConfig;
+    }
+
+    public BackingStoreConfig getBackingStoreConfig() {
+        return this.backingStoreConfig;
+    }
+
+    public DatasetConfig getDatasetConfig() {
+        return this.datasetConfig;
+    }
+
+    public PartitionConfig getPartitionConfig() {
+        return this.partitionConfig;
+    }
+
+    public ReplicaConfig getReplicaConfig() {
+        return this.replicaConfig;
+    }
+
+    public CacheSnapshotConfig getCacheSnapshotConfig() {
+        return this.cacheSnapshotConfig;
+    }
+
+    public ChangeStreamConfig getChangeStreamConfig() {
+        return this.changeStreamConfig;
+    }
+
+    public LogCompactionConfig getLogCompactionConfig() {
+        return this.logCompactionConfig;
+    }
+
+}
@@ -0,0 +1,94 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partitioning of the key space over several database actors. Each partition owns its keys
+ * exclusively: it serves their reads and writes, coordinates their critical writes and
+ * multicasts their refills to all L1 caches. The caches route every request by its key.
+ * <p>
+ * By hash, the keys are spread evenly, but a scan visits all partitions and its keys are only
+ * sorted within each of them. By range, the keys [0, keySpaceSize) are split into contiguous
+ * ranges of equal size, lower keys belong to the first and higher keys to the last partition.
+ * Then a scan only visits the partitions of its range, in the order of the keys.
+ */
+public class PartitionConfig {
+
+    public enum Scheme {
+        HASH,
+        RANGE
+    }
+
+    private final Scheme scheme;
+    private final int numOfPartitions;
+    /**
+     * Number of keys per partition if partitioned by range
+     */
+    private final int rangeSize;
+
+    private PartitionConfig(Scheme scheme, int numOfPartitions, int rangeSize) {
+        this.scheme = scheme;
+        this.numOfPartitions = Math.max(1, numOfPartitions);
+        this.rangeSize = Math.max(1, rangeSize);
+    }
+
+    public static PartitionConfig single() {
+        return new PartitionConfig(Scheme.HASH, 1, 1);
+    }
+
+    public static PartitionConfig hash(int numOfPartitions) {
+        return new PartitionConfig(Scheme.HASH, numOfPartitions, 1);
+    }
+
+    public static PartitionConfig range(int numOfPartitions, int keySpaceSize) {
+        int partitions = Math.max(1, numOfPartitions);
+        return new PartitionConfig(Scheme.RANGE, partitions, (int) ((Math.max(1L, keySpaceSize) + partitions - 1) / partitions));
+    }
+
+    /**
+     * Returns the index of the partition that owns the key.
+     */
+    public int getPartition(int key) {
+        if (this.numOfPartitions == 1) {
+            return 0;
+        }
+        if (this.scheme == Scheme.RANGE) {
+            return key < 0 ? 0 : Math.min(this.numOfPartitions - 1, key / this.rangeSize);
+        }
+        // spreads consecutive keys over all partitions
+        int hash = key * 0x9e3779b9;
+        return Math.floorMod(hash ^ (hash >>> 16), this.numOfPartitions);
+    }
+
+    /**
+     * Returns the partitions that may own keys in [fromKey, toKey), in ascending order of
+     * their keys if partitioned by range.
+     */
+    public List<Integer> getPartitionsInRange(int fromKey, int toKey) {
+        List<Integer> partitions = new ArrayList<>();
+        if (this.scheme == Scheme.RANGE && fromKey < toKey) {
+            for (int partition = this.getPartition(fromKey); partition <= this.getPartition(toKey - 1); partition++) {
+                partitions.add(partition);
+            }
+            return partitions;
+        }
+        for (int partition = 0; partition < this.numOfPartitions; partition++) {
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    public boolean isPartitioned() {
+        return this.numOfPartitions > 1;
+    }
+
+    public Scheme getScheme() {
+        return this.scheme;
+    }
+
+    public int getNumOfPartitions() {
+        return this.numOfPartitions;
+    }
+
+}
@@ -0,0 +1,86 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+/**
+ * Phi accrual failure detector of a single peer (Hayashibara et al.). Instead of a
+ * binary up/down, it returns how suspicious the silence of the peer is, given the
+ * inter-arrival times of its latest heartbeats. A phi of 1 means a 10% chance of
+ * a false suspicion, 2 a 1% chance and so on.
+ */
+public class PhiAccrualDetector {
+
+    private final long[] intervals;
+    private final long minStdDevMillis;
+    /**
+     * Interval assumed until the first heartbeat has been received
+     */
+    private final long expectedIntervalMillis;
+    private int nextIndex = 0;
+    private int size = 0;
+    private long lastArrivalMillis;
+
+    public PhiAccrualDetector(int windowSize, long minStdDevMillis, long expectedIntervalMillis, long nowMillis) {
+        this.intervals = new long[windowSize];
+        this.minStdDevMillis = minStdDevMillis;
+        this.expectedIntervalMillis = expectedIntervalMillis;
+        this.lastArrivalMillis = nowMillis;
+    }
+
+    public void heartbeat(long nowMillis) {
+        this.intervals[this.nextIndex] = nowMillis - this.lastArrivalMillis;
+        this.nextIndex = (this.nextIndex + 1) % this.intervals.length;
+        this.size = Math.min(this.size + 1, this.intervals.length);
+        this.lastArrivalMillis = nowMillis;
+    }
+
+    /**
+     * Restarts the silence of the peer, e.g. after this node itself has been crashed.
+     * The observed intervals are kept.
+     */
+    public void reset(long nowMillis) {
+        this.lastArrivalMillis = nowMillis;
+    }
+
+    public long getLastArrivalMillis() {
+        return this.lastArrivalMillis;
+    }
+
+    private double getMean() {
+        if (this.size == 0) {
+            return this.expectedIntervalMillis;
+        }
+        double sum = 0;
+        for (int i = 0; i < this.size; i++) {
+            sum = sum + this.intervals[i];
+        }
+        return sum / this.size;
+    }
+
+    private double getStdDev(double mean) {
+        if (this.size < 2) {
+            return Math.max(this.minStdDevMillis, mean / 4);
+        }
+        double sum = 0;
+        for (int i = 0; i < this.size; i++) {
+            sum = sum + (this.intervals[i] - mean) * (this.intervals[i] - mean);
+        }
+        return Math.max(this.minStdDevMillis, Math.sqrt(sum / this.size));
+    }
+
+    /**
+     * Returns the suspicion level of the peer. The normal distribution is approximated
+     * by a logistic function, the same way as in Akka.
+     *
+     * @param nowMillis The current time
+     * @return Phi, 0 if the peer has just answered
+     */
+    public double phi(long nowMillis) {
+        double mean = this.getMean();
+        double y = (nowMillis - this.lastArrivalMillis - mean) / this.getStdDev(mean);
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (nowMillis - this.lastArrivalMillis > mean) {
+            return -Math.log10(e / (1.0 + e));
+        }
+        return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+
+}
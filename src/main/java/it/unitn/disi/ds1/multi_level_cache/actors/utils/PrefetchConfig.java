@@ -0,0 +1,54 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class PrefetchConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Number of keys ahead of the current read that are prefetched
+     */
+    private final int depth;
+    /**
+     * Maximum number of prefetches an L2 cache has in flight at the same time
+     */
+    private final int maxInFlight;
+    /**
+     * Number of consecutive equal strides before a stream counts as sequential
+     */
+    private final int minRunLength;
+
+    public PrefetchConfig(boolean isEnabled, int depth, int maxInFlight, int minRunLength) {
+        this.isEnabled = isEnabled;
+        this.depth = depth;
+        this.maxInFlight = maxInFlight;
+        this.minRunLength = minRunLength;
+    }
+
+    public static PrefetchConfig disabled() {
+        return new PrefetchConfig(false, 0, 0, 0);
+    }
+
+    public static PrefetchConfig of(int depth, int maxInFlight) {
+        return new PrefetchConfig(true, depth, maxInFlight, 2);
+    }
+
+    public static PrefetchConfig of(int depth, int maxInFlight, int minRunLength) {
+        return new PrefetchConfig(true, depth, maxInFlight, minRunLength);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public int getMaxInFlight() {
+        return this.maxInFlight;
+    }
+
+    public int getMinRunLength() {
+        return this.minRunLength;
+    }
+
+}
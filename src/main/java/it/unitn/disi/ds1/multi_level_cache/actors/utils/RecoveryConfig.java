@@ -0,0 +1,72 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class RecoveryConfig {
+
+    /**
+     * Rehydrate the keys of a crashed cache instead of starting empty, and let
+     * the L2 caches of a recovered L1 cache revalidate instead of flushing
+     */
+    private final boolean isWarm;
+    /**
+     * Maximum number of keys that are remembered across a crash
+     */
+    private final int maxKeys;
+    /**
+     * Number of keys requested by a single message
+     */
+    private final int batchSize;
+    /**
+     * A recovered L1 cache announces a new epoch, its L2 caches only discard the
+     * keys that have been changed during the outage
+     */
+    private final boolean isEpochFenced;
+    /**
+     * Number of commits kept in the change log of the database
+     */
+    private final int changeLogSize;
+
+    public RecoveryConfig(boolean isWarm, int maxKeys, int batchSize, boolean isEpochFenced, int changeLogSize) {
+        this.isWarm = isWarm;
+        this.maxKeys = maxKeys;
+        this.batchSize = batchSize;
+        this.isEpochFenced = isEpochFenced;
+        this.changeLogSize = changeLogSize;
+    }
+
+    public static RecoveryConfig flush() {
+        return new RecoveryConfig(false, 0, 1, false, 0);
+    }
+
+    public static RecoveryConfig warm(int maxKeys, int batchSize) {
+        return new RecoveryConfig(true, maxKeys, batchSize, false, 0);
+    }
+
+    public static RecoveryConfig epoch(int changeLogSize) {
+        return new RecoveryConfig(false, 0, 1, true, changeLogSize);
+    }
+
+    public static RecoveryConfig warmWithEpoch(int maxKeys, int batchSize, int changeLogSize) {
+        return new RecoveryConfig(true, maxKeys, batchSize, true, changeLogSize);
+    }
+
+    public boolean isWarm() {
+        return this.isWarm;
+    }
+
+    public int getMaxKeys() {
+        return this.maxKeys;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public boolean isEpochFenced() {
+        return this.isEpochFenced;
+    }
+
+    public int getChangeLogSize() {
+        return this.changeLogSize;
+    }
+
+}
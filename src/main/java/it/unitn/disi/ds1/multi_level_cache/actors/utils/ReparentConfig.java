@@ -0,0 +1,35 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class ReparentConfig {
+
+    /**
+     * Attach an L2 cache to another L1 cache, once its main L1 cache has timed-out
+     */
+    private final boolean isEnabled;
+    /**
+     * Delay between two attempts to rejoin the home L1 cache
+     */
+    private final long rejoinProbeMillis;
+
+    public ReparentConfig(boolean isEnabled, long rejoinProbeMillis) {
+        this.isEnabled = isEnabled;
+        this.rejoinProbeMillis = rejoinProbeMillis;
+    }
+
+    public static ReparentConfig disabled() {
+        return new ReparentConfig(false, 0);
+    }
+
+    public static ReparentConfig of(long rejoinProbeMillis) {
+        return new ReparentConfig(true, rejoinProbeMillis);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public long getRejoinProbeMillis() {
+        return this.rejoinProbeMillis;
+    }
+
+}
@@ -0,0 +1,37 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+/**
+ * Read replicas of every partition of the database. A replica applies the commits of its
+ * primary in commit order and serves the read misses of the L1 caches, as long as it knows
+ * at least the update count of the requester. A critical read is only served if the replica
+ * has applied all commits the requesting L1 cache has seen, otherwise it goes to the primary.
+ * Writes always go to the primary.
+ */
+public class ReplicaConfig {
+
+    /**
+     * Number of replicas per partition, 0 if disabled
+     */
+    private final int numOfReplicas;
+
+    private ReplicaConfig(int numOfReplicas) {
+        this.numOfReplicas = Math.max(0, numOfReplicas);
+    }
+
+    public static ReplicaConfig disabled() {
+        return new ReplicaConfig(0);
+    }
+
+    public static ReplicaConfig of(int numOfReplicas) {
+        return new ReplicaConfig(numOfReplicas);
+    }
+
+    public boolean isEnabled() {
+        return this.numOfReplicas > 0;
+    }
+
+    public int getNumOfReplicas() {
+        return this.numOfReplicas;
+    }
+
+}
@@ -0,0 +1,56 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class RetryConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Max. number of retries per operation
+     */
+    private final int maxRetries;
+    /**
+     * Backoff before the first retry, it doubles with every further retry
+     */
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    /**
+     * Max. number of retries per operation on average, e.g. 0.2 allows 20% extra load
+     */
+    private final double budgetRatio;
+
+    public RetryConfig(boolean isEnabled, int maxRetries, long baseBackoffMillis, long maxBackoffMillis, double budgetRatio) {
+        this.isEnabled = isEnabled;
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.budgetRatio = budgetRatio;
+    }
+
+    public static RetryConfig disabled() {
+        return new RetryConfig(false, 0, 0, 0, 0);
+    }
+
+    public static RetryConfig of(int maxRetries, long baseBackoffMillis, long maxBackoffMillis, double budgetRatio) {
+        return new RetryConfig(true, maxRetries, baseBackoffMillis, maxBackoffMillis, budgetRatio);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public int getMaxRetries() {
+        return this.maxRetries;
+    }
+
+    public long getBaseBackoffMillis() {
+        return this.baseBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return this.maxBackoffMillis;
+    }
+
+    public double getBudgetRatio() {
+        return this.budgetRatio;
+    }
+
+}
@@ -0,0 +1,50 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+/**
+ * Estimates the round-trip time to a single peer, the same way TCP does
+ * (RFC 6298): a smoothed mean and a smoothed mean deviation of the samples.
+ */
+public class RttEstimator {
+
+    private static final double ALPHA = 0.125;
+    private static final double BETA = 0.25;
+    private static final int K = 4;
+
+    private double smoothedRtt = 0;
+    private double rttVariance = 0;
+    private long sampleCount = 0;
+
+    public void sample(long rttMillis) {
+        long rtt = Math.max(0, rttMillis);
+        if (this.sampleCount == 0) {
+            this.smoothedRtt = rtt;
+            this.rttVariance = rtt / 2.0;
+        } else {
+            this.rttVariance = (1 - BETA) * this.rttVariance + BETA * Math.abs(this.smoothedRtt - rtt);
+            this.smoothedRtt = (1 - ALPHA) * this.smoothedRtt + ALPHA * rtt;
+        }
+        this.sampleCount = this.sampleCount + 1;
+    }
+
+    public boolean hasSamples() {
+        return this.sampleCount > 0;
+    }
+
+    public long getSampleCount() {
+        return this.sampleCount;
+    }
+
+    public long getSmoothedRttMillis() {
+        return Math.round(this.smoothedRtt);
+    }
+
+    /**
+     * Returns the retransmission timeout, SRTT + 4 * RTTVAR. Bounds are applied by the caller.
+     *
+     * @return Timeout in millis
+     */
+    public long getTimeoutMillis() {
+        return (long) Math.ceil(this.smoothedRtt + K * this.rttVariance);
+    }
+
+}
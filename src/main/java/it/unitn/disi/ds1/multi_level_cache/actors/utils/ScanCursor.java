@@ -0,0 +1,93 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import akka.actor.ActorRef;
+
+/**
+ * Position of a running scan at the database. The credits are the number of
+ * chunks that may be sent before the requester acknowledges one.
+ */
+public class ScanCursor {
+
+    private final ActorRef requester;
+    private final int toKey;
+    private final int chunkSize;
+    private final boolean isAbsorbed;
+    private int nextKey;
+    private int credits;
+    private int nextSeq = 0;
+    private int lastAckedSeq = -1;
+    private int ackCount = 0;
+    private boolean isDone = false;
+
+    public ScanCursor(ActorRef requester, int fromKey, int toKey, int chunkSize, int window, boolean isAbsorbed) {
+        this.requester = requester;
+        this.isAbsorbed = isAbsorbed;
+        this.nextKey = fromKey;
+        this.toKey = toKey;
+        this.chunkSize = chunkSize;
+        this.credits = window;
+    }
+
+    public ActorRef getRequester() {
+        return this.requester;
+    }
+
+    public int getNextKey() {
+        return this.nextKey;
+    }
+
+    public int getToKey() {
+        return this.toKey;
+    }
+
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    public boolean isAbsorbed() {
+        return this.isAbsorbed;
+    }
+
+    public boolean hasCredits() {
+        return this.credits > 0;
+    }
+
+    public int getLastAckedSeq() {
+        return this.lastAckedSeq;
+    }
+
+    public boolean isDone() {
+        return this.isDone;
+    }
+
+    /**
+     * Returns true if the last chunk has been sent and all chunks are acknowledged.
+     *
+     * @return True if the scan is complete
+     */
+    public boolean isComplete() {
+        return this.isDone && this.ackCount == this.nextSeq;
+    }
+
+    /**
+     * Moves the cursor behind the sent chunk and consumes one credit.
+     *
+     * @param nextKey The first key of the next chunk
+     * @param isLast  True if the sent chunk is the last one
+     * @return The sequence number of the sent chunk
+     */
+    public int advance(int nextKey, boolean isLast) {
+        this.nextKey = nextKey;
+        this.isDone = isLast;
+        this.credits = this.credits - 1;
+        this.nextSeq = this.nextSeq + 1;
+        return this.nextSeq - 1;
+    }
+
+    public void ack(int seq) {
+        this.credits = this.credits + 1;
+        this.ackCount = this.ackCount + 1;
+        this.lastAckedSeq = Math.max(this.lastAckedSeq, seq);
+    }
+
+}
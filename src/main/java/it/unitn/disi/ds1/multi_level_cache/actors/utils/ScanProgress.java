@@ -0,0 +1,58 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import akka.actor.ActorRef;
+
+/**
+ * Progress of a scan at the client. Chunks may arrive out of order, therefore
+ * the scan is complete once the number of received chunks matches the
+ * sequence number of the last chunk.
+ */
+public class ScanProgress {
+
+    private final ActorRef l2Cache;
+    private final long startMillis;
+    private long lastChunkMillis;
+    private int numOfChunks = 0;
+    private int numOfKeys = 0;
+    private int lastSeq = -1;
+
+    public ScanProgress(ActorRef l2Cache, long startMillis) {
+        this.l2Cache = l2Cache;
+        this.startMillis = startMillis;
+        this.lastChunkMillis = startMillis;
+    }
+
+    public void addChunk(int seq, int numOfKeys, boolean isLast, long nowMillis) {
+        this.numOfChunks = this.numOfChunks + 1;
+        this.numOfKeys = this.numOfKeys + numOfKeys;
+        this.lastChunkMillis = nowMillis;
+        if (isLast) {
+            this.lastSeq = seq;
+        }
+    }
+
+    public boolean isComplete() {
+        return this.lastSeq >= 0 && this.numOfChunks == this.lastSeq + 1;
+    }
+
+    public ActorRef getL2Cache() {
+        return this.l2Cache;
+    }
+
+    public long getStartMillis() {
+        return this.startMillis;
+    }
+
+    public long getLastChunkMillis() {
+        return this.lastChunkMillis;
+    }
+
+    public int getNumOfChunks() {
+        return this.numOfChunks;
+    }
+
+    public int getNumOfKeys() {
+        return this.numOfKeys;
+    }
+
+}
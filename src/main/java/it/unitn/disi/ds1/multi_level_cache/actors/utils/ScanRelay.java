@@ -0,0 +1,97 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import akka.actor.ActorRef;
+import it.unitn.disi.ds1.multi_level_cache.messages.ScanMessage;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Scan that a L1 cache relays over the partitions of the database, one after the
+ * other. The chunks of all partitions are numbered consecutively, such that the
+ * requester sees a single scan. The next partition is asked once the last chunk of
+ * the previous one is acknowledged, therefore the window holds across partitions.
+ */
+public class ScanRelay {
+
+    private final ScanMessage message;
+    private final List<ActorRef> partitions;
+    private final Map<ActorRef, Integer> seqOffsets = new HashMap<>();
+    private final TreeMap<Integer, ActorRef> partitionsBySeq = new TreeMap<>();
+    private int current = 0;
+    /**
+     * Relayed sequence number of the last chunk of the current partition, -1 while unknown
+     */
+    private int lastSeqOfCurrent = -1;
+
+    public ScanRelay(ScanMessage message, List<ActorRef> partitions) {
+        this.message = message;
+        this.partitions = partitions;
+        this.start(0);
+    }
+
+    private void start(int seqOffset) {
+        ActorRef partition = this.partitions.get(this.current);
+        this.seqOffsets.put(partition, seqOffset);
+        this.partitionsBySeq.put(seqOffset, partition);
+        this.lastSeqOfCurrent = -1;
+    }
+
+    public ScanMessage getMessage() {
+        return this.message;
+    }
+
+    public ActorRef getCurrentPartition() {
+        return this.partitions.get(this.current);
+    }
+
+    /**
+     * @return The sequence number of the chunk within the whole scan, -1 if the partition wasn't asked
+     */
+    public int relaySeq(ActorRef partition, int seq) {
+        Integer offset = this.seqOffsets.get(partition);
+        return offset == null ? -1 : offset + seq;
+    }
+
+    /**
+     * Remembers the last chunk of a partition.
+     *
+     * @return True if it is the last chunk of the whole scan
+     */
+    public boolean onLastChunk(ActorRef partition, int relayedSeq) {
+        if (!partition.equals(this.getCurrentPartition())) {
+            return false;
+        }
+        this.lastSeqOfCurrent = relayedSeq;
+        return this.current == this.partitions.size() - 1;
+    }
+
+    /**
+     * @return The offset and the partition that sent the relayed chunk
+     */
+    public Map.Entry<Integer, ActorRef> getPartitionOfSeq(int relayedSeq) {
+        return this.partitionsBySeq.floorEntry(relayedSeq);
+    }
+
+    /**
+     * Moves on to the next partition if the acknowledged chunk completes the
+     * current one.
+     *
+     * @return The next partition to ask, null if there is none yet
+     */
+    public ActorRef onAck(int relayedSeq) {
+        if (relayedSeq != this.lastSeqOfCurrent || this.current == this.partitions.size() - 1) {
+            return null;
+        }
+        this.current = this.current + 1;
+        this.start(relayedSeq + 1);
+        return this.getCurrentPartition();
+    }
+
+    public boolean isComplete(int ackedSeq) {
+        return this.current == this.partitions.size() - 1 && ackedSeq == this.lastSeqOfCurrent;
+    }
+
+}
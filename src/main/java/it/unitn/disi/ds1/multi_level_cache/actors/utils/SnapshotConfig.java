@@ -0,0 +1,36 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+/**
+ * Periodic snapshots of the database, next to its write-ahead log. They require the log,
+ * since only the commits after the latest snapshot are replayed from it.
+ */
+public class SnapshotConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Delay between two snapshots, a snapshot is skipped if nothing has been committed
+     */
+    private final long intervalMillis;
+
+    public SnapshotConfig(boolean isEnabled, long intervalMillis) {
+        this.isEnabled = isEnabled;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public static SnapshotConfig disabled() {
+        return new SnapshotConfig(false, 0);
+    }
+
+    public static SnapshotConfig every(long intervalMillis) {
+        return new SnapshotConfig(true, intervalMillis);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public long getIntervalMillis() {
+        return this.intervalMillis;
+    }
+
+}
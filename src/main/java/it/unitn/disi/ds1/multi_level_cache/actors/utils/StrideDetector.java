@@ -0,0 +1,49 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+/**
+ * Detects sequential or strided reads of a single stream, e.g. k, k+1, k+2 or
+ * k, k+4, k+8. A stream is strided as soon as the same non-zero stride has
+ * been seen for a number of consecutive reads.
+ */
+public class StrideDetector {
+
+    private final int minRunLength;
+    private boolean hasLastKey = false;
+    private int lastKey;
+    private int stride = 0;
+    private int runLength = 0;
+
+    public StrideDetector(int minRunLength) {
+        this.minRunLength = minRunLength;
+    }
+
+    /**
+     * Adds the next key of the stream.
+     *
+     * @param key The read key
+     * @return True if the stream is strided
+     */
+    public boolean offer(int key) {
+        if (this.hasLastKey) {
+            int nextStride = key - this.lastKey;
+            if (nextStride != 0 && nextStride == this.stride) {
+                this.runLength = this.runLength + 1;
+            } else {
+                this.stride = nextStride;
+                this.runLength = nextStride != 0 ? 1 : 0;
+            }
+        }
+        this.lastKey = key;
+        this.hasLastKey = true;
+        return this.isStrided();
+    }
+
+    public boolean isStrided() {
+        return this.stride != 0 && this.runLength >= this.minRunLength;
+    }
+
+    public int getStride() {
+        return this.stride;
+    }
+
+}
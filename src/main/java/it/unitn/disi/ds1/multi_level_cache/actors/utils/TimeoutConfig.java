@@ -0,0 +1,64 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class TimeoutConfig {
+
+    /**
+     * Derive timeouts from the observed round-trip times, otherwise use the fixed timeouts
+     */
+    private final boolean isAdaptive;
+    private final long cacheFloorMillis;
+    private final long cacheCeilingMillis;
+    /**
+     * The client floor must exceed the cache ceiling, such that a cache always times-out
+     * (and answers) before its clients give up.
+     */
+    private final long clientFloorMillis;
+    private final long clientCeilingMillis;
+
+    public TimeoutConfig(boolean isAdaptive, long cacheFloorMillis, long cacheCeilingMillis, long clientFloorMillis,
+                         long clientCeilingMillis) {
+        if (isAdaptive && (cacheFloorMillis > cacheCeilingMillis || clientFloorMillis <= cacheCeilingMillis
+                || clientFloorMillis > clientCeilingMillis)) {
+            throw new IllegalArgumentException("Timeout bounds must satisfy cache floor <= cache ceiling < client floor <= client ceiling");
+        }
+        this.isAdaptive = isAdaptive;
+        this.cacheFloorMillis = cacheFloorMillis;
+        this.cacheCeilingMillis = cacheCeilingMillis;
+        this.clientFloorMillis = clientFloorMillis;
+        this.clientCeilingMillis = clientCeilingMillis;
+    }
+
+    public static TimeoutConfig fixed() {
+        return new TimeoutConfig(false, 0, 0, 0, 0);
+    }
+
+    public static TimeoutConfig adaptive() {
+        return adaptive(250, 2000, 3000, 8000);
+    }
+
+    public static TimeoutConfig adaptive(long cacheFloorMillis, long cacheCeilingMillis, long clientFloorMillis,
+                                         long clientCeilingMillis) {
+        return new TimeoutConfig(true, cacheFloorMillis, cacheCeilingMillis, clientFloorMillis, clientCeilingMillis);
+    }
+
+    public boolean isAdaptive() {
+        return this.isAdaptive;
+    }
+
+    public long getCacheFloorMillis() {
+        return this.cacheFloorMillis;
+    }
+
+    public long getCacheCeilingMillis() {
+        return this.cacheCeilingMillis;
+    }
+
+    public long getClientFloorMillis() {
+        return this.clientFloorMillis;
+    }
+
+    public long getClientCeilingMillis() {
+        return this.clientCeilingMillis;
+    }
+
+}
@@ -0,0 +1,38 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+public class TimerConfig {
+
+    /**
+     * Use a timing wheel for timeouts, otherwise one scheduler task per timeout
+     */
+    private final boolean isWheel;
+    private final long tickMillis;
+    private final int numOfSlots;
+
+    public TimerConfig(boolean isWheel, long tickMillis, int numOfSlots) {
+        this.isWheel = isWheel;
+        this.tickMillis = tickMillis;
+        this.numOfSlots = numOfSlots;
+    }
+
+    public static TimerConfig scheduler() {
+        return new TimerConfig(false, 0, 1);
+    }
+
+    public static TimerConfig wheel(long tickMillis, int numOfSlots) {
+        return new TimerConfig(true, tickMillis, numOfSlots);
+    }
+
+    public boolean isWheel() {
+        return this.isWheel;
+    }
+
+    public long getTickMillis() {
+        return this.tickMillis;
+    }
+
+    public int getNumOfSlots() {
+        return this.numOfSlots;
+    }
+
+}
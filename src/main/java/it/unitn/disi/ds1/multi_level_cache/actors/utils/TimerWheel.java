@@ -0,0 +1,132 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel. Timers are put into the slot of their deadline tick and
+ * are collected once the wheel has advanced past it. A timer that is further
+ * away than one revolution just stays in its slot for some more rounds.
+ *
+ * @param <T> Payload of a timer
+ */
+public class TimerWheel<T> {
+
+    private static class Entry<T> {
+
+        private final long deadlineTick;
+        private final T payload;
+
+        private Entry(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+    }
+
+    private final long tickMillis;
+    private final List<Map<Long, Entry<T>>> slots;
+    /**
+     * Slot of each pending timer by its handle
+     */
+    private final Map<Long, Integer> slotsByHandle = new HashMap<>();
+    private long currentTick = 0;
+    private long baseMillis = 0;
+    private long nextHandle = 1;
+
+    public TimerWheel(long tickMillis, int numOfSlots) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(numOfSlots);
+        for (int i = 0; i < numOfSlots; i++) {
+            this.slots.add(new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Adds a timer that expires after the given delay.
+     *
+     * @param payload     Payload of the timer
+     * @param delayMillis Delay, rounded up to the next tick
+     * @param nowMillis   The current time
+     * @return Handle to cancel the timer
+     */
+    public long schedule(T payload, long delayMillis, long nowMillis) {
+        if (this.isEmpty()) {
+            // the wheel doesn't tick while empty, therefore realign it to the current time
+            this.baseMillis = nowMillis - this.currentTick * this.tickMillis;
+        }
+
+        long ticksFromBase = (nowMillis - this.baseMillis + delayMillis + this.tickMillis - 1) / this.tickMillis;
+        long deadlineTick = Math.max(this.currentTick + 1, ticksFromBase);
+        int slot = (int) (deadlineTick % this.slots.size());
+        long handle = this.nextHandle;
+        this.nextHandle = this.nextHandle + 1;
+
+        this.slots.get(slot).put(handle, new Entry<>(deadlineTick, payload));
+        this.slotsByHandle.put(handle, slot);
+        return handle;
+    }
+
+    /**
+     * Removes a pending timer.
+     *
+     * @param handle Handle of the timer
+     * @return True if the timer was still pending
+     */
+    public boolean cancel(long handle) {
+        Integer slot = this.slotsByHandle.remove(handle);
+        if (slot == null) {
+            return false;
+        }
+        this.slots.get(slot).remove(handle);
+        return true;
+    }
+
+    /**
+     * Advances the wheel up to the given time and returns all expired timers.
+     *
+     * @param nowMillis The current time
+     * @return Handles and payloads of the expired timers
+     */
+    public Map<Long, T> advance(long nowMillis) {
+        Map<Long, T> expired = new LinkedHashMap<>();
+        long targetTick = (nowMillis - this.baseMillis) / this.tickMillis;
+
+        while (this.currentTick < targetTick && !this.isEmpty()) {
+            this.currentTick = this.currentTick + 1;
+            Map<Long, Entry<T>> slot = this.slots.get((int) (this.currentTick % this.slots.size()));
+            slot.entrySet().removeIf(entry -> {
+                if (entry.getValue().deadlineTick <= this.currentTick) {
+                    expired.put(entry.getKey(), entry.getValue().payload);
+                    this.slotsByHandle.remove(entry.getKey());
+                    return true;
+                }
+                return false;
+            });
+        }
+        // nothing left, jump ahead
+        this.currentTick = Math.max(this.currentTick, targetTick);
+        return expired;
+    }
+
+    public boolean isEmpty() {
+        return this.slotsByHandle.isEmpty();
+    }
+
+    public int size() {
+        return this.slotsByHandle.size();
+    }
+
+    public long getTickMillis() {
+        return this.tickMillis;
+    }
+
+    public void clear() {
+        this.slots.forEach(Map::clear);
+        this.slotsByHandle.clear();
+    }
+
+}
@@ -0,0 +1,64 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.storage.FsyncPolicy;
+
+import java.nio.file.Path;
+
+public class WriteAheadLogConfig {
+
+    private final boolean isEnabled;
+    /**
+     * Directory of the log file, it is created if missing
+     */
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+
+    public WriteAheadLogConfig(boolean isEnabled, Path directory, FsyncPolicy fsyncPolicy) {
+        this.isEnabled = isEnabled;
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public static WriteAheadLogConfig disabled() {
+        return new WriteAheadLogConfig(false, null, FsyncPolicy.perWrite());
+    }
+
+    public static WriteAheadLogConfig of(Path directory, FsyncPolicy fsyncPolicy) {
+        return new WriteAheadLogConfig(true, directory, fsyncPolicy);
+    }
+
+    /**
+     * Returns the config of a database partition, which keeps its files in a subdirectory.
+     */
+    public WriteAheadLogConfig forPartition(int partition) {
+        if (!this.isEnabled) {
+            return this;
+        }
+        return new WriteAheadLogConfig(true, this.directory.resolve("partition-" + (partition + 1)), this.fsyncPolicy);
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    public Path getLogPath() {
+        return this.directory.resolve("database.wal");
+    }
+
+    public Path getSnapshotPath() {
+        return this.directory.resolve("database.snapshot");
+    }
+
+    public Path getLsmDirectory() {
+        return this.directory.resolve("lsm");
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return this.fsyncPolicy;
+    }
+
+}
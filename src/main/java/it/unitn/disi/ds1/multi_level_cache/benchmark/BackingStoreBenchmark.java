@@ -0,0 +1,91 @@
+package it.unitn.disi.ds1.multi_level_cache.benchmark;
+
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BackingStore;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.DataStore;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.LogFileStore;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.MappedFileStore;
+import it.unitn.disi.ds1.multi_level_cache.storage.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares the stores of the database: writes, random reads, a full scan and the time to
+ * reopen a persistent store. The LSM tree reads through its reader threads, it is measured by
+ * the LSM benchmark. Run it with ./gradlew storeBenchmark, optionally with the number of keys
+ * (2M by default) and the directory of the files as arguments.
+ */
+public class BackingStoreBenchmark {
+
+    private static final int CHUNK_SIZE = 10000;
+
+    private interface StoreFactory {
+        BackingStore open() throws IOException;
+    }
+
+    private static double secondsSince(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static void run(String name, StoreFactory factory, int numOfKeys, boolean isPersistent) throws IOException {
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        try (BackingStore store = factory.open()) {
+            for (int key = 0; key < numOfKeys; key++) {
+                store.setValueForKey(key, random.nextInt(1000), 1);
+            }
+            double writeSeconds = secondsSince(start);
+
+            start = System.nanoTime();
+            long checksum = 0;
+            for (int i = 0; i < numOfKeys; i++) {
+                checksum = checksum + store.getValueForKey(random.nextInt(numOfKeys)).orElse(0);
+            }
+            double readSeconds = secondsSince(start);
+
+            start = System.nanoTime();
+            int[] keys = new int[CHUNK_SIZE];
+            int[] values = new int[CHUNK_SIZE];
+            int[] updateCounts = new int[CHUNK_SIZE];
+            int fromKey = Integer.MIN_VALUE;
+            int size;
+            do {
+                size = store.copyItems(fromKey, keys, values, updateCounts);
+                fromKey = size > 0 ? keys[size - 1] + 1 : fromKey;
+            } while (size == CHUNK_SIZE);
+            double scanSeconds = secondsSince(start);
+
+            System.out.printf("%-8s write %8.0f/s, read %9.0f/s, scan %6.2fs (checksum %d)%n", name,
+                    numOfKeys / writeSeconds, numOfKeys / readSeconds, scanSeconds, checksum);
+        } catch (IllegalAccessException e) {
+            // nothing is locked
+        }
+
+        if (isPersistent) {
+            start = System.nanoTime();
+            try (BackingStore store = factory.open()) {
+                System.out.printf("%-8s reopen %6.2fs, %d keys%n", name, secondsSince(start), store.size());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int numOfKeys = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("multi-level-cache");
+        Files.createDirectories(directory);
+        Path logPath = directory.resolve("benchmark.log");
+        Path mappedPath = directory.resolve("benchmark.mmap");
+
+        try {
+            run("memory", DataStore::new, numOfKeys, false);
+            run("file-log", () -> new LogFileStore(logPath, FsyncPolicy.everyRecords(4096)), numOfKeys, true);
+            run("mapped", () -> new MappedFileStore(mappedPath, 1024), numOfKeys, true);
+        } finally {
+            Files.deleteIfExists(logPath);
+            Files.deleteIfExists(mappedPath);
+        }
+    }
+
+}
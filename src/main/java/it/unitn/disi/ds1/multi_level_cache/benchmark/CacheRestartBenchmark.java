@@ -0,0 +1,244 @@
+package it.unitn.disi.ds1.multi_level_cache.benchmark;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import it.unitn.disi.ds1.multi_level_cache.actors.Database;
+import it.unitn.disi.ds1.multi_level_cache.actors.L1Cache;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.CacheSnapshotConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.DatasetConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.messages.ErrorMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.FillMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinDatabaseMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL1CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL2CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.ReadMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.ValidateMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Compares the load of the database after a cold and a warm restart of a L1 cache. First,
+ * a L1 cache reads a set of hot keys and writes its snapshot when the system is terminated.
+ * Then, the same reads on the hot keys are repeated twice: by a L1 cache that starts empty,
+ * and by one that restores the snapshot and validates it in bulk. A proxy in front of the
+ * database counts the messages and the keys it is asked for. All runs load the same dataset
+ * file, such that the restored update counts are still current. The log of the actors is
+ * discarded. Run it with ./gradlew cacheRestartBenchmark, optionally with the number of hot
+ * keys (100K by default), the number of reads (1M by default) and the directory of the files
+ * as arguments.
+ */
+public class CacheRestartBenchmark {
+
+    private static final int NUM_OF_ITEMS = 1_000_000;
+    private static final int READS_IN_FLIGHT = 1024;
+    private static final int VALIDATE_BATCH_SIZE = 512;
+
+    private static class Start {
+    }
+
+    /**
+     * Forwards everything to the database, the database answers the L1 cache directly.
+     */
+    private static class CountingProxy extends AbstractActor {
+
+        private final ActorRef database;
+        private final AtomicLong messageCount;
+        private final AtomicLong keyCount;
+
+        CountingProxy(ActorRef database, AtomicLong messageCount, AtomicLong keyCount) {
+            this.database = database;
+            this.messageCount = messageCount;
+            this.keyCount = keyCount;
+        }
+
+        @Override
+        public Receive createReceive() {
+            return this.receiveBuilder()
+                    .matchAny(message -> {
+                        this.messageCount.incrementAndGet();
+                        if (message instanceof ReadMessage) {
+                            this.keyCount.incrementAndGet();
+                        } else if (message instanceof ValidateMessage validateMessage) {
+                            this.keyCount.addAndGet(validateMessage.getKeys().size());
+                        }
+                        this.database.forward(message, this.getContext());
+                    })
+                    .build();
+        }
+    }
+
+    /**
+     * Acts as the only L2 cache, it reads the hot keys in order or at random and keeps a
+     * fixed number of reads in flight. A key is never read twice at once, since the L1
+     * cache would answer both reads with a single fill.
+     */
+    private static class Driver extends AbstractActor {
+
+        private final ActorRef l1Cache;
+        private final List<Integer> hotKeys;
+        private final int numOfReads;
+        private final boolean isSequential;
+        private final CompletableFuture<Long> done;
+        private final Random random = new Random(42);
+        private final Set<Integer> inFlight = new HashSet<>();
+        private int sentCount = 0;
+        private int answeredCount = 0;
+        private long start;
+
+        Driver(ActorRef l1Cache, List<Integer> hotKeys, int numOfReads, boolean isSequential, CompletableFuture<Long> done) {
+            this.l1Cache = l1Cache;
+            this.hotKeys = hotKeys;
+            this.numOfReads = numOfReads;
+            this.isSequential = isSequential;
+            this.done = done;
+        }
+
+        private void sendRead() {
+            int key = this.isSequential
+                    ? this.hotKeys.get(this.sentCount % this.hotKeys.size())
+                    : this.hotKeys.get(this.random.nextInt(this.hotKeys.size()));
+            while (this.inFlight.contains(key)) {
+                key = this.hotKeys.get(this.random.nextInt(this.hotKeys.size()));
+            }
+            this.inFlight.add(key);
+            this.l1Cache.tell(new ReadMessage(key, 0, MessageConfig.none()), this.getSelf());
+            this.sentCount = this.sentCount + 1;
+        }
+
+        private void onStart(Start message) {
+            this.start = System.nanoTime();
+            for (int i = 0; i < Math.min(READS_IN_FLIGHT, this.numOfReads); i++) {
+                this.sendRead();
+            }
+        }
+
+        private void onAnswer(int key) {
+            this.inFlight.remove(key);
+            this.answeredCount = this.answeredCount + 1;
+            if (this.answeredCount == this.numOfReads) {
+                this.done.complete(System.nanoTime() - this.start);
+            } else if (this.sentCount < this.numOfReads) {
+                this.sendRead();
+            }
+        }
+
+        @Override
+        public Receive createReceive() {
+            return this.receiveBuilder()
+                    .match(Start.class, this::onStart)
+                    .match(FillMessage.class, message -> this.onAnswer(message.getKey()))
+                    .match(ErrorMessage.class, message -> this.onAnswer(message.getKey()))
+                    .matchAny(message -> {
+                        // the driver doesn't use bloom filters or stats
+                    })
+                    .build();
+        }
+    }
+
+    private static void writeDataset(Path path) throws IOException {
+        Random random = new Random(42);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            for (int key = 0; key < NUM_OF_ITEMS; key++) {
+                out.writeInt(key);
+                out.writeInt(random.nextInt(1000));
+                out.writeInt(1);
+            }
+        }
+    }
+
+    /**
+     * Runs the reads until all are answered and terminates the system, which lets the L1
+     * cache write its snapshot if enabled.
+     *
+     * @return The seconds, messages and keys of the run
+     */
+    private static double[] run(NodeConfig config, List<Integer> hotKeys, int numOfReads, boolean isSequential)
+            throws Exception {
+        ActorSystem system = ActorSystem.create("cache-restart-benchmark");
+        try {
+            AtomicLong messageCount = new AtomicLong();
+            AtomicLong keyCount = new AtomicLong();
+            ActorRef database = system.actorOf(Database.props(config, 0));
+            ActorRef proxy = system.actorOf(Props.create(CountingProxy.class,
+                    () -> new CountingProxy(database, messageCount, keyCount)));
+            ActorRef l1Cache = system.actorOf(L1Cache.props("L1-1", config));
+            CompletableFuture<Long> done = new CompletableFuture<>();
+            ActorRef driver = system.actorOf(Props.create(Driver.class,
+                    () -> new Driver(l1Cache, hotKeys, numOfReads, isSequential, done)));
+
+            database.tell(new JoinL1CachesMessage(List.of(l1Cache)), ActorRef.noSender());
+            l1Cache.tell(new JoinDatabaseMessage(List.of(proxy)), ActorRef.noSender());
+            l1Cache.tell(new JoinL2CachesMessage(List.of(driver)), ActorRef.noSender());
+            driver.tell(new Start(), ActorRef.noSender());
+
+            long nanos = done.get(5, TimeUnit.MINUTES);
+            return new double[]{nanos / 1e9, messageCount.get(), keyCount.get()};
+        } finally {
+            system.terminate();
+            system.getWhenTerminated().toCompletableFuture().get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int numOfHotKeys = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int numOfReads = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Path directory = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("multi-level-cache");
+        Files.createDirectories(directory);
+        Path datasetPath = directory.resolve("dataset.bin");
+        writeDataset(datasetPath);
+
+        Random random = new Random(7);
+        List<Integer> hotKeys = random.ints(0, NUM_OF_ITEMS).distinct().limit(numOfHotKeys).boxed().toList();
+        NodeConfig coldConfig = NodeConfig.defaults().withDatasetConfig(DatasetConfig.file(datasetPath));
+        // the periodic snapshot is left to the end of the run
+        NodeConfig warmConfig = coldConfig.withCacheSnapshotConfig(CacheSnapshotConfig.of(directory.resolve("caches"),
+                TimeUnit.HOURS.toMillis(1), numOfHotKeys, VALIDATE_BATCH_SIZE));
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            // reads every hot key, the snapshot is written on termination
+            run(warmConfig, hotKeys, numOfHotKeys, true);
+
+            double[] cold = run(coldConfig, hotKeys, numOfReads, false);
+            double[] warm = run(warmConfig, hotKeys, numOfReads, false);
+            for (String name : List.of("cold", "warm")) {
+                double[] result = name.equals("cold") ? cold : warm;
+                out.printf("%-4s restart: %6.2fs, %9.0f reads/s, database messages %8.0f, database keys %8.0f%n", name,
+                        result[0], numOfReads / result[0], result[1], result[2]);
+            }
+            out.printf("database messages saved by the warm restart: %.1f%%%n", 100 * (1 - warm[1] / cold[1]));
+        } finally {
+            System.setOut(out);
+            deleteDirectory(directory);
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package it.unitn.disi.ds1.multi_level_cache.benchmark;
+
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BackingStore;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.DataStore;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.MappedFileStore;
+import it.unitn.disi.ds1.multi_level_cache.storage.DatasetLoader;
+import it.unitn.disi.ds1.multi_level_cache.storage.LsmTree;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Measures the bulk load of a dataset in records per second, from a binary and a CSV file
+ * with the keys in random order: into the in-memory and the mapped store, both built from
+ * the merged chunks, and into the LSM tree, which writes a table per chunk. The LSM tree
+ * includes the compaction of these tables, since it is closed. The per-key baseline sets the
+ * same items one by one. Run it with ./gradlew datasetBenchmark, optionally with the number
+ * of records (10M by default) and the directory of the files as arguments.
+ */
+public class DatasetBenchmark {
+
+    private static final int CHUNK_RECORDS = 1 << 20;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private interface Load {
+        long run(DatasetLoader loader) throws IOException;
+    }
+
+    private static void measure(String name, Path path, int numOfRecords, Load load) throws IOException {
+        System.gc();
+        DatasetLoader loader = new DatasetLoader(path, DatasetLoader.Format.of(path), CHUNK_RECORDS, PARALLELISM);
+        long start = System.nanoTime();
+        long count = load.run(loader);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-16s %-6s %6.2fs, %10.0f records/s, %d items%n", name,
+                DatasetLoader.Format.of(path), seconds, numOfRecords / seconds, count);
+    }
+
+    private static long loadInto(BackingStore store, DatasetLoader loader) throws IOException {
+        DatasetLoader.Chunk items = loader.loadMerged();
+        store.loadSorted(items.getKeys(), items.getValues(), items.getUpdateCounts(), items.getSize());
+        return store.size();
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int numOfRecords = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("multi-level-cache");
+        Files.createDirectories(directory);
+        Path binaryPath = directory.resolve("dataset.bin");
+        Path csvPath = directory.resolve("dataset.csv");
+        Path mappedPath = directory.resolve("dataset.mmap");
+        Path lsmDirectory = directory.resolve("lsm");
+
+        Random random = new Random(42);
+        int[] keys = new int[numOfRecords];
+        Arrays.setAll(keys, i -> i);
+        for (int i = numOfRecords - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+        try (DataOutputStream binary = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(binaryPath)));
+             BufferedWriter csv = Files.newBufferedWriter(csvPath)) {
+            csv.write("key,value,updateCount\n");
+            for (int key : keys) {
+                int value = random.nextInt(1000);
+                binary.writeInt(key);
+                binary.writeInt(value);
+                binary.writeInt(1);
+                csv.write(key + "," + value + ",1\n");
+            }
+        }
+
+        try {
+            DataStore baseline = new DataStore();
+            long start = System.nanoTime();
+            for (int key : keys) {
+                baseline.setValueForKey(key, key, 1);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-16s %-6s %6.2fs, %10.0f records/s%n", "per-key memory", "-", seconds, numOfRecords / seconds);
+            baseline = null;
+
+            for (Path path : new Path[]{binaryPath, csvPath}) {
+                measure("parse and merge", path, numOfRecords, loader -> loader.loadMerged().getSize());
+                measure("memory", path, numOfRecords, loader -> loadInto(new DataStore(), loader));
+                measure("mapped", path, numOfRecords, loader -> {
+                    try (MappedFileStore store = new MappedFileStore(mappedPath, numOfRecords)) {
+                        return loadInto(store, loader);
+                    }
+                });
+                measure("lsm", path, numOfRecords, loader -> {
+                    try (LsmTree tree = new LsmTree(lsmDirectory, CHUNK_RECORDS, 4)) {
+                        return tree.load(loader);
+                    } finally {
+                        deleteDirectory(lsmDirectory);
+                    }
+                });
+            }
+        } catch (IllegalAccessException e) {
+            // nothing is locked
+        } finally {
+            Files.deleteIfExists(binaryPath);
+            Files.deleteIfExists(csvPath);
+            Files.deleteIfExists(mappedPath);
+        }
+    }
+
+}
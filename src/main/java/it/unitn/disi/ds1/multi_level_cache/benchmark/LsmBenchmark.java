@@ -0,0 +1,116 @@
+package it.unitn.disi.ds1.multi_level_cache.benchmark;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+import it.unitn.disi.ds1.multi_level_cache.storage.LsmTree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Measures the LSM tree with a key space much larger than its memtable: the write throughput
+ * including flushes and compactions, and the latency of point reads from the tables. The heap
+ * only holds the memtables, indexes and Bloom filters. Run it with ./gradlew lsmBenchmark,
+ * optionally with the number of keys (10M by default) and the directory of the tables as
+ * arguments.
+ */
+public class LsmBenchmark {
+
+    private static final int MEMTABLE_SIZE = 200_000;
+    private static final int MAX_TABLES = 4;
+    private static final int NUM_OF_READS = 200_000;
+    private static final int READS_IN_FLIGHT = 64;
+
+    private static double secondsSince(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static long usedHeapMb() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+    }
+
+    private static long directorySizeMb(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            long size = 0;
+            for (Path path : paths.toList()) {
+                size = size + Files.size(path);
+            }
+            return size >> 20;
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int numOfKeys = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("multi-level-cache");
+        Path lsmDirectory = directory.resolve("lsm");
+        Random random = new Random(42);
+
+        try (LsmTree tree = new LsmTree(lsmDirectory, MEMTABLE_SIZE, MAX_TABLES)) {
+            // keys are written in random order, such that every table covers the whole key space
+            int[] keys = new int[numOfKeys];
+            Arrays.setAll(keys, i -> i);
+            for (int i = numOfKeys - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int key = keys[i];
+                keys[i] = keys[j];
+                keys[j] = key;
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < numOfKeys; i++) {
+                tree.put(keys[i], keys[i], 1, i + 1);
+            }
+            double writeSeconds = secondsSince(start);
+            System.out.printf("write:   %6.2fs, %8.0f writes/s, %d flushes, %d compactions, %d tables, %d MB on disk%n",
+                    writeSeconds, numOfKeys / writeSeconds, tree.getFlushCount(), tree.getCompactionCount(),
+                    tree.getTableCount(), directorySizeMb(lsmDirectory));
+            System.out.printf("heap:    %6d MB for %d keys%n", usedHeapMb(), numOfKeys);
+
+            // reads of unknown keys are mostly answered by the Bloom filters
+            for (boolean isKnown : new boolean[]{true, false}) {
+                long[] latencies = new long[NUM_OF_READS];
+                List<CompletableFuture<Optional<DataItem>>> inFlight = new ArrayList<>();
+                int found = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < NUM_OF_READS; i = i + READS_IN_FLIGHT) {
+                    inFlight.clear();
+                    long batchStart = System.nanoTime();
+                    for (int j = i; j < Math.min(NUM_OF_READS, i + READS_IN_FLIGHT); j++) {
+                        int key = isKnown ? random.nextInt(numOfKeys) : numOfKeys + random.nextInt(numOfKeys);
+                        inFlight.add(tree.readAsync(key));
+                    }
+                    for (int j = 0; j < inFlight.size(); j++) {
+                        found = found + (inFlight.get(j).join().isPresent() ? 1 : 0);
+                        latencies[i + j] = System.nanoTime() - batchStart;
+                    }
+                }
+                double readSeconds = secondsSince(start);
+                Arrays.sort(latencies);
+                System.out.printf("read %s: %8.0f reads/s, p50 %5.0fus, p99 %6.0fus, %d found%n",
+                        isKnown ? "known  " : "unknown", NUM_OF_READS / readSeconds, latencies[NUM_OF_READS / 2] / 1e3,
+                        latencies[NUM_OF_READS * 99 / 100] / 1e3, found);
+            }
+        } finally {
+            deleteDirectory(lsmDirectory);
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+package it.unitn.disi.ds1.multi_level_cache.benchmark;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import it.unitn.disi.ds1.multi_level_cache.actors.Database;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.DatasetConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.PartitionConfig;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL1CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.RefillMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.WriteMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the write throughput of the database as the number of partitions grows from 1 to
+ * the number of cores. A driver acts as the only L1 cache: it routes every write to the
+ * partition owning the key and keeps a fixed number of writes in flight, a write is done once
+ * its refill has arrived. The log of the actors is discarded, printing it would serialize all
+ * partitions. Run it with ./gradlew partitionBenchmark, optionally with the number of writes
+ * (1M by default) and the number of keys (100K by default) as arguments.
+ */
+public class PartitionBenchmark {
+
+    private static final int WRITES_IN_FLIGHT = 1024;
+
+    private static class Start {
+    }
+
+    private static class Driver extends AbstractActor {
+
+        private final List<ActorRef> databases;
+        private final PartitionConfig partitionConfig;
+        private final int numOfWrites;
+        private final int numOfKeys;
+        private final CompletableFuture<Long> done;
+        private final Random random = new Random(42);
+        private int sentCount = 0;
+        private int refillCount = 0;
+        private long start;
+
+        Driver(List<ActorRef> databases, PartitionConfig partitionConfig, int numOfWrites, int numOfKeys,
+               CompletableFuture<Long> done) {
+            this.databases = databases;
+            this.partitionConfig = partitionConfig;
+            this.numOfWrites = numOfWrites;
+            this.numOfKeys = numOfKeys;
+            this.done = done;
+        }
+
+        private void sendWrite() {
+            int key = this.random.nextInt(this.numOfKeys);
+            ActorRef database = this.databases.get(this.partitionConfig.getPartition(key));
+            database.tell(new WriteMessage(key, this.sentCount, MessageConfig.none()), this.getSelf());
+            this.sentCount = this.sentCount + 1;
+        }
+
+        private void onStart(Start message) {
+            this.start = System.nanoTime();
+            for (int i = 0; i < Math.min(WRITES_IN_FLIGHT, this.numOfWrites); i++) {
+                this.sendWrite();
+            }
+        }
+
+        private void onRefillMessage(RefillMessage message) {
+            this.refillCount = this.refillCount + 1;
+            if (this.refillCount == this.numOfWrites) {
+                this.done.complete(System.nanoTime() - this.start);
+            } else if (this.sentCount < this.numOfWrites) {
+                this.sendWrite();
+            }
+        }
+
+        @Override
+        public Receive createReceive() {
+            return this.receiveBuilder()
+                    .match(Start.class, this::onStart)
+                    .match(RefillMessage.class, this::onRefillMessage)
+                    .matchAny(message -> {
+                        // the driver doesn't use bloom filters or stats
+                    })
+                    .build();
+        }
+    }
+
+    private static double run(int numOfPartitions, int numOfWrites, int numOfKeys) throws Exception {
+        PartitionConfig partitionConfig = numOfPartitions > 1 ? PartitionConfig.hash(numOfPartitions) : PartitionConfig.single();
+        NodeConfig config = NodeConfig.defaults()
+                .withDatasetConfig(DatasetConfig.random(numOfKeys))
+                .withPartitionConfig(partitionConfig);
+
+        ActorSystem system = ActorSystem.create("partition-benchmark");
+        try {
+            List<ActorRef> databases = new ArrayList<>();
+            for (int i = 0; i < numOfPartitions; i++) {
+                databases.add(system.actorOf(Database.props(config, i)));
+            }
+            CompletableFuture<Long> done = new CompletableFuture<>();
+            ActorRef driver = system.actorOf(Props.create(Driver.class,
+                    () -> new Driver(List.copyOf(databases), partitionConfig, numOfWrites, numOfKeys, done)));
+            for (ActorRef database : databases) {
+                database.tell(new JoinL1CachesMessage(List.of(driver)), ActorRef.noSender());
+            }
+            driver.tell(new Start(), ActorRef.noSender());
+
+            long nanos = done.get(5, TimeUnit.MINUTES);
+            return numOfWrites / (nanos / 1e9);
+        } finally {
+            system.terminate();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int numOfWrites = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int numOfKeys = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int numOfCores = Runtime.getRuntime().availableProcessors();
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            // warm up the JIT once, otherwise the first run is slower than all others
+            run(1, numOfWrites / 10, numOfKeys);
+
+            // powers of two, the last step is the number of cores itself
+            SortedSet<Integer> steps = new TreeSet<>(List.of(numOfCores));
+            for (int numOfPartitions = 1; numOfPartitions < numOfCores; numOfPartitions = numOfPartitions * 2) {
+                steps.add(numOfPartitions);
+            }
+
+            double baseline = 0;
+            for (int numOfPartitions : steps) {
+                double throughput = run(numOfPartitions, numOfWrites, numOfKeys);
+                baseline = numOfPartitions == 1 ? throughput : baseline;
+                out.printf("partitions %3d: %9.0f writes/s, speedup %5.2f%n", numOfPartitions, throughput,
+                        throughput / baseline);
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+}
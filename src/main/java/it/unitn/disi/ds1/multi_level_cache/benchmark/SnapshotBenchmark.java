@@ -0,0 +1,104 @@
+package it.unitn.disi.ds1.multi_level_cache.benchmark;
+
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.DataStore;
+import it.unitn.disi.ds1.multi_level_cache.storage.FsyncPolicy;
+import it.unitn.disi.ds1.multi_level_cache.storage.LogRecord;
+import it.unitn.disi.ds1.multi_level_cache.storage.SnapshotFile;
+import it.unitn.disi.ds1.multi_level_cache.storage.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the time-to-ready of the database for a large key space: loading a snapshot versus
+ * replaying a log with one record per key. Run it with ./gradlew snapshotBenchmark, optionally
+ * with the number of keys (10M by default) and the directory of the files as arguments.
+ */
+public class SnapshotBenchmark {
+
+    private static double secondsSince(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static DataStore loadSnapshot(Path path) throws IOException {
+        try (SnapshotFile.Reader reader = new SnapshotFile.Reader(path)) {
+            int size = Math.toIntExact(reader.getItemCount());
+            int[] keys = new int[size];
+            int[] values = new int[size];
+            int[] updateCounts = new int[size];
+            int[] next = {0};
+            reader.forEach((key, value, updateCount) -> {
+                keys[next[0]] = key;
+                values[next[0]] = value;
+                updateCounts[next[0]] = updateCount;
+                next[0] = next[0] + 1;
+            });
+            DataStore store = new DataStore();
+            store.loadSorted(keys, values, updateCounts, size);
+            return store;
+        }
+    }
+
+    private static DataStore replayLog(Path path) throws IOException {
+        DataStore store = new DataStore();
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.perWrite())) {
+            log.replay(record -> {
+                try {
+                    store.setValueForKey(record.getKey(), record.getValue(), record.getUpdateCount());
+                } catch (IllegalAccessException e) {
+                    // nothing is locked
+                }
+            });
+        }
+        return store;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int numOfKeys = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("multi-level-cache");
+        Files.createDirectories(directory);
+        Path snapshotPath = directory.resolve("benchmark.snapshot");
+        Path logPath = directory.resolve("benchmark.wal");
+
+        try {
+            long start = System.nanoTime();
+            try (SnapshotFile.Writer writer = new SnapshotFile.Writer(snapshotPath, numOfKeys)) {
+                for (int key = 0; key < numOfKeys; key++) {
+                    writer.append(key, key, 1);
+                }
+                writer.commit();
+            }
+            System.out.printf("write snapshot:  %6.2fs, %5d MB%n", secondsSince(start), Files.size(snapshotPath) >> 20);
+
+            start = System.nanoTime();
+            try (WriteAheadLog log = new WriteAheadLog(logPath, FsyncPolicy.everyRecords(4096))) {
+                for (int key = 0; key < numOfKeys; key++) {
+                    log.append(LogRecord.put(key, key, 1, key + 1));
+                }
+            }
+            System.out.printf("write log:       %6.2fs, %5d MB%n", secondsSince(start), Files.size(logPath) >> 20);
+
+            start = System.nanoTime();
+            long[] checksum = {0};
+            try (SnapshotFile.Reader reader = new SnapshotFile.Reader(snapshotPath)) {
+                reader.forEach((key, value, updateCount) -> checksum[0] = checksum[0] + value);
+            }
+            System.out.printf("scan snapshot:   %6.2fs (checksum %d)%n", secondsSince(start), checksum[0]);
+
+            // the stores are dropped right away, such that both fit into the heap
+            start = System.nanoTime();
+            int size = loadSnapshot(snapshotPath).size();
+            System.out.printf("ready, snapshot: %6.2fs, %d keys%n", secondsSince(start), size);
+
+            System.gc();
+            start = System.nanoTime();
+            size = replayLog(logPath).size();
+            System.out.printf("ready, log:      %6.2fs, %d keys%n", secondsSince(start), size);
+        } finally {
+            Files.deleteIfExists(snapshotPath);
+            Files.deleteIfExists(logPath);
+        }
+    }
+
+}
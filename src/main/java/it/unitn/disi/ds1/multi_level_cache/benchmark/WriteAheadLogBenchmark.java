@@ -0,0 +1,51 @@
+package it.unitn.disi.ds1.multi_level_cache.benchmark;
+
+import it.unitn.disi.ds1.multi_level_cache.storage.FsyncPolicy;
+import it.unitn.disi.ds1.multi_level_cache.storage.LogRecord;
+import it.unitn.disi.ds1.multi_level_cache.storage.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Measures the write throughput of the write-ahead log for each fsync policy. Writes are
+ * appended one after the other, like the database actor does. Run it with
+ * ./gradlew walBenchmark, optionally with the directory of the log as argument, such that
+ * the disk under test is used.
+ */
+public class WriteAheadLogBenchmark {
+
+    private static final int NUM_OF_KEYS = 100_000;
+
+    private static void run(Path directory, FsyncPolicy policy, int numOfRecords) throws IOException {
+        Path path = Files.createTempFile(directory, "benchmark", ".wal");
+        try (WriteAheadLog log = new WriteAheadLog(path, policy)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < numOfRecords; i++) {
+                log.append(LogRecord.put(i % NUM_OF_KEYS, i, i / NUM_OF_KEYS + 1, i + 1));
+            }
+            log.sync();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-18s records: %8d, fsyncs: %7d, %10.0f writes/s, %8.3f ms/group%n", policy, numOfRecords,
+                    log.getSyncCount(), numOfRecords / seconds, seconds * 1000 / Math.max(1, log.getSyncCount()));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = args.length > 0 ? Path.of(args[0]) : Files.createTempDirectory("multi-level-cache");
+        Files.createDirectories(directory);
+
+        // per write is orders of magnitude slower, therefore it writes fewer records
+        run(directory, FsyncPolicy.perWrite(), 5_000);
+        for (FsyncPolicy policy : List.of(FsyncPolicy.everyRecords(16), FsyncPolicy.everyRecords(256),
+                FsyncPolicy.everyRecords(4096), FsyncPolicy.everyMillis(2), FsyncPolicy.everyMillis(10),
+                FsyncPolicy.everyMillis(100))) {
+            run(directory, policy, 1_000_000);
+        }
+    }
+
+}
@@ -1,12 +1,18 @@
 package it.unitn.disi.ds1.multi_level_cache.environment;
 
+import akka.NotUsed;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
+import akka.stream.javadsl.Source;
+import it.unitn.disi.ds1.multi_level_cache.actors.ChangeSubscriber;
 import it.unitn.disi.ds1.multi_level_cache.actors.Client;
 import it.unitn.disi.ds1.multi_level_cache.actors.Database;
+import it.unitn.disi.ds1.multi_level_cache.actors.DatabaseReplica;
 import it.unitn.disi.ds1.multi_level_cache.actors.L1Cache;
 import it.unitn.disi.ds1.multi_level_cache.actors.L2Cache;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
 import it.unitn.disi.ds1.multi_level_cache.messages.*;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.ChangeEvent;
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
 
 import java.util.ArrayList;
@@ -20,20 +26,34 @@ public class ActorEnvironment {
     private final int numOfL2Caches;
     private final int numOfClients;
     private final ActorSystem actorSystem;
-    private final ActorRef database;
+    /**
+     * Partitions of the database, a single one unless the config partitions the keys
+     */
+    private final List<ActorRef> databases;
+    /**
+     * Read replicas of each partition, by the index of the partition
+     */
+    private final List<List<ActorRef>> replicas;
     private final List<ActorRef> l1Caches;
     private final List<ActorRef> l2Caches;
     private final List<ActorRef> clients;
+    private final NodeConfig config;
 
     public ActorEnvironment(String name, int numOfL1Caches, int numOfL2Caches, int numOfClients) {
+        this(name, numOfL1Caches, numOfL2Caches, numOfClients, NodeConfig.defaults());
+    }
+
+    public ActorEnvironment(String name, int numOfL1Caches, int numOfL2Caches, int numOfClients, NodeConfig config) {
         this.numOfL1Caches = numOfL1Caches;
         this.numOfL2Caches = numOfL2Caches;
         this.numOfClients = numOfClients;
+        this.config = config;
 
         this.actorSystem = ActorSystem.create(name);
 
         // init actors
-        this.database = this.actorSystem.actorOf(Database.props());
+        this.databases = this.initDatabases(config.getPartitionConfig().getNumOfPartitions());
+        this.replicas = this.initReplicas(config.getReplicaConfig().getNumOfReplicas());
         this.l1Caches = this.initL1Caches(numOfL1Caches);
         this.l2Caches = this.initL2Caches(numOfL2Caches, this.l1Caches.size());
         this.clients = this.initClients(numOfClients);
@@ -42,8 +62,10 @@ public class ActorEnvironment {
     }
 
     private void establishCommunication() {
-        // tell database about all l1 caches
-        this.sendJoinL1CachesMessage(this.database, this.l1Caches);
+        // tell every partition of the database about all l1 caches
+        for (ActorRef database : this.databases) {
+            this.sendJoinL1CachesMessage(database, this.l1Caches);
+        }
 
         for (int i = 0; i < this.l1Caches.size(); i++) {
             ActorRef l1Cache = this.l1Caches.get(i);
@@ -62,6 +84,10 @@ public class ActorEnvironment {
                 this.sendJoinMainL1CacheMessage(l2Cache, l1Cache);
                 // tell l2 about the db
                 this.sendJoinDatabaseMessage(l2Cache);
+                // tell l2 about the other l2s of the same l1
+                this.sendJoinSiblingL2CachesMessage(l2Cache, l2CachesForL1);
+                // tell l2 about all l1s, in case its l1 becomes unreachable
+                this.sendJoinL1CachesMessage(l2Cache, this.l1Caches);
             }
         }
 
@@ -72,7 +98,7 @@ public class ActorEnvironment {
     }
 
     private void sendJoinDatabaseMessage(ActorRef actor) {
-        JoinDatabaseMessage message = new JoinDatabaseMessage(this.database);
+        JoinDatabaseMessage message = new JoinDatabaseMessage(this.databases, this.replicas);
         actor.tell(message, ActorRef.noSender());
     }
 
@@ -81,6 +107,11 @@ public class ActorEnvironment {
         actor.tell(message, ActorRef.noSender());
     }
 
+    private void sendJoinSiblingL2CachesMessage(ActorRef actor, List<ActorRef> l2Caches) {
+        JoinSiblingL2CachesMessage message = new JoinSiblingL2CachesMessage(l2Caches);
+        actor.tell(message, ActorRef.noSender());
+    }
+
     private void sendJoinL1CachesMessage(ActorRef actor, List<ActorRef> l1Caches) {
         JoinL1CachesMessage message = new JoinL1CachesMessage(l1Caches);
         actor.tell(message, ActorRef.noSender());
@@ -91,11 +122,35 @@ public class ActorEnvironment {
         actor.tell(message, ActorRef.noSender());
     }
 
+    private List<ActorRef> initDatabases(int total) {
+        List<ActorRef> actors = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            actors.add(this.actorSystem.actorOf(Database.props(this.config, i)));
+        }
+        return List.copyOf(actors);
+    }
+
+    /**
+     * Creates the read replicas of every partition, they join their primary on their own.
+     */
+    private List<List<ActorRef>> initReplicas(int total) {
+        List<List<ActorRef>> replicas = new ArrayList<>();
+        for (int i = 0; i < this.databases.size(); i++) {
+            List<ActorRef> actors = new ArrayList<>();
+            for (int j = 0; j < total; j++) {
+                String id = this.genReplicaId(i + 1, j + 1);
+                actors.add(this.actorSystem.actorOf(DatabaseReplica.props(id, this.config, this.databases.get(i))));
+            }
+            replicas.add(List.copyOf(actors));
+        }
+        return List.copyOf(replicas);
+    }
+
     private List<ActorRef> initL1Caches(int total) {
         List<ActorRef> actors = new ArrayList<>();
         for (int i = 0; i < total; i++) {
             String id = this.genL1Id(i + 1);
-            ActorRef actor = this.actorSystem.actorOf(L1Cache.props(id));
+            ActorRef actor = this.actorSystem.actorOf(L1Cache.props(id, this.config));
             actors.add(actor);
         }
         return List.copyOf(actors);
@@ -106,7 +161,7 @@ public class ActorEnvironment {
         for (int i = 0; i < l1Size; i++) {
             for (int j = 0; j < total; j++) {
                 String id = this.genL2Id(i + 1, j + 1);
-                ActorRef actor = this.actorSystem.actorOf(L2Cache.props(id));
+                ActorRef actor = this.actorSystem.actorOf(L2Cache.props(id, this.config));
                 actors.add(actor);
             }
         }
@@ -117,7 +172,7 @@ public class ActorEnvironment {
         List<ActorRef> actors = new ArrayList<>();
         for (int i = 0; i < total; i++) {
             String id = this.genClientId(i + 1);
-            ActorRef actor = this.actorSystem.actorOf(Client.props(id));
+            ActorRef actor = this.actorSystem.actorOf(Client.props(id, this.config));
             actors.add(actor);
         }
         return List.copyOf(actors);
@@ -131,6 +186,10 @@ public class ActorEnvironment {
         return String.format("L2-%d-%d", l1Id, l2Id);
     }
 
+    private String genReplicaId(int partition, int id) {
+        return String.format("R-%d-%d", partition, id);
+    }
+
     private String genClientId(int id) {
         return String.format("Client-%d", id);
     }
@@ -139,8 +198,27 @@ public class ActorEnvironment {
         return this.actorSystem;
     }
 
+    /**
+     * @return The first partition of the database, i.e. the whole database if it isn't partitioned
+     */
     public ActorRef getDatabase() {
-        return database;
+        return databases.get(0);
+    }
+
+    public List<ActorRef> getDatabases() {
+        return databases;
+    }
+
+    public List<List<ActorRef>> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @return The durable changes of a partition of the database after the given sequence number
+     */
+    public Source<ChangeEvent, NotUsed> getChanges(int partition, long afterSeq) {
+        return ChangeSubscriber.source(this.actorSystem, this.databases.get(partition), afterSeq,
+                this.config.getChangeStreamConfig().getMaxBatchSize());
     }
 
     public List<ActorRef> getL1Caches() {
@@ -212,6 +290,18 @@ public class ActorEnvironment {
         this.makeClientRead(client, l2Cache, key, MessageConfig.none());
     }
 
+    /**
+     * Makes the client read a key, accepting a possibly-stale value from the L2 cache.
+     */
+    public void makeClientStaleRead(ActorRef client, ActorRef l2Cache, int key, MessageConfig messageConfig) {
+        InstantiateReadMessage message = new InstantiateReadMessage(key, l2Cache, false, true, messageConfig);
+        client.tell(message, ActorRef.noSender());
+    }
+
+    public void makeClientStaleRead(ActorRef client, ActorRef l2Cache, int key) {
+        this.makeClientStaleRead(client, l2Cache, key, MessageConfig.none());
+    }
+
     public void makeClientCritRead(ActorRef client, ActorRef l2Cache, int key, MessageConfig messageConfig) {
         InstantiateReadMessage message = new InstantiateReadMessage(key, l2Cache, true, messageConfig);
         client.tell(message, ActorRef.noSender());
@@ -226,6 +316,44 @@ public class ActorEnvironment {
         this.makeClientRead(randomClient, l2Cache, key);
     }
 
+    /**
+     * Makes the client scan all keys in [fromKey, toKey). The keys are streamed back in chunks
+     * of chunkSize keys, with at most window chunks unacknowledged.
+     */
+    public void makeClientScan(ActorRef client, ActorRef l2Cache, int fromKey, int toKey, int chunkSize, int window,
+                               boolean isAbsorbed) {
+        InstantiateScanMessage message = new InstantiateScanMessage(fromKey, toKey, l2Cache, chunkSize, window, isAbsorbed);
+        client.tell(message, ActorRef.noSender());
+    }
+
+    public void makeClientScan(ActorRef client, ActorRef l2Cache, int fromKey, int toKey) {
+        this.makeClientScan(client, l2Cache, fromKey, toKey, 100, 4, false);
+    }
+
+    /**
+     * Asks all actors to log their collected statistics.
+     */
+    public void requestStats() {
+        StatsMessage message = new StatsMessage();
+        for (ActorRef actor : this.databases) {
+            actor.tell(message, ActorRef.noSender());
+        }
+        for (List<ActorRef> partitionReplicas : this.replicas) {
+            for (ActorRef actor : partitionReplicas) {
+                actor.tell(message, ActorRef.noSender());
+            }
+        }
+        for (ActorRef actor : this.l1Caches) {
+            actor.tell(message, ActorRef.noSender());
+        }
+        for (ActorRef actor : this.l2Caches) {
+            actor.tell(message, ActorRef.noSender());
+        }
+        for (ActorRef actor : this.clients) {
+            actor.tell(message, ActorRef.noSender());
+        }
+    }
+
     public void makeCacheCrash(ActorRef cache, long recoverAfter) {
         CrashMessage message = new CrashMessage(recoverAfter);
         cache.tell(message, ActorRef.noSender());
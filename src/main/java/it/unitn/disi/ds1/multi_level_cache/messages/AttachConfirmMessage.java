@@ -0,0 +1,9 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Reply of an L1 cache to an AttachMessage.
+ */
+public class AttachConfirmMessage implements Serializable {
+}
@@ -0,0 +1,11 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by an L2 cache to an L1 cache, to become one of its L2 caches. Either
+ * temporarily, while its home L1 cache is unreachable, or to probe whether the
+ * home L1 cache has recovered.
+ */
+public class AttachMessage implements Serializable {
+}
@@ -0,0 +1,24 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Answers a PrefetchMessage. Unknown or locked keys are left out.
+ */
+public class BatchFillMessage extends UUIDMessage {
+
+    private final List<DataItem> items;
+
+    public BatchFillMessage(UUID uuid, List<DataItem> items) {
+        super(uuid);
+        this.items = List.copyOf(items);
+    }
+
+    public List<DataItem> getItems() {
+        return items;
+    }
+
+}
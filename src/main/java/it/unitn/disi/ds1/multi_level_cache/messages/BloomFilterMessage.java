@@ -0,0 +1,80 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Carries the Bloom filter of all keys known by the database. It is either a
+ * full snapshot (all bits as long words) or a delta (indices of the bits that
+ * have been set since the previous version). Every partition of the database
+ * has its own filter.
+ */
+public class BloomFilterMessage implements Serializable {
+
+    /**
+     * Index of the partition that owns the filter
+     */
+    private final int partition;
+    private final long version;
+    private final boolean isDelta;
+    private final int numOfBits;
+    private final int numOfHashes;
+    private final long[] words;
+    private final int[] changedBits;
+
+    private BloomFilterMessage(int partition, long version, boolean isDelta, int numOfBits, int numOfHashes, long[] words,
+                               int[] changedBits) {
+        this.partition = partition;
+        this.version = version;
+        this.isDelta = isDelta;
+        this.numOfBits = numOfBits;
+        this.numOfHashes = numOfHashes;
+        this.words = words;
+        this.changedBits = changedBits;
+    }
+
+    public static BloomFilterMessage snapshot(int partition, long version, int numOfBits, int numOfHashes, long[] words) {
+        return new BloomFilterMessage(partition, version, false, numOfBits, numOfHashes, words, new int[0]);
+    }
+
+    public static BloomFilterMessage delta(int partition, long version, int numOfBits, int numOfHashes, int[] changedBits) {
+        return new BloomFilterMessage(partition, version, true, numOfBits, numOfHashes, new long[0], changedBits);
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isDelta() {
+        return isDelta;
+    }
+
+    public int getNumOfBits() {
+        return numOfBits;
+    }
+
+    public int getNumOfHashes() {
+        return numOfHashes;
+    }
+
+    public long[] getWords() {
+        return words;
+    }
+
+    public int[] getChangedBits() {
+        return changedBits;
+    }
+
+    /**
+     * Returns the approximate payload size of this message.
+     *
+     * @return Size in bytes
+     */
+    public int getSizeInBytes() {
+        return this.isDelta ? this.changedBits.length * Integer.BYTES : this.words.length * Long.BYTES;
+    }
+
+}
@@ -0,0 +1,32 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Summary of all keys cached by a L2 cache, sent to its siblings as Bloom filter.
+ */
+public class CacheDigestMessage implements Serializable {
+
+    private final int numOfBits;
+    private final int numOfHashes;
+    private final long[] words;
+
+    public CacheDigestMessage(int numOfBits, int numOfHashes, long[] words) {
+        this.numOfBits = numOfBits;
+        this.numOfHashes = numOfHashes;
+        this.words = words;
+    }
+
+    public int getNumOfBits() {
+        return numOfBits;
+    }
+
+    public int getNumOfHashes() {
+        return numOfHashes;
+    }
+
+    public long[] getWords() {
+        return words;
+    }
+
+}
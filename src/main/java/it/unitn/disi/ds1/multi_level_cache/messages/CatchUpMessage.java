@@ -0,0 +1,21 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Asks the database for all keys that have been changed after the given
+ * sequence number.
+ */
+public class CatchUpMessage implements Serializable {
+
+    private final long sinceSeq;
+
+    public CatchUpMessage(long sinceSeq) {
+        this.sinceSeq = sinceSeq;
+    }
+
+    public long getSinceSeq() {
+        return sinceSeq;
+    }
+
+}
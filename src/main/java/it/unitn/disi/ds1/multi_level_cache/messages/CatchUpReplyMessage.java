@@ -0,0 +1,41 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The keys changed since the requested sequence number. If the change log of
+ * the database doesn't reach back far enough, the reply is truncated and the
+ * keys are empty.
+ */
+public class CatchUpReplyMessage implements Serializable {
+
+    private final long sinceSeq;
+    private final long highWaterSeq;
+    private final boolean isTruncated;
+    private final List<Integer> keys;
+
+    public CatchUpReplyMessage(long sinceSeq, long highWaterSeq, boolean isTruncated, List<Integer> keys) {
+        this.sinceSeq = sinceSeq;
+        this.highWaterSeq = highWaterSeq;
+        this.isTruncated = isTruncated;
+        this.keys = List.copyOf(keys);
+    }
+
+    public long getSinceSeq() {
+        return sinceSeq;
+    }
+
+    public long getHighWaterSeq() {
+        return highWaterSeq;
+    }
+
+    public boolean isTruncated() {
+        return isTruncated;
+    }
+
+    public List<Integer> getKeys() {
+        return keys;
+    }
+
+}
@@ -0,0 +1,40 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.ChangeEvent;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Answers a ChangeRequestMessage with the next changes in commit order. If the database
+ * doesn't retain the changes after the requested sequence number anymore, the batch is
+ * empty and truncated.
+ */
+public class ChangeBatchMessage implements Serializable {
+
+    private final List<ChangeEvent> changes;
+    private final boolean isTruncated;
+    /**
+     * Sequence number of the oldest retained change
+     */
+    private final long firstSeq;
+
+    public ChangeBatchMessage(List<ChangeEvent> changes, boolean isTruncated, long firstSeq) {
+        this.changes = List.copyOf(changes);
+        this.isTruncated = isTruncated;
+        this.firstSeq = firstSeq;
+    }
+
+    public List<ChangeEvent> getChanges() {
+        return this.changes;
+    }
+
+    public boolean isTruncated() {
+        return this.isTruncated;
+    }
+
+    public long getFirstSeq() {
+        return this.firstSeq;
+    }
+
+}
@@ -0,0 +1,35 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by a subscriber of the change stream, to get the next batch of changes. The
+ * database answers once there is at least one change after the given sequence number.
+ */
+public class ChangeRequestMessage implements Serializable {
+
+    /**
+     * Requests the changes from the oldest one the database still retains
+     */
+    public static final long OLDEST = -1;
+
+    /**
+     * The last sequence number the subscriber has received, or OLDEST
+     */
+    private final long afterSeq;
+    private final int maxCount;
+
+    public ChangeRequestMessage(long afterSeq, int maxCount) {
+        this.afterSeq = afterSeq;
+        this.maxCount = maxCount;
+    }
+
+    public long getAfterSeq() {
+        return this.afterSeq;
+    }
+
+    public int getMaxCount() {
+        return this.maxCount;
+    }
+
+}
@@ -2,7 +2,7 @@ package it.unitn.disi.ds1.multi_level_cache.messages;
 
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
 
-public class CritReadMessage extends Message {
+public class CritReadMessage extends Message implements KeyedMessage {
 
     private final int key;
 
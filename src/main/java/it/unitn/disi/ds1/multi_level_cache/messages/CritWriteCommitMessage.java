@@ -10,11 +10,21 @@ public class CritWriteCommitMessage extends UUIDMessage {
 
     private final int updateCount;
 
+    /**
+     * Sequence number of the commit at the database, 0 if unknown
+     */
+    private final long commitSeq;
+
     public CritWriteCommitMessage(UUID uuid, int key, int value, int updateCount) {
+        this(uuid, key, value, updateCount, 0);
+    }
+
+    public CritWriteCommitMessage(UUID uuid, int key, int value, int updateCount, long commitSeq) {
         super(uuid);
         this.key = key;
         this.value = value;
         this.updateCount = updateCount;
+        this.commitSeq = commitSeq;
     }
 
     public int getKey() {
@@ -29,4 +39,8 @@ public class CritWriteCommitMessage extends UUIDMessage {
         return updateCount;
     }
 
+    public long getCommitSeq() {
+        return commitSeq;
+    }
+
 }
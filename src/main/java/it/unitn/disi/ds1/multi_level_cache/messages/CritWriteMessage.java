@@ -2,7 +2,7 @@ package it.unitn.disi.ds1.multi_level_cache.messages;
 
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
 
-public class CritWriteMessage extends Message {
+public class CritWriteMessage extends Message implements KeyedMessage {
 
     private final int key;
 
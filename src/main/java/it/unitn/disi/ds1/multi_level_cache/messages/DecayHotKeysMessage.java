@@ -0,0 +1,9 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by a L1 cache to itself, to let the counts of its hot keys cool down.
+ */
+public class DecayHotKeysMessage implements Serializable {
+}
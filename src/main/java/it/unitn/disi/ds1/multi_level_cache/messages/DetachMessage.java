@@ -0,0 +1,10 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by an L2 cache to the L1 cache it has temporarily been attached to,
+ * once it has rejoined its home L1 cache.
+ */
+public class DetachMessage implements Serializable {
+}
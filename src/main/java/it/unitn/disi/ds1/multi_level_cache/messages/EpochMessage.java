@@ -0,0 +1,30 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Announces the new epoch of a recovered L1 cache to its L2 caches, together
+ * with the high-water sequence number of each partition of the database. An L2
+ * cache that has seen all commits up to them has not missed anything.
+ */
+public class EpochMessage implements Serializable {
+
+    private final long epoch;
+
+    private final List<Long> highWaterSeqs;
+
+    public EpochMessage(long epoch, List<Long> highWaterSeqs) {
+        this.epoch = epoch;
+        this.highWaterSeqs = highWaterSeqs;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public List<Long> getHighWaterSeqs() {
+        return highWaterSeqs;
+    }
+
+}
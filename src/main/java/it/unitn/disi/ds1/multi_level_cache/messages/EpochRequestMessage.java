@@ -0,0 +1,10 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by a recovered L1 cache to the database, to get the current high-water
+ * sequence number of all commits.
+ */
+public class EpochRequestMessage implements Serializable {
+}
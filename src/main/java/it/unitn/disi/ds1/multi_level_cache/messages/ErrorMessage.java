@@ -31,6 +31,10 @@ public class ErrorMessage implements Serializable {
         return new ErrorMessage(ErrorType.INTERNAL_ERROR, key, messageType, errorMessage);
     }
 
+    public static ErrorMessage overloaded(int key, MessageType messageType, String errorMessage) {
+        return new ErrorMessage(ErrorType.OVERLOADED, key, messageType, errorMessage);
+    }
+
     public ErrorType getErrorType() {
         return this.errorType;
     }
@@ -0,0 +1,10 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent periodically to every monitored peer, which answers with a HeartbeatReplyMessage.
+ * A crashed cache drops it, like every other message.
+ */
+public class HeartbeatMessage implements Serializable {
+}
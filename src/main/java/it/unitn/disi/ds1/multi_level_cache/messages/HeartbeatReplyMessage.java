@@ -0,0 +1,21 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+public class HeartbeatReplyMessage implements Serializable {
+
+    /**
+     * Number of recoveries of the sender. If it has not changed since the sender has been
+     * suspected, the suspicion was false.
+     */
+    private final long incarnation;
+
+    public HeartbeatReplyMessage(long incarnation) {
+        this.incarnation = incarnation;
+    }
+
+    public long getIncarnation() {
+        return this.incarnation;
+    }
+
+}
@@ -0,0 +1,9 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Periodic message a node sends to itself, to check and ping all monitored peers.
+ */
+public class HeartbeatTickMessage implements Serializable {
+}
@@ -0,0 +1,17 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+public class HighWaterMessage implements Serializable {
+
+    private final long highWaterSeq;
+
+    public HighWaterMessage(long highWaterSeq) {
+        this.highWaterSeq = highWaterSeq;
+    }
+
+    public long getHighWaterSeq() {
+        return highWaterSeq;
+    }
+
+}
@@ -8,12 +8,18 @@ public class InstantiateReadMessage extends Message {
     private final int key;
     private final boolean isCritical;
     private final ActorRef l2Cache;
+    private final boolean isStaleAllowed;
 
     public InstantiateReadMessage(int key, ActorRef l2Cache, boolean isCritical, MessageConfig messageConfig) {
+        this(key, l2Cache, isCritical, false, messageConfig);
+    }
+
+    public InstantiateReadMessage(int key, ActorRef l2Cache, boolean isCritical, boolean isStaleAllowed, MessageConfig messageConfig) {
         super(messageConfig);
         this.key = key;
         this.l2Cache = l2Cache;
         this.isCritical = isCritical;
+        this.isStaleAllowed = isStaleAllowed;
     }
 
     public int getKey() {
@@ -28,4 +34,8 @@ public class InstantiateReadMessage extends Message {
         return isCritical;
     }
 
+    public boolean isStaleAllowed() {
+        return isStaleAllowed;
+    }
+
 }
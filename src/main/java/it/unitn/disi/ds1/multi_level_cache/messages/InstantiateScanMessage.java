@@ -0,0 +1,49 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import akka.actor.ActorRef;
+
+import java.io.Serializable;
+
+public class InstantiateScanMessage implements Serializable {
+
+    private final int fromKey;
+    private final int toKey;
+    private final ActorRef l2Cache;
+    private final int chunkSize;
+    private final int window;
+    private final boolean isAbsorbed;
+
+    public InstantiateScanMessage(int fromKey, int toKey, ActorRef l2Cache, int chunkSize, int window, boolean isAbsorbed) {
+        this.fromKey = fromKey;
+        this.toKey = toKey;
+        this.l2Cache = l2Cache;
+        this.chunkSize = chunkSize;
+        this.window = window;
+        this.isAbsorbed = isAbsorbed;
+    }
+
+    public int getFromKey() {
+        return fromKey;
+    }
+
+    public int getToKey() {
+        return toKey;
+    }
+
+    public ActorRef getL2Cache() {
+        return l2Cache;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public boolean isAbsorbed() {
+        return isAbsorbed;
+    }
+
+}
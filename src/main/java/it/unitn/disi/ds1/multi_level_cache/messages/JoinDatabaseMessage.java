@@ -3,17 +3,34 @@ package it.unitn.disi.ds1.multi_level_cache.messages;
 import akka.actor.ActorRef;
 
 import java.io.Serializable;
+import java.util.List;
 
 public class JoinDatabaseMessage implements Serializable {
 
-    private final ActorRef database;
+    /**
+     * All partitions of the database, by their index
+     */
+    private final List<ActorRef> databases;
+    /**
+     * Read replicas of each partition, by the index of the partition
+     */
+    private final List<List<ActorRef>> replicas;
 
-    public JoinDatabaseMessage(ActorRef database) {
-        this.database = database;
+    public JoinDatabaseMessage(List<ActorRef> databases) {
+        this(databases, List.of());
     }
 
-    public ActorRef getDatabase() {
-        return database;
+    public JoinDatabaseMessage(List<ActorRef> databases, List<List<ActorRef>> replicas) {
+        this.databases = List.copyOf(databases);
+        this.replicas = replicas.stream().map(List::copyOf).toList();
+    }
+
+    public List<ActorRef> getDatabases() {
+        return databases;
+    }
+
+    public List<List<ActorRef>> getReplicas() {
+        return replicas;
     }
 
 }
@@ -0,0 +1,20 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import akka.actor.ActorRef;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class JoinSiblingL2CachesMessage implements Serializable {
+
+    private final List<ActorRef> siblingL2Caches;
+
+    public JoinSiblingL2CachesMessage(List<ActorRef> siblingL2Caches) {
+        this.siblingL2Caches = List.copyOf(siblingL2Caches);
+    }
+
+    public List<ActorRef> getSiblingL2Caches() {
+        return siblingL2Caches;
+    }
+
+}
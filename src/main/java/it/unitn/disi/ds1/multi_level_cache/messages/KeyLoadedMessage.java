@@ -0,0 +1,46 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * Piped to the database once a key has been read from its storage, or the read has failed.
+ */
+public class KeyLoadedMessage implements Serializable {
+
+    private final int key;
+    /**
+     * The read item, null if the key is unknown
+     */
+    private final DataItem item;
+    private final boolean isOk;
+
+    private KeyLoadedMessage(int key, DataItem item, boolean isOk) {
+        this.key = key;
+        this.item = item;
+        this.isOk = isOk;
+    }
+
+    public static KeyLoadedMessage loaded(int key, Optional<DataItem> item) {
+        return new KeyLoadedMessage(key, item.orElse(null), true);
+    }
+
+    public static KeyLoadedMessage failed(int key) {
+        return new KeyLoadedMessage(key, null, false);
+    }
+
+    public int getKey() {
+        return this.key;
+    }
+
+    public Optional<DataItem> getItem() {
+        return Optional.ofNullable(this.item);
+    }
+
+    public boolean isOk() {
+        return this.isOk;
+    }
+
+}
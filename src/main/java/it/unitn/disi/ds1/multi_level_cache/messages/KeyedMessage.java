@@ -0,0 +1,10 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+/**
+ * A message that operates on a single key.
+ */
+public interface KeyedMessage {
+
+    int getKey();
+
+}
@@ -0,0 +1,23 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Message the database sends to itself, to measure how long a message waits in its mailbox.
+ */
+public class LoadProbeMessage implements Serializable {
+
+    /**
+     * Time the probe has been enqueued
+     */
+    private final long enqueuedMillis;
+
+    public LoadProbeMessage(long enqueuedMillis) {
+        this.enqueuedMillis = enqueuedMillis;
+    }
+
+    public long getEnqueuedMillis() {
+        return this.enqueuedMillis;
+    }
+
+}
@@ -0,0 +1,39 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import it.unitn.disi.ds1.multi_level_cache.storage.LogCompactor;
+
+import java.io.Serializable;
+
+/**
+ * Sent by the log compactor to the database, once the compacted copy of the log is on disk
+ * or the compaction has failed.
+ */
+public class LogCompactedMessage implements Serializable {
+
+    /**
+     * Offset in the log up to which the copy has been made
+     */
+    private final long endOffset;
+    /**
+     * The result, null if the compaction has failed
+     */
+    private final LogCompactor.Result result;
+
+    public LogCompactedMessage(long endOffset, LogCompactor.Result result) {
+        this.endOffset = endOffset;
+        this.result = result;
+    }
+
+    public long getEndOffset() {
+        return this.endOffset;
+    }
+
+    public LogCompactor.Result getResult() {
+        return this.result;
+    }
+
+    public boolean isOk() {
+        return this.result != null;
+    }
+
+}
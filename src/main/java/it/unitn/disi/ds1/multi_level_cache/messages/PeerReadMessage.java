@@ -0,0 +1,28 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Asks a sibling L2 cache for a key. The sibling only answers with its value
+ * if it is at least as new as the given update count.
+ */
+public class PeerReadMessage implements Serializable {
+
+    private final int key;
+
+    private final int updateCount;
+
+    public PeerReadMessage(int key, int updateCount) {
+        this.key = key;
+        this.updateCount = updateCount;
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    public int getUpdateCount() {
+        return updateCount;
+    }
+
+}
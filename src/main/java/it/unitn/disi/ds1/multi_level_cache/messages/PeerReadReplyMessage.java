@@ -0,0 +1,42 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+public class PeerReadReplyMessage implements Serializable {
+
+    private final int key;
+
+    private final boolean isFound;
+
+    private final int value;
+
+    private final int updateCount;
+
+    public PeerReadReplyMessage(int key, boolean isFound, int value, int updateCount) {
+        this.key = key;
+        this.isFound = isFound;
+        this.value = value;
+        this.updateCount = updateCount;
+    }
+
+    public static PeerReadReplyMessage notFound(int key) {
+        return new PeerReadReplyMessage(key, false, 0, 0);
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    public boolean isFound() {
+        return isFound;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getUpdateCount() {
+        return updateCount;
+    }
+
+}
@@ -0,0 +1,9 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Periodic message a L1 cache sends to itself, to write its hot items to disk.
+ */
+public class PersistCacheMessage implements Serializable {
+}
@@ -0,0 +1,28 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Requests a window of keys in a single batch. It is answered by a
+ * BatchFillMessage with the same UUID.
+ */
+public class PrefetchMessage extends UUIDMessage {
+
+    private final List<Integer> keys;
+
+    public PrefetchMessage(List<Integer> keys) {
+        super();
+        this.keys = List.copyOf(keys);
+    }
+
+    public PrefetchMessage(UUID uuid, List<Integer> keys) {
+        super(uuid);
+        this.keys = List.copyOf(keys);
+    }
+
+    public List<Integer> getKeys() {
+        return keys;
+    }
+
+}
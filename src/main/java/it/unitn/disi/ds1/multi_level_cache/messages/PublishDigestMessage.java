@@ -0,0 +1,9 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by a L2 cache to itself, to send its digest to all siblings.
+ */
+public class PublishDigestMessage implements Serializable {
+}
@@ -2,16 +2,26 @@ package it.unitn.disi.ds1.multi_level_cache.messages;
 
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
 
-public class ReadMessage extends Message {
+public class ReadMessage extends Message implements KeyedMessage {
 
     private final int key;
 
     private final int updateCount;
 
+    /**
+     * The client accepts a possibly-stale value, if the cache is older
+     */
+    private final boolean isStaleAllowed;
+
     public ReadMessage(int key, int updateCount, MessageConfig messageConfig) {
+        this(key, updateCount, messageConfig, false);
+    }
+
+    public ReadMessage(int key, int updateCount, MessageConfig messageConfig, boolean isStaleAllowed) {
         super(messageConfig);
         this.key = key;
         this.updateCount = updateCount;
+        this.isStaleAllowed = isStaleAllowed;
     }
 
     public int getKey() {
@@ -22,4 +32,8 @@ public class ReadMessage extends Message {
         return updateCount;
     }
 
+    public boolean isStaleAllowed() {
+        return isStaleAllowed;
+    }
+
 }
@@ -10,10 +10,20 @@ public class ReadReplyMessage implements Serializable {
 
     private final int updateCount;
 
+    /**
+     * The value may be older than the one known by the client
+     */
+    private final boolean isStale;
+
     public ReadReplyMessage(int key, int value, int updateCount) {
+        this(key, value, updateCount, false);
+    }
+
+    public ReadReplyMessage(int key, int value, int updateCount, boolean isStale) {
         this.key = key;
         this.value = value;
         this.updateCount = updateCount;
+        this.isStale = isStale;
     }
 
 
@@ -29,4 +39,8 @@ public class ReadReplyMessage implements Serializable {
         return updateCount;
     }
 
+    public boolean isStale() {
+        return isStale;
+    }
+
 }
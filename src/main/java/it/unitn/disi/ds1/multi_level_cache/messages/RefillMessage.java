@@ -10,11 +10,21 @@ public class RefillMessage extends UUIDMessage {
 
     private final int updateCount;
 
+    /**
+     * Sequence number of the commit at the database, 0 if unknown
+     */
+    private final long commitSeq;
+
     public RefillMessage(UUID uuid, int key, int value, int updateCount) {
+        this(uuid, key, value, updateCount, 0);
+    }
+
+    public RefillMessage(UUID uuid, int key, int value, int updateCount, long commitSeq) {
         super(uuid);
         this.key = key;
         this.value = value;
         this.updateCount = updateCount;
+        this.commitSeq = commitSeq;
     }
 
     public int getKey() {
@@ -29,4 +39,8 @@ public class RefillMessage extends UUIDMessage {
         return updateCount;
     }
 
+    public long getCommitSeq() {
+        return commitSeq;
+    }
+
 }
@@ -0,0 +1,9 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by the database to itself, to push the next version of its Bloom filter.
+ */
+public class RefreshBloomFilterMessage implements Serializable {
+}
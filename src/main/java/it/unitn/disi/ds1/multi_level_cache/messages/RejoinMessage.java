@@ -0,0 +1,10 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Periodic message an L2 cache sends to itself, to probe its home L1 cache
+ * while being attached to another L1 cache.
+ */
+public class RejoinMessage implements Serializable {
+}
@@ -0,0 +1,41 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import akka.actor.ActorRef;
+
+import java.io.Serializable;
+
+/**
+ * Message the database sends to itself, to copy the next chunk of its items to a
+ * joining read replica.
+ */
+public class ReplicaCopyMessage implements Serializable {
+
+    private final ActorRef replica;
+    /**
+     * The chunk starts at the first key greater or equal to this one
+     */
+    private final int fromKey;
+    /**
+     * Commit sequence number at the join of the replica
+     */
+    private final long seq;
+
+    public ReplicaCopyMessage(ActorRef replica, int fromKey, long seq) {
+        this.replica = replica;
+        this.fromKey = fromKey;
+        this.seq = seq;
+    }
+
+    public ActorRef getReplica() {
+        return this.replica;
+    }
+
+    public int getFromKey() {
+        return this.fromKey;
+    }
+
+    public long getSeq() {
+        return this.seq;
+    }
+
+}
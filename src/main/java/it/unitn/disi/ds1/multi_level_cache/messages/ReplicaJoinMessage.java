@@ -0,0 +1,10 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by a read replica to its primary. The primary copies all its items to the
+ * replica and streams every later commit to it.
+ */
+public class ReplicaJoinMessage implements Serializable {
+}
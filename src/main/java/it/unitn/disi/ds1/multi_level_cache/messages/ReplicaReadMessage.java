@@ -0,0 +1,34 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Read or critical read of a L1 cache, sent to a read replica instead of the primary.
+ * The replica forwards it to the primary, unless it has applied all commits up to the
+ * given sequence number and knows at least the update count of the requester.
+ */
+public class ReplicaReadMessage implements Serializable {
+
+    /**
+     * Either a ReadMessage or a CritReadMessage
+     */
+    private final Message read;
+    /**
+     * Latest commit the L1 cache has seen, 0 if any commit is fine
+     */
+    private final long minCommitSeq;
+
+    public ReplicaReadMessage(Message read, long minCommitSeq) {
+        this.read = read;
+        this.minCommitSeq = minCommitSeq;
+    }
+
+    public Message getRead() {
+        return this.read;
+    }
+
+    public long getMinCommitSeq() {
+        return this.minCommitSeq;
+    }
+
+}
@@ -0,0 +1,40 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Chunk of the items of the primary, copied to a joining read replica. The items
+ * contain at least all commits up to the sequence number, later chunks may contain
+ * newer ones as well.
+ */
+public class ReplicaSyncMessage implements Serializable {
+
+    private final List<DataItem> items;
+    /**
+     * Commit sequence number at the join of the replica
+     */
+    private final long seq;
+    private final boolean isLast;
+
+    public ReplicaSyncMessage(List<DataItem> items, long seq, boolean isLast) {
+        this.items = items;
+        this.seq = seq;
+        this.isLast = isLast;
+    }
+
+    public List<DataItem> getItems() {
+        return this.items;
+    }
+
+    public long getSeq() {
+        return this.seq;
+    }
+
+    public boolean isLast() {
+        return this.isLast;
+    }
+
+}
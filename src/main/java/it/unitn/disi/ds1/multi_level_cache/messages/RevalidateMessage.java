@@ -0,0 +1,11 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by a recovered L1 cache to its L2 caches, instead of a FlushMessage. The
+ * L2 caches may have missed refills, therefore they re-read all of their keys
+ * and don't serve them until they are confirmed.
+ */
+public class RevalidateMessage implements Serializable {
+}
@@ -0,0 +1,22 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.util.UUID;
+
+/**
+ * Sent by the client for every processed chunk. It gives the database the
+ * credit for one more chunk.
+ */
+public class ScanAckMessage extends UUIDMessage {
+
+    private final int seq;
+
+    public ScanAckMessage(UUID uuid, int seq) {
+        super(uuid);
+        this.seq = seq;
+    }
+
+    public int getSeq() {
+        return seq;
+    }
+
+}
@@ -0,0 +1,43 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A chunk of a scan, ordered by key. Chunks may arrive out of order, the scan
+ * is complete once all chunks up to the last one have been received.
+ */
+public class ScanChunkMessage extends UUIDMessage {
+
+    private final int seq;
+    private final List<DataItem> items;
+    private final boolean isLast;
+    private final boolean isAbsorbed;
+
+    public ScanChunkMessage(UUID uuid, int seq, List<DataItem> items, boolean isLast, boolean isAbsorbed) {
+        super(uuid);
+        this.seq = seq;
+        this.items = List.copyOf(items);
+        this.isLast = isLast;
+        this.isAbsorbed = isAbsorbed;
+    }
+
+    public int getSeq() {
+        return seq;
+    }
+
+    public List<DataItem> getItems() {
+        return items;
+    }
+
+    public boolean isLast() {
+        return isLast;
+    }
+
+    public boolean isAbsorbed() {
+        return isAbsorbed;
+    }
+
+}
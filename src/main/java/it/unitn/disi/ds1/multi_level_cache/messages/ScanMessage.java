@@ -0,0 +1,48 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+/**
+ * Requests all keys in [fromKey, toKey). The database streams them back in
+ * chunks of at most chunkSize keys and never has more than window chunks
+ * unacknowledged.
+ */
+public class ScanMessage extends UUIDMessage {
+
+    private final int fromKey;
+    private final int toKey;
+    private final int chunkSize;
+    private final int window;
+    /**
+     * The caches on the way back store the scanned keys
+     */
+    private final boolean isAbsorbed;
+
+    public ScanMessage(int fromKey, int toKey, int chunkSize, int window, boolean isAbsorbed) {
+        super();
+        this.fromKey = fromKey;
+        this.toKey = toKey;
+        this.chunkSize = chunkSize;
+        this.window = window;
+        this.isAbsorbed = isAbsorbed;
+    }
+
+    public int getFromKey() {
+        return fromKey;
+    }
+
+    public int getToKey() {
+        return toKey;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public boolean isAbsorbed() {
+        return isAbsorbed;
+    }
+
+}
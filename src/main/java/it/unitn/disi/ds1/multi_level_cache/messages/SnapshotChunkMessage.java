@@ -0,0 +1,32 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Message the database sends to itself, to copy the next chunk of a running snapshot.
+ */
+public class SnapshotChunkMessage implements Serializable {
+
+    /**
+     * The chunk starts at the first key greater or equal to this one
+     */
+    private final int fromKey;
+    /**
+     * Commit sequence number at the start of the snapshot
+     */
+    private final long seq;
+
+    public SnapshotChunkMessage(int fromKey, long seq) {
+        this.fromKey = fromKey;
+        this.seq = seq;
+    }
+
+    public int getFromKey() {
+        return this.fromKey;
+    }
+
+    public long getSeq() {
+        return this.seq;
+    }
+
+}
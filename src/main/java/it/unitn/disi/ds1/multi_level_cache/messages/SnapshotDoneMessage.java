@@ -0,0 +1,33 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Sent by the snapshot writer to the database or a L1 cache, once the snapshot is on disk or
+ * has failed.
+ */
+public class SnapshotDoneMessage implements Serializable {
+
+    private final long seq;
+    private final long itemCount;
+    private final boolean isOk;
+
+    public SnapshotDoneMessage(long seq, long itemCount, boolean isOk) {
+        this.seq = seq;
+        this.itemCount = itemCount;
+        this.isOk = isOk;
+    }
+
+    public long getSeq() {
+        return this.seq;
+    }
+
+    public long getItemCount() {
+        return this.itemCount;
+    }
+
+    public boolean isOk() {
+        return this.isOk;
+    }
+
+}
@@ -0,0 +1,9 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Asks an actor to log its collected statistics.
+ */
+public class StatsMessage implements Serializable {
+}
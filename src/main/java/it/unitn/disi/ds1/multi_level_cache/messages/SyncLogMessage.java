@@ -0,0 +1,9 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Periodic message the database sends to itself, to force a pending group of log records to disk.
+ */
+public class SyncLogMessage implements Serializable {
+}
@@ -0,0 +1,9 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Periodic message the database sends to itself, to start a snapshot.
+ */
+public class TakeSnapshotMessage implements Serializable {
+}
@@ -0,0 +1,10 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.io.Serializable;
+
+/**
+ * Periodic message of a node to itself, to advance its timing wheel. It is only
+ * scheduled while some timeout is pending.
+ */
+public class TimerTickMessage implements Serializable {
+}
@@ -0,0 +1,32 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Asks the database to confirm the update counts of a batch of restored keys. It is
+ * answered by a ValidateReplyMessage with the same UUID.
+ */
+public class ValidateMessage extends UUIDMessage {
+
+    private final List<Integer> keys;
+    /**
+     * Update count of each key, as known by the cache
+     */
+    private final List<Integer> updateCounts;
+
+    public ValidateMessage(List<Integer> keys, List<Integer> updateCounts) {
+        super();
+        this.keys = List.copyOf(keys);
+        this.updateCounts = List.copyOf(updateCounts);
+    }
+
+    public List<Integer> getKeys() {
+        return keys;
+    }
+
+    public List<Integer> getUpdateCounts() {
+        return updateCounts;
+    }
+
+}
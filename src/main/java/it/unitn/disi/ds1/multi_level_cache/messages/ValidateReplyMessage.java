@@ -0,0 +1,31 @@
+package it.unitn.disi.ds1.multi_level_cache.messages;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Answers a ValidateMessage. Only the values of changed keys are sent, the keys whose
+ * update count is still current are just listed. Unknown or locked keys are left out.
+ */
+public class ValidateReplyMessage extends UUIDMessage {
+
+    private final List<DataItem> changedItems;
+    private final List<Integer> validKeys;
+
+    public ValidateReplyMessage(UUID uuid, List<DataItem> changedItems, List<Integer> validKeys) {
+        super(uuid);
+        this.changedItems = List.copyOf(changedItems);
+        this.validKeys = List.copyOf(validKeys);
+    }
+
+    public List<DataItem> getChangedItems() {
+        return changedItems;
+    }
+
+    public List<Integer> getValidKeys() {
+        return validKeys;
+    }
+
+}
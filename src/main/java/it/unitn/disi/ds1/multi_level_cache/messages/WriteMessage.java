@@ -2,7 +2,9 @@ package it.unitn.disi.ds1.multi_level_cache.messages;
 
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
 
-public class WriteMessage extends Message {
+import java.util.UUID;
+
+public class WriteMessage extends Message implements KeyedMessage {
 
     private final int key;
     private final int value;
@@ -13,6 +15,16 @@ public class WriteMessage extends Message {
         this.value = value;
     }
 
+    /**
+     * Creates a retry of a previous write. It keeps the UUID of the original
+     * write, such that the database can apply it at most once.
+     */
+    public WriteMessage(UUID uuid, int key, int value, MessageConfig messageConfig) {
+        super(uuid, messageConfig);
+        this.key = key;
+        this.value = value;
+    }
+
     public int getKey() {
         return key;
     }
@@ -0,0 +1,54 @@
+package it.unitn.disi.ds1.multi_level_cache.messages.utils;
+
+import java.io.Serializable;
+
+/**
+ * A durable commit of the database, as seen by the subscribers of its change stream.
+ */
+public class ChangeEvent implements Serializable {
+
+    private final long seq;
+
+    private final int key;
+
+    private final int value;
+
+    private final int updateCount;
+
+    private final boolean isCritical;
+
+    public ChangeEvent(long seq, int key, int value, int updateCount, boolean isCritical) {
+        this.seq = seq;
+        this.key = key;
+        this.value = value;
+        this.updateCount = updateCount;
+        this.isCritical = isCritical;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getUpdateCount() {
+        return updateCount;
+    }
+
+    public boolean isCritical() {
+        return isCritical;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("seq: %d, key: %d, value: %d, uc: %d, is-critical: %b", this.seq, this.key, this.value,
+                this.updateCount, this.isCritical);
+    }
+
+}
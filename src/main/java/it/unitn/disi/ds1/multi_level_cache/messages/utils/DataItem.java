@@ -0,0 +1,34 @@
+package it.unitn.disi.ds1.multi_level_cache.messages.utils;
+
+import java.io.Serializable;
+
+/**
+ * A single key of a batch, together with its value and update count.
+ */
+public class DataItem implements Serializable {
+
+    private final int key;
+
+    private final int value;
+
+    private final int updateCount;
+
+    public DataItem(int key, int value, int updateCount) {
+        this.key = key;
+        this.value = value;
+        this.updateCount = updateCount;
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getUpdateCount() {
+        return updateCount;
+    }
+
+}
@@ -5,5 +5,6 @@ public enum ErrorType {
     UNKNOWN_KEY,
     LOCKED_KEY,
     INTERNAL_ERROR,
+    OVERLOADED,
 
 }
@@ -22,11 +22,39 @@ public enum MessageType {
     WRITE_CONFIRM,
     READ_REPLY,
     ERROR,
+    BLOOM_FILTER,
+    HEDGED_READ,
+    STATS,
+    PEER_READ,
+    PREFETCH,
+    BATCH_FILL,
+    INIT_SCAN,
+    SCAN,
+    SCAN_CHUNK,
+    SCAN_ACK,
+    EPOCH,
+    CATCH_UP,
+    RETRY,
+    ATTACH,
+    DETACH,
+    HEARTBEAT,
+    OVERLOAD,
+    WAL,
+    WAL_COMPACTION,
+    SNAPSHOT,
+    DATASET,
+    REPLICA,
+    VALIDATE,
+    VALIDATE_REPLY,
+    CHANGES,
     ;
 
     @Override
     public String toString() {
         switch (this) {
+            case BLOOM_FILTER -> {
+                return "BLOOM-FILTER";
+            }
             case CRASH -> {
                 return "CRASH";
             }
@@ -48,6 +76,78 @@ public enum MessageType {
             case CRITICAL_WRITE_VOTE -> {
                 return "CRIT-WRITE-VOTE";
             }
+            case HEDGED_READ -> {
+                return "HEDGED-READ";
+            }
+            case PEER_READ -> {
+                return "PEER-READ";
+            }
+            case PREFETCH -> {
+                return "PREFETCH";
+            }
+            case BATCH_FILL -> {
+                return "BATCH-FILL";
+            }
+            case INIT_SCAN -> {
+                return "INIT-SCAN";
+            }
+            case SCAN -> {
+                return "SCAN";
+            }
+            case SCAN_CHUNK -> {
+                return "SCAN-CHUNK";
+            }
+            case SCAN_ACK -> {
+                return "SCAN-ACK";
+            }
+            case EPOCH -> {
+                return "EPOCH";
+            }
+            case CATCH_UP -> {
+                return "CATCH-UP";
+            }
+            case RETRY -> {
+                return "RETRY";
+            }
+            case ATTACH -> {
+                return "ATTACH";
+            }
+            case DETACH -> {
+                return "DETACH";
+            }
+            case HEARTBEAT -> {
+                return "HEARTBEAT";
+            }
+            case OVERLOAD -> {
+                return "OVERLOAD";
+            }
+            case WAL -> {
+                return "WAL";
+            }
+            case WAL_COMPACTION -> {
+                return "WAL-COMPACTION";
+            }
+            case SNAPSHOT -> {
+                return "SNAPSHOT";
+            }
+            case DATASET -> {
+                return "DATASET";
+            }
+            case REPLICA -> {
+                return "REPLICA";
+            }
+            case VALIDATE -> {
+                return "VALIDATE";
+            }
+            case VALIDATE_REPLY -> {
+                return "VALIDATE-REPLY";
+            }
+            case CHANGES -> {
+                return "CHANGES";
+            }
+            case STATS -> {
+                return "STATS";
+            }
             case ERROR -> {
                 return "ERROR";
             }
@@ -0,0 +1,76 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes a snapshot on a background thread, such that the database keeps processing messages.
+ * The items are handed over in chunks, which are written in order.
+ */
+public class AsyncSnapshotWriter {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private CompletableFuture<Void> pending;
+    private SnapshotFile.Writer writer;
+
+    public AsyncSnapshotWriter(Path path, long seq) {
+        this.pending = CompletableFuture.runAsync(() -> {
+            try {
+                this.writer = new SnapshotFile.Writer(path, seq);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Queues a chunk of items, they must be greater than all items of the previous chunks.
+     * The arrays must not be modified afterwards.
+     */
+    public void append(int[] keys, int[] values, int[] updateCounts, int size) {
+        this.pending = this.pending.thenRunAsync(() -> {
+            try {
+                for (int i = 0; i < size; i++) {
+                    this.writer.append(keys[i], values[i], updateCounts[i]);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Completes the snapshot after all queued chunks have been written. If any chunk has
+     * failed, the incomplete snapshot is deleted and the previous one is kept.
+     *
+     * @return The number of items, once the snapshot is on disk
+     */
+    public CompletableFuture<Long> commit() {
+        CompletableFuture<Long> committed = this.pending.thenApplyAsync(ignored -> {
+            try {
+                return this.writer.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, this.executor);
+        return committed.whenCompleteAsync((itemCount, e) -> {
+            try {
+                if (this.writer != null) {
+                    this.writer.close();
+                }
+            } catch (IOException closeException) {
+                // the incomplete snapshot is overwritten by the next one anyway
+            }
+            this.executor.shutdown();
+        }, this.executor);
+    }
+
+}
@@ -0,0 +1,526 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
+
+/**
+ * Bulk loader of a dataset file of key, value and update count records. A binary file
+ * consists of records of 12 bytes: key (4), value (4) and update count (4), big-endian and
+ * without a header. A CSV file has one record per line, "key,value,updateCount", an optional
+ * header line is skipped.
+ * <p>
+ * The file is split into chunks that are parsed on several threads. Each thread streams its
+ * part of the file through a small buffer and sorts its chunk by key, therefore only as many
+ * chunks are held in memory as the consumer keeps. If a key occurs several times, the latest
+ * record in the file wins.
+ */
+public class DatasetLoader {
+
+    public static final int RECORD_BYTES = 12;
+    /**
+     * Size of a CSV chunk in bytes per record, a typical line is a bit shorter
+     */
+    private static final int CSV_BYTES_PER_RECORD = 16;
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_LINE_BYTES = 256;
+
+    public enum Format {
+        BINARY,
+        CSV;
+
+        /**
+         * Returns the format of the file by its extension, files ending with .csv are CSV.
+         */
+        public static Format of(Path path) {
+            return path.getFileName().toString().toLowerCase().endsWith(".csv") ? CSV : BINARY;
+        }
+    }
+
+    public interface ChunkConsumer {
+        /**
+         * Called on the thread that parsed the chunk, chunks arrive in any order.
+         */
+        void accept(Chunk chunk) throws IOException;
+    }
+
+    private final Path path;
+    private final Format format;
+    private final int chunkRecords;
+    private final int parallelism;
+    /**
+     * Records of other keys are skipped
+     */
+    private final IntPredicate keyFilter;
+    private volatile long recordCount = 0;
+
+    /**
+     * @param path         The dataset file
+     * @param format       Format of the file
+     * @param chunkRecords Number of records per chunk, i.e. the unit of work of a thread
+     * @param parallelism  Number of threads
+     */
+    public DatasetLoader(Path path, Format format, int chunkRecords, int parallelism) {
+        this(path, format, chunkRecords, parallelism, key -> true);
+    }
+
+    /**
+     * @param keyFilter Accepts the keys to be loaded, e.g. the keys of a partition
+     */
+    public DatasetLoader(Path path, Format format, int chunkRecords, int parallelism, IntPredicate keyFilter) {
+        this.path = path;
+        this.format = format;
+        this.chunkRecords = Math.max(1, chunkRecords);
+        this.parallelism = Math.max(1, parallelism);
+        this.keyFilter = keyFilter;
+    }
+
+    /**
+     * Parses the whole file and hands every non-empty chunk to the consumer. At most one
+     * chunk per thread is being parsed at the same time.
+     *
+     * @param consumer Receives the sorted chunks, from several threads
+     * @return The number of parsed records, including duplicate keys
+     * @throws IOException If the file can't be read, is malformed or the consumer fails
+     */
+    public long load(ChunkConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long chunkBytes;
+            if (this.format == Format.BINARY) {
+                if (fileSize % RECORD_BYTES != 0) {
+                    throw new IOException(String.format("%s is not a binary dataset", this.path));
+                }
+                chunkBytes = (long) this.chunkRecords * RECORD_BYTES;
+            } else {
+                chunkBytes = (long) this.chunkRecords * CSV_BYTES_PER_RECORD;
+            }
+
+            ExecutorService workers = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "dataset-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<Integer>> futures = new ArrayList<>();
+                int index = 0;
+                for (long start = 0; start < fileSize; start = start + chunkBytes) {
+                    int chunkIndex = index;
+                    long chunkStart = start;
+                    long chunkEnd = Math.min(fileSize, start + chunkBytes);
+                    futures.add(workers.submit(() -> {
+                        Chunk chunk = this.format == Format.BINARY
+                                ? this.parseBinary(channel, chunkIndex, chunkStart, chunkEnd)
+                                : this.parseCsv(channel, chunkIndex, chunkStart, chunkEnd);
+                        int records = chunk.recordCount;
+                        chunk = chunk.sorted();
+                        if (chunk.size > 0) {
+                            consumer.accept(chunk);
+                        }
+                        return records;
+                    }));
+                    index = index + 1;
+                }
+
+                long recordCount = 0;
+                for (Future<Integer> future : futures) {
+                    recordCount = recordCount + future.get();
+                }
+                this.recordCount = recordCount;
+                return recordCount;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException cause) {
+                    throw cause;
+                } else if (e.getCause() instanceof UncheckedIOException cause) {
+                    throw cause.getCause();
+                }
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading the dataset", e);
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Parses the whole file and merges all chunks into a single sorted chunk, e.g. to build a
+     * store at once.
+     *
+     * @return All items sorted by key, each key once
+     */
+    public Chunk loadMerged() throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        this.load(chunk -> {
+            synchronized (chunks) {
+                chunks.add(chunk);
+            }
+        });
+        return merge(chunks);
+    }
+
+    /**
+     * Number of records parsed by the latest load, including duplicate keys
+     */
+    public long getRecordCount() {
+        return this.recordCount;
+    }
+
+    private Chunk parseBinary(FileChannel channel, int index, long start, long end) throws IOException {
+        Chunk chunk = new Chunk(index, (int) ((end - start) / RECORD_BYTES));
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES / RECORD_BYTES * RECORD_BYTES);
+        long position = start;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException(String.format("%s has been truncated", this.path));
+                }
+            }
+            position = position + buffer.position();
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                this.offer(chunk, buffer.getInt(), buffer.getInt(), buffer.getInt());
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Parses all lines that start within the range. The last line may end behind it.
+     */
+    private Chunk parseCsv(FileChannel channel, int index, long start, long end) throws IOException {
+        Chunk chunk = new Chunk(index, (int) ((end - start) / CSV_BYTES_PER_RECORD));
+        LineReader reader = new LineReader(channel, start);
+        if (start > 0 && !reader.isAtLineStart()) {
+            // the line belongs to the previous chunk
+            reader.skipLine();
+        }
+        byte[] line = new byte[MAX_LINE_BYTES];
+        int[] fields = new int[3];
+        while (reader.getPosition() < end) {
+            long lineStart = reader.getPosition();
+            int length = reader.readLine(line);
+            if (length < 0) {
+                break;
+            }
+            if (parseRecord(line, length, fields)) {
+                this.offer(chunk, fields[0], fields[1], fields[2]);
+            } else if (!isBlank(line, length) && lineStart != 0) {
+                // only the first line of the file may be a header
+                throw new IOException(String.format("Malformed record at byte %d of %s", lineStart, this.path));
+            }
+        }
+        return chunk;
+    }
+
+    private void offer(Chunk chunk, int key, int value, int updateCount) {
+        chunk.recordCount = chunk.recordCount + 1;
+        if (this.keyFilter.test(key)) {
+            chunk.add(key, value, updateCount);
+        }
+    }
+
+    private static boolean isBlank(byte[] line, int length) {
+        for (int i = 0; i < length; i++) {
+            if (line[i] != ' ' && line[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses three comma separated integers without allocating.
+     *
+     * @return False if the line isn't a record
+     */
+    private static boolean parseRecord(byte[] line, int length, int[] fields) {
+        int position = 0;
+        for (int field = 0; field < fields.length; field++) {
+            while (position < length && (line[position] == ' ' || line[position] == '\t')) {
+                position = position + 1;
+            }
+            boolean isNegative = position < length && line[position] == '-';
+            if (isNegative) {
+                position = position + 1;
+            }
+            int digits = 0;
+            long value = 0;
+            while (position < length && line[position] >= '0' && line[position] <= '9') {
+                value = value * 10 + (line[position] - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    return false;
+                }
+                digits = digits + 1;
+                position = position + 1;
+            }
+            value = isNegative ? -value : value;
+            if (digits == 0 || value > Integer.MAX_VALUE) {
+                return false;
+            }
+            fields[field] = (int) value;
+            while (position < length && (line[position] == ' ' || line[position] == '\t')) {
+                position = position + 1;
+            }
+            if (field < fields.length - 1) {
+                if (position == length || line[position] != ',') {
+                    return false;
+                }
+                position = position + 1;
+            }
+        }
+        return position == length;
+    }
+
+    /**
+     * Merges sorted chunks into a single one. If several chunks contain the same key, the one
+     * with the highest index wins, i.e. the latest in the file. Chunks of a sorted file don't
+     * overlap, then they are just concatenated.
+     *
+     * @param chunks Sorted chunks in any order
+     * @return The merged chunk
+     */
+    public static Chunk merge(List<Chunk> chunks) {
+        List<Chunk> sources = new ArrayList<>(chunks);
+        sources.removeIf(chunk -> chunk.size == 0);
+        sources.sort(Comparator.comparingInt(chunk -> chunk.index));
+        int total = 0;
+        for (Chunk chunk : sources) {
+            total = Math.addExact(total, chunk.size);
+        }
+        Chunk merged = new Chunk(0, total);
+
+        boolean isOverlapping = false;
+        for (int i = 1; i < sources.size(); i++) {
+            Chunk previous = sources.get(i - 1);
+            isOverlapping = isOverlapping || previous.keys[previous.size - 1] >= sources.get(i).keys[0];
+        }
+        if (!isOverlapping) {
+            for (Chunk chunk : sources) {
+                System.arraycopy(chunk.keys, 0, merged.keys, merged.size, chunk.size);
+                System.arraycopy(chunk.values, 0, merged.values, merged.size, chunk.size);
+                System.arraycopy(chunk.updateCounts, 0, merged.updateCounts, merged.size, chunk.size);
+                merged.size = merged.size + chunk.size;
+            }
+            return merged;
+        }
+
+        int[] positions = new int[sources.size()];
+        // the latest chunk comes first among equal keys
+        PriorityQueue<Integer> heads = new PriorityQueue<>(
+                Comparator.<Integer>comparingInt(source -> sources.get(source).keys[positions[source]])
+                        .thenComparing(Comparator.reverseOrder()));
+        for (int source = 0; source < sources.size(); source++) {
+            heads.add(source);
+        }
+        while (!heads.isEmpty()) {
+            int source = heads.poll();
+            Chunk chunk = sources.get(source);
+            int key = chunk.keys[positions[source]];
+            if (merged.size == 0 || merged.keys[merged.size - 1] != key) {
+                merged.add(key, chunk.values[positions[source]], chunk.updateCounts[positions[source]]);
+            }
+            positions[source] = positions[source] + 1;
+            if (positions[source] < chunk.size) {
+                heads.add(source);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Sorted items of a part of the file.
+     */
+    public static class Chunk {
+
+        private final int index;
+        private int[] keys;
+        private int[] values;
+        private int[] updateCounts;
+        private int size = 0;
+        /**
+         * Number of parsed records, including the filtered ones
+         */
+        private int recordCount = 0;
+
+        private Chunk(int index, int capacity) {
+            this.index = index;
+            this.keys = new int[Math.max(1, capacity)];
+            this.values = new int[this.keys.length];
+            this.updateCounts = new int[this.keys.length];
+        }
+
+        private void add(int key, int value, int updateCount) {
+            if (this.size == this.keys.length) {
+                int capacity = this.keys.length + (this.keys.length >> 1) + 1;
+                this.keys = Arrays.copyOf(this.keys, capacity);
+                this.values = Arrays.copyOf(this.values, capacity);
+                this.updateCounts = Arrays.copyOf(this.updateCounts, capacity);
+            }
+            this.keys[this.size] = key;
+            this.values[this.size] = value;
+            this.updateCounts[this.size] = updateCount;
+            this.size = this.size + 1;
+        }
+
+        /**
+         * Returns the chunk sorted by key, of several records of a key only the last one is
+         * kept. Chunks of a sorted file are returned as they are, unless most records have
+         * been filtered, then their arrays are trimmed.
+         */
+        private Chunk sorted() {
+            boolean isSorted = true;
+            for (int i = 1; i < this.size && isSorted; i++) {
+                isSorted = this.keys[i - 1] < this.keys[i];
+            }
+            if (isSorted && this.keys.length - this.size > this.size) {
+                Chunk trimmed = new Chunk(this.index, 0);
+                trimmed.keys = Arrays.copyOf(this.keys, this.size);
+                trimmed.values = Arrays.copyOf(this.values, this.size);
+                trimmed.updateCounts = Arrays.copyOf(this.updateCounts, this.size);
+                trimmed.size = this.size;
+                return trimmed;
+            } else if (isSorted) {
+                return this;
+            }
+
+            // sorts by key and then by position, such that the last record of a key comes last
+            long[] order = new long[this.size];
+            for (int i = 0; i < this.size; i++) {
+                order[i] = ((long) this.keys[i] << 32) | i;
+            }
+            Arrays.sort(order);
+            Chunk sorted = new Chunk(this.index, this.size);
+            for (int i = 0; i < this.size; i++) {
+                int key = (int) (order[i] >> 32);
+                if (i + 1 < this.size && (int) (order[i + 1] >> 32) == key) {
+                    continue;
+                }
+                int position = (int) order[i];
+                sorted.add(key, this.values[position], this.updateCounts[position]);
+            }
+            return sorted;
+        }
+
+        /**
+         * Position of the chunk in the file
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        public int[] getKeys() {
+            return this.keys;
+        }
+
+        public int[] getValues() {
+            return this.values;
+        }
+
+        public int[] getUpdateCounts() {
+            return this.updateCounts;
+        }
+
+        public int getSize() {
+            return this.size;
+        }
+
+    }
+
+    /**
+     * Reads lines from a position of the file through a small buffer. Positional reads don't
+     * move the channel, therefore several readers share it.
+     */
+    private class LineReader {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        /**
+         * Position in the file of the next byte
+         */
+        private long position;
+        private final boolean isAtLineStart;
+
+        LineReader(FileChannel channel, long position) throws IOException {
+            this.channel = channel;
+            this.buffer.flip();
+            if (position > 0) {
+                this.position = position - 1;
+                this.isAtLineStart = this.next() == '\n';
+            } else {
+                this.position = 0;
+                this.isAtLineStart = true;
+            }
+        }
+
+        boolean isAtLineStart() {
+            return this.isAtLineStart;
+        }
+
+        long getPosition() {
+            return this.position;
+        }
+
+        private int next() throws IOException {
+            if (!this.buffer.hasRemaining()) {
+                this.buffer.clear();
+                int read = this.channel.read(this.buffer, this.position);
+                this.buffer.flip();
+                if (read <= 0) {
+                    return -1;
+                }
+            }
+            this.position = this.position + 1;
+            return this.buffer.get() & 0xff;
+        }
+
+        void skipLine() throws IOException {
+            int b;
+            do {
+                b = this.next();
+            } while (b != '\n' && b != -1);
+        }
+
+        /**
+         * Reads the next line without its line break.
+         *
+         * @return The length of the line, -1 at the end of the file
+         */
+        int readLine(byte[] line) throws IOException {
+            int b = this.next();
+            if (b == -1) {
+                return -1;
+            }
+            int length = 0;
+            while (b != '\n' && b != -1) {
+                if (length == line.length) {
+                    throw new IOException(String.format("Line too long at byte %d of %s", this.position, path));
+                }
+                line[length] = (byte) b;
+                length = length + 1;
+                b = this.next();
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length = length - 1;
+            }
+            return length;
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+/**
+ * Decides when the buffered records of the write-ahead log are forced to disk. All records
+ * buffered since the last fsync share the next one (group commit).
+ */
+public class FsyncPolicy {
+
+    /**
+     * An fsync is due once this many records are buffered
+     */
+    private final int maxRecords;
+    /**
+     * An fsync is due once the oldest buffered record is this old
+     */
+    private final long maxDelayMillis;
+
+    public FsyncPolicy(int maxRecords, long maxDelayMillis) {
+        if (maxRecords < 1 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("maxRecords must be positive and maxDelayMillis not negative");
+        }
+        this.maxRecords = maxRecords;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Forces every record to disk on its own.
+     */
+    public static FsyncPolicy perWrite() {
+        return new FsyncPolicy(1, 0);
+    }
+
+    /**
+     * Forces all records buffered in the last millis to disk at once.
+     */
+    public static FsyncPolicy everyMillis(long millis) {
+        return new FsyncPolicy(Integer.MAX_VALUE, millis);
+    }
+
+    /**
+     * Forces the records to disk in groups of the given size. A smaller group is forced
+     * after 100ms, such that a write is not held back forever when the load is low.
+     */
+    public static FsyncPolicy everyRecords(int records) {
+        return new FsyncPolicy(records, 100);
+    }
+
+    public int getMaxRecords() {
+        return this.maxRecords;
+    }
+
+    public long getMaxDelayMillis() {
+        return this.maxDelayMillis;
+    }
+
+    @Override
+    public String toString() {
+        if (this.maxRecords == 1) {
+            return "per-write";
+        } else if (this.maxRecords == Integer.MAX_VALUE) {
+            return String.format("every-%dms", this.maxDelayMillis);
+        }
+        return String.format("every-%d-records", this.maxRecords);
+    }
+
+}
@@ -0,0 +1,192 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compacts the write-ahead log on a background thread of low priority. Since every record
+ * carries the absolute value and update count of its key, only the latest record per key is
+ * needed. Records up to the checkpoint, i.e. the latest snapshot or the commits flushed into
+ * the LSM tree, are not needed at all. The copy is throttled to the given number of bytes
+ * per second (read and written), such that it doesn't compete with the database for the
+ * disk and the CPU.
+ */
+public class LogCompactor {
+
+    /**
+     * Records processed between two checks of the throttle
+     */
+    private static final int THROTTLE_RECORDS = 4096;
+
+    public static class Result implements Serializable {
+        private final long inputRecords;
+        private final long outputRecords;
+        private final long truncatedRecords;
+        private final long inputBytes;
+        private final long outputBytes;
+        private final long millis;
+
+        Result(long inputRecords, long outputRecords, long truncatedRecords, long inputBytes, long outputBytes, long millis) {
+            this.inputRecords = inputRecords;
+            this.outputRecords = outputRecords;
+            this.truncatedRecords = truncatedRecords;
+            this.inputBytes = inputBytes;
+            this.outputBytes = outputBytes;
+            this.millis = millis;
+        }
+
+        public long getInputRecords() {
+            return this.inputRecords;
+        }
+
+        public long getOutputRecords() {
+            return this.outputRecords;
+        }
+
+        /**
+         * Returns the number of records dropped as they are covered by the checkpoint.
+         */
+        public long getTruncatedRecords() {
+            return this.truncatedRecords;
+        }
+
+        public long getInputBytes() {
+            return this.inputBytes;
+        }
+
+        public long getOutputBytes() {
+            return this.outputBytes;
+        }
+
+        public long getMillis() {
+            return this.millis;
+        }
+
+        /**
+         * Returns the read and written bytes per second.
+         */
+        public double getBytesPerSecond() {
+            return (this.inputBytes + this.outputBytes) * 1000.0 / Math.max(1, this.millis);
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wal-compactor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final long maxBytesPerSecond;
+    private long throttleStartNanos;
+    private long throttledBytes;
+
+    /**
+     * @param maxBytesPerSecond Throughput of a compaction, 0 for unlimited
+     */
+    public LogCompactor(long maxBytesPerSecond) {
+        this.maxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    /**
+     * Returns the path the compacted copy of the log is written to.
+     */
+    public static Path getCompactedPath(Path logPath) {
+        return logPath.resolveSibling(logPath.getFileName() + ".compact");
+    }
+
+    /**
+     * Copies the latest record per key after the checkpoint into a new file. The log itself
+     * is not touched, it is replaced by the copy once the copy is complete.
+     *
+     * @param logPath       The write-ahead log
+     * @param endOffset     Records at or after this offset are left to the caller
+     * @param checkpointSeq Records up to this sequence number are dropped, 0 to keep all
+     * @return The result, once the copy is on disk
+     */
+    public CompletableFuture<Result> compact(Path logPath, long endOffset, long checkpointSeq) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.copy(logPath, endOffset, checkpointSeq);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, this.executor);
+    }
+
+    private Result copy(Path logPath, long endOffset, long checkpointSeq) throws IOException {
+        long start = System.currentTimeMillis();
+        this.throttleStartNanos = System.nanoTime();
+        this.throttledBytes = 0;
+
+        Map<Integer, LogRecord> latestRecords = new HashMap<>();
+        long[] counts = {0, 0};
+        long inputBytes = WriteAheadLog.read(logPath, endOffset, record -> {
+            counts[0] = counts[0] + 1;
+            if (counts[0] % THROTTLE_RECORDS == 0) {
+                this.throttle(THROTTLE_RECORDS * (long) WriteAheadLog.RECORD_BYTES);
+            }
+            if (checkpointSeq > 0 && record.getSeq() <= checkpointSeq) {
+                counts[1] = counts[1] + 1;
+                return;
+            }
+            latestRecords.merge(record.getKey(), record, (previous, next) -> next.getSeq() >= previous.getSeq() ? next : previous);
+        });
+
+        // replayed in commit order, like the original log
+        List<LogRecord> records = new ArrayList<>(latestRecords.values());
+        records.sort(Comparator.comparingLong(LogRecord::getSeq));
+        Path compactedPath = getCompactedPath(logPath);
+        Files.deleteIfExists(compactedPath);
+        // the copy is forced to disk once, when it is closed
+        try (WriteAheadLog compacted = new WriteAheadLog(compactedPath, new FsyncPolicy(Integer.MAX_VALUE, Long.MAX_VALUE))) {
+            for (int i = 0; i < records.size(); i++) {
+                compacted.append(records.get(i));
+                if ((i + 1) % THROTTLE_RECORDS == 0) {
+                    this.throttle(THROTTLE_RECORDS * (long) WriteAheadLog.RECORD_BYTES);
+                }
+            }
+        }
+
+        long outputBytes = (long) records.size() * WriteAheadLog.RECORD_BYTES;
+        return new Result(counts[0], records.size(), counts[1], inputBytes, outputBytes, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Sleeps as long as the processed bytes are ahead of the allowed throughput.
+     */
+    private void throttle(long bytes) {
+        if (this.maxBytesPerSecond <= 0) {
+            return;
+        }
+        this.throttledBytes = this.throttledBytes + bytes;
+        long allowedNanos = (long) (this.throttledBytes * 1e9 / this.maxBytesPerSecond);
+        long aheadMillis = (allowedNanos - (System.nanoTime() - this.throttleStartNanos)) / 1_000_000;
+        if (aheadMillis > 0) {
+            try {
+                Thread.sleep(aheadMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stops the background thread, a running compaction is abandoned and its copy left behind.
+     * The copy has to be deleted before the log is opened again.
+     */
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,62 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+/**
+ * A committed write of the database, as it is stored in the write-ahead log.
+ */
+public class LogRecord {
+
+    /**
+     * A write, or an item of the initial data
+     */
+    public static final byte PUT = 1;
+    /**
+     * The commit of a critical write
+     */
+    public static final byte COMMIT = 2;
+
+    private final byte type;
+    private final int key;
+    private final int value;
+    private final int updateCount;
+    /**
+     * Commit sequence number, 0 for the initial data
+     */
+    private final long seq;
+
+    public LogRecord(byte type, int key, int value, int updateCount, long seq) {
+        this.type = type;
+        this.key = key;
+        this.value = value;
+        this.updateCount = updateCount;
+        this.seq = seq;
+    }
+
+    public static LogRecord put(int key, int value, int updateCount, long seq) {
+        return new LogRecord(PUT, key, value, updateCount, seq);
+    }
+
+    public static LogRecord commit(int key, int value, int updateCount, long seq) {
+        return new LogRecord(COMMIT, key, value, updateCount, seq);
+    }
+
+    public byte getType() {
+        return this.type;
+    }
+
+    public int getKey() {
+        return this.key;
+    }
+
+    public int getValue() {
+        return this.value;
+    }
+
+    public int getUpdateCount() {
+        return this.updateCount;
+    }
+
+    public long getSeq() {
+        return this.seq;
+    }
+
+}
@@ -0,0 +1,582 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A small log-structured merge tree. Writes go into a sorted in-memory memtable. Once it is
+ * full, it becomes immutable and is flushed into a new sorted table on a background thread,
+ * while a new memtable takes the writes. Once there are more tables than allowed, all of
+ * them are merged into a single one on another background thread, such that flushes keep
+ * going during a long compaction.
+ * <p>
+ * The memtable must only be used by a single thread, i.e. the owning actor. Reads of the
+ * immutable memtable and the tables are safe from any thread, they are done by
+ * {@link #readAsync(int)} on a pool of reader threads.
+ * <p>
+ * The tables are listed in a manifest, together with the sequence number of the latest write
+ * that has been flushed. Writes that aren't flushed yet have to be replayed from the
+ * write-ahead log after a restart. There are no deletes, therefore no tombstones.
+ */
+public class LsmTree implements Closeable {
+
+    private static final String MANIFEST = "MANIFEST";
+    private static final int READER_THREADS = 4;
+
+    private final Path directory;
+    private final int memtableSize;
+    private final int maxTables;
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lsm-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lsm-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Guards the list of tables, the manifest and the table ids, which are changed by both
+     * background threads
+     */
+    private final Object manifestLock = new Object();
+    private final ExecutorService readers = Executors.newFixedThreadPool(READER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "lsm-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private TreeMap<Integer, DataItem> memtable = new TreeMap<>();
+    /**
+     * Sequence number of the latest write, the memtable contains all writes up to it
+     */
+    private long memtableSeq;
+    /**
+     * Memtable that is being flushed, null if none
+     */
+    private volatile TreeMap<Integer, DataItem> immutable;
+    private volatile long immutableSeq;
+    private volatile boolean isFlushFailed = false;
+    /**
+     * All tables, the newest first
+     */
+    private volatile List<SSTable> tables;
+    private volatile long flushedSeq;
+    /**
+     * Tables that have been merged by the latest compaction. They are closed by the next one,
+     * since a reader may still be reading them.
+     */
+    private List<SSTable> retiredTables = List.of();
+    private boolean isCompacting = false;
+    private long nextTableId;
+    private volatile long flushCount = 0;
+    private volatile long compactionCount = 0;
+    private volatile long failedFlushCount = 0;
+
+    /**
+     * Opens the tree in the given directory, which is created if missing. Files that aren't
+     * listed in the manifest are left-overs of an interrupted flush or compaction and deleted.
+     *
+     * @param directory    Directory of the manifest and the tables
+     * @param memtableSize Number of keys of a memtable before it is flushed
+     * @param maxTables    Number of tables before they are compacted
+     * @throws IOException If the manifest or some table can't be read
+     */
+    public LsmTree(Path directory, int memtableSize, int maxTables) throws IOException {
+        this.directory = directory;
+        this.memtableSize = Math.max(1, memtableSize);
+        this.maxTables = Math.max(1, maxTables);
+        Files.createDirectories(directory);
+
+        List<SSTable> tables = new ArrayList<>();
+        Set<Path> files = new HashSet<>();
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            List<String> lines = Files.readAllLines(manifest);
+            if (lines.size() < 2 || !lines.get(0).startsWith("seq ") || !lines.get(1).startsWith("next ")) {
+                throw new IOException(String.format("%s is not a manifest", manifest));
+            }
+            try {
+                this.flushedSeq = Long.parseLong(lines.get(0).substring(4));
+                this.nextTableId = Long.parseLong(lines.get(1).substring(5));
+            } catch (NumberFormatException e) {
+                throw new IOException(String.format("%s is not a manifest", manifest));
+            }
+            try {
+                for (String name : lines.subList(2, lines.size())) {
+                    SSTable table = new SSTable(directory.resolve(name));
+                    tables.add(table);
+                    files.add(table.getPath());
+                }
+            } catch (IOException e) {
+                for (SSTable table : tables) {
+                    table.close();
+                }
+                throw e;
+            }
+        }
+        this.tables = List.copyOf(tables);
+        this.memtableSeq = this.flushedSeq;
+
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.toList()) {
+                String name = path.getFileName().toString();
+                if ((name.endsWith(".sst") || name.endsWith(".tmp")) && !files.contains(path)) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes an item into the memtable. If the memtable is full and no flush is running, it is
+     * handed over to the background thread. Otherwise, the memtable keeps growing until the
+     * running flush is done.
+     *
+     * @param seq Sequence number of the write
+     */
+    public void put(int key, int value, int updateCount, long seq) {
+        this.memtable.put(key, new DataItem(key, value, updateCount));
+        this.memtableSeq = Math.max(this.memtableSeq, seq);
+
+        if (this.immutable == null && this.memtable.size() >= this.memtableSize) {
+            this.immutableSeq = this.memtableSeq;
+            this.immutable = this.memtable;
+            this.memtable = new TreeMap<>();
+            this.flusher.execute(this::flush);
+        } else if (this.immutable != null && this.isFlushFailed) {
+            // try again, the memtable is kept until it is on disk
+            this.isFlushFailed = false;
+            this.flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Returns the item if it is held in memory, i.e. part of the memtable or the memtable that
+     * is being flushed. Must only be called by the owner of the memtable.
+     *
+     * @return The item, null if it would have to be read from the tables
+     */
+    public DataItem getFromMemory(int key) {
+        DataItem item = this.memtable.get(key);
+        if (item != null) {
+            return item;
+        }
+        TreeMap<Integer, DataItem> immutable = this.immutable;
+        return immutable != null ? immutable.get(key) : null;
+    }
+
+    /**
+     * Reads a key from the memtable that is being flushed and the tables, the newest first.
+     * The memtable itself isn't read, as it may be modified meanwhile.
+     */
+    public Optional<DataItem> read(int key) throws IOException {
+        // the immutable memtable is only dropped after its table has been added
+        TreeMap<Integer, DataItem> immutable = this.immutable;
+        if (immutable != null && immutable.containsKey(key)) {
+            return Optional.of(immutable.get(key));
+        }
+        for (SSTable table : this.tables) {
+            DataItem item = table.get(key);
+            if (item != null) {
+                return Optional.of(item);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Reads a key on one of the reader threads, see {@link #read(int)}.
+     *
+     * @return The item once it has been read, empty if the key is unknown
+     */
+    public CompletableFuture<Optional<DataItem>> readAsync(int key) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.read(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, this.readers);
+    }
+
+    /**
+     * Iterates all items with a key greater or equal to fromKey, in ascending order, merged
+     * from the memtables and all tables. Must only be called by the owner of the memtable,
+     * the tables are read synchronously.
+     *
+     * @param fromKey The first key, inclusive
+     * @return Iterator over the items
+     */
+    public Iterator<DataItem> scan(int fromKey) {
+        List<Iterator<DataItem>> sources = new ArrayList<>();
+        sources.add(this.memtable.tailMap(fromKey, true).values().iterator());
+        TreeMap<Integer, DataItem> immutable = this.immutable;
+        if (immutable != null) {
+            sources.add(immutable.tailMap(fromKey, true).values().iterator());
+        }
+        for (SSTable table : this.tables) {
+            sources.add(table.iterator(fromKey));
+        }
+        return new MergeIterator(sources);
+    }
+
+    public boolean isEmpty() {
+        return this.memtable.isEmpty() && this.immutable == null && this.tables.isEmpty();
+    }
+
+    /**
+     * Bulk loads a dataset into the empty tree. Every chunk is written into its own table on
+     * the thread that parsed it, therefore only a few chunks are held in memory at a time.
+     * The tables are added at once, ordered like their chunks, such that the latest record of
+     * a key wins. Too many tables are merged by a compaction afterwards. If the load fails,
+     * the tree stays empty.
+     *
+     * @param loader Loader of the dataset
+     * @return The number of loaded records
+     * @throws IOException If the dataset can't be loaded or the tables can't be written
+     */
+    public long load(DatasetLoader loader) throws IOException {
+        if (!this.isEmpty()) {
+            throw new IllegalStateException("Only an empty tree can be bulk loaded");
+        }
+        Map<Integer, SSTable> loaded = new ConcurrentHashMap<>();
+        long recordCount;
+        try {
+            recordCount = loader.load(chunk -> {
+                Path path = this.nextTablePath();
+                try (SSTable.Writer writer = new SSTable.Writer(path, chunk.getSize())) {
+                    for (int i = 0; i < chunk.getSize(); i++) {
+                        writer.append(chunk.getKeys()[i], chunk.getValues()[i], chunk.getUpdateCounts()[i]);
+                    }
+                    writer.commit();
+                }
+                loaded.put(chunk.getIndex(), new SSTable(path));
+            });
+            synchronized (this.manifestLock) {
+                // the latest chunk is the newest table
+                List<SSTable> tables = new ArrayList<>(new TreeMap<>(loaded).descendingMap().values());
+                this.writeManifest(this.flushedSeq, tables);
+                this.tables = List.copyOf(tables);
+                if (this.tables.size() > this.maxTables && !this.isCompacting) {
+                    this.isCompacting = true;
+                    this.compactor.execute(this::compact);
+                }
+            }
+        } catch (IOException e) {
+            this.closeTables(List.copyOf(loaded.values()));
+            for (SSTable table : loaded.values()) {
+                Files.deleteIfExists(table.getPath());
+            }
+            throw e;
+        }
+        return recordCount;
+    }
+
+    /**
+     * Bulk loads items into the empty tree, they are written into a single table.
+     *
+     * @param size Number of items, which must be sorted by key without duplicates
+     * @throws IOException If the table can't be written, then the tree stays empty
+     */
+    public void loadSorted(int[] keys, int[] values, int[] updateCounts, int size) throws IOException {
+        if (!this.isEmpty()) {
+            throw new IllegalStateException("Only an empty tree can be bulk loaded");
+        }
+        if (size == 0) {
+            return;
+        }
+        Path path = this.nextTablePath();
+        SSTable table;
+        try (SSTable.Writer writer = new SSTable.Writer(path, size)) {
+            for (int i = 0; i < size; i++) {
+                writer.append(keys[i], values[i], updateCounts[i]);
+            }
+            writer.commit();
+        }
+        table = new SSTable(path);
+        synchronized (this.manifestLock) {
+            try {
+                this.writeManifest(this.flushedSeq, List.of(table));
+            } catch (IOException e) {
+                table.close();
+                Files.deleteIfExists(path);
+                throw e;
+            }
+            this.tables = List.of(table);
+        }
+    }
+
+    /**
+     * Writes the immutable memtable into a new table. The table is added to the manifest
+     * before the memtable is dropped, such that readers find every key in one of both.
+     */
+    private void flush() {
+        TreeMap<Integer, DataItem> immutable = this.immutable;
+        Path path = this.nextTablePath();
+        try (SSTable.Writer writer = new SSTable.Writer(path, immutable.size())) {
+            for (DataItem item : immutable.values()) {
+                writer.append(item.getKey(), item.getValue(), item.getUpdateCount());
+            }
+            writer.commit();
+            SSTable table = new SSTable(path);
+            synchronized (this.manifestLock) {
+                List<SSTable> tables = new ArrayList<>();
+                tables.add(table);
+                tables.addAll(this.tables);
+                try {
+                    this.writeManifest(this.immutableSeq, tables);
+                } catch (IOException e) {
+                    table.close();
+                    Files.deleteIfExists(path);
+                    throw e;
+                }
+                this.tables = List.copyOf(tables);
+                this.flushedSeq = this.immutableSeq;
+                if (this.tables.size() > this.maxTables && !this.isCompacting) {
+                    this.isCompacting = true;
+                    this.compactor.execute(this::compact);
+                }
+            }
+            this.immutable = null;
+            this.flushCount = this.flushCount + 1;
+        } catch (IOException e) {
+            this.failedFlushCount = this.failedFlushCount + 1;
+            this.isFlushFailed = true;
+        }
+    }
+
+    /**
+     * Merges all current tables into a single one. Of several versions of a key, only the
+     * newest is kept. Tables that are flushed meanwhile stay in front of the merged one. If
+     * the merge fails, the tables are kept as they are.
+     */
+    private void compact() {
+        List<SSTable> tables = this.tables;
+        List<Iterator<DataItem>> sources = new ArrayList<>();
+        int expectedItems = 0;
+        for (SSTable table : tables) {
+            sources.add(table.iterator(Integer.MIN_VALUE));
+            expectedItems = (int) Math.min(Integer.MAX_VALUE, (long) expectedItems + table.getItemCount());
+        }
+
+        Path path = this.nextTablePath();
+        try (SSTable.Writer writer = new SSTable.Writer(path, expectedItems)) {
+            Iterator<DataItem> items = new MergeIterator(sources);
+            while (items.hasNext()) {
+                DataItem item = items.next();
+                writer.append(item.getKey(), item.getValue(), item.getUpdateCount());
+            }
+            writer.commit();
+            SSTable merged = new SSTable(path);
+            synchronized (this.manifestLock) {
+                // the merged tables are the oldest ones
+                List<SSTable> current = this.tables;
+                List<SSTable> next = new ArrayList<>(current.subList(0, current.size() - tables.size()));
+                next.add(merged);
+                try {
+                    this.writeManifest(this.flushedSeq, next);
+                } catch (IOException e) {
+                    merged.close();
+                    throw e;
+                }
+                this.tables = List.copyOf(next);
+                this.isCompacting = false;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException deleteException) {
+                // deleted on the next start
+            }
+            synchronized (this.manifestLock) {
+                this.isCompacting = false;
+            }
+            return;
+        }
+
+        this.closeTables(this.retiredTables);
+        this.retiredTables = tables;
+        for (SSTable table : tables) {
+            try {
+                // open tables stay readable until they are closed
+                Files.deleteIfExists(table.getPath());
+            } catch (IOException e) {
+                // deleted on the next start
+            }
+        }
+        this.compactionCount = this.compactionCount + 1;
+    }
+
+    private Path nextTablePath() {
+        synchronized (this.manifestLock) {
+            this.nextTableId = this.nextTableId + 1;
+            return this.directory.resolve(String.format("table-%08d.sst", this.nextTableId));
+        }
+    }
+
+    /**
+     * Atomically replaces the manifest, the tables are listed the newest first. The manifest is
+     * on disk before the flushed seq advances. Must be called while holding the manifest lock.
+     */
+    private void writeManifest(long seq, List<SSTable> tables) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("seq " + seq);
+        lines.add("next " + this.nextTableId);
+        for (SSTable table : tables) {
+            lines.add(table.getPath().getFileName().toString());
+        }
+        Path manifest = this.directory.resolve(MANIFEST);
+        Path tmpPath = this.directory.resolve(MANIFEST + ".tmp");
+        Files.write(tmpPath, lines);
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmpPath, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the log is compacted up to the flushed seq, an older manifest must not come back
+        WriteAheadLog.forceDirectory(manifest);
+    }
+
+    private void closeTables(List<SSTable> tables) {
+        for (SSTable table : tables) {
+            try {
+                table.close();
+            } catch (IOException e) {
+                // nothing left to read from it
+            }
+        }
+    }
+
+    /**
+     * Returns the sequence number of the latest write that is part of the tables. All later
+     * writes have to be replayed after a restart.
+     */
+    public long getFlushedSeq() {
+        return this.flushedSeq;
+    }
+
+    public int getMemtableSize() {
+        return this.memtable.size();
+    }
+
+    public int getTableCount() {
+        return this.tables.size();
+    }
+
+    public long getFlushCount() {
+        return this.flushCount;
+    }
+
+    public long getCompactionCount() {
+        return this.compactionCount;
+    }
+
+    public long getFailedFlushCount() {
+        return this.failedFlushCount;
+    }
+
+    /**
+     * Waits for a running flush and compaction and closes all tables. The memtable is not
+     * flushed, its writes are replayed from the log after a restart.
+     */
+    @Override
+    public void close() throws IOException {
+        this.readers.shutdownNow();
+        this.flusher.shutdown();
+        try {
+            this.flusher.awaitTermination(30, TimeUnit.SECONDS);
+            // no further compaction is started once the flusher has terminated
+            this.compactor.shutdown();
+            this.compactor.awaitTermination(5, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.closeTables(this.retiredTables);
+        this.closeTables(this.tables);
+    }
+
+    /**
+     * Merges sorted sources into a single sorted sequence. If several sources contain the
+     * same key, the item of the first source wins.
+     */
+    private static class MergeIterator implements Iterator<DataItem> {
+
+        private final List<Iterator<DataItem>> sources;
+        /**
+         * Head item of every source that isn't exhausted
+         */
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(
+                Comparator.<Head>comparingInt(head -> head.item.getKey()).thenComparingInt(head -> head.source));
+
+        MergeIterator(List<Iterator<DataItem>> sources) {
+            this.sources = sources;
+            for (int i = 0; i < sources.size(); i++) {
+                this.advance(i);
+            }
+        }
+
+        private void advance(int source) {
+            if (this.sources.get(source).hasNext()) {
+                this.heads.add(new Head(this.sources.get(source).next(), source));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.heads.isEmpty();
+        }
+
+        @Override
+        public DataItem next() {
+            Head head = this.heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            this.advance(head.source);
+            // skip older versions of the same key
+            while (!this.heads.isEmpty() && this.heads.peek().item.getKey() == head.item.getKey()) {
+                this.advance(this.heads.poll().source);
+            }
+            return head.item;
+        }
+
+    }
+
+    private static class Head {
+
+        private final DataItem item;
+        private final int source;
+
+        Head(DataItem item, int source) {
+            this.item = item;
+            this.source = source;
+        }
+
+    }
+
+}
@@ -0,0 +1,321 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BloomFilter;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted table of the LSM tree. The items are stored sorted by key, each 12 bytes:
+ * key (4), value (4) and update count (4). They are followed by a sparse index with the first
+ * key of every block of {@link #BLOCK_ITEMS} items, the words of a Bloom filter of all keys and
+ * a footer of 24 bytes: magic (4), version (4), number of items (4), number of bits (4), number
+ * of hashes (4) and number of words (4).
+ * <p>
+ * The index and the filter are kept in memory, such that a point read costs at most one read
+ * of a single block, and none for most keys that aren't part of the table.
+ */
+public class SSTable implements Closeable {
+
+    public static final int ITEM_BYTES = 12;
+    public static final int FOOTER_BYTES = 24;
+    /**
+     * Number of items per block of the sparse index
+     */
+    public static final int BLOCK_ITEMS = 128;
+    private static final int MAGIC = 0x4d4c5354;
+    private static final int VERSION = 1;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int itemCount;
+    private final int[] index;
+    private final BloomFilter bloomFilter;
+
+    /**
+     * Opens the table and loads its index and Bloom filter.
+     *
+     * @param path The table
+     * @throws IOException If the table can't be read or is invalid
+     */
+    public SSTable(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            if (size < FOOTER_BYTES) {
+                throw new IOException(String.format("%s is not a table", path));
+            }
+            ByteBuffer footer = this.read(size - FOOTER_BYTES, FOOTER_BYTES);
+            if (footer.getInt() != MAGIC || footer.getInt() != VERSION) {
+                throw new IOException(String.format("%s is not a table", path));
+            }
+            this.itemCount = footer.getInt();
+            int numOfBits = footer.getInt();
+            int numOfHashes = footer.getInt();
+            int wordCount = footer.getInt();
+            int blockCount = blockCount(this.itemCount);
+            long indexOffset = (long) this.itemCount * ITEM_BYTES;
+            if (numOfBits <= 0 || numOfHashes <= 0
+                    || size != indexOffset + blockCount * 4L + wordCount * 8L + FOOTER_BYTES) {
+                throw new IOException(String.format("%s is incomplete", path));
+            }
+
+            this.index = new int[blockCount];
+            this.read(indexOffset, blockCount * 4).asIntBuffer().get(this.index);
+            long[] words = new long[wordCount];
+            this.read(indexOffset + blockCount * 4L, wordCount * 8).asLongBuffer().get(words);
+            this.bloomFilter = BloomFilter.fromSnapshot(numOfBits, numOfHashes, words);
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    private static int blockCount(int itemCount) {
+        return (itemCount + BLOCK_ITEMS - 1) / BLOCK_ITEMS;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException(String.format("%s is incomplete", this.path));
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Returns the block that may contain the key, -1 if the key is smaller than every key.
+     */
+    private int blockOf(int key) {
+        int i = Arrays.binarySearch(this.index, key);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    private int itemsOfBlock(int block) {
+        return Math.min(BLOCK_ITEMS, this.itemCount - block * BLOCK_ITEMS);
+    }
+
+    /**
+     * Reads a single key. Safe to be called by several threads at once.
+     *
+     * @param key The key
+     * @return The item, null if the table doesn't contain the key
+     */
+    public DataItem get(int key) throws IOException {
+        if (!this.bloomFilter.mightContain(key)) {
+            return null;
+        }
+        int block = this.blockOf(key);
+        if (block < 0) {
+            return null;
+        }
+        int items = this.itemsOfBlock(block);
+        ByteBuffer buffer = this.read((long) block * BLOCK_ITEMS * ITEM_BYTES, items * ITEM_BYTES);
+        int low = 0;
+        int high = items - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midKey = buffer.getInt(mid * ITEM_BYTES);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return new DataItem(key, buffer.getInt(mid * ITEM_BYTES + 4), buffer.getInt(mid * ITEM_BYTES + 8));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Iterates all items with a key greater or equal to fromKey, in ascending order. The items
+     * are read in runs of several blocks.
+     *
+     * @param fromKey The first key, inclusive
+     * @return Iterator over the items
+     */
+    public Iterator<DataItem> iterator(int fromKey) {
+        return new Iterator<>() {
+            private final int runItems = 64 * BLOCK_ITEMS;
+            private int next = Math.max(0, SSTable.this.blockOf(fromKey)) * BLOCK_ITEMS;
+            private ByteBuffer run = ByteBuffer.allocate(0);
+            private DataItem item = this.advance();
+
+            private DataItem advance() {
+                while (this.next < SSTable.this.itemCount) {
+                    if (!this.run.hasRemaining()) {
+                        int items = Math.min(this.runItems, SSTable.this.itemCount - this.next);
+                        try {
+                            this.run = SSTable.this.read((long) this.next * ITEM_BYTES, items * ITEM_BYTES);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    this.next = this.next + 1;
+                    DataItem item = new DataItem(this.run.getInt(), this.run.getInt(), this.run.getInt());
+                    if (item.getKey() >= fromKey) {
+                        return item;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.item != null;
+            }
+
+            @Override
+            public DataItem next() {
+                if (this.item == null) {
+                    throw new NoSuchElementException();
+                }
+                DataItem current = this.item;
+                this.item = this.advance();
+                return current;
+            }
+        };
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public int getItemCount() {
+        return this.itemCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Writes a table into a temporary file, that is moved to its final path once it is
+     * complete. A crash while writing leaves only the temporary file behind.
+     */
+    public static class Writer implements Closeable {
+
+        private final Path path;
+        private final Path tmpPath;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * BLOCK_ITEMS * ITEM_BYTES);
+        private final BloomFilter bloomFilter;
+        private int[] index = new int[16];
+        private int itemCount = 0;
+        private int lastKey;
+        private boolean isCommitted = false;
+
+        /**
+         * @param path          The table
+         * @param expectedItems Expected number of items, used to size the Bloom filter
+         */
+        public Writer(Path path, int expectedItems) throws IOException {
+            this.path = path;
+            this.tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+            this.bloomFilter = BloomFilter.createUntracked(expectedItems, FALSE_POSITIVE_RATE);
+            this.channel = FileChannel.open(this.tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * Appends an item, items must be appended in strictly ascending order of their keys.
+         */
+        public void append(int key, int value, int updateCount) throws IOException {
+            if (this.itemCount > 0 && key <= this.lastKey) {
+                throw new IllegalArgumentException("Items must be appended in ascending order of their keys");
+            }
+            if (this.itemCount % BLOCK_ITEMS == 0) {
+                int block = this.itemCount / BLOCK_ITEMS;
+                if (block == this.index.length) {
+                    this.index = Arrays.copyOf(this.index, this.index.length * 2);
+                }
+                this.index[block] = key;
+            }
+            if (this.buffer.remaining() < ITEM_BYTES) {
+                this.writeBuffer();
+            }
+            this.buffer.putInt(key).putInt(value).putInt(updateCount);
+            this.bloomFilter.add(key);
+            this.lastKey = key;
+            this.itemCount = this.itemCount + 1;
+        }
+
+        private void writeBuffer() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        private void write(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                if (!this.buffer.hasRemaining()) {
+                    this.writeBuffer();
+                }
+                int length = Math.min(source.remaining(), this.buffer.remaining());
+                this.buffer.put(source.slice(source.position(), length));
+                source.position(source.position() + length);
+            }
+        }
+
+        /**
+         * Completes the table: writes the index, the Bloom filter and the footer, forces the
+         * file to disk and moves it to its final path. The directory is forced too, to keep
+         * the rename.
+         *
+         * @return The number of items
+         */
+        public int commit() throws IOException {
+            int blockCount = blockCount(this.itemCount);
+            ByteBuffer index = ByteBuffer.allocate(blockCount * 4);
+            index.asIntBuffer().put(this.index, 0, blockCount);
+            this.write(index);
+            long[] words = this.bloomFilter.toWords();
+            ByteBuffer filter = ByteBuffer.allocate(words.length * 8);
+            filter.asLongBuffer().put(words);
+            this.write(filter);
+            this.write(ByteBuffer.allocate(FOOTER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(this.itemCount)
+                    .putInt(this.bloomFilter.getNumOfBits())
+                    .putInt(this.bloomFilter.getNumOfHashes())
+                    .putInt(words.length)
+                    .flip());
+            this.writeBuffer();
+            this.channel.force(true);
+            this.channel.close();
+            Files.move(this.tmpPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.isCommitted = true;
+            WriteAheadLog.forceDirectory(this.path);
+            return this.itemCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!this.isCommitted) {
+                this.channel.close();
+                Files.deleteIfExists(this.tmpPath);
+            }
+        }
+
+    }
+
+}
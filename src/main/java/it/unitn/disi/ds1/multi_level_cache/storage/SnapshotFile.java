@@ -0,0 +1,184 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Flat snapshot of all items of the database. The file starts with a header of 24 bytes:
+ * magic (4), version (4), commit sequence number (8) and number of items (8). It is followed
+ * by the items sorted by key, each 12 bytes: key (4), value (4) and update count (4). Due to
+ * the fixed width, the file is mapped into memory and read in place when loaded.
+ */
+public class SnapshotFile {
+
+    public static final int HEADER_BYTES = 24;
+    public static final int ITEM_BYTES = 12;
+    private static final int MAGIC = 0x4d4c4353;
+    private static final int VERSION = 1;
+    /**
+     * Files are mapped in regions, since a single mapping is limited to 2GB
+     */
+    private static final long MAX_REGION_ITEMS = Integer.MAX_VALUE / ITEM_BYTES;
+
+    public interface ItemConsumer {
+        void accept(int key, int value, int updateCount);
+    }
+
+    /**
+     * Writes a snapshot into a temporary file, that replaces the previous snapshot once
+     * it is complete. A crash while writing leaves the previous snapshot intact.
+     */
+    public static class Writer implements Closeable {
+
+        private final Path path;
+        private final Path tmpPath;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(4096 * ITEM_BYTES);
+        private final long seq;
+        private long itemCount = 0;
+        private boolean isCommitted = false;
+
+        public Writer(Path path, long seq) throws IOException {
+            this.path = path;
+            this.tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+            this.seq = seq;
+            this.channel = FileChannel.open(this.tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.channel.position(HEADER_BYTES);
+        }
+
+        /**
+         * Appends an item, items must be appended in ascending order of their keys.
+         */
+        public void append(int key, int value, int updateCount) throws IOException {
+            if (this.buffer.remaining() < ITEM_BYTES) {
+                this.writeBuffer();
+            }
+            this.buffer.putInt(key).putInt(value).putInt(updateCount);
+            this.itemCount = this.itemCount + 1;
+        }
+
+        private void writeBuffer() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        /**
+         * Completes the snapshot: writes the header, forces the file to disk and atomically
+         * replaces the previous snapshot. The directory is forced too, to keep the rename.
+         *
+         * @return The number of items
+         */
+        public long commit() throws IOException {
+            this.writeBuffer();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(this.seq)
+                    .putLong(this.itemCount)
+                    .flip();
+            while (header.hasRemaining()) {
+                this.channel.write(header, header.position());
+            }
+            this.channel.force(true);
+            this.channel.close();
+            Files.move(this.tmpPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.isCommitted = true;
+            WriteAheadLog.forceDirectory(this.path);
+            return this.itemCount;
+        }
+
+        public long getItemCount() {
+            return this.itemCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!this.isCommitted) {
+                this.channel.close();
+                Files.deleteIfExists(this.tmpPath);
+            }
+        }
+
+    }
+
+    /**
+     * Reads a snapshot by mapping it into memory, instead of copying it through a buffer.
+     */
+    public static class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final long seq;
+        private final long itemCount;
+
+        /**
+         * Opens the snapshot and validates its header.
+         *
+         * @param path The snapshot
+         * @throws IOException If the snapshot can't be read or is invalid
+         */
+        public Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                if (this.channel.size() < HEADER_BYTES) {
+                    throw new IOException(String.format("%s is not a snapshot", path));
+                }
+                ByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException(String.format("%s is not a snapshot", path));
+                }
+                this.seq = header.getLong();
+                this.itemCount = header.getLong();
+                if (this.channel.size() < HEADER_BYTES + this.itemCount * ITEM_BYTES) {
+                    throw new IOException(String.format("%s is incomplete", path));
+                }
+            } catch (IOException e) {
+                this.channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the commit sequence number the snapshot has been started at. All later
+         * commits have to be replayed from the log.
+         */
+        public long getSeq() {
+            return this.seq;
+        }
+
+        public long getItemCount() {
+            return this.itemCount;
+        }
+
+        /**
+         * Passes all items in ascending order of their keys.
+         */
+        public void forEach(ItemConsumer consumer) throws IOException {
+            for (long first = 0; first < this.itemCount; first = first + MAX_REGION_ITEMS) {
+                long regionItems = Math.min(MAX_REGION_ITEMS, this.itemCount - first);
+                MappedByteBuffer region = this.channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * ITEM_BYTES, regionItems * ITEM_BYTES);
+                for (long i = 0; i < regionItems; i++) {
+                    consumer.accept(region.getInt(), region.getInt(), region.getInt());
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,308 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of all committed writes of the database. Every record has a fixed size of
+ * 25 bytes: type (1), key (4), value (4), update count (4), commit sequence number (8) and
+ * the CRC32 of these fields (4). Appended records are buffered and forced to disk according
+ * to the fsync policy.
+ */
+public class WriteAheadLog implements Closeable {
+
+    public static final int RECORD_BYTES = 25;
+    private static final int CHECKED_BYTES = RECORD_BYTES - 4;
+    private static final int BUFFER_RECORDS = 4096;
+
+    private final Path path;
+    private FileChannel channel;
+    private final FsyncPolicy fsyncPolicy;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_BYTES);
+    private final CRC32 crc = new CRC32();
+    /**
+     * Number of appended records that are not forced to disk yet
+     */
+    private int unsyncedCount = 0;
+    private long firstUnsyncedMillis = 0;
+    private long recordCount = 0;
+    private long syncCount = 0;
+    private long truncatedBytes = 0;
+
+    public WriteAheadLog(Path path, FsyncPolicy fsyncPolicy) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.channel.position(this.channel.size());
+    }
+
+    /**
+     * Reads all records from the start of the log. A torn or corrupt record (e.g. the process
+     * died while writing it) ends the log, it is cut off together with everything after it.
+     * Afterwards, new records are appended behind the last valid one.
+     *
+     * @param consumer Receives every valid record in order
+     * @return The number of valid records
+     * @throws IOException If the log can't be read
+     */
+    public long replay(Consumer<LogRecord> consumer) throws IOException {
+        long size = this.channel.size();
+        long[] count = {0};
+        long validBytes = read(this.channel, size, record -> {
+            consumer.accept(record);
+            count[0] = count[0] + 1;
+        });
+
+        if (validBytes < size) {
+            this.truncatedBytes = size - validBytes;
+            this.channel.truncate(validBytes);
+        }
+        this.channel.position(validBytes);
+        this.recordCount = count[0];
+        return count[0];
+    }
+
+    /**
+     * Reads the valid records of a log up to the given offset, e.g. while another thread keeps
+     * appending to it.
+     *
+     * @param path      The log
+     * @param endOffset Records at or after this offset are not read
+     * @param consumer  Receives every valid record in order
+     * @return The number of bytes of all valid records
+     * @throws IOException If the log can't be read
+     */
+    public static long read(Path path, long endOffset, Consumer<LogRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, Math.min(endOffset, channel.size()), consumer);
+        }
+    }
+
+    private static long read(FileChannel channel, long size, Consumer<LogRecord> consumer) throws IOException {
+        long validBytes = 0;
+        CRC32 crc = new CRC32();
+        ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_BYTES);
+
+        while (validBytes + RECORD_BYTES <= size) {
+            readBuffer.clear();
+            readBuffer.limit((int) Math.min(readBuffer.capacity(), (size - validBytes) / RECORD_BYTES * RECORD_BYTES));
+            while (readBuffer.hasRemaining()) {
+                if (channel.read(readBuffer, validBytes + readBuffer.position()) < 0) {
+                    break;
+                }
+            }
+            readBuffer.flip();
+
+            int decodedCount = 0;
+            Optional<LogRecord> record = Optional.empty();
+            while (readBuffer.remaining() >= RECORD_BYTES && (record = decode(readBuffer, crc)).isPresent()) {
+                consumer.accept(record.get());
+                decodedCount = decodedCount + 1;
+            }
+            validBytes = validBytes + (long) decodedCount * RECORD_BYTES;
+            if (record.isEmpty() || decodedCount == 0) {
+                break;
+            }
+        }
+        return validBytes;
+    }
+
+    private static Optional<LogRecord> decode(ByteBuffer readBuffer, CRC32 crc) {
+        int start = readBuffer.position();
+        byte type = readBuffer.get();
+        int key = readBuffer.getInt();
+        int value = readBuffer.getInt();
+        int updateCount = readBuffer.getInt();
+        long seq = readBuffer.getLong();
+        int checksum = readBuffer.getInt();
+
+        crc.reset();
+        crc.update(readBuffer.duplicate().position(start).limit(start + CHECKED_BYTES));
+        if ((int) crc.getValue() != checksum) {
+            return Optional.empty();
+        }
+        return Optional.of(new LogRecord(type, key, value, updateCount, seq));
+    }
+
+    /**
+     * Appends the record to the buffer, it is forced to disk as soon as the fsync policy
+     * demands it.
+     *
+     * @param record The committed write
+     * @throws IOException If the buffer can't be written
+     */
+    public void append(LogRecord record) throws IOException {
+        if (this.buffer.remaining() < RECORD_BYTES) {
+            this.writeBuffer();
+        }
+
+        int start = this.buffer.position();
+        this.buffer.put(record.getType())
+                .putInt(record.getKey())
+                .putInt(record.getValue())
+                .putInt(record.getUpdateCount())
+                .putLong(record.getSeq());
+        this.crc.reset();
+        this.crc.update(this.buffer.duplicate().position(start).limit(start + CHECKED_BYTES));
+        this.buffer.putInt((int) this.crc.getValue());
+
+        long now = System.currentTimeMillis();
+        if (this.unsyncedCount == 0) {
+            this.firstUnsyncedMillis = now;
+        }
+        this.unsyncedCount = this.unsyncedCount + 1;
+        this.recordCount = this.recordCount + 1;
+        if (this.isSyncDue(now)) {
+            this.sync();
+        }
+    }
+
+    public boolean isSyncDue(long nowMillis) {
+        return this.unsyncedCount >= this.fsyncPolicy.getMaxRecords()
+                || (this.unsyncedCount > 0 && nowMillis - this.firstUnsyncedMillis >= this.fsyncPolicy.getMaxDelayMillis());
+    }
+
+    public boolean isSynced() {
+        return this.unsyncedCount == 0;
+    }
+
+    private void writeBuffer() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes all buffered records and forces them to disk with a single fsync.
+     *
+     * @throws IOException If the records can't be written
+     */
+    public void sync() throws IOException {
+        if (this.unsyncedCount == 0) {
+            return;
+        }
+        this.writeBuffer();
+        this.channel.force(false);
+        this.syncCount = this.syncCount + 1;
+        this.unsyncedCount = 0;
+    }
+
+    /**
+     * Replaces the log by its compacted copy. The records appended since the copy has been
+     * started are moved over, then the copy atomically takes the place of the log. If anything
+     * fails before, the log is kept as it is.
+     *
+     * @param compactedPath The compacted copy of the log up to the given offset
+     * @param endOffset     Offset in this log up to which the copy has been made
+     * @return The size of the new log in bytes
+     * @throws IOException If the log couldn't be replaced
+     */
+    public long replaceBy(Path compactedPath, long endOffset) throws IOException {
+        this.writeBuffer();
+        try (FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.WRITE)) {
+            long tailBytes = this.channel.size() - endOffset;
+            long copied = 0;
+            compacted.position(compacted.size());
+            while (copied < tailBytes) {
+                copied = copied + this.channel.transferTo(endOffset + copied, tailBytes - copied, compacted);
+            }
+            compacted.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(compactedPath);
+            throw e;
+        }
+
+        Files.move(compactedPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.channel.close();
+        this.channel = FileChannel.open(this.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(this.channel.size());
+        // otherwise a crash may bring back the old log, without the records appended from now on
+        forceDirectory(this.path);
+        return this.channel.size();
+    }
+
+    /**
+     * Forces the directory of the file to disk, such that a rename into it survives a crash.
+     *
+     * @param path A file in the directory
+     * @throws IOException If the directory can't be forced
+     */
+    static void forceDirectory(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Drops all records, the buffered ones as well.
+     *
+     * @throws IOException If the log can't be truncated
+     */
+    public void truncate() throws IOException {
+        this.buffer.clear();
+        this.unsyncedCount = 0;
+        this.channel.truncate(0);
+        this.channel.position(0);
+        this.channel.force(false);
+        this.recordCount = 0;
+    }
+
+    /**
+     * Returns the offset up to which the records have been handed to the file, the buffered
+     * ones follow behind.
+     */
+    public long getWrittenBytes() throws IOException {
+        return this.channel.size();
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return this.fsyncPolicy;
+    }
+
+    public long getRecordCount() {
+        return this.recordCount;
+    }
+
+    public long getSyncCount() {
+        return this.syncCount;
+    }
+
+    /**
+     * Returns the number of bytes cut off by the last replay.
+     */
+    public long getTruncatedBytes() {
+        return this.truncatedBytes;
+    }
+
+    public long getSizeBytes() throws IOException {
+        return this.channel.size() + this.buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.sync();
+        this.channel.close();
+    }
+
+}
@@ -2,12 +2,14 @@ package it.unitn.disi.ds1.multi_level_cache.utils.Logger;
 
 import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageType;
 
+import java.util.List;
 import java.util.UUID;
 
 public final class Logger {
 
     private final static long START_TIME = System.currentTimeMillis();
 
+    private final static String BLOOM_FILTER_FORMAT = "version: %d, is-delta: %b, bits: %d, hashes: %d, filter-bytes: %d, msg-bytes: %d";
     private final static String CRASH_FORMAT = "recover-after: %ds";
     private final static String CRITICAL_READ_FORMAT_REC = "key: %d, msg-uc: %d, actor-uc: %d, is-locked: %b";
     private final static String CRITICAL_READ_FORMAT_SEND = "key: %d, uc: %d";
@@ -21,11 +23,31 @@ public final class Logger {
     private final static String FILL_FORMAT_REC = "key: %d, new-value: %d, old-value: %d, new-uc: %d, old-uc: %d";
     private final static String FILL_FORMAT_SEND = "key: %d, value: %d, uc: %d";
     private final static String INIT_READ_FORMAT = "key: %d, is-critical: %b";
+    private final static String INIT_SCAN_FORMAT = "from-key: %d, to-key: %d";
     private final static String INIT_WRITE_FORMAT = "key: %d, value: %d, is-critical: %b";
     private final static String JOIN_FORMAT = "%s of %d";
     private final static String LOG_FORMAT = "%-9.9s | %-8.8s | %-3.3s | %-18.18s | %s";
+    private final static String PREFETCH_FORMAT = "uuid: %s, keys: %d, first-key: %d";
+    private final static String SCAN_FORMAT = "uuid: %s, from-key: %d, to-key: %d, chunk-size: %d, window: %d";
+    private final static String SCAN_CHUNK_FORMAT = "uuid: %s, seq: %d, keys: %d, is-last: %b";
+    private final static String SCAN_ACK_FORMAT = "uuid: %s, seq: %d";
+    private final static String EPOCH_FORMAT = "epoch: %d, high-water: %d";
+    private final static String ATTACH_FORMAT = "l1: %s, is-home: %b";
+    private final static String HEARTBEAT_FORMAT = "peer: %s, phi: %.2f, is-suspected: %b";
+    private final static String CIRCUIT_BREAKER_FORMAT = "peer: %s, state: %s, failures: %d";
+    private final static String ADMISSION_FORMAT = "queue-delay: %dms, is-shedding: %b";
+    private final static String WAL_FORMAT = "records: %d, fsyncs: %d, truncated: %dB";
+    private final static String WAL_COMPACTION_FORMAT = "records: %d -> %d, truncated: %d, bytes: %d -> %d, millis: %d, mb-per-s: %.1f";
+    private final static String SNAPSHOT_FORMAT = "seq: %d, items: %d, millis: %d";
+    private final static String DATASET_FORMAT = "records: %d, millis: %d, records-per-second: %d";
+    private final static String REPLICA_FORMAT = "seq: %d, items: %d, is-last: %b";
+    private final static String CHANGES_FORMAT = "after-seq: %d, changes: %d, is-truncated: %b";
+    private final static String CATCH_UP_FORMAT = "since: %d, high-water: %d, keys: %d, is-truncated: %b";
+    private final static String PEER_READ_FORMAT = "key: %d, uc: %d, is-found: %b";
     private final static String READ_FORMAT_REC = "key: %d, msg-uc: %d, actor-uc: %d, is-locked: %b, is-older: %b, is-unconfirmed: %b";
     private final static String READ_FORMAT_SEND = "key: %d, uc: %d";
+    private final static String READ_REPLY_STALE_FORMAT_REC = "key: %d, new-value: %d, old-value: %d, new-uc: %d, old-uc: %d, is-stale: %b";
+    private final static String READ_REPLY_STALE_FORMAT_SEND = "key: %d, value: %d, uc: %d, is-stale: %b";
     private final static String REFILL_FORMAT_REC = "uuid: %s, key: %d, new-value: %d, old-value: %d, msg-uc: %d, actor-uc: %d, is-locked: %b, is-unconfirmed: %b, must-update: %b";
     private final static String REFILL_FORMAT_SEND = "uuid: %s, key: %d, value: %d, uc: %d";
     private final static String WRITE_FORMAT_REC = "uuid: %s, key: %d, value: %d, is-locked: %b";
@@ -35,7 +57,8 @@ public final class Logger {
     private final static String TIMEOUT_FORMAT = "type: %s";
 
     private static boolean isSendAction(LoggerOperationType operationType) {
-        return operationType == LoggerOperationType.SEND || operationType == LoggerOperationType.MULTICAST || operationType == LoggerOperationType.RETRY;
+        return operationType == LoggerOperationType.SEND || operationType == LoggerOperationType.MULTICAST || operationType == LoggerOperationType.RETRY
+                || operationType == LoggerOperationType.HEDGE;
     }
 
     private static String uuidToString(UUID uuid) {
@@ -61,6 +84,12 @@ public final class Logger {
         System.out.println(msg);
     }
 
+    public static void bloomFilter(String id, LoggerOperationType operationType, long version, boolean isDelta, int numOfBits,
+                                   int numOfHashes, int filterBytes, int messageBytes) {
+        String msg = String.format(BLOOM_FILTER_FORMAT, version, isDelta, numOfBits, numOfHashes, filterBytes, messageBytes);
+        log(MessageType.BLOOM_FILTER, id, operationType, msg);
+    }
+
     public static void crash(String id, long recoverAfter) {
         String msg = String.format(CRASH_FORMAT, recoverAfter);
         log(MessageType.CRASH, id, LoggerOperationType.RECEIVED, msg);
@@ -160,6 +189,103 @@ public final class Logger {
         log(MessageType.JOIN, id, LoggerOperationType.RECEIVED, msg);
     }
 
+    public static void peerRead(String id, LoggerOperationType operationType, int key, int updateCount, boolean isFound) {
+        String msg = String.format(PEER_READ_FORMAT, key, updateCount, isFound);
+        log(MessageType.PEER_READ, id, operationType, msg);
+    }
+
+    public static void prefetch(String id, LoggerOperationType operationType, MessageType messageType, UUID uuid, List<Integer> keys) {
+        int firstKey = keys.isEmpty() ? -1 : keys.get(0);
+        String msg = String.format(PREFETCH_FORMAT, uuidToString(uuid), keys.size(), firstKey);
+        log(messageType, id, operationType, msg);
+    }
+
+    public static void initScan(String id, int fromKey, int toKey) {
+        String msg = String.format(INIT_SCAN_FORMAT, fromKey, toKey);
+        log(MessageType.INIT_SCAN, id, LoggerOperationType.RECEIVED, msg);
+    }
+
+    public static void scan(String id, LoggerOperationType operationType, UUID uuid, int fromKey, int toKey, int chunkSize, int window) {
+        String msg = String.format(SCAN_FORMAT, uuidToString(uuid), fromKey, toKey, chunkSize, window);
+        log(MessageType.SCAN, id, operationType, msg);
+    }
+
+    public static void scanChunk(String id, LoggerOperationType operationType, UUID uuid, int seq, int numOfKeys, boolean isLast) {
+        String msg = String.format(SCAN_CHUNK_FORMAT, uuidToString(uuid), seq, numOfKeys, isLast);
+        log(MessageType.SCAN_CHUNK, id, operationType, msg);
+    }
+
+    public static void scanAck(String id, LoggerOperationType operationType, UUID uuid, int seq) {
+        String msg = String.format(SCAN_ACK_FORMAT, uuidToString(uuid), seq);
+        log(MessageType.SCAN_ACK, id, operationType, msg);
+    }
+
+    public static void epoch(String id, LoggerOperationType operationType, long epoch, long highWaterSeq) {
+        String msg = String.format(EPOCH_FORMAT, epoch, highWaterSeq);
+        log(MessageType.EPOCH, id, operationType, msg);
+    }
+
+    public static void catchUp(String id, LoggerOperationType operationType, long sinceSeq, long highWaterSeq, int numOfKeys,
+                               boolean isTruncated) {
+        String msg = String.format(CATCH_UP_FORMAT, sinceSeq, highWaterSeq, numOfKeys, isTruncated);
+        log(MessageType.CATCH_UP, id, operationType, msg);
+    }
+
+    public static void attach(String id, LoggerOperationType operationType, MessageType messageType, String l1Id,
+                              boolean isHome) {
+        String msg = String.format(ATTACH_FORMAT, l1Id, isHome);
+        log(messageType, id, operationType, msg);
+    }
+
+    public static void heartbeat(String id, LoggerOperationType operationType, String peerId, double phi, boolean isSuspected) {
+        String msg = String.format(HEARTBEAT_FORMAT, peerId, phi, isSuspected);
+        log(MessageType.HEARTBEAT, id, operationType, msg);
+    }
+
+    public static void circuitBreaker(String id, String peerId, String state, int failureCount) {
+        String msg = String.format(CIRCUIT_BREAKER_FORMAT, peerId, state, failureCount);
+        log(MessageType.OVERLOAD, id, LoggerOperationType.ERROR, msg);
+    }
+
+    public static void admission(String id, long queueDelayMillis, boolean isShedding) {
+        String msg = String.format(ADMISSION_FORMAT, queueDelayMillis, isShedding);
+        log(MessageType.OVERLOAD, id, LoggerOperationType.RECEIVED, msg);
+    }
+
+    public static void writeAheadLog(String id, LoggerOperationType operationType, long recordCount, long syncCount,
+                                     long truncatedBytes) {
+        String msg = String.format(WAL_FORMAT, recordCount, syncCount, truncatedBytes);
+        log(MessageType.WAL, id, operationType, msg);
+    }
+
+    public static void logCompaction(String id, LoggerOperationType operationType, long inputRecords, long outputRecords,
+                                     long truncatedRecords, long inputBytes, long outputBytes, long millis, double bytesPerSecond) {
+        String msg = String.format(WAL_COMPACTION_FORMAT, inputRecords, outputRecords, truncatedRecords, inputBytes, outputBytes,
+                millis, bytesPerSecond / (1024 * 1024));
+        log(MessageType.WAL_COMPACTION, id, operationType, msg);
+    }
+
+    public static void snapshot(String id, LoggerOperationType operationType, long seq, long itemCount, long millis) {
+        String msg = String.format(SNAPSHOT_FORMAT, seq, itemCount, millis);
+        log(MessageType.SNAPSHOT, id, operationType, msg);
+    }
+
+    public static void dataset(String id, LoggerOperationType operationType, long recordCount, long millis) {
+        long recordsPerSecond = recordCount * 1000 / Math.max(1, millis);
+        String msg = String.format(DATASET_FORMAT, recordCount, millis, recordsPerSecond);
+        log(MessageType.DATASET, id, operationType, msg);
+    }
+
+    public static void replica(String id, LoggerOperationType operationType, long seq, int itemCount, boolean isLast) {
+        String msg = String.format(REPLICA_FORMAT, seq, itemCount, isLast);
+        log(MessageType.REPLICA, id, operationType, msg);
+    }
+
+    public static void changes(String id, LoggerOperationType operationType, long afterSeq, int changeCount, boolean isTruncated) {
+        String msg = String.format(CHANGES_FORMAT, afterSeq, changeCount, isTruncated);
+        log(MessageType.CHANGES, id, operationType, msg);
+    }
+
     public static void read(String id, LoggerOperationType operationType, int key, int msgUpdateCount, int actorUpdateCount, boolean isLocked, boolean isOlder, boolean isUnconfirmed) {
         String msg = "";
 
@@ -184,6 +310,18 @@ public final class Logger {
         log(MessageType.READ_REPLY, id, operationType, msg);
     }
 
+    public static void readReply(String id, LoggerOperationType operationType, int key, int newValue, int oldValue, int newUc, int oldUc, boolean isStale) {
+        String msg = "";
+
+        if (operationType == LoggerOperationType.RECEIVED) {
+            msg = String.format(READ_REPLY_STALE_FORMAT_REC, key, newValue, oldValue, newUc, oldUc, isStale);
+        } else if (isSendAction(operationType)) {
+            msg = String.format(READ_REPLY_STALE_FORMAT_SEND, key, newValue, newUc, isStale);
+        }
+
+        log(MessageType.READ_REPLY, id, operationType, msg);
+    }
+
     public static void recover(String id, LoggerOperationType operationType) {
         log(MessageType.RECOVER, id, operationType, null);
     }
@@ -200,6 +338,10 @@ public final class Logger {
         log(MessageType.REFILL, id, operationType, msg);
     }
 
+    public static void stats(String id, String info) {
+        log(MessageType.STATS, id, LoggerOperationType.RECEIVED, info);
+    }
+
     public static void timeout(String id, MessageType type) {
         String msg = String.format(TIMEOUT_FORMAT, type);
         log(MessageType.TIMEOUT, id, LoggerOperationType.RECEIVED, msg);
@@ -2,7 +2,9 @@ package it.unitn.disi.ds1.multi_level_cache.utils.Logger;
 
 public enum LoggerOperationType {
 
+    CREATE,
     ERROR,
+    HEDGE,
     MULTICAST,
     RECEIVED,
     RETRY,
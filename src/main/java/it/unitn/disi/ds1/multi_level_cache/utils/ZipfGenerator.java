@@ -0,0 +1,45 @@
+package it.unitn.disi.ds1.multi_level_cache.utils;
+
+import java.util.Random;
+
+/**
+ * Draws keys 0..n-1 following a Zipf distribution, where key 0 is the most
+ * popular one. Used to simulate skewed workloads.
+ */
+public class ZipfGenerator {
+
+    private final double[] cumulativeProbabilities;
+    private final Random random;
+
+    public ZipfGenerator(int numOfKeys, double exponent, long seed) {
+        this.cumulativeProbabilities = new double[numOfKeys];
+        this.random = new Random(seed);
+
+        double sum = 0;
+        for (int i = 0; i < numOfKeys; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+        }
+        double cumulative = 0;
+        for (int i = 0; i < numOfKeys; i++) {
+            cumulative += 1 / Math.pow(i + 1, exponent) / sum;
+            this.cumulativeProbabilities[i] = cumulative;
+        }
+    }
+
+    public int nextKey() {
+        double p = this.random.nextDouble();
+        int low = 0;
+        int high = this.cumulativeProbabilities.length - 1;
+        // binary search for the first cumulative probability >= p
+        while (low < high) {
+            int mid = (low + high) / 2;
+            if (this.cumulativeProbabilities[mid] < p) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+}
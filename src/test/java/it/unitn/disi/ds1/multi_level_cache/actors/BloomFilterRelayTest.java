@@ -0,0 +1,67 @@
+package it.unitn.disi.ds1.multi_level_cache.actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BloomFilterConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.DatasetConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.messages.BloomFilterMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinDatabaseMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL1CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL2CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.RefillMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.WriteMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+public class BloomFilterRelayTest {
+
+    private static final int NUM_OF_ITEMS = 20;
+    private static final int NEW_KEY = 500;
+    private static final Duration MAX_WAIT = Duration.ofSeconds(3);
+
+    private ActorSystem system;
+
+    @Before
+    public void setup() {
+        this.system = ActorSystem.create("BloomFilterRelayTest");
+    }
+
+    @After
+    public void teardown() {
+        TestKit.shutdownActorSystem(this.system);
+        this.system = null;
+    }
+
+    @Test
+    public void testL2LearnsKeyCreatedThroughAnotherL1() {
+        // the filter is never refreshed during the test
+        NodeConfig config = NodeConfig.defaults()
+                .withBloomFilterConfig(BloomFilterConfig.of(1000, 0.0001, 60_000))
+                .withDatasetConfig(DatasetConfig.random(NUM_OF_ITEMS));
+        ActorRef database = this.system.actorOf(Database.props(config, 0));
+        ActorRef l1Cache = this.system.actorOf(L1Cache.props("L1-1", config));
+        // the probes act as the only L2 cache of the L1 cache and as a second L1 cache, that writes
+        TestKit l2Cache = new TestKit(this.system);
+        TestKit writer = new TestKit(this.system);
+
+        l1Cache.tell(new JoinDatabaseMessage(List.of(database)), ActorRef.noSender());
+        l1Cache.tell(new JoinL2CachesMessage(List.of(l2Cache.getRef())), ActorRef.noSender());
+        database.tell(new JoinL1CachesMessage(List.of(l1Cache, writer.getRef())), ActorRef.noSender());
+        l2Cache.expectMsgClass(MAX_WAIT, BloomFilterMessage.class);
+
+        // the L1 cache doesn't know the new key, but passes its refill on
+        writer.send(database, new WriteMessage(NEW_KEY, 42, MessageConfig.none()));
+        RefillMessage refillMessage = (RefillMessage) l2Cache.fishForMessage(MAX_WAIT, "refill of the new key",
+                message -> message instanceof RefillMessage refill && refill.getKey() == NEW_KEY);
+        Assert.assertEquals(42, refillMessage.getValue());
+    }
+
+}
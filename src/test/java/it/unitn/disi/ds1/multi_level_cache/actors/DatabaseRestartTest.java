@@ -0,0 +1,107 @@
+package it.unitn.disi.ds1.multi_level_cache.actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.BackingStoreConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.DatasetConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.WriteAheadLogConfig;
+import it.unitn.disi.ds1.multi_level_cache.messages.FillMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL1CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.ReadMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
+import it.unitn.disi.ds1.multi_level_cache.storage.FsyncPolicy;
+import it.unitn.disi.ds1.multi_level_cache.storage.LogCompactor;
+import it.unitn.disi.ds1.multi_level_cache.storage.WriteAheadLog;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class DatabaseRestartTest {
+
+    private static final int NUM_OF_ITEMS = 20;
+    private static final Duration MAX_WAIT = Duration.ofSeconds(3);
+
+    private ActorSystem system;
+    private Path directory;
+
+    @Before
+    public void setup() throws IOException {
+        this.system = ActorSystem.create("DatabaseRestartTest");
+        this.directory = Files.createTempDirectory("test-database");
+    }
+
+    @After
+    public void teardown() throws IOException {
+        TestKit.shutdownActorSystem(this.system);
+        this.system = null;
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Starts the database, reads all items and stops it again.
+     *
+     * @return The fills of all items, ordered by key
+     */
+    private List<FillMessage> readAll(NodeConfig config) {
+        ActorRef database = this.system.actorOf(Database.props(config, 0));
+        TestKit l1Cache = new TestKit(this.system);
+        database.tell(new JoinL1CachesMessage(List.of(l1Cache.getRef())), ActorRef.noSender());
+
+        List<FillMessage> fills = new ArrayList<>();
+        for (int key = 0; key < NUM_OF_ITEMS; key++) {
+            l1Cache.send(database, new ReadMessage(key, 0, MessageConfig.none()));
+            fills.add(l1Cache.expectMsgClass(MAX_WAIT, FillMessage.class));
+        }
+
+        l1Cache.watch(database);
+        this.system.stop(database);
+        l1Cache.expectTerminated(MAX_WAIT, database);
+        return fills;
+    }
+
+    @Test
+    public void testLsmKeepsRandomItemsBeforeFirstFlush() {
+        // the memtable is never flushed, the items are only in the log
+        NodeConfig config = NodeConfig.defaults()
+                .withWriteAheadLogConfig(WriteAheadLogConfig.of(this.directory, FsyncPolicy.perWrite()))
+                .withBackingStoreConfig(BackingStoreConfig.lsm(1000, 4, 100))
+                .withDatasetConfig(DatasetConfig.random(NUM_OF_ITEMS));
+
+        List<FillMessage> before = this.readAll(config);
+        List<FillMessage> after = this.readAll(config);
+        for (int key = 0; key < NUM_OF_ITEMS; key++) {
+            Assert.assertEquals(key, after.get(key).getKey());
+            Assert.assertEquals(before.get(key).getValue(), after.get(key).getValue());
+            Assert.assertEquals(before.get(key).getUpdateCount(), after.get(key).getUpdateCount());
+        }
+    }
+
+    @Test
+    public void testAbandonedCompactionIsDeleted() throws IOException {
+        NodeConfig config = NodeConfig.defaults()
+                .withWriteAheadLogConfig(WriteAheadLogConfig.of(this.directory, FsyncPolicy.perWrite()))
+                .withDatasetConfig(DatasetConfig.random(NUM_OF_ITEMS));
+        Path compactedPath = LogCompactor.getCompactedPath(config.getWriteAheadLogConfig().getLogPath());
+        Files.write(compactedPath, new byte[WriteAheadLog.RECORD_BYTES]);
+
+        this.readAll(config);
+        Assert.assertFalse(Files.exists(compactedPath));
+    }
+
+}
@@ -0,0 +1,75 @@
+package it.unitn.disi.ds1.multi_level_cache.actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.RecoveryConfig;
+import it.unitn.disi.ds1.multi_level_cache.messages.CrashMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.EpochMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.FillMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinDatabaseMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL1CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL2CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.ReadMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.RecoveryMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.RefillMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.WriteMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+public class EpochRecoveryTest {
+
+    private static final int KEY = 3;
+    private static final Duration MAX_WAIT = Duration.ofSeconds(3);
+
+    private ActorSystem system;
+
+    @Before
+    public void setup() {
+        this.system = ActorSystem.create("EpochRecoveryTest");
+    }
+
+    @After
+    public void teardown() {
+        TestKit.shutdownActorSystem(this.system);
+        this.system = null;
+    }
+
+    @Test
+    public void testL2SeesWriteAfterL1Recovery() {
+        NodeConfig config = NodeConfig.defaults().withRecoveryConfig(RecoveryConfig.epoch(100));
+        ActorRef database = this.system.actorOf(Database.props(config, 0));
+        ActorRef l1Cache = this.system.actorOf(L1Cache.props("L1-1", config));
+        // the probes act as the only L2 cache of the L1 cache and as a second L1 cache, that writes
+        TestKit l2Cache = new TestKit(this.system);
+        TestKit writer = new TestKit(this.system);
+
+        database.tell(new JoinL1CachesMessage(List.of(l1Cache, writer.getRef())), ActorRef.noSender());
+        l1Cache.tell(new JoinDatabaseMessage(List.of(database)), ActorRef.noSender());
+        l1Cache.tell(new JoinL2CachesMessage(List.of(l2Cache.getRef())), ActorRef.noSender());
+
+        // both caches know the key from now on
+        l1Cache.tell(new ReadMessage(KEY, 0, MessageConfig.none()), l2Cache.getRef());
+        FillMessage fillMessage = l2Cache.expectMsgClass(MAX_WAIT, FillMessage.class);
+
+        // the L1 cache loses the key by the crash, its L2 cache keeps it
+        l1Cache.tell(new CrashMessage(0), ActorRef.noSender());
+        l1Cache.tell(new RecoveryMessage(), ActorRef.noSender());
+        l2Cache.expectMsgClass(MAX_WAIT, EpochMessage.class);
+
+        int newValue = fillMessage.getValue() + 1;
+        writer.send(database, new WriteMessage(KEY, newValue, MessageConfig.none()));
+        RefillMessage refillMessage = (RefillMessage) l2Cache.fishForMessage(MAX_WAIT, "refill of the written key",
+                message -> message instanceof RefillMessage refill && refill.getKey() == KEY);
+        Assert.assertEquals(newValue, refillMessage.getValue());
+        Assert.assertEquals(fillMessage.getUpdateCount() + 1, refillMessage.getUpdateCount());
+    }
+
+}
@@ -0,0 +1,87 @@
+package it.unitn.disi.ds1.multi_level_cache.actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.NodeConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.ReparentConfig;
+import it.unitn.disi.ds1.multi_level_cache.actors.utils.TimeoutConfig;
+import it.unitn.disi.ds1.multi_level_cache.messages.FillMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinDatabaseMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL1CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinL2CachesMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.JoinMainL1CacheMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.ReadMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.ReadReplyMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.WriteMessage;
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.MessageConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+public class ReparentTest {
+
+    private static final int KEY = 3;
+    private static final int OTHER_KEY = 4;
+    private static final int NEW_VALUE = 4242;
+    private static final Duration MAX_WAIT = Duration.ofSeconds(3);
+
+    private ActorSystem system;
+
+    @Before
+    public void setup() {
+        this.system = ActorSystem.create("ReparentTest");
+    }
+
+    @After
+    public void teardown() {
+        TestKit.shutdownActorSystem(this.system);
+        this.system = null;
+    }
+
+    @Test
+    public void testFosteredL2SeesWriteDuringFosterMode() {
+        // the home L1 cache is never probed again during the test
+        NodeConfig config = NodeConfig.defaults()
+                .withReparentConfig(ReparentConfig.of(60_000))
+                .withTimeoutConfig(TimeoutConfig.adaptive(100, 200, 300, 1000));
+        ActorRef database = this.system.actorOf(Database.props(config, 0));
+        ActorRef fosterL1Cache = this.system.actorOf(L1Cache.props("L1-2", config));
+        ActorRef l2Cache = this.system.actorOf(L2Cache.props("L2-1-1", config));
+        // the probes act as the home L1 cache, that stops answering, as a client and as a writer
+        TestKit homeL1Cache = new TestKit(this.system);
+        TestKit client = new TestKit(this.system);
+        TestKit writer = new TestKit(this.system);
+
+        database.tell(new JoinL1CachesMessage(List.of(fosterL1Cache, writer.getRef())), ActorRef.noSender());
+        fosterL1Cache.tell(new JoinDatabaseMessage(List.of(database)), ActorRef.noSender());
+        fosterL1Cache.tell(new JoinL2CachesMessage(List.of()), ActorRef.noSender());
+        l2Cache.tell(new JoinMainL1CacheMessage(homeL1Cache.getRef()), ActorRef.noSender());
+        l2Cache.tell(new JoinDatabaseMessage(List.of(database)), ActorRef.noSender());
+        l2Cache.tell(new JoinL1CachesMessage(List.of(homeL1Cache.getRef(), fosterL1Cache)), ActorRef.noSender());
+
+        // the L2 cache knows the key from its home L1 cache, with an update count below any write
+        client.send(l2Cache, new ReadMessage(KEY, 0, MessageConfig.none()));
+        homeL1Cache.expectMsgClass(MAX_WAIT, ReadMessage.class);
+        homeL1Cache.reply(new FillMessage(KEY, 0, 0));
+        client.expectMsgClass(MAX_WAIT, ReadReplyMessage.class);
+
+        // the home L1 cache doesn't answer, the read times out and the L2 cache is fostered
+        client.send(l2Cache, new ReadMessage(OTHER_KEY, 0, MessageConfig.none()));
+        homeL1Cache.expectMsgClass(MAX_WAIT, ReadMessage.class);
+        client.expectMsgClass(MAX_WAIT, ReadReplyMessage.class);
+
+        writer.send(database, new WriteMessage(KEY, NEW_VALUE, MessageConfig.none()));
+        client.awaitAssert(MAX_WAIT, () -> {
+            client.send(l2Cache, new ReadMessage(KEY, 0, MessageConfig.none()));
+            ReadReplyMessage reply = client.expectMsgClass(MAX_WAIT, ReadReplyMessage.class);
+            Assert.assertEquals(NEW_VALUE, reply.getValue());
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,95 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.storage.FsyncPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class BackingStoreTest {
+
+    private interface StoreFactory {
+        BackingStore open() throws IOException;
+    }
+
+    private void testReopen(StoreFactory factory) throws IOException, IllegalAccessException {
+        try (BackingStore store = factory.open()) {
+            for (int key = 0; key < 5000; key = key + 5) {
+                store.setValueForKey(key, key * 2, 1);
+            }
+            store.setValueForKey(10, 7);
+            store.lockValueForKey(20);
+            Assert.assertThrows(IllegalAccessException.class, () -> store.setValueForKey(20, 1));
+        }
+
+        try (BackingStore store = factory.open()) {
+            Assert.assertEquals(1000, store.size());
+            Assert.assertEquals(7, (int) store.getValueForKey(10).orElseThrow());
+            Assert.assertEquals(2, (int) store.getUpdateCountForKey(10).orElseThrow());
+            Assert.assertFalse(store.containsKey(11));
+            Assert.assertFalse(store.isLocked(20));
+            Assert.assertEquals(3, store.getItemsInRange(12, 30, 10).size());
+            Assert.assertEquals(15, store.getItemsInRange(12, 30, 10).get(0).getKey());
+        }
+    }
+
+    @Test
+    public void testMappedFileStoreReopen() throws IOException, IllegalAccessException {
+        Path path = Files.createTempFile("test", ".mmap");
+        Files.delete(path);
+        this.testReopen(() -> new MappedFileStore(path, 16));
+        Files.delete(path);
+    }
+
+    @Test
+    public void testLogFileStoreReopen() throws IOException, IllegalAccessException {
+        Path path = Files.createTempFile("test", ".log");
+        this.testReopen(() -> new LogFileStore(path, FsyncPolicy.everyRecords(100)));
+        Files.delete(path);
+    }
+
+    @Test
+    public void testMappedFileStoreKeyRange() throws IOException, IllegalAccessException {
+        Path path = Files.createTempFile("test", ".mmap");
+        Files.delete(path);
+        try (MappedFileStore store = new MappedFileStore(path, 16)) {
+            store.setValueForKey(3, 30, 1);
+            Assert.assertTrue(store.canStore(0));
+            Assert.assertFalse(store.canStore(-1));
+            Assert.assertFalse(store.canStore(MappedFileStore.MAX_CAPACITY));
+            Assert.assertThrows(IllegalArgumentException.class, () -> store.setValueForKey(-1, 1));
+
+            // a load with a key out of range doesn't touch the data
+            Assert.assertThrows(IllegalArgumentException.class,
+                    () -> store.loadSorted(new int[]{-1, 5}, new int[]{10, 50}, new int[]{1, 1}, 2));
+            Assert.assertEquals(30, (int) store.getValueForKey(3).orElseThrow());
+            Assert.assertEquals(1, store.size());
+        }
+        Files.delete(path);
+    }
+
+    @Test
+    public void testLogFileStoreReset() throws IOException, IllegalAccessException {
+        Path path = Files.createTempFile("test", ".log");
+        try (LogFileStore store = new LogFileStore(path, FsyncPolicy.everyRecords(100))) {
+            store.setValueForKey(1, 10);
+            store.setValueForKey(2, 20);
+            store.resetData();
+            store.setValueForKey(3, 30);
+            // replaces the key written before
+            store.loadSorted(new int[]{4, 5}, new int[]{40, 50}, new int[]{1, 2}, 2);
+        }
+
+        try (LogFileStore store = new LogFileStore(path, FsyncPolicy.everyRecords(100))) {
+            Assert.assertEquals(2, store.size());
+            Assert.assertFalse(store.containsKey(1));
+            Assert.assertFalse(store.containsKey(3));
+            Assert.assertEquals(50, (int) store.getValueForKey(5).orElseThrow());
+            Assert.assertEquals(2, (int) store.getUpdateCountForKey(5).orElseThrow());
+        }
+        Files.delete(path);
+    }
+
+}
@@ -0,0 +1,50 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+    @Test
+    public void testNoFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        for (int key = 0; key < 1000; key++) {
+            filter.add(key);
+        }
+        for (int key = 0; key < 1000; key++) {
+            Assert.assertTrue(filter.mightContain(key));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        for (int key = 0; key < 1000; key++) {
+            filter.add(key);
+        }
+        int falsePositives = 0;
+        for (int key = 1000; key < 101000; key++) {
+            if (filter.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+        // allow some slack above the configured rate
+        Assert.assertTrue(falsePositives < 2000);
+    }
+
+    @Test
+    public void testSnapshotAndDelta() {
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+        filter.add(1);
+        filter.drainDelta();
+        BloomFilter copy = BloomFilter.fromSnapshot(filter.getNumOfBits(), filter.getNumOfHashes(), filter.toWords());
+        Assert.assertTrue(copy.mightContain(1));
+
+        filter.add(42);
+        Assert.assertTrue(filter.hasDelta());
+        copy.applyDelta(filter.drainDelta());
+        Assert.assertTrue(copy.mightContain(42));
+        Assert.assertFalse(filter.hasDelta());
+    }
+
+}
@@ -0,0 +1,49 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.ChangeEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+public class ChangeFeedTest {
+
+    private static List<Long> seqs(Optional<List<ChangeEvent>> changes) {
+        return changes.orElseThrow().stream().map(ChangeEvent::getSeq).toList();
+    }
+
+    @Test
+    public void testResumeAfterSeqInBatches() {
+        ChangeFeed feed = new ChangeFeed(10);
+        for (long seq = 1; seq <= 6; seq++) {
+            feed.append(new ChangeEvent(seq, (int) seq, 0, 1, false));
+        }
+        Assert.assertEquals(List.of(1L, 2L, 3L), seqs(feed.getSince(0, 6, 3)));
+        Assert.assertEquals(List.of(4L, 5L), seqs(feed.getSince(3, 6, 2)));
+        Assert.assertEquals(List.of(), seqs(feed.getSince(6, 6, 3)));
+    }
+
+    @Test
+    public void testOldestChangesAreTruncated() {
+        ChangeFeed feed = new ChangeFeed(3);
+        for (long seq = 1; seq <= 5; seq++) {
+            feed.append(new ChangeEvent(seq, (int) seq, 0, 1, false));
+        }
+        Assert.assertEquals(3, feed.getFirstSeq());
+        Assert.assertTrue(feed.getSince(1, 5, 10).isEmpty());
+        Assert.assertEquals(List.of(3L, 4L, 5L), seqs(feed.getSince(2, 5, 10)));
+        Assert.assertEquals(List.of(3L, 4L, 5L), seqs(feed.getSince(-1, 5, 10)));
+    }
+
+    @Test
+    public void testGapsInSeqs() {
+        ChangeFeed feed = new ChangeFeed(10);
+        feed.append(new ChangeEvent(2, 1, 0, 1, false));
+        feed.append(new ChangeEvent(5, 2, 0, 1, true));
+        feed.append(new ChangeEvent(6, 3, 0, 1, false));
+        Assert.assertEquals(List.of(5L, 6L), seqs(feed.getSince(3, 6, 10)));
+        Assert.assertTrue(feed.getSince(3, 6, 10).orElseThrow().get(0).isCritical());
+    }
+
+}
@@ -0,0 +1,44 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+public class ChangeLogTest {
+
+    @Test
+    public void testKeysSinceSeq() {
+        ChangeLog changeLog = new ChangeLog(10);
+        changeLog.append(1, 7);
+        changeLog.append(2, 3);
+        changeLog.append(3, 7);
+        changeLog.append(4, 5);
+
+        Assert.assertEquals(Optional.of(Set.of(3, 5, 7)), changeLog.getKeysSince(0, 4));
+        Assert.assertEquals(Optional.of(Set.of(5, 7)), changeLog.getKeysSince(2, 4));
+        Assert.assertEquals(Optional.of(Set.of()), changeLog.getKeysSince(4, 4));
+    }
+
+    @Test
+    public void testTruncatedLog() {
+        ChangeLog changeLog = new ChangeLog(2);
+        for (int seq = 1; seq <= 5; seq++) {
+            changeLog.append(seq, seq * 10);
+        }
+        // only the commits 4 and 5 are left
+        Assert.assertTrue(changeLog.getKeysSince(2, 5).isEmpty());
+        Assert.assertEquals(Optional.of(Set.of(40, 50)), changeLog.getKeysSince(3, 5));
+    }
+
+    @Test
+    public void testDisabledLog() {
+        ChangeLog changeLog = new ChangeLog(0);
+        changeLog.append(1, 1);
+        Assert.assertTrue(changeLog.getKeysSince(0, 1).isEmpty());
+        // nothing is missing, so nothing has to be logged
+        Assert.assertEquals(Optional.of(Set.of()), changeLog.getKeysSince(1, 1));
+    }
+
+}
@@ -0,0 +1,90 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MILLIS = 1000;
+
+    private static CircuitBreaker openBreaker(long nowMillis) {
+        CircuitBreaker breaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_MILLIS);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            breaker.onFailure(nowMillis);
+        }
+        return breaker;
+    }
+
+    @Test
+    public void testOpensAtThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_MILLIS);
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertTrue(breaker.allowRequest(0));
+
+        breaker.onFailure(0);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(FAILURE_THRESHOLD, breaker.getFailureCount());
+        Assert.assertEquals(1, breaker.getOpenCount());
+    }
+
+    @Test
+    public void testSuccessResetsTheFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_MILLIS);
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        breaker.onSuccess();
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        // the failures are not consecutive
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals(2, breaker.getFailureCount());
+    }
+
+    @Test
+    public void testRejectsWhileOpen() {
+        CircuitBreaker breaker = openBreaker(0);
+        Assert.assertFalse(breaker.allowRequest(1));
+        Assert.assertFalse(breaker.allowRequest(OPEN_MILLIS - 1));
+        Assert.assertEquals(2, breaker.getRejectedCount());
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testTrialSuccessCloses() {
+        CircuitBreaker breaker = openBreaker(0);
+        Assert.assertTrue(breaker.allowRequest(OPEN_MILLIS));
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // a single trial request at a time
+        Assert.assertFalse(breaker.allowRequest(OPEN_MILLIS + 1));
+
+        breaker.onSuccess();
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals(0, breaker.getFailureCount());
+        Assert.assertTrue(breaker.allowRequest(OPEN_MILLIS + 2));
+    }
+
+    @Test
+    public void testTrialFailureReopens() {
+        CircuitBreaker breaker = openBreaker(0);
+        Assert.assertTrue(breaker.allowRequest(OPEN_MILLIS));
+        breaker.onFailure(OPEN_MILLIS + 10);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(2, breaker.getOpenCount());
+        // the open time starts again with the failed trial
+        Assert.assertFalse(breaker.allowRequest(2 * OPEN_MILLIS));
+        Assert.assertTrue(breaker.allowRequest(2 * OPEN_MILLIS + 10));
+    }
+
+    @Test
+    public void testLostTrialIsRepeated() {
+        CircuitBreaker breaker = openBreaker(0);
+        Assert.assertTrue(breaker.allowRequest(OPEN_MILLIS));
+        // no answer to the trial within the open time
+        Assert.assertTrue(breaker.allowRequest(2 * OPEN_MILLIS));
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+}
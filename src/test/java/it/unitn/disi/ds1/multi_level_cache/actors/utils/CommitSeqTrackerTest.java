@@ -0,0 +1,53 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CommitSeqTrackerTest {
+
+    @Test
+    public void testFirstCommitIsTheBaseline() {
+        CommitSeqTracker tracker = new CommitSeqTracker();
+        Assert.assertFalse(tracker.isKnown());
+        tracker.offer(0);
+        Assert.assertFalse(tracker.isKnown());
+
+        tracker.offer(7);
+        Assert.assertTrue(tracker.isKnown());
+        Assert.assertEquals(7, tracker.getLastSeq());
+        tracker.offer(8);
+        Assert.assertEquals(8, tracker.getLastSeq());
+    }
+
+    @Test
+    public void testGapIsClosedByTheMissingCommit() {
+        CommitSeqTracker tracker = new CommitSeqTracker();
+        tracker.offer(1);
+        tracker.offer(3);
+        tracker.offer(4);
+        Assert.assertEquals(1, tracker.getLastSeq());
+
+        tracker.offer(2);
+        Assert.assertEquals(4, tracker.getLastSeq());
+        // a duplicate changes nothing
+        tracker.offer(3);
+        Assert.assertEquals(4, tracker.getLastSeq());
+    }
+
+    @Test
+    public void testGapIsClosedByCatchUp() {
+        CommitSeqTracker tracker = new CommitSeqTracker();
+        tracker.offer(1);
+        tracker.offer(5);
+        tracker.offer(7);
+
+        tracker.advanceTo(4);
+        Assert.assertEquals(5, tracker.getLastSeq());
+        tracker.advanceTo(6);
+        Assert.assertEquals(7, tracker.getLastSeq());
+        // an older catch-up doesn't move back
+        tracker.advanceTo(2);
+        Assert.assertEquals(7, tracker.getLastSeq());
+    }
+
+}
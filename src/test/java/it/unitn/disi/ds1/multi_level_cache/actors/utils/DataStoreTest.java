@@ -0,0 +1,56 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.SortedMap;
+
+public class DataStoreTest {
+
+    private static final int[] KEYS = {2, 4, 6, 8, 10};
+    private static final int[] VALUES = {20, 40, 60, 80, 100};
+    private static final int[] UPDATE_COUNTS = {1, 2, 3, 4, 5};
+
+    @Test
+    public void testLoadSorted() throws IllegalAccessException {
+        DataStore store = new DataStore();
+        store.setValueForKey(1, 1);
+        store.lockValueForKey(4);
+
+        // the arrays may be larger than the loaded items
+        store.loadSorted(KEYS, VALUES, UPDATE_COUNTS, 4);
+        Assert.assertEquals(4, store.size());
+        Assert.assertFalse(store.containsKey(1));
+        Assert.assertFalse(store.containsKey(10));
+        Assert.assertFalse(store.isLocked(4));
+        Assert.assertEquals(60, (int) store.getValueForKey(6).orElseThrow());
+        Assert.assertEquals(3, (int) store.getUpdateCountForKey(6).orElseThrow());
+
+        // the store doesn't share the arrays
+        VALUES[2] = 0;
+        Assert.assertEquals(60, (int) store.getValueForKey(6).orElseThrow());
+        VALUES[2] = 60;
+    }
+
+    @Test
+    public void testSortedItemsRanges() {
+        SortedItems items = new SortedItems(KEYS, VALUES, UPDATE_COUNTS, KEYS.length);
+        Assert.assertEquals(2, (int) items.firstKey());
+        Assert.assertEquals(10, (int) items.lastKey());
+
+        SortedMap<Integer, DataEntry> subMap = items.subMap(3, 8);
+        Assert.assertEquals(List.of(4, 6), List.copyOf(subMap.keySet()));
+        Assert.assertEquals(40, subMap.get(4).getValue());
+        Assert.assertEquals(List.of(2, 4), List.copyOf(items.headMap(6).keySet()));
+        Assert.assertEquals(List.of(8, 10), List.copyOf(items.tailMap(7).keySet()));
+        // ranges of a range
+        Assert.assertEquals(List.of(6), List.copyOf(subMap.tailMap(5).keySet()));
+        Assert.assertEquals(6, (int) subMap.lastKey());
+
+        Assert.assertTrue(items.subMap(11, 20).isEmpty());
+        Assert.assertTrue(items.headMap(2).isEmpty());
+        Assert.assertThrows(IllegalArgumentException.class, () -> items.subMap(8, 3));
+    }
+
+}
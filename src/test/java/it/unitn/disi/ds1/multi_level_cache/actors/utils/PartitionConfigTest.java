@@ -0,0 +1,44 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class PartitionConfigTest {
+
+    @Test
+    public void testHashSpreadsKeysEvenly() {
+        PartitionConfig config = PartitionConfig.hash(4);
+        int[] counts = new int[4];
+        for (int key = 0; key < 100000; key++) {
+            counts[config.getPartition(key)]++;
+        }
+        for (int count : counts) {
+            // allow some slack around a quarter of the keys
+            Assert.assertTrue(count > 23000 && count < 27000);
+        }
+        Assert.assertEquals(List.of(0, 1, 2, 3), config.getPartitionsInRange(10, 20));
+    }
+
+    @Test
+    public void testRangeOwnsContiguousKeys() {
+        PartitionConfig config = PartitionConfig.range(3, 100);
+        Assert.assertEquals(0, config.getPartition(-5));
+        Assert.assertEquals(0, config.getPartition(33));
+        Assert.assertEquals(1, config.getPartition(34));
+        Assert.assertEquals(2, config.getPartition(99));
+        Assert.assertEquals(2, config.getPartition(1000));
+        Assert.assertEquals(List.of(1), config.getPartitionsInRange(40, 50));
+        Assert.assertEquals(List.of(0, 1, 2), config.getPartitionsInRange(0, 100));
+    }
+
+    @Test
+    public void testSingleOwnsAllKeys() {
+        PartitionConfig config = PartitionConfig.single();
+        Assert.assertFalse(config.isPartitioned());
+        Assert.assertEquals(0, config.getPartition(Integer.MIN_VALUE));
+        Assert.assertEquals(List.of(0), config.getPartitionsInRange(0, 10));
+    }
+
+}
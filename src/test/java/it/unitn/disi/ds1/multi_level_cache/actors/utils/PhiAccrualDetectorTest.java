@@ -0,0 +1,69 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PhiAccrualDetectorTest {
+
+    /**
+     * Sends a heartbeat every interval, the last one at the returned time.
+     */
+    private static long sendHeartbeats(PhiAccrualDetector detector, int count, long... intervals) {
+        long now = 0;
+        for (int i = 0; i < count; i++) {
+            now = now + intervals[i % intervals.length];
+            detector.heartbeat(now);
+        }
+        return now;
+    }
+
+    @Test
+    public void testPhiGrowsWithSilence() {
+        PhiAccrualDetector detector = new PhiAccrualDetector(10, 10, 100, 0);
+        long last = sendHeartbeats(detector, 10, 100);
+        Assert.assertEquals(last, detector.getLastArrivalMillis());
+
+        double justAnswered = detector.phi(last);
+        double onTime = detector.phi(last + 100);
+        double late = detector.phi(last + 150);
+        Assert.assertTrue(justAnswered < 0.01);
+        // half of the intervals are longer than the mean
+        Assert.assertEquals(Math.log10(2), onTime, 0.01);
+        Assert.assertTrue(late > 5);
+        Assert.assertTrue(justAnswered < onTime && onTime < late);
+    }
+
+    @Test
+    public void testJitterDelaysTheSuspicion() {
+        PhiAccrualDetector regular = new PhiAccrualDetector(10, 10, 100, 0);
+        PhiAccrualDetector jittery = new PhiAccrualDetector(10, 10, 100, 0);
+        long regularLast = sendHeartbeats(regular, 10, 100);
+        long jitteryLast = sendHeartbeats(jittery, 10, 50, 150);
+        Assert.assertEquals(regularLast, jitteryLast);
+
+        // same mean, but a wider distribution of the intervals
+        Assert.assertTrue(jittery.phi(jitteryLast + 150) < regular.phi(regularLast + 150));
+        Assert.assertTrue(jittery.phi(jitteryLast + 150) < 1);
+    }
+
+    @Test
+    public void testExpectedIntervalBeforeFirstHeartbeat() {
+        PhiAccrualDetector detector = new PhiAccrualDetector(10, 10, 100, 0);
+        Assert.assertEquals(Math.log10(2), detector.phi(100), 0.01);
+        Assert.assertTrue(detector.phi(300) > 3);
+    }
+
+    @Test
+    public void testResetRestartsTheSilence() {
+        PhiAccrualDetector detector = new PhiAccrualDetector(10, 10, 100, 0);
+        long last = sendHeartbeats(detector, 10, 100);
+        Assert.assertTrue(detector.phi(last + 1000) > 8);
+
+        detector.reset(last + 1000);
+        Assert.assertEquals(last + 1000, detector.getLastArrivalMillis());
+        Assert.assertTrue(detector.phi(last + 1000) < 0.01);
+        // the intervals observed before are kept
+        Assert.assertEquals(Math.log10(2), detector.phi(last + 1100), 0.01);
+    }
+
+}
@@ -0,0 +1,52 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RttEstimatorTest {
+
+    @Test
+    public void testFirstSample() {
+        RttEstimator estimator = new RttEstimator();
+        Assert.assertFalse(estimator.hasSamples());
+
+        estimator.sample(100);
+        Assert.assertTrue(estimator.hasSamples());
+        Assert.assertEquals(100, estimator.getSmoothedRttMillis());
+        // SRTT + 4 * RTT / 2
+        Assert.assertEquals(300, estimator.getTimeoutMillis());
+    }
+
+    @Test
+    public void testConvergesToStableRtt() {
+        RttEstimator estimator = new RttEstimator();
+        for (int i = 0; i < 200; i++) {
+            estimator.sample(40);
+        }
+        Assert.assertEquals(200, estimator.getSampleCount());
+        Assert.assertEquals(40, estimator.getSmoothedRttMillis());
+        // the variance has decayed, so the timeout is close to the RTT
+        Assert.assertTrue(estimator.getTimeoutMillis() <= 41);
+    }
+
+    @Test
+    public void testJitterWidensTheTimeout() {
+        RttEstimator stable = new RttEstimator();
+        RttEstimator jittery = new RttEstimator();
+        for (int i = 0; i < 100; i++) {
+            stable.sample(50);
+            jittery.sample(i % 2 == 0 ? 20 : 80);
+        }
+        Assert.assertEquals(50.0, jittery.getSmoothedRttMillis(), 10.0);
+        Assert.assertTrue(jittery.getTimeoutMillis() > stable.getTimeoutMillis() + 50);
+    }
+
+    @Test
+    public void testNegativeSampleCountsAsZero() {
+        RttEstimator estimator = new RttEstimator();
+        estimator.sample(-5);
+        Assert.assertEquals(0, estimator.getSmoothedRttMillis());
+        Assert.assertEquals(0, estimator.getTimeoutMillis());
+    }
+
+}
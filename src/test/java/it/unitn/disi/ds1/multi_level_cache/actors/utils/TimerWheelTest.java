@@ -0,0 +1,73 @@
+package it.unitn.disi.ds1.multi_level_cache.actors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TimerWheelTest {
+
+    @Test
+    public void testTimersExpireAtTheirTick() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 8);
+        long first = wheel.schedule("first", 25, 1000);
+        long second = wheel.schedule("second", 5, 1000);
+        Assert.assertEquals(2, wheel.size());
+
+        // the delay is rounded up to the next tick
+        Assert.assertEquals(Map.of(second, "second"), wheel.advance(1010));
+        Assert.assertEquals(Map.of(), wheel.advance(1020));
+        Assert.assertEquals(Map.of(first, "first"), wheel.advance(1030));
+        Assert.assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testTimersBeyondOneRevolution() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 4);
+        long near = wheel.schedule("near", 20, 0);
+        // same slot as the near timer, but two rounds later
+        long far = wheel.schedule("far", 100, 0);
+
+        Assert.assertEquals(Map.of(near, "near"), wheel.advance(20));
+        Assert.assertEquals(Map.of(), wheel.advance(60));
+        Assert.assertEquals(1, wheel.size());
+        Assert.assertEquals(Map.of(far, "far"), wheel.advance(100));
+        Assert.assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testOverdueTimersExpireTogether() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 4);
+        wheel.schedule("a", 10, 0);
+        wheel.schedule("b", 30, 0);
+        wheel.schedule("c", 70, 0);
+        Assert.assertEquals(List.of("a", "b", "c"), List.copyOf(wheel.advance(500).values()));
+    }
+
+    @Test
+    public void testCancel() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 8);
+        long cancelled = wheel.schedule("cancelled", 20, 0);
+        long kept = wheel.schedule("kept", 20, 0);
+
+        Assert.assertTrue(wheel.cancel(cancelled));
+        Assert.assertFalse(wheel.cancel(cancelled));
+        Assert.assertEquals(Map.of(kept, "kept"), wheel.advance(20));
+        // an expired timer can't be cancelled anymore
+        Assert.assertFalse(wheel.cancel(kept));
+    }
+
+    @Test
+    public void testRealignsAfterIdle() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 8);
+        wheel.schedule("early", 10, 0);
+        Assert.assertEquals(1, wheel.advance(10).size());
+
+        // the wheel doesn't tick while empty, the next timer still waits for its full delay
+        long late = wheel.schedule("late", 30, 1005);
+        Assert.assertEquals(Map.of(), wheel.advance(1030));
+        Assert.assertEquals(Map.of(late, "late"), wheel.advance(1035));
+    }
+
+}
@@ -0,0 +1,73 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public class DatasetLoaderTest {
+
+    @Test
+    public void testLoadCsvInChunks() throws IOException {
+        Path path = Files.createTempFile("test-dataset", ".csv");
+        StringBuilder csv = new StringBuilder("key,value,updateCount\n");
+        for (int key = 999; key >= 0; key--) {
+            csv.append(key).append(',').append(key * 2).append(",1\r\n");
+        }
+        // the latest record of a key wins
+        csv.append("\n-5, 7 ,3\n500,1,2");
+        Files.writeString(path, csv);
+
+        // chunks of a few lines, such that most lines cross a chunk boundary
+        DatasetLoader loader = new DatasetLoader(path, DatasetLoader.Format.of(path), 7, 4);
+        DatasetLoader.Chunk items = loader.loadMerged();
+        Assert.assertEquals(1002, loader.getRecordCount());
+        Assert.assertEquals(1001, items.getSize());
+        Assert.assertEquals(-5, items.getKeys()[0]);
+        Assert.assertEquals(7, items.getValues()[0]);
+        for (int i = 1; i < items.getSize(); i++) {
+            Assert.assertEquals(i - 1, items.getKeys()[i]);
+        }
+        Assert.assertEquals(1, items.getValues()[501]);
+        Assert.assertEquals(2, items.getUpdateCounts()[501]);
+        Assert.assertEquals(1998, items.getValues()[1000]);
+
+        Files.writeString(path, "1,2,3\n4,five,6\n");
+        Assert.assertThrows(IOException.class, () -> new DatasetLoader(path, DatasetLoader.Format.CSV, 1, 1).loadMerged());
+        Files.delete(path);
+    }
+
+    @Test
+    public void testLoadBinaryIntoLsmTree() throws IOException {
+        Path path = Files.createTempFile("test-dataset", ".bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            for (int round = 1; round <= 3; round++) {
+                for (int key = 0; key < 100; key++) {
+                    out.writeInt(key * 3);
+                    out.writeInt(round);
+                    out.writeInt(round);
+                }
+            }
+        }
+
+        Path directory = Files.createTempDirectory("test-lsm");
+        try (LsmTree tree = new LsmTree(directory, 100, 8)) {
+            long count = tree.load(new DatasetLoader(path, DatasetLoader.Format.BINARY, 50, 2));
+            Assert.assertEquals(300, count);
+            Assert.assertEquals(6, tree.getTableCount());
+        }
+        try (LsmTree tree = new LsmTree(directory, 100, 8)) {
+            Optional<DataItem> item = tree.read(42 * 3);
+            Assert.assertTrue(item.isPresent());
+            Assert.assertEquals(3, item.get().getValue());
+            Assert.assertFalse(tree.read(1).isPresent());
+        }
+        Files.delete(path);
+    }
+
+}
@@ -0,0 +1,72 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogCompactorTest {
+
+    @Test
+    public void testKeepsLatestRecordPerKeyAfterCheckpoint() throws Exception {
+        Path path = Files.createTempFile("test", ".wal");
+        LogCompactor compactor = new LogCompactor(0);
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.perWrite())) {
+            // keys 0 to 4 are rewritten 20 times, seq 1 to 100
+            for (int seq = 1; seq <= 100; seq++) {
+                log.append(LogRecord.put(seq % 5, seq, seq, seq));
+            }
+            long endOffset = log.getWrittenBytes();
+            LogCompactor.Result result = compactor.compact(path, endOffset, 97).get();
+            Assert.assertEquals(100, result.getInputRecords());
+            Assert.assertEquals(97, result.getTruncatedRecords());
+            Assert.assertEquals(3, result.getOutputRecords());
+
+            // appended while the copy is made, it must survive the swap
+            log.append(LogRecord.commit(1, 42, 101, 101));
+            log.replaceBy(LogCompactor.getCompactedPath(path), endOffset);
+            log.append(LogRecord.put(2, 43, 102, 102));
+        } finally {
+            compactor.close();
+        }
+
+        List<LogRecord> records = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.perWrite())) {
+            Assert.assertEquals(5, log.replay(records::add));
+        }
+        Assert.assertEquals(List.of(98L, 99L, 100L, 101L, 102L), records.stream().map(LogRecord::getSeq).toList());
+        Assert.assertEquals(LogRecord.COMMIT, records.get(3).getType());
+        Assert.assertEquals(42, records.get(3).getValue());
+        Files.delete(path);
+    }
+
+    @Test
+    public void testWithoutCheckpointKeepsEveryKey() throws Exception {
+        Path path = Files.createTempFile("test", ".wal");
+        LogCompactor compactor = new LogCompactor(1024 * 1024);
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.everyRecords(100))) {
+            for (int seq = 0; seq < 1000; seq++) {
+                log.append(LogRecord.put(seq % 10, seq, seq, seq));
+            }
+            log.sync();
+            long endOffset = log.getWrittenBytes();
+            LogCompactor.Result result = compactor.compact(path, endOffset, 0).get();
+            Assert.assertEquals(0, result.getTruncatedRecords());
+            Assert.assertEquals(10, result.getOutputRecords());
+            Assert.assertEquals(10L * WriteAheadLog.RECORD_BYTES, log.replaceBy(LogCompactor.getCompactedPath(path), endOffset));
+        } finally {
+            compactor.close();
+        }
+
+        List<LogRecord> records = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.perWrite())) {
+            log.replay(records::add);
+        }
+        Assert.assertEquals(999, records.get(9).getValue());
+        Files.delete(path);
+    }
+
+}
@@ -0,0 +1,74 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import it.unitn.disi.ds1.multi_level_cache.messages.utils.DataItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+
+public class LsmTreeTest {
+
+    @Test
+    public void testReadAfterFlushAndCompaction() throws IOException {
+        Path directory = Files.createTempDirectory("test-lsm");
+        long flushedSeq;
+        try (LsmTree tree = new LsmTree(directory, 100, 2)) {
+            long seq = 0;
+            for (int round = 1; round <= 5; round++) {
+                for (int key = 0; key < 100; key++) {
+                    seq = seq + 1;
+                    tree.put(key * 7, round, round, seq);
+                }
+            }
+            flushedSeq = tree.getFlushedSeq();
+        }
+
+        try (LsmTree tree = new LsmTree(directory, 100, 2)) {
+            // everything up to the flushed write survives the restart, the rest is part of the log
+            Assert.assertTrue(tree.getFlushedSeq() >= flushedSeq);
+            Assert.assertTrue(tree.getTableCount() <= 3);
+            int round = (int) (tree.getFlushedSeq() / 100);
+            Assert.assertTrue(round >= 1);
+            Optional<DataItem> item = tree.read(7 * 42);
+            Assert.assertTrue(item.isPresent());
+            Assert.assertEquals(round, item.get().getValue());
+            Assert.assertFalse(tree.read(1).isPresent());
+
+            tree.put(3, 99, 1, tree.getFlushedSeq() + 1);
+            Iterator<DataItem> items = tree.scan(0);
+            Assert.assertEquals(0, items.next().getKey());
+            Assert.assertEquals(99, items.next().getValue());
+            int count = 2;
+            while (items.hasNext()) {
+                items.next();
+                count = count + 1;
+            }
+            Assert.assertEquals(101, count);
+        }
+    }
+
+    @Test
+    public void testLoadSortedSurvivesRestart() throws IOException {
+        Path directory = Files.createTempDirectory("test-lsm");
+        int[] keys = {1, 5, 9};
+        int[] values = {10, 50, 90};
+        int[] updateCounts = {1, 2, 3};
+        try (LsmTree tree = new LsmTree(directory, 100, 2)) {
+            tree.loadSorted(keys, values, updateCounts, keys.length);
+            Assert.assertEquals(1, tree.getTableCount());
+            Assert.assertEquals(0, tree.getFlushedSeq());
+            Assert.assertThrows(IllegalStateException.class, () -> tree.loadSorted(keys, values, updateCounts, 1));
+        }
+
+        try (LsmTree tree = new LsmTree(directory, 100, 2)) {
+            Assert.assertEquals(50, tree.read(5).orElseThrow().getValue());
+            Assert.assertEquals(2, tree.read(5).orElseThrow().getUpdateCount());
+            Assert.assertFalse(tree.read(4).isPresent());
+        }
+    }
+
+}
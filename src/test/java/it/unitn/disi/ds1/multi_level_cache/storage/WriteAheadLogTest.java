@@ -0,0 +1,63 @@
+package it.unitn.disi.ds1.multi_level_cache.storage;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WriteAheadLogTest {
+
+    @Test
+    public void testReplay() throws IOException {
+        Path path = Files.createTempFile("test", ".wal");
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.everyRecords(4))) {
+            for (int i = 0; i < 10; i++) {
+                log.append(LogRecord.put(i, i * 10, 1, i + 1));
+            }
+            log.append(LogRecord.commit(3, 42, 2, 11));
+        }
+
+        List<LogRecord> records = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.perWrite())) {
+            Assert.assertEquals(11, log.replay(records::add));
+        }
+        Assert.assertEquals(30, records.get(3).getValue());
+        LogRecord last = records.get(10);
+        Assert.assertEquals(LogRecord.COMMIT, last.getType());
+        Assert.assertEquals(42, last.getValue());
+        Assert.assertEquals(2, last.getUpdateCount());
+        Assert.assertEquals(11, last.getSeq());
+        Files.delete(path);
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws IOException {
+        Path path = Files.createTempFile("test", ".wal");
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.perWrite())) {
+            log.append(LogRecord.put(1, 1, 1, 1));
+            log.append(LogRecord.put(2, 2, 1, 2));
+        }
+        // the process died in the middle of the third record
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 0, 0, 0}));
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.perWrite())) {
+            Assert.assertEquals(2, log.replay(record -> {}));
+            Assert.assertEquals(4, log.getTruncatedBytes());
+            log.append(LogRecord.put(3, 3, 1, 3));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(path, FsyncPolicy.perWrite())) {
+            Assert.assertEquals(3, log.replay(record -> {}));
+        }
+        Files.delete(path);
+    }
+
+}